@@ -0,0 +1,28 @@
+package cn.edu.gfkd.evidence.config;
+
+import org.springframework.boot.autoconfigure.security.SecurityProperties;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import cn.edu.gfkd.evidence.service.CertificateService;
+import cn.edu.gfkd.evidence.service.CertificateUrlSigner;
+
+/**
+ * 签名证书下载配置：下载处理器排在 Spring Security 过滤器链之前，签名下载请求不经过认证；
+ * 未配置签名密钥时不注册下载处理器
+ */
+@Configuration
+public class CertificateDownloadConfig {
+
+    @Bean
+    public FilterRegistrationBean<SignedCertificateDownloadFilter> signedCertificateDownloadFilter(
+            CertificateUrlSigner certificateUrlSigner, CertificateService certificateService) {
+        FilterRegistrationBean<SignedCertificateDownloadFilter> registration = new FilterRegistrationBean<>(
+                new SignedCertificateDownloadFilter(certificateUrlSigner, certificateService));
+        registration.addUrlPatterns(CertificateUrlSigner.DOWNLOAD_PATH + "*");
+        registration.setOrder(SecurityProperties.DEFAULT_FILTER_ORDER - 10);
+        registration.setEnabled(certificateUrlSigner.isEnabled());
+        return registration;
+    }
+}
@@ -8,6 +8,8 @@ public class CertificateStorageConfig {
 
     private String type = "filesystem";
     private Filesystem filesystem = new Filesystem();
+    private Segment segment = new Segment();
+    private S3 s3 = new S3();
 
     public String getType() {
         return type;
@@ -25,10 +27,32 @@ public class CertificateStorageConfig {
         this.filesystem = filesystem;
     }
 
+    public Segment getSegment() {
+        return segment;
+    }
+
+    public void setSegment(Segment segment) {
+        this.segment = segment;
+    }
+
+    public S3 getS3() {
+        return s3;
+    }
+
+    public void setS3(S3 s3) {
+        this.s3 = s3;
+    }
+
     public static class Filesystem {
         private String basePath = "data/certificates";
         private boolean createDirectories = true;
         private String urlBasePath = "data/certificates";
+        // 启动时在后台把旧的平铺目录布局迁移到按摘要分片的布局
+        private boolean migrateOnStartup = true;
+        // 落盘策略：per-file 每个证书单独同步，grouped 合并并发写入的清单同步，none 不主动同步
+        private String fsync = "grouped";
+        // grouped 策略下组长等待其他写入加入本组的时间
+        private long fsyncGroupWindowMs = 0;
 
         public String getBasePath() {
             return basePath;
@@ -53,5 +77,207 @@ public class CertificateStorageConfig {
         public void setUrlBasePath(String urlBasePath) {
             this.urlBasePath = urlBasePath;
         }
+
+        public boolean isMigrateOnStartup() {
+            return migrateOnStartup;
+        }
+
+        public void setMigrateOnStartup(boolean migrateOnStartup) {
+            this.migrateOnStartup = migrateOnStartup;
+        }
+
+        public String getFsync() {
+            return fsync;
+        }
+
+        public void setFsync(String fsync) {
+            this.fsync = fsync;
+        }
+
+        public long getFsyncGroupWindowMs() {
+            return fsyncGroupWindowMs;
+        }
+
+        public void setFsyncGroupWindowMs(long fsyncGroupWindowMs) {
+            this.fsyncGroupWindowMs = fsyncGroupWindowMs;
+        }
+    }
+
+    public static class Segment {
+        private String basePath = "data/certificate-segments";
+        // 活动段文件超过该大小后封存并新建段文件
+        private long maxSegmentBytes = 256L * 1024 * 1024;
+        // 段内已删除数据占比超过该值时压缩
+        private double compactionGarbageRatio = 0.5;
+        private long compactionIntervalMs = 60000;
+
+        public String getBasePath() {
+            return basePath;
+        }
+
+        public void setBasePath(String basePath) {
+            this.basePath = basePath;
+        }
+
+        public long getMaxSegmentBytes() {
+            return maxSegmentBytes;
+        }
+
+        public void setMaxSegmentBytes(long maxSegmentBytes) {
+            this.maxSegmentBytes = maxSegmentBytes;
+        }
+
+        public double getCompactionGarbageRatio() {
+            return compactionGarbageRatio;
+        }
+
+        public void setCompactionGarbageRatio(double compactionGarbageRatio) {
+            this.compactionGarbageRatio = compactionGarbageRatio;
+        }
+
+        public long getCompactionIntervalMs() {
+            return compactionIntervalMs;
+        }
+
+        public void setCompactionIntervalMs(long compactionIntervalMs) {
+            this.compactionIntervalMs = compactionIntervalMs;
+        }
+    }
+
+    public static class S3 {
+        // S3 兼容服务地址（MinIO 或 AWS 区域终端节点）
+        private String endpoint = "http://localhost:9000";
+        private String region = "us-east-1";
+        private String bucket = "certificates";
+        // 路径风格寻址（MinIO 需要）；false 时使用虚拟主机风格
+        private boolean pathStyleAccess = true;
+        private String accessKey = "";
+        private String secretKey = "";
+        // 对象键前缀，多个环境可共用一个存储桶
+        private String keyPrefix = "certificates/";
+        // 启动时存储桶不存在则创建
+        private boolean createBucket = false;
+        // 同时占用的最大连接数，连接在请求间复用
+        private int maxConnections = 32;
+        private long connectTimeoutMs = 5000;
+        private long requestTimeoutMs = 30000;
+        // 超过该大小的证书分片上传；S3 要求除最后一个分片外每片不小于 5MB
+        private long partSizeBytes = 8L * 1024 * 1024;
+        // getPublicUrl 返回的预签名URL有效期，0 表示不提供URL
+        private long presignedUrlExpirySeconds = 900;
+        // 异步预取的证书最多保留的数量
+        private int prefetchMaxEntries = 64;
+
+        public String getEndpoint() {
+            return endpoint;
+        }
+
+        public void setEndpoint(String endpoint) {
+            this.endpoint = endpoint;
+        }
+
+        public String getRegion() {
+            return region;
+        }
+
+        public void setRegion(String region) {
+            this.region = region;
+        }
+
+        public String getBucket() {
+            return bucket;
+        }
+
+        public void setBucket(String bucket) {
+            this.bucket = bucket;
+        }
+
+        public boolean isPathStyleAccess() {
+            return pathStyleAccess;
+        }
+
+        public void setPathStyleAccess(boolean pathStyleAccess) {
+            this.pathStyleAccess = pathStyleAccess;
+        }
+
+        public String getAccessKey() {
+            return accessKey;
+        }
+
+        public void setAccessKey(String accessKey) {
+            this.accessKey = accessKey;
+        }
+
+        public String getSecretKey() {
+            return secretKey;
+        }
+
+        public void setSecretKey(String secretKey) {
+            this.secretKey = secretKey;
+        }
+
+        public String getKeyPrefix() {
+            return keyPrefix;
+        }
+
+        public void setKeyPrefix(String keyPrefix) {
+            this.keyPrefix = keyPrefix;
+        }
+
+        public boolean isCreateBucket() {
+            return createBucket;
+        }
+
+        public void setCreateBucket(boolean createBucket) {
+            this.createBucket = createBucket;
+        }
+
+        public int getMaxConnections() {
+            return maxConnections;
+        }
+
+        public void setMaxConnections(int maxConnections) {
+            this.maxConnections = maxConnections;
+        }
+
+        public long getConnectTimeoutMs() {
+            return connectTimeoutMs;
+        }
+
+        public void setConnectTimeoutMs(long connectTimeoutMs) {
+            this.connectTimeoutMs = connectTimeoutMs;
+        }
+
+        public long getRequestTimeoutMs() {
+            return requestTimeoutMs;
+        }
+
+        public void setRequestTimeoutMs(long requestTimeoutMs) {
+            this.requestTimeoutMs = requestTimeoutMs;
+        }
+
+        public long getPartSizeBytes() {
+            return partSizeBytes;
+        }
+
+        public void setPartSizeBytes(long partSizeBytes) {
+            this.partSizeBytes = partSizeBytes;
+        }
+
+        public long getPresignedUrlExpirySeconds() {
+            return presignedUrlExpirySeconds;
+        }
+
+        public void setPresignedUrlExpirySeconds(long presignedUrlExpirySeconds) {
+            this.presignedUrlExpirySeconds = presignedUrlExpirySeconds;
+        }
+
+        public int getPrefetchMaxEntries() {
+            return prefetchMaxEntries;
+        }
+
+        public void setPrefetchMaxEntries(int prefetchMaxEntries) {
+            this.prefetchMaxEntries = prefetchMaxEntries;
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,175 @@
+package cn.edu.gfkd.evidence.config;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import java.util.regex.Pattern;
+
+import org.springframework.core.io.InputStreamResource;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.ResourceRegion;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.ResourceRegionHttpMessageConverter;
+import org.springframework.http.server.ServletServerHttpResponse;
+import org.springframework.lang.NonNull;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import cn.edu.gfkd.evidence.service.CertificateService;
+import cn.edu.gfkd.evidence.service.CertificateUrlSigner;
+import cn.edu.gfkd.evidence.service.storage.CertificateMetadata;
+import cn.edu.gfkd.evidence.utils.ETagUtils;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 签名证书下载处理器
+ *
+ * 注册在 Spring Security 过滤器链之前，直接处理 {@link CertificateUrlSigner#DOWNLOAD_PATH} 下的请求：
+ * 校验链接签名和过期时间后从缓存或存储流式输出证书，不解析 JWT、不加载用户、不查询数据库，也不进入 DispatcherServlet。
+ * 条件请求与证书下载接口使用同一套 ETag 判断；可随机读取的资源支持 Range 请求，按 206 分段输出。
+ */
+@Slf4j
+@RequiredArgsConstructor
+public class SignedCertificateDownloadFilter extends OncePerRequestFilter {
+
+    private static final Pattern CERTIFICATE_ID = Pattern.compile("[A-Za-z0-9._-]{1,200}");
+
+    private static final ResourceRegionHttpMessageConverter REGION_CONVERTER =
+            new ResourceRegionHttpMessageConverter();
+
+    private final CertificateUrlSigner certificateUrlSigner;
+    private final CertificateService certificateService;
+
+    @Override
+    protected void doFilterInternal(@NonNull HttpServletRequest request,
+                                    @NonNull HttpServletResponse response,
+                                    @NonNull FilterChain filterChain) throws IOException {
+        String method = request.getMethod();
+        if (!"GET".equals(method) && !"HEAD".equals(method)) {
+            response.setHeader(HttpHeaders.ALLOW, "GET, HEAD");
+            response.sendError(HttpServletResponse.SC_METHOD_NOT_ALLOWED);
+            return;
+        }
+
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        String certificateId = path.startsWith(CertificateUrlSigner.DOWNLOAD_PATH)
+                ? path.substring(CertificateUrlSigner.DOWNLOAD_PATH.length()) : "";
+        if (!CERTIFICATE_ID.matcher(certificateId).matches()) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+
+        long expires = parseExpires(request.getParameter(CertificateUrlSigner.EXPIRES_PARAMETER));
+        String signature = request.getParameter(CertificateUrlSigner.SIGNATURE_PARAMETER);
+        if (!certificateUrlSigner.verify(certificateId, expires, signature)) {
+            log.debug("Rejected certificate download link for {}", certificateId);
+            response.sendError(HttpServletResponse.SC_FORBIDDEN);
+            return;
+        }
+
+        // 未命中 ETag 时才读取证书；ETag 取自存储记录的内容摘要
+        Optional<CertificateMetadata> metadata = certificateService.getCertificateMetadata(certificateId);
+        if (metadata.isPresent()) {
+            String etag = "\"" + metadata.get().getSha256() + "\"";
+            response.setHeader(HttpHeaders.ETAG, etag);
+            if (ETagUtils.matches(request.getHeader(HttpHeaders.IF_NONE_MATCH), etag)) {
+                response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+                return;
+            }
+        }
+
+        if ("HEAD".equals(method)) {
+            if (metadata.isEmpty() && !certificateService.certificateExists(certificateId)) {
+                response.sendError(HttpServletResponse.SC_NOT_FOUND);
+                return;
+            }
+            writeHeaders(response, certificateId, expires);
+            metadata.ifPresent(value -> response.setContentLengthLong(value.getSize()));
+            return;
+        }
+
+        Optional<Resource> certificate = certificateService.getCertificateResource(certificateId);
+        if (certificate.isEmpty()) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+
+        Resource resource = certificate.get();
+        writeHeaders(response, certificateId, expires);
+
+        // InputStreamResource 只能顺序读取一次，既不能按区间读取，计算长度也会读完数据流
+        boolean seekable = !(resource instanceof InputStreamResource);
+        if (seekable) {
+            response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+            String range = request.getHeader(HttpHeaders.RANGE);
+            if (range != null) {
+                writeRanges(response, resource, range);
+                return;
+            }
+        }
+
+        long contentLength = metadata.map(CertificateMetadata::getSize).orElse(-1L);
+        if (contentLength < 0 && seekable) {
+            contentLength = resource.contentLength();
+        }
+        if (contentLength >= 0) {
+            response.setContentLengthLong(contentLength);
+        }
+
+        try (InputStream inputStream = resource.getInputStream()) {
+            OutputStream outputStream = response.getOutputStream();
+            inputStream.transferTo(outputStream);
+            outputStream.flush();
+        }
+    }
+
+    /**
+     * 按 Range 请求输出 206 分段内容，多个区间时输出 multipart/byteranges；区间无效时返回 416
+     */
+    private void writeRanges(HttpServletResponse response, Resource resource, String range)
+            throws IOException {
+        List<ResourceRegion> regions;
+        try {
+            regions = HttpRange.toResourceRegions(HttpRange.parseRanges(range), resource);
+        } catch (IllegalArgumentException e) {
+            response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + resource.contentLength());
+            response.sendError(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+            return;
+        }
+
+        response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+        ServletServerHttpResponse outputMessage = new ServletServerHttpResponse(response);
+        REGION_CONVERTER.write(regions.size() == 1 ? regions.get(0) : regions, null,
+                MediaType.APPLICATION_PDF, outputMessage);
+        outputMessage.flush();
+    }
+
+    private void writeHeaders(HttpServletResponse response, String certificateId, long expires) {
+        String filename = certificateId.replaceFirst("^cert_", "certificate_") + ".pdf";
+        response.setContentType(MediaType.APPLICATION_PDF_VALUE);
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + filename + "\"");
+        // 链接过期后缓存也不再使用
+        response.setHeader(HttpHeaders.CACHE_CONTROL, "private, max-age="
+                + Math.max(0, expires - Instant.now().getEpochSecond()));
+    }
+
+    private long parseExpires(String value) {
+        if (value == null) {
+            return -1;
+        }
+
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+}
@@ -2,21 +2,48 @@ package cn.edu.gfkd.evidence.controller;
 
 import cn.edu.gfkd.evidence.dto.ApiResponse;
 import cn.edu.gfkd.evidence.dto.CertificateDTO;
+import cn.edu.gfkd.evidence.dto.CertificateExportFilter;
+import cn.edu.gfkd.evidence.dto.CursorSlice;
 import cn.edu.gfkd.evidence.dto.EvidenceDTO;
+import cn.edu.gfkd.evidence.entity.CertificateRerenderJob;
 import cn.edu.gfkd.evidence.entity.EvidenceEntity;
+import cn.edu.gfkd.evidence.enums.CertificateStatus;
+import cn.edu.gfkd.evidence.enums.EvidenceSortKey;
+import cn.edu.gfkd.evidence.service.storage.EvidenceCounterService;
 import cn.edu.gfkd.evidence.service.storage.EvidenceStorageService;
+import cn.edu.gfkd.evidence.service.CertificateExportService;
+import cn.edu.gfkd.evidence.service.CertificateRenderingService;
+import cn.edu.gfkd.evidence.service.CertificateRerenderService;
 import cn.edu.gfkd.evidence.service.CertificateStorageService;
+import cn.edu.gfkd.evidence.service.CertificateUrlSigner;
+import cn.edu.gfkd.evidence.utils.ETagUtils;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.io.InputStreamResource;
+import org.springframework.core.io.Resource;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.async.AsyncWebRequest;
+import org.springframework.web.context.request.async.CallableProcessingInterceptor;
+import org.springframework.web.context.request.async.WebAsyncUtils;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.io.IOException;
+import java.math.BigInteger;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
 import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.Callable;
 import java.util.stream.Collectors;
 
 @RestController
@@ -26,10 +53,22 @@ public class EvidenceController {
 
     @Autowired
     private EvidenceStorageService evidenceStorageService;
+
+    @Autowired
+    private EvidenceCounterService evidenceCounterService;
     
     @Autowired
     private CertificateStorageService certificateStorageService;
 
+    @Autowired
+    private CertificateRenderingService certificateRenderingService;
+
+    @Autowired
+    private CertificateExportService certificateExportService;
+
+    @Autowired
+    private CertificateRerenderService certificateRerenderService;
+
     @GetMapping("/{id}")
     @PreAuthorize("hasRole('USER') or hasRole('ADMIN')")
     public ResponseEntity<ApiResponse<EvidenceDTO>> getEvidenceById(@PathVariable Long id) {
@@ -122,11 +161,47 @@ public class EvidenceController {
         return ResponseEntity.ok(ApiResponse.success(dtoPage));
     }
 
+    // Cursor (keyset) pagination: pass the returned nextCursor to fetch the next page
+    @GetMapping("/user/{userAddress}/cursor")
+    @PreAuthorize("hasRole('USER') or hasRole('ADMIN')")
+    public ResponseEntity<ApiResponse<CursorSlice<EvidenceDTO>>> scrollEvidenceByUserAddress(
+            @PathVariable String userAddress,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(defaultValue = "createdAt,desc") String sort,
+            @RequestParam(defaultValue = "false") boolean includeTotal) {
+        return scrollEvidence(null, userAddress, null, cursor, size, sort, includeTotal);
+    }
+
+    @GetMapping("/status/{status}/cursor")
+    @PreAuthorize("hasRole('USER') or hasRole('ADMIN')")
+    public ResponseEntity<ApiResponse<CursorSlice<EvidenceDTO>>> scrollEvidenceByStatus(
+            @PathVariable String status,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(defaultValue = "createdAt,desc") String sort,
+            @RequestParam(defaultValue = "false") boolean includeTotal) {
+        return scrollEvidence(null, null, status, cursor, size, sort, includeTotal);
+    }
+
+    @GetMapping("/search/cursor")
+    @PreAuthorize("hasRole('USER') or hasRole('ADMIN')")
+    public ResponseEntity<ApiResponse<CursorSlice<EvidenceDTO>>> scrollSearchEvidence(
+            @RequestParam(required = false) String evidenceId,
+            @RequestParam(required = false) String userAddress,
+            @RequestParam(required = false) String status,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(defaultValue = "createdAt,desc") String sort,
+            @RequestParam(defaultValue = "false") boolean includeTotal) {
+        return scrollEvidence(evidenceId, userAddress, status, cursor, size, sort, includeTotal);
+    }
+
     @GetMapping("/stats/user/{userAddress}")
     @PreAuthorize("hasRole('USER') or hasRole('ADMIN')")
     public ResponseEntity<ApiResponse<EvidenceStatsDTO>> getEvidenceStatsByUser(@PathVariable String userAddress) {
-        long totalCount = evidenceStorageService.countByUserAddress(userAddress);
-        long effectiveCount = evidenceStorageService.countByUserAddressAndStatus(userAddress, "effective");
+        long totalCount = evidenceCounterService.countByUserAddress(userAddress);
+        long effectiveCount = evidenceCounterService.countByUserAddressAndStatus(userAddress, "effective");
 
         EvidenceStatsDTO stats = new EvidenceStatsDTO(totalCount, effectiveCount);
 
@@ -136,15 +211,24 @@ public class EvidenceController {
     @GetMapping("/stats/overview")
     @PreAuthorize("hasRole('ADMIN')")
     public ResponseEntity<ApiResponse<OverviewStatsDTO>> getOverviewStats() {
-        long totalCount = evidenceStorageService.count();
-        long effectiveCount = evidenceStorageService.countByStatus("effective");
-        long revokedCount = evidenceStorageService.countByStatus("revoked");
+        long totalCount = evidenceCounterService.countAll();
+        long effectiveCount = evidenceCounterService.countByStatus("effective");
+        long revokedCount = evidenceCounterService.countByStatus("revoked");
 
         OverviewStatsDTO stats = new OverviewStatsDTO(totalCount, effectiveCount, revokedCount);
 
         return ResponseEntity.ok(ApiResponse.success(stats));
     }
 
+    /**
+     * 按证据表重新计算统计计数，返回被修正的计数器数量
+     */
+    @PostMapping("/stats/rebuild")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<ApiResponse<Integer>> rebuildStats() {
+        return ResponseEntity.ok(ApiResponse.success(evidenceCounterService.rebuild()));
+    }
+
     private Pageable createPageable(int page, int size, String sort) {
         String[] sortParams = sort.split(",");
         Sort.Direction direction = sortParams.length > 1 && "desc".equalsIgnoreCase(sortParams[1])
@@ -154,6 +238,27 @@ public class EvidenceController {
         return PageRequest.of(page, size, Sort.by(direction, sortParams[0]));
     }
 
+    private ResponseEntity<ApiResponse<CursorSlice<EvidenceDTO>>> scrollEvidence(String evidenceId,
+            String userAddress, String status, String cursor, int size, String sort,
+            boolean includeTotal) {
+        // 游标分页只允许有索引支撑的排序字段
+        String[] sortParams = sort.split(",");
+        EvidenceSortKey sortKey = EvidenceSortKey.fromProperty(sortParams[0].trim());
+        if (sortKey == null) {
+            return ResponseEntity.badRequest().body(ApiResponse.error(
+                    "Unsupported sort field: " + sortParams[0] + " (allowed: createdAt, id)"));
+        }
+        boolean descending = sortParams.length > 1 && "desc".equalsIgnoreCase(sortParams[1].trim());
+
+        try {
+            CursorSlice<EvidenceEntity> slice = evidenceStorageService.scrollEvidence(evidenceId,
+                    userAddress, status, sortKey, descending, cursor, size, includeTotal);
+            return ResponseEntity.ok(ApiResponse.success(slice.map(this::convertToDTO)));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(ApiResponse.error(e.getMessage()));
+        }
+    }
+
     private EvidenceDTO convertToDTO(EvidenceEntity evidence) {
         EvidenceDTO dto = new EvidenceDTO();
         dto.setId(evidence.getId());
@@ -181,6 +286,7 @@ public class EvidenceController {
         dto.setUpdatedAt(evidence.getUpdatedAt());
         dto.setCertificateId(evidence.getCertificateId());
         dto.setCertificateAvailable(evidence.getCertificateId() != null && !evidence.getCertificateId().isEmpty());
+        dto.setCertificateStatus(evidence.getCertificateStatus());
 
         return dto;
     }
@@ -239,7 +345,8 @@ public class EvidenceController {
                 .orElseThrow(() -> new RuntimeException("Evidence not found with id: " + id));
 
         if (evidence.getCertificateId() == null || evidence.getCertificateId().isEmpty()) {
-            return ResponseEntity.ok(ApiResponse.<CertificateDTO>success("Certificate not available for this evidence", null));
+            return ResponseEntity.ok(ApiResponse.success("Certificate not available for this evidence",
+                    convertToPendingCertificateDTO(evidence)));
         }
 
         CertificateDTO certificateDTO = convertToCertificateDTO(evidence);
@@ -253,7 +360,8 @@ public class EvidenceController {
                 .orElseThrow(() -> new RuntimeException("Evidence not found with evidenceId: " + evidenceId));
 
         if (evidence.getCertificateId() == null || evidence.getCertificateId().isEmpty()) {
-            return ResponseEntity.ok(ApiResponse.<CertificateDTO>success("Certificate not available for this evidence", null));
+            return ResponseEntity.ok(ApiResponse.success("Certificate not available for this evidence",
+                    convertToPendingCertificateDTO(evidence)));
         }
 
         CertificateDTO certificateDTO = convertToCertificateDTO(evidence);
@@ -262,64 +370,191 @@ public class EvidenceController {
 
     @GetMapping("/{id}/certificate/download")
     @PreAuthorize("hasRole('USER') or hasRole('ADMIN')")
-    public ResponseEntity<byte[]> downloadCertificate(@PathVariable Long id) {
+    public ResponseEntity<Resource> downloadCertificate(@PathVariable Long id,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
         EvidenceEntity evidence = evidenceStorageService.getEvidenceById(id)
                 .orElseThrow(() -> new RuntimeException("Evidence not found with id: " + id));
 
-        if (evidence.getCertificateId() == null || evidence.getCertificateId().isEmpty()) {
-            return ResponseEntity.notFound().build();
-        }
-
-        try {
-            byte[] certificateBytes = certificateStorageService.getCertificateBytes(evidence.getCertificateId());
-            String filename = "certificate_" + evidence.getEvidenceId() + ".pdf";
-            
-            return ResponseEntity.ok()
-                    .header("Content-Disposition", "attachment; filename=\"" + filename + "\"")
-                    .header("Content-Type", "application/pdf")
-                    .body(certificateBytes);
-        } catch (IOException e) {
-            return ResponseEntity.internalServerError().build();
-        }
+        return serveCertificate(evidence, ifNoneMatch);
     }
 
     @GetMapping("/evidenceId/{evidenceId}/certificate/download")
     @PreAuthorize("hasRole('USER') or hasRole('ADMIN')")
-    public ResponseEntity<byte[]> downloadCertificateByEvidenceId(@PathVariable String evidenceId) {
+    public ResponseEntity<Resource> downloadCertificateByEvidenceId(@PathVariable String evidenceId,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
         EvidenceEntity evidence = evidenceStorageService.getEvidenceByEvidenceId(evidenceId)
                 .orElseThrow(() -> new RuntimeException("Evidence not found with evidenceId: " + evidenceId));
 
-        if (evidence.getCertificateId() == null || evidence.getCertificateId().isEmpty()) {
+        return serveCertificate(evidence, ifNoneMatch);
+    }
+
+    /**
+     * 批量导出证书：按筛选条件把证书逐个写入 ZIP 流直接输出，不在内存或磁盘上缓冲整个压缩包
+     *
+     * 普通用户必须指定用户地址，不带地址的全量导出只允许管理员；导出耗时较长，只对本请求放宽异步超时
+     */
+    @GetMapping("/certificates/export")
+    @PreAuthorize("hasRole('ADMIN') or (hasRole('USER') and #userAddress != null and !#userAddress.isBlank())")
+    public ResponseEntity<StreamingResponseBody> exportCertificates(NativeWebRequest webRequest,
+            @RequestParam(required = false) String userAddress,
+            @RequestParam(required = false) String status,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(required = false) BigInteger fromBlock,
+            @RequestParam(required = false) BigInteger toBlock) {
+        CertificateExportFilter filter = new CertificateExportFilter(userAddress, status, from, to,
+                fromBlock, toBlock);
+        StreamingResponseBody body = outputStream ->
+                certificateExportService.exportCertificates(filter, outputStream);
+        applyExportTimeout(webRequest);
+
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"certificates.zip\"")
+                .contentType(MediaType.parseMediaType("application/zip"))
+                .body(body);
+    }
+
+    /**
+     * 模板更新后重新生成已有证书：重新加载模板，启动（或返回正在运行的）批量重新生成任务
+     */
+    @PostMapping("/certificates/rerender")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<ApiResponse<CertificateRerenderJob>> startCertificateRerender() {
+        try {
+            return ResponseEntity.ok(ApiResponse.success(certificateRerenderService.startJob()));
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to load certificate template: " + e.getMessage(), e);
+        }
+    }
+
+    @GetMapping("/certificates/rerender")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<ApiResponse<CertificateRerenderJob>> getCertificateRerenderJob() {
+        return certificateRerenderService.getLatestJob()
+                .map(job -> ResponseEntity.ok(ApiResponse.success(job)))
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    @DeleteMapping("/certificates/rerender")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<ApiResponse<CertificateRerenderJob>> cancelCertificateRerender() {
+        return certificateRerenderService.cancelJob()
+                .map(job -> ResponseEntity.ok(ApiResponse.success(job)))
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    /**
+     * 流式响应开始异步处理前替换本请求的超时（异步请求的默认超时对其他接口保持不变）
+     */
+    private void applyExportTimeout(NativeWebRequest webRequest) {
+        long timeoutMs = certificateExportService.getTimeoutMs();
+        WebAsyncUtils.getAsyncManager(webRequest).registerCallableInterceptor(
+                CertificateExportService.class.getName(), new CallableProcessingInterceptor() {
+                    @Override
+                    public <T> void beforeConcurrentHandling(NativeWebRequest request,
+                            Callable<T> task) {
+                        if (request instanceof AsyncWebRequest asyncWebRequest) {
+                            asyncWebRequest.setTimeout(timeoutMs > 0 ? timeoutMs : -1L);
+                        }
+                    }
+                });
+    }
+
+    /**
+     * 流式输出证书：ETag 取自数据库中的内容摘要，命中 If-None-Match 时直接返回 304 不读取存储；
+     * 可随机读取的资源由 Spring MVC 按 Range 请求输出 206 分段内容
+     */
+    private ResponseEntity<Resource> serveCertificate(EvidenceEntity evidence, String ifNoneMatch) {
+        String certificateId = resolveCertificateId(evidence);
+        if (certificateId == null) {
             return ResponseEntity.notFound().build();
         }
 
+        // 刚按需生成的证书本次请求还没有摘要，不返回 ETag
+        String etag = null;
+        if (certificateId.equals(evidence.getCertificateId()) && evidence.getCertificateHash() != null) {
+            etag = "\"" + evidence.getCertificateHash() + "\"";
+        }
+        if (ETagUtils.matches(ifNoneMatch, etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+        }
+
         try {
-            byte[] certificateBytes = certificateStorageService.getCertificateBytes(evidence.getCertificateId());
+            Optional<Resource> certificate = certificateStorageService.getCertificateResource(certificateId);
+            if (certificate.isEmpty()) {
+                return ResponseEntity.notFound().build();
+            }
+
             String filename = "certificate_" + evidence.getEvidenceId() + ".pdf";
-            
-            return ResponseEntity.ok()
-                    .header("Content-Disposition", "attachment; filename=\"" + filename + "\"")
-                    .header("Content-Type", "application/pdf")
-                    .body(certificateBytes);
+            ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                    .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + filename + "\"")
+                    .contentType(MediaType.APPLICATION_PDF);
+            // InputStreamResource（如 S3）只能顺序读取，Spring MVC 对其忽略 Range 请求，不声明支持分段下载
+            if (!(certificate.get() instanceof InputStreamResource)) {
+                response.header(HttpHeaders.ACCEPT_RANGES, "bytes");
+            }
+            if (etag != null) {
+                response.eTag(etag);
+            }
+            return response.body(certificate.get());
         } catch (IOException e) {
             return ResponseEntity.internalServerError().build();
         }
     }
 
+    /**
+     * 获取可下载的证书ID：按需生成模式下或后台渲染已失败时，在首次下载时生成证书
+     */
+    private String resolveCertificateId(EvidenceEntity evidence) {
+        if (evidence.getCertificateId() != null && !evidence.getCertificateId().isEmpty()) {
+            return evidence.getCertificateId();
+        }
+
+        boolean renderFailed = CertificateStatus.FAILED.getCode().equals(evidence.getCertificateStatus());
+        if (!certificateRenderingService.isOnDemand() && !renderFailed) {
+            return null;
+        }
+
+        return certificateRenderingService.getOrRenderCertificate(evidence.getId());
+    }
+
     private CertificateDTO convertToCertificateDTO(EvidenceEntity evidence) {
         CertificateDTO dto = new CertificateDTO();
         dto.setId(evidence.getId());
         dto.setEvidenceId(evidence.getEvidenceId());
         dto.setCertificateId(evidence.getCertificateId());
         dto.setGeneratedAt(evidence.getUpdatedAt()); // Use updated time as generation time
-        dto.setStatus(evidence.getCertificateId() != null ? "generated" : "pending");
+        dto.setStatus(evidence.getCertificateStatus() != null ? evidence.getCertificateStatus()
+                : CertificateStatus.READY.getCode());
         
         try {
             dto.setFileSize(certificateStorageService.getCertificateFileSize(evidence.getCertificateId()));
         } catch (IOException e) {
             dto.setFileSize(0L);
         }
+
+        if (evidence.getCertificateId() != null) {
+            // 未启用签名链接时返回需要登录的下载接口
+            CertificateUrlSigner.SignedUrl downloadUrl = certificateStorageService
+                    .getDownloadUrl(evidence.getCertificateId())
+                    .orElseGet(() -> new CertificateUrlSigner.SignedUrl(
+                            "/api/evidence/" + evidence.getId() + "/certificate/download", null));
+            dto.setDownloadUrl(downloadUrl.url());
+            if (downloadUrl.expiresAt() != null) {
+                dto.setDownloadUrlExpiresAt(LocalDateTime.ofInstant(downloadUrl.expiresAt(),
+                        ZoneId.systemDefault()));
+            }
+        }
         
         return dto;
     }
+
+    private CertificateDTO convertToPendingCertificateDTO(EvidenceEntity evidence) {
+        CertificateDTO dto = new CertificateDTO();
+        dto.setId(evidence.getId());
+        dto.setEvidenceId(evidence.getEvidenceId());
+        dto.setStatus(evidence.getCertificateStatus() != null ? evidence.getCertificateStatus()
+                : CertificateStatus.PENDING.getCode());
+        return dto;
+    }
 }
\ No newline at end of file
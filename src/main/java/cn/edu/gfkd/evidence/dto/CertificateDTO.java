@@ -17,5 +17,9 @@ public class CertificateDTO {
     private LocalDateTime generatedAt;
     private Long fileSize;
     private String status;
+    // 短期下载链接，下载时不需要登录
+    private String downloadUrl;
+    // 下载链接过期时间；由存储直接提供的链接为空
+    private LocalDateTime downloadUrlExpiresAt;
     
 }
\ No newline at end of file
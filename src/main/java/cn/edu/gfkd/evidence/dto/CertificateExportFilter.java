@@ -0,0 +1,22 @@
+package cn.edu.gfkd.evidence.dto;
+
+import java.math.BigInteger;
+import java.time.LocalDateTime;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CertificateExportFilter {
+
+    private String userAddress;
+    private String status;
+    private LocalDateTime from;
+    private LocalDateTime to;
+    private BigInteger fromBlock;
+    private BigInteger toBlock;
+
+}
@@ -0,0 +1,28 @@
+package cn.edu.gfkd.evidence.dto;
+
+import java.util.List;
+import java.util.function.Function;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 游标分页结果：一页数据和下一页的游标（没有下一页时为 null），总数只在请求时统计
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CursorSlice<T> {
+
+    private List<T> content;
+    private int size;
+    private boolean hasNext;
+    private String nextCursor;
+    private Long totalElements;
+
+    public <R> CursorSlice<R> map(Function<? super T, ? extends R> converter) {
+        List<R> converted = content.stream().<R>map(converter).toList();
+        return new CursorSlice<>(converted, size, hasNext, nextCursor, totalElements);
+    }
+}
@@ -31,6 +31,7 @@ public class EvidenceDTO {
     // Certificate information
     private String certificateId;
     private boolean certificateAvailable;
+    private String certificateStatus;
     
     // Getters and Setters
     public Long getId() {
@@ -192,4 +193,12 @@ public class EvidenceDTO {
     public void setCertificateAvailable(boolean certificateAvailable) {
         this.certificateAvailable = certificateAvailable;
     }
+    
+    public String getCertificateStatus() {
+        return certificateStatus;
+    }
+    
+    public void setCertificateStatus(String certificateStatus) {
+        this.certificateStatus = certificateStatus;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,137 @@
+package cn.edu.gfkd.evidence.entity;
+
+import java.time.LocalDateTime;
+
+import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.UpdateTimestamp;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+
+/**
+ * 证书批量重新生成任务，last_evidence_id 为进度检查点：不大于它的证据均已处理
+ */
+@Entity @Table(name = "certificate_rerender_job")
+public class CertificateRerenderJob {
+
+    public static final String STATUS_RUNNING = "running";
+    public static final String STATUS_COMPLETED = "completed";
+    public static final String STATUS_CANCELLED = "cancelled";
+
+    @Id @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "template_version", nullable = false, length = 64)
+    private String templateVersion;
+
+    @Column(nullable = false, length = 20)
+    private String status = STATUS_RUNNING;
+
+    @Column(name = "last_evidence_id", nullable = false)
+    private long lastEvidenceId = 0;
+
+    @Column(name = "rendered_count", nullable = false)
+    private long renderedCount = 0;
+
+    @Column(name = "failed_count", nullable = false)
+    private long failedCount = 0;
+
+    @Column(name = "error_message", columnDefinition = "TEXT")
+    private String errorMessage;
+
+    @CreationTimestamp @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    @UpdateTimestamp @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+
+    @Column(name = "completed_at")
+    private LocalDateTime completedAt;
+
+    public CertificateRerenderJob() {
+    }
+
+    public CertificateRerenderJob(String templateVersion) {
+        this.templateVersion = templateVersion;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getTemplateVersion() {
+        return templateVersion;
+    }
+
+    public void setTemplateVersion(String templateVersion) {
+        this.templateVersion = templateVersion;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public void setStatus(String status) {
+        this.status = status;
+    }
+
+    public long getLastEvidenceId() {
+        return lastEvidenceId;
+    }
+
+    public void setLastEvidenceId(long lastEvidenceId) {
+        this.lastEvidenceId = lastEvidenceId;
+    }
+
+    public long getRenderedCount() {
+        return renderedCount;
+    }
+
+    public void setRenderedCount(long renderedCount) {
+        this.renderedCount = renderedCount;
+    }
+
+    public long getFailedCount() {
+        return failedCount;
+    }
+
+    public void setFailedCount(long failedCount) {
+        this.failedCount = failedCount;
+    }
+
+    public String getErrorMessage() {
+        return errorMessage;
+    }
+
+    public void setErrorMessage(String errorMessage) {
+        this.errorMessage = errorMessage;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public LocalDateTime getCompletedAt() {
+        return completedAt;
+    }
+
+    public void setCompletedAt(LocalDateTime completedAt) {
+        this.completedAt = completedAt;
+    }
+
+    public boolean isRunning() {
+        return STATUS_RUNNING.equals(status);
+    }
+}
@@ -0,0 +1,114 @@
+package cn.edu.gfkd.evidence.entity;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+import java.util.Objects;
+
+import org.hibernate.annotations.UpdateTimestamp;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.IdClass;
+import jakarta.persistence.Table;
+
+/**
+ * 证据数量计数器：按 (用户地址, 状态) 记录证据数量，user_address 为 {@link #ALL_USERS} 的行是全局计数
+ */
+@Entity @Table(name = "evidence_counter") @IdClass(EvidenceCounter.Key.class)
+public class EvidenceCounter {
+
+    // 全局计数使用的用户地址占位符
+    public static final String ALL_USERS = "*";
+
+    @Id @Column(name = "user_address", nullable = false, length = 42)
+    private String userAddress;
+
+    @Id @Column(nullable = false, length = 20)
+    private String status;
+
+    @Column(name = "evidence_count", nullable = false)
+    private long evidenceCount = 0;
+
+    @UpdateTimestamp @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+
+    public EvidenceCounter() {
+    }
+
+    public EvidenceCounter(String userAddress, String status, long evidenceCount) {
+        this.userAddress = userAddress;
+        this.status = status;
+        this.evidenceCount = evidenceCount;
+    }
+
+    public String getUserAddress() {
+        return userAddress;
+    }
+
+    public void setUserAddress(String userAddress) {
+        this.userAddress = userAddress;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public void setStatus(String status) {
+        this.status = status;
+    }
+
+    public long getEvidenceCount() {
+        return evidenceCount;
+    }
+
+    public void setEvidenceCount(long evidenceCount) {
+        this.evidenceCount = evidenceCount;
+    }
+
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+
+    /**
+     * 计数器主键
+     */
+    public static class Key implements Serializable {
+
+        private String userAddress;
+        private String status;
+
+        public Key() {
+        }
+
+        public Key(String userAddress, String status) {
+            this.userAddress = userAddress;
+            this.status = status;
+        }
+
+        public String getUserAddress() {
+            return userAddress;
+        }
+
+        public String getStatus() {
+            return status;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key key)) {
+                return false;
+            }
+            return Objects.equals(userAddress, key.userAddress)
+                    && Objects.equals(status, key.status);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(userAddress, status);
+        }
+    }
+}
@@ -75,6 +75,22 @@ public class EvidenceEntity {
     @Column(name = "certificate_id", length = 100)
     private String certificateId;
 
+    // Certificate rendering pipeline state
+    @Column(name = "certificate_hash", length = 64)
+    private String certificateHash;
+
+    @Column(name = "certificate_status", length = 20)
+    private String certificateStatus;
+
+    @Column(name = "certificate_template_version", length = 64)
+    private String certificateTemplateVersion;
+
+    @Column(name = "certificate_attempts", nullable = false)
+    private int certificateAttempts = 0;
+
+    @Column(name = "certificate_next_attempt_at")
+    private LocalDateTime certificateNextAttemptAt;
+
     public EvidenceEntity() {
     }
 
@@ -267,4 +283,44 @@ public class EvidenceEntity {
     public void setCertificateId(String certificateId) {
         this.certificateId = certificateId;
     }
-}
\ No newline at end of file
+
+    public String getCertificateHash() {
+        return certificateHash;
+    }
+
+    public void setCertificateHash(String certificateHash) {
+        this.certificateHash = certificateHash;
+    }
+
+    public String getCertificateStatus() {
+        return certificateStatus;
+    }
+
+    public void setCertificateStatus(String certificateStatus) {
+        this.certificateStatus = certificateStatus;
+    }
+
+    public String getCertificateTemplateVersion() {
+        return certificateTemplateVersion;
+    }
+
+    public void setCertificateTemplateVersion(String certificateTemplateVersion) {
+        this.certificateTemplateVersion = certificateTemplateVersion;
+    }
+
+    public int getCertificateAttempts() {
+        return certificateAttempts;
+    }
+
+    public void setCertificateAttempts(int certificateAttempts) {
+        this.certificateAttempts = certificateAttempts;
+    }
+
+    public LocalDateTime getCertificateNextAttemptAt() {
+        return certificateNextAttemptAt;
+    }
+
+    public void setCertificateNextAttemptAt(LocalDateTime certificateNextAttemptAt) {
+        this.certificateNextAttemptAt = certificateNextAttemptAt;
+    }
+}
@@ -30,6 +30,10 @@ public class SyncStatus {
     @Column(name = "retry_count", nullable = false)
     private Integer retryCount = 0;
     
+    // 检查点之后已完成但尚未连续的区块范围，格式: "start-end,start-end"
+    @Column(name = "completed_ranges", columnDefinition = "TEXT")
+    private String completedRanges;
+    
     @CreationTimestamp
     @Column(name = "created_at", nullable = false, updatable = false)
     private LocalDateTime createdAt;
@@ -95,6 +99,14 @@ public class SyncStatus {
         this.retryCount = retryCount;
     }
     
+    public String getCompletedRanges() {
+        return completedRanges;
+    }
+    
+    public void setCompletedRanges(String completedRanges) {
+        this.completedRanges = completedRanges;
+    }
+    
     public LocalDateTime getCreatedAt() {
         return createdAt;
     }
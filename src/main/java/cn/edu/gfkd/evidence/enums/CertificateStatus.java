@@ -0,0 +1,80 @@
+package cn.edu.gfkd.evidence.enums;
+
+/**
+ * 证书生成状态枚举
+ * 
+ * 证书由异步渲染流水线生成，状态流转如下：
+ * 1. PENDING - 等待生成（包括等待退避重试）
+ * 2. RENDERING - 已被渲染工作线程领取
+ * 3. READY - 证书已生成并存储
+ * 4. FAILED - 重试次数耗尽，生成失败
+ * 5. EXPIRED - 证书超过保留期已被清理
+ */
+public enum CertificateStatus {
+
+    /**
+     * 等待生成
+     */
+    PENDING("pending", "等待生成"),
+
+    /**
+     * 正在渲染
+     */
+    RENDERING("rendering", "正在渲染"),
+
+    /**
+     * 已生成
+     */
+    READY("ready", "已生成"),
+
+    /**
+     * 生成失败
+     */
+    FAILED("failed", "生成失败"),
+
+    /**
+     * 超过保留期已清理
+     */
+    EXPIRED("expired", "已过期清理");
+
+    private final String code;
+    private final String description;
+
+    CertificateStatus(String code, String description) {
+        this.code = code;
+        this.description = description;
+    }
+
+    /**
+     * 获取存储在数据库中的状态码
+     * 
+     * @return 状态码字符串
+     */
+    public String getCode() {
+        return code;
+    }
+
+    /**
+     * 获取状态描述
+     * 
+     * @return 状态描述信息
+     */
+    public String getDescription() {
+        return description;
+    }
+
+    /**
+     * 根据状态码查找对应的枚举值
+     * 
+     * @param code 状态码
+     * @return 对应的枚举值，如果找不到则返回null
+     */
+    public static CertificateStatus fromCode(String code) {
+        for (CertificateStatus status : values()) {
+            if (status.code.equals(code)) {
+                return status;
+            }
+        }
+        return null;
+    }
+}
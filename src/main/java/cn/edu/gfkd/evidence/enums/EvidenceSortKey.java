@@ -0,0 +1,51 @@
+package cn.edu.gfkd.evidence.enums;
+
+/**
+ * 证据游标分页允许的排序字段
+ *
+ * 只包含有索引支撑的字段（与 user_address / status 组合的索引，SQLite 索引末尾隐含 id）：
+ * 1. CREATED_AT - 按创建时间排序，相同时间按 id 排序
+ * 2. ID - 按主键排序
+ */
+public enum EvidenceSortKey {
+
+    /**
+     * 创建时间
+     */
+    CREATED_AT("createdAt"),
+
+    /**
+     * 主键
+     */
+    ID("id");
+
+    private final String property;
+
+    EvidenceSortKey(String property) {
+        this.property = property;
+    }
+
+    /**
+     * 获取实体属性名
+     *
+     * @return 属性名
+     */
+    public String getProperty() {
+        return property;
+    }
+
+    /**
+     * 根据实体属性名查找对应的排序字段
+     *
+     * @param property 属性名
+     * @return 对应的枚举值，不允许按该属性排序时返回null
+     */
+    public static EvidenceSortKey fromProperty(String property) {
+        for (EvidenceSortKey sortKey : values()) {
+            if (sortKey.property.equals(property)) {
+                return sortKey;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,48 @@
+package cn.edu.gfkd.evidence.enums;
+
+/**
+ * 区块链节点RPC调用优先级枚举
+ * 
+ * 共享RPC预算按以下优先级分配（数值越小优先级越高）：
+ * 1. REAL_TIME - 实时事件处理
+ * 2. PROCESSOR - 事件处理器的合约查询
+ * 3. BACKFILL - 历史同步
+ * 4. AUDIT - 健康检查、缺口审计等后台任务
+ */
+public enum RpcPriority {
+
+    /**
+     * 实时事件处理（交易收据、区块时间戳）
+     */
+    REAL_TIME("实时事件处理"),
+
+    /**
+     * 事件处理器调用合约读取完整证据
+     */
+    PROCESSOR("事件处理器查询"),
+
+    /**
+     * 历史事件同步和尾部校验
+     */
+    BACKFILL("历史同步"),
+
+    /**
+     * 连接健康检查、状态查询和缺口审计补拉
+     */
+    AUDIT("健康检查");
+
+    private final String description;
+
+    RpcPriority(String description) {
+        this.description = description;
+    }
+
+    /**
+     * 获取优先级描述
+     * 
+     * @return 优先级描述
+     */
+    public String getDescription() {
+        return description;
+    }
+}
@@ -0,0 +1,15 @@
+package cn.edu.gfkd.evidence.repository;
+
+import cn.edu.gfkd.evidence.entity.CertificateRerenderJob;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface CertificateRerenderJobRepository extends JpaRepository<CertificateRerenderJob, Long> {
+
+    Optional<CertificateRerenderJob> findFirstByStatusOrderByIdDesc(String status);
+
+    Optional<CertificateRerenderJob> findFirstByOrderByIdDesc();
+}
@@ -0,0 +1,33 @@
+package cn.edu.gfkd.evidence.repository;
+
+import cn.edu.gfkd.evidence.entity.EvidenceCounter;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Optional;
+
+@Repository
+public interface EvidenceCounterRepository
+        extends JpaRepository<EvidenceCounter, EvidenceCounter.Key> {
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE EvidenceCounter c SET c.evidenceCount = c.evidenceCount + :delta, " +
+            "c.updatedAt = LOCAL_DATETIME " +
+            "WHERE c.userAddress = :userAddress AND c.status = :status")
+    int addToCount(@Param("userAddress") String userAddress, @Param("status") String status,
+            @Param("delta") long delta);
+
+    @Query("SELECT c.evidenceCount FROM EvidenceCounter c " +
+            "WHERE c.userAddress = :userAddress AND c.status = :status")
+    Optional<Long> findCount(@Param("userAddress") String userAddress,
+            @Param("status") String status);
+
+    @Query("SELECT COALESCE(SUM(c.evidenceCount), 0) FROM EvidenceCounter c " +
+            "WHERE c.userAddress = :userAddress")
+    long sumByUserAddress(@Param("userAddress") String userAddress);
+}
@@ -4,16 +4,21 @@ import cn.edu.gfkd.evidence.entity.EvidenceEntity;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigInteger;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
-public interface EvidenceRepository extends JpaRepository<EvidenceEntity, Long> {
+public interface EvidenceRepository extends JpaRepository<EvidenceEntity, Long>,
+        EvidenceRepositoryCustom {
 
     Optional<EvidenceEntity> findByEvidenceId(String evidenceId);
 
@@ -38,9 +43,34 @@ public interface EvidenceRepository extends JpaRepository<EvidenceEntity, Long>
             @Param("status") String status,
             Pageable pageable);
 
+    /**
+     * 按主键游标分批查询待导出的证书（只取导出所需的列，结果不进入持久化上下文）
+     */
+    @Query("SELECT e.id AS id, e.evidenceId AS evidenceId, e.certificateId AS certificateId, " +
+            "e.createdAt AS createdAt FROM EvidenceEntity e WHERE e.id > :afterId AND " +
+            "e.certificateId IS NOT NULL AND " +
+            "(:userAddress IS NULL OR e.userAddress = :userAddress) AND " +
+            "(:status IS NULL OR e.status = :status) AND " +
+            "(:fromTime IS NULL OR e.createdAt >= :fromTime) AND " +
+            "(:toTime IS NULL OR e.createdAt < :toTime) AND " +
+            "(:fromBlock IS NULL OR e.blockNumber >= :fromBlock) AND " +
+            "(:toBlock IS NULL OR e.blockNumber <= :toBlock) " +
+            "ORDER BY e.id ASC")
+    List<CertificateExportRow> findCertificateExportBatch(@Param("afterId") Long afterId,
+            @Param("userAddress") String userAddress,
+            @Param("status") String status,
+            @Param("fromTime") LocalDateTime fromTime,
+            @Param("toTime") LocalDateTime toTime,
+            @Param("fromBlock") BigInteger fromBlock,
+            @Param("toBlock") BigInteger toBlock,
+            Pageable pageable);
+
     @Query("SELECT MAX(e.blockNumber) FROM EvidenceEntity e")
     BigInteger findMaxBlockNumber();
 
+    @Query("SELECT e.status FROM EvidenceEntity e WHERE e.id = :id")
+    Optional<String> findStatusById(@Param("id") Long id);
+
     boolean existsByEvidenceId(String evidenceId);
 
     boolean existsByTransactionHash(String transactionHash);
@@ -50,4 +80,80 @@ public interface EvidenceRepository extends JpaRepository<EvidenceEntity, Long>
     long countByStatus(String status);
 
     long countByUserAddressAndStatus(String userAddress, String status);
-}
\ No newline at end of file
+
+    long countByCertificateStatus(String certificateStatus);
+
+    @Query("SELECT e.id FROM EvidenceEntity e WHERE e.certificateStatus = :status AND " +
+            "(e.certificateNextAttemptAt IS NULL OR e.certificateNextAttemptAt <= :now) " +
+            "ORDER BY e.id ASC")
+    List<Long> findCertificateRenderCandidates(@Param("status") String status,
+            @Param("now") LocalDateTime now, Pageable pageable);
+
+    @Query("SELECT e.id FROM EvidenceEntity e WHERE e.id > :afterId AND " +
+            "e.certificateId IS NOT NULL AND (e.certificateTemplateVersion IS NULL OR " +
+            "e.certificateTemplateVersion <> :templateVersion) ORDER BY e.id ASC")
+    List<Long> findCertificateRerenderCandidates(@Param("afterId") Long afterId,
+            @Param("templateVersion") String templateVersion, Pageable pageable);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE EvidenceEntity e SET e.certificateStatus = :toStatus, " +
+            "e.updatedAt = LOCAL_DATETIME WHERE e.id = :id AND e.certificateStatus = :fromStatus")
+    int compareAndSetCertificateStatus(@Param("id") Long id,
+            @Param("fromStatus") String fromStatus, @Param("toStatus") String toStatus);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE EvidenceEntity e SET e.certificateStatus = :toStatus, " +
+            "e.updatedAt = LOCAL_DATETIME WHERE e.certificateStatus = :fromStatus")
+    int updateAllCertificateStatus(@Param("fromStatus") String fromStatus,
+            @Param("toStatus") String toStatus);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE EvidenceEntity e SET e.certificateId = :certificateId, " +
+            "e.certificateHash = :certificateHash, " +
+            "e.certificateTemplateVersion = :templateVersion, e.certificateStatus = :status, " +
+            "e.certificateNextAttemptAt = NULL, e.updatedAt = LOCAL_DATETIME WHERE e.id = :id")
+    int markCertificateReady(@Param("id") Long id, @Param("certificateId") String certificateId,
+            @Param("certificateHash") String certificateHash,
+            @Param("templateVersion") String templateVersion, @Param("status") String status);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE EvidenceEntity e SET e.certificateStatus = :status, " +
+            "e.certificateAttempts = :attempts, e.certificateNextAttemptAt = :nextAttemptAt, " +
+            "e.updatedAt = LOCAL_DATETIME WHERE e.id = :id")
+    int markCertificateAttemptFailed(@Param("id") Long id, @Param("status") String status,
+            @Param("attempts") int attempts, @Param("nextAttemptAt") LocalDateTime nextAttemptAt);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE EvidenceEntity e SET e.certificateId = NULL, e.certificateHash = NULL, " +
+            "e.certificateTemplateVersion = NULL, e.certificateStatus = :status, " +
+            "e.updatedAt = LOCAL_DATETIME WHERE e.certificateId IN :certificateIds")
+    int clearCertificateReferences(@Param("certificateIds") Collection<String> certificateIds,
+            @Param("status") String status);
+
+    @Query("SELECT e.userAddress AS userAddress, e.status AS status, COUNT(e) AS evidenceCount " +
+            "FROM EvidenceEntity e GROUP BY e.userAddress, e.status")
+    List<EvidenceCountRow> countGroupByUserAddressAndStatus();
+
+    interface EvidenceCountRow {
+        String getUserAddress();
+
+        String getStatus();
+
+        Long getEvidenceCount();
+    }
+
+    interface CertificateExportRow {
+        Long getId();
+
+        String getEvidenceId();
+
+        String getCertificateId();
+
+        LocalDateTime getCreatedAt();
+    }
+}
@@ -0,0 +1,35 @@
+package cn.edu.gfkd.evidence.repository;
+
+import java.util.List;
+
+import cn.edu.gfkd.evidence.entity.EvidenceEntity;
+import cn.edu.gfkd.evidence.enums.EvidenceSortKey;
+
+/**
+ * 证据游标（keyset）分页查询
+ *
+ * 只为非空的筛选条件生成谓词，使查询能走 (筛选列, 排序列, id) 索引；从上一页最后一条记录的 (排序值, id) 之后开始读取，不扫描和丢弃前面的行。
+ */
+public interface EvidenceRepositoryCustom {
+
+    /**
+     * 按筛选条件读取一页证据
+     *
+     * @param evidenceId 证据ID模糊匹配，为空时不筛选
+     * @param userAddress 用户地址，为空时不筛选
+     * @param status 证据状态，为空时不筛选
+     * @param sortKey 排序字段，相同排序值按 id 排序
+     * @param descending 是否降序
+     * @param afterValue 上一页最后一条记录的排序值，第一页为 null
+     * @param afterId 上一页最后一条记录的 id，第一页为 null
+     * @param limit 最多返回的记录数
+     */
+    List<EvidenceEntity> findEvidenceSlice(String evidenceId, String userAddress, String status,
+            EvidenceSortKey sortKey, boolean descending, Object afterValue, Long afterId,
+            int limit);
+
+    /**
+     * 统计符合筛选条件的证据数量
+     */
+    long countEvidence(String evidenceId, String userAddress, String status);
+}
@@ -0,0 +1,96 @@
+package cn.edu.gfkd.evidence.repository;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.util.StringUtils;
+
+import cn.edu.gfkd.evidence.entity.EvidenceEntity;
+import cn.edu.gfkd.evidence.enums.EvidenceSortKey;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Order;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+
+public class EvidenceRepositoryCustomImpl implements EvidenceRepositoryCustom {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<EvidenceEntity> findEvidenceSlice(String evidenceId, String userAddress,
+            String status, EvidenceSortKey sortKey, boolean descending, Object afterValue,
+            Long afterId, int limit) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<EvidenceEntity> query = cb.createQuery(EvidenceEntity.class);
+        Root<EvidenceEntity> root = query.from(EvidenceEntity.class);
+        Path<Long> id = root.get("id");
+
+        List<Predicate> predicates = filters(cb, root, evidenceId, userAddress, status);
+        List<Order> orders = new ArrayList<>(2);
+        switch (sortKey) {
+            case CREATED_AT -> {
+                Path<LocalDateTime> createdAt = root.get("createdAt");
+                if (afterId != null) {
+                    predicates.add(seek(cb, createdAt, (LocalDateTime) afterValue, id, afterId,
+                            descending));
+                }
+                orders.add(descending ? cb.desc(createdAt) : cb.asc(createdAt));
+            }
+            case ID -> {
+                if (afterId != null) {
+                    predicates.add(descending ? cb.lessThan(id, afterId)
+                            : cb.greaterThan(id, afterId));
+                }
+            }
+        }
+        orders.add(descending ? cb.desc(id) : cb.asc(id));
+
+        query.select(root).where(predicates.toArray(new Predicate[0])).orderBy(orders);
+        return entityManager.createQuery(query).setMaxResults(limit).getResultList();
+    }
+
+    @Override
+    public long countEvidence(String evidenceId, String userAddress, String status) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Long> query = cb.createQuery(Long.class);
+        Root<EvidenceEntity> root = query.from(EvidenceEntity.class);
+
+        query.select(cb.count(root)).where(
+                filters(cb, root, evidenceId, userAddress, status).toArray(new Predicate[0]));
+        return entityManager.createQuery(query).getSingleResult();
+    }
+
+    private static List<Predicate> filters(CriteriaBuilder cb, Root<EvidenceEntity> root,
+            String evidenceId, String userAddress, String status) {
+        List<Predicate> predicates = new ArrayList<>(4);
+        if (StringUtils.hasText(evidenceId)) {
+            predicates.add(cb.like(root.get("evidenceId"), "%" + evidenceId + "%"));
+        }
+        if (StringUtils.hasText(userAddress)) {
+            predicates.add(cb.equal(root.get("userAddress"), userAddress));
+        }
+        if (StringUtils.hasText(status)) {
+            predicates.add(cb.equal(root.get("status"), status));
+        }
+        return predicates;
+    }
+
+    /**
+     * 定位到 (排序值, id) 之后：外层的范围条件让索引直接从游标位置开始扫描，内层条件处理排序值相同的记录
+     */
+    private static <T extends Comparable<? super T>> Predicate seek(CriteriaBuilder cb,
+            Path<T> key, T value, Path<Long> id, Long afterId, boolean descending) {
+        if (descending) {
+            return cb.and(cb.lessThanOrEqualTo(key, value),
+                    cb.or(cb.lessThan(key, value), cb.lessThan(id, afterId)));
+        }
+        return cb.and(cb.greaterThanOrEqualTo(key, value),
+                cb.or(cb.greaterThan(key, value), cb.greaterThan(id, afterId)));
+    }
+}
@@ -1,5 +1,6 @@
 package cn.edu.gfkd.evidence.service;
 
+import cn.edu.gfkd.evidence.enums.RpcPriority;
 import cn.edu.gfkd.evidence.exception.BlockchainException;
 import cn.edu.gfkd.evidence.service.processor.BlockchainEventProcessor;
 
@@ -43,6 +44,16 @@ public interface BlockchainEvidenceEventService {
      */
     void syncHistoricalEvents(BigInteger startBlock, BigInteger endBlock);
 
+    /**
+     * 按指定的RPC优先级同步区块范围的历史事件（缺口审计使用低优先级，不挤占回填预算）
+     * 
+     * @param startBlock 起始区块号
+     * @param endBlock 结束区块号
+     * @param priority 节点RPC调用优先级
+     * @throws BlockchainException 同步失败时抛出
+     */
+    void syncHistoricalEvents(BigInteger startBlock, BigInteger endBlock, RpcPriority priority);
+
     /**
      * 更新同步状态到指定区块
      * 
@@ -59,6 +70,14 @@ public interface BlockchainEvidenceEventService {
      */
     BigInteger getLastSyncedBlockNumber();
 
+    /**
+     * 获取已完成的最高区块号（可能高于最后同步的区块号，中间的缺口由缺口审计补齐）
+     * 
+     * @return 已完成的最高区块号
+     * @throws BlockchainException 查询失败时抛出
+     */
+    BigInteger getHighestCompletedBlockNumber();
+
     /**
      * 获取当前区块链的最新区块号
      * 
@@ -3,6 +3,8 @@ package cn.edu.gfkd.evidence.service;
 import java.io.IOException;
 import java.math.BigInteger;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
@@ -25,12 +27,16 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import cn.edu.gfkd.evidence.entity.BlockchainEvent;
 import cn.edu.gfkd.evidence.entity.SyncStatus;
 import cn.edu.gfkd.evidence.enums.EvidenceEventType;
+import cn.edu.gfkd.evidence.enums.RpcPriority;
 import cn.edu.gfkd.evidence.exception.BlockchainException;
 import cn.edu.gfkd.evidence.generated.EvidenceStorageContract;
 import cn.edu.gfkd.evidence.repository.SyncStatusRepository;
 import cn.edu.gfkd.evidence.service.processor.BlockchainEventProcessor;
 import cn.edu.gfkd.evidence.service.retry.RetryHandler;
 import cn.edu.gfkd.evidence.service.storage.EventStorageService;
+import cn.edu.gfkd.evidence.service.sync.CatchUpModeService;
+import cn.edu.gfkd.evidence.service.sync.SyncCheckpointService;
+import cn.edu.gfkd.evidence.service.web3.RpcBudgetScheduler;
 import cn.edu.gfkd.evidence.service.web3.Web3jService;
 import io.reactivex.disposables.Disposable;
 import lombok.extern.slf4j.Slf4j;
@@ -48,12 +54,17 @@ public class BlockchainEvidenceEventServiceImpl implements BlockchainEvidenceEve
     private final RetryHandler retryHandler;
     private final EvidenceStorageContract evidenceStorageContract;
     private final SyncStatusRepository syncStatusRepository;
+    private final SyncCheckpointService syncCheckpointService;
+    private final RpcBudgetScheduler rpcBudgetScheduler;
+    private final CatchUpModeService catchUpModeService;
     private final ObjectMapper objectMapper;
 
     // 订阅管理
     private Disposable evidenceSubmittedSubscription;
     private Disposable evidenceStatusChangedSubscription;
     private Disposable evidenceRevokedSubscription;
+    // 各订阅尚未确认完整收到的第一个区块，订阅中断时从这里开始记录缺口
+    private final Map<String, BigInteger> subscriptionResumeBlocks = new ConcurrentHashMap<>();
 
     // 事件处理器列表
     private final List<BlockchainEventProcessor> eventProcessors = new CopyOnWriteArrayList<>();
@@ -79,6 +90,10 @@ public class BlockchainEvidenceEventServiceImpl implements BlockchainEvidenceEve
     @Value("${blockchain.sync.retry-delay-ms:1000}")
     private long retryDelayMs;
 
+    // 热启动配置
+    @Value("${blockchain.sync.warm-start.verify-tail-blocks:12}")
+    private int warmStartVerifyTailBlocks;
+
     // 未处理事件调度配置
     @Value("${blockchain.unprocessed-events.interval-sec:60}")
     private long unprocessedEventsIntervalSec;
@@ -89,12 +104,17 @@ public class BlockchainEvidenceEventServiceImpl implements BlockchainEvidenceEve
     public BlockchainEvidenceEventServiceImpl(Web3jService web3jService,
             EventStorageService eventStorageService, RetryHandler retryHandler,
             EvidenceStorageContract evidenceStorageContract,
-            SyncStatusRepository syncStatusRepository, ObjectMapper objectMapper) {
+            SyncStatusRepository syncStatusRepository,
+            SyncCheckpointService syncCheckpointService, RpcBudgetScheduler rpcBudgetScheduler,
+            CatchUpModeService catchUpModeService, ObjectMapper objectMapper) {
         this.web3jService = web3jService;
         this.eventStorageService = eventStorageService;
         this.retryHandler = retryHandler;
         this.evidenceStorageContract = evidenceStorageContract;
         this.syncStatusRepository = syncStatusRepository;
+        this.syncCheckpointService = syncCheckpointService;
+        this.rpcBudgetScheduler = rpcBudgetScheduler;
+        this.catchUpModeService = catchUpModeService;
         this.objectMapper = objectMapper;
     }
 
@@ -110,13 +130,24 @@ public class BlockchainEvidenceEventServiceImpl implements BlockchainEvidenceEve
         try {
             isListening.set(true);
 
-            // 同步缺失的历史事件
+            // 加载同步检查点
+            syncCheckpointService.start(evidenceStorageContract.getContractAddress());
+
+            // 热启动时只重新校验检查点之前的尾部区块，无需全量重放
+            verifyTailBlocks();
+
+            // 同步缺失的历史事件（从已完成的最高区块之后开始，已知缺口由缺口审计补齐）
             if (needsHistoricalSync()) {
                 BigInteger currentBlock = getCurrentBlockNumber();
-                BigInteger lastSyncedBlock = getLastSyncedBlockNumber();
+                BigInteger highestCompletedBlock = syncCheckpointService.getHighestCompletedBlock();
                 log.info("Syncing missing events from block {} to {}",
-                        lastSyncedBlock.add(BigInteger.ONE), currentBlock);
-                syncHistoricalEvents(lastSyncedBlock.add(BigInteger.ONE), currentBlock);
+                        highestCompletedBlock.add(BigInteger.ONE), currentBlock);
+
+                // 积压较多时进入追赶模式，历史事件只写入证据记录，证书稍后补生成
+                catchUpModeService.updateLag(currentBlock, highestCompletedBlock);
+                syncHistoricalEvents(highestCompletedBlock.add(BigInteger.ONE), currentBlock);
+                catchUpModeService.updateLag(getCurrentBlockNumber(),
+                        syncCheckpointService.getHighestCompletedBlock());
             }
 
             // 启动实时事件监听
@@ -130,6 +161,7 @@ public class BlockchainEvidenceEventServiceImpl implements BlockchainEvidenceEve
         } catch (Exception e) {
             log.error("Failed to start blockchain event listener", e);
             isListening.set(false);
+            syncCheckpointService.stop();
             throw new BlockchainException("Failed to start blockchain event listener", e);
         }
     }
@@ -152,6 +184,9 @@ public class BlockchainEvidenceEventServiceImpl implements BlockchainEvidenceEve
             // 取消所有的事件订阅
             disposeSubscriptions();
 
+            // 刷新最后的同步检查点
+            syncCheckpointService.stop();
+
             log.info("Blockchain event listener stopped successfully");
 
         } catch (Exception e) {
@@ -167,9 +202,15 @@ public class BlockchainEvidenceEventServiceImpl implements BlockchainEvidenceEve
 
     @Override
     public void syncHistoricalEvents(BigInteger startBlock, BigInteger endBlock) {
+        syncHistoricalEvents(startBlock, endBlock, RpcPriority.BACKFILL);
+    }
+
+    @Override
+    public void syncHistoricalEvents(BigInteger startBlock, BigInteger endBlock,
+            RpcPriority priority) {
         log.info(
-                "Starting historical events sync from block {} to {} (batch size: {}, delay: {}ms)",
-                startBlock, endBlock, batchSize, delayBetweenBatchesMs);
+                "Starting historical events sync from block {} to {} (batch size: {}, delay: {}ms, priority: {})",
+                startBlock, endBlock, batchSize, delayBetweenBatchesMs, priority);
 
         // 验证区块范围
         if (startBlock.compareTo(endBlock) > 0) {
@@ -183,10 +224,10 @@ public class BlockchainEvidenceEventServiceImpl implements BlockchainEvidenceEve
 
         try {
             // 分批次同步
-            syncInBatches(startBlock, endBlock);
+            syncInBatches(startBlock, endBlock, priority);
 
-            // 最终更新同步状态到结束区块
-            updateSyncStatus(endBlock);
+            // 将已连续完成的检查点写入数据库（失败的批次不会被跳过，重启后会重新同步）
+            syncCheckpointService.flush();
 
             log.info("Successfully completed historical events sync from block {} to {}",
                     startBlock, endBlock);
@@ -198,13 +239,40 @@ public class BlockchainEvidenceEventServiceImpl implements BlockchainEvidenceEve
         }
     }
 
+    /**
+     * 热启动尾部校验
+     * 
+     * 数据库在重启后保留，检查点之前的事件已持久化。这里只重新扫描检查点之前的少量区块，
+     * 以补齐上次关闭前可能未完整写入的事件；已存在的事件和证据会被去重跳过。
+     */
+    private void verifyTailBlocks() {
+        BigInteger checkpoint = syncCheckpointService.getCheckpoint();
+        if (checkpoint.signum() <= 0 || warmStartVerifyTailBlocks <= 0) {
+            log.info("Cold start detected, no tail verification needed");
+            return;
+        }
+
+        BigInteger verifyFrom = checkpoint
+                .subtract(BigInteger.valueOf(warmStartVerifyTailBlocks - 1L)).max(BigInteger.ONE);
+        log.info("Warm start from checkpoint {}, verifying tail blocks {} to {}", checkpoint,
+                verifyFrom, checkpoint);
+
+        try {
+            syncInBatches(verifyFrom, checkpoint, RpcPriority.BACKFILL);
+        } catch (Exception e) {
+            log.warn("Tail verification from block {} to {} failed: {}", verifyFrom, checkpoint,
+                    e.getMessage());
+        }
+    }
+
     /**
      * 分批次同步历史事件
      *
      * @param startBlock 起始区块
      * @param endBlock 结束区块
+     * @param priority 节点RPC调用优先级
      */
-    private void syncInBatches(BigInteger startBlock, BigInteger endBlock) {
+    private void syncInBatches(BigInteger startBlock, BigInteger endBlock, RpcPriority priority) {
         BigInteger current = startBlock;
         BigInteger batchSizeBig = BigInteger.valueOf(batchSize);
         int batchNumber = 1;
@@ -222,10 +290,10 @@ public class BlockchainEvidenceEventServiceImpl implements BlockchainEvidenceEve
                         current, batchEnd);
 
                 // 处理当前批次
-                processBatch(current, batchEnd);
+                processBatch(current, batchEnd, priority);
 
-                // 更新进度到当前批次的结束区块
-                updateSyncStatus(batchEnd);
+                // 记录当前批次已完成，由检查点服务合并写入
+                syncCheckpointService.markRangeCompleted(current, batchEnd);
 
                 log.info("Completed batch {}/{}: blocks {} to {}", batchNumber, totalBatches,
                         current, batchEnd);
@@ -248,6 +316,12 @@ public class BlockchainEvidenceEventServiceImpl implements BlockchainEvidenceEve
             } catch (Exception e) {
                 log.error("Failed to process batch {}/{}: blocks {} to {}", batchNumber,
                         totalBatches, current, batchEnd, e);
+                if (Thread.currentThread().isInterrupted()) {
+                    log.warn("Batch processing interrupted, blocks {} to {} left incomplete",
+                            current, endBlock);
+                    break;
+                }
+                // 失败的批次不标记为已完成，作为缺口由缺口审计重新拉取
                 // 继续下一批次，不要因为一个批次失败而停止整个同步过程
                 current = batchEnd.add(BigInteger.ONE);
                 batchNumber++;
@@ -260,8 +334,9 @@ public class BlockchainEvidenceEventServiceImpl implements BlockchainEvidenceEve
      *
      * @param startBlock 起始区块
      * @param endBlock 结束区块
+     * @param priority 节点RPC调用优先级
      */
-    private void processBatch(BigInteger startBlock, BigInteger endBlock) {
+    private void processBatch(BigInteger startBlock, BigInteger endBlock, RpcPriority priority) {
         int attempt = 0;
         Exception lastException = null;
 
@@ -277,9 +352,8 @@ public class BlockchainEvidenceEventServiceImpl implements BlockchainEvidenceEve
                             Thread.sleep(retryDelayMs);
                         } catch (InterruptedException ie) {
                             Thread.currentThread().interrupt();
-                            log.warn("Retry delay interrupted for batch {} to {}", startBlock,
-                                    endBlock);
-                            return;
+                            throw new BlockchainException("Retry delay interrupted for batch "
+                                    + startBlock + " to " + endBlock, ie);
                         }
                     }
                 }
@@ -290,7 +364,8 @@ public class BlockchainEvidenceEventServiceImpl implements BlockchainEvidenceEve
                         evidenceStorageContract.getContractAddress());
 
                 // 获取事件日志
-                EthLog ethLogs = web3jService.getWeb3j().ethGetLogs(filter).send();
+                EthLog ethLogs = rpcBudgetScheduler.send(priority,
+                        web3jService.getWeb3j().ethGetLogs(filter));
                 @SuppressWarnings("unchecked")
                 List<EthLog.LogResult<Log>> logResults = (List<EthLog.LogResult<Log>>) (List<?>) ethLogs
                         .getLogs();
@@ -309,7 +384,7 @@ public class BlockchainEvidenceEventServiceImpl implements BlockchainEvidenceEve
 
                 for (EthLog.LogResult<Log> logResult : logResults) {
                     try {
-                        processLogResult(logResult.get());
+                        processLogResult(logResult.get(), priority, false);
                         processedCount++;
                     } catch (Exception e) {
                         log.error("Error processing log result in blocks {} to {}: {}", startBlock,
@@ -319,20 +394,27 @@ public class BlockchainEvidenceEventServiceImpl implements BlockchainEvidenceEve
                     }
                 }
 
-                // 成功完成批次处理
+                // 有事件处理失败时整批重试（已保存的事件会被去重），批次不能被标记为已完成
                 if (failedCount > 0) {
-                    log.warn(
-                            "Batch processing completed for blocks {} to {}: {} processed, {} failed",
-                            startBlock, endBlock, processedCount, failedCount);
-                } else {
-                    log.info(
-                            "Batch processing completed for blocks {} to {}: {} events processed successfully",
-                            startBlock, endBlock, processedCount);
+                    throw new BlockchainException(String.format(
+                            "%d of %d events failed in blocks %s to %s", failedCount,
+                            logResults.size(), startBlock, endBlock));
                 }
 
+                log.info(
+                        "Batch processing completed for blocks {} to {}: {} events processed successfully",
+                        startBlock, endBlock, processedCount);
+
                 return; // 成功完成，退出重试循环
 
             } catch (Exception e) {
+                // 线程被中断时不再重试，批次保持未完成
+                if (Thread.currentThread().isInterrupted()) {
+                    throw e instanceof BlockchainException be ? be
+                            : new BlockchainException("Batch processing interrupted for blocks "
+                                    + startBlock + " to " + endBlock, e);
+                }
+
                 lastException = e;
                 attempt++;
 
@@ -381,20 +463,34 @@ public class BlockchainEvidenceEventServiceImpl implements BlockchainEvidenceEve
     public BigInteger getLastSyncedBlockNumber() {
         log.debug("Getting last synced block number");
 
+        // 检查点服务运行时，内存中的检查点比数据库更新
+        if (syncCheckpointService.isRunning()) {
+            return syncCheckpointService.getCheckpoint();
+        }
+
         return retryHandler.executeWithRetry(() -> {
             SyncStatus syncStatus = getOrCreateSyncStatus();
             return syncStatus.getLastBlockNumber();
         }, "get last synced block number");
     }
 
+    @Override
+    public BigInteger getHighestCompletedBlockNumber() {
+        if (syncCheckpointService.isRunning()) {
+            return syncCheckpointService.getHighestCompletedBlock();
+        }
+        return getLastSyncedBlockNumber();
+    }
+
     @Override
     public BigInteger getCurrentBlockNumber() {
         log.debug("Getting current block number");
 
+        // 查询链头只用于计算同步进度和健康状态，按健康检查优先级占用RPC预算，不挤占回填
         return retryHandler.executeWithRetry(() -> {
             try {
-                org.web3j.protocol.core.methods.response.EthBlockNumber blockNumber = web3jService
-                        .getWeb3j().ethBlockNumber().send();
+                org.web3j.protocol.core.methods.response.EthBlockNumber blockNumber = rpcBudgetScheduler
+                        .send(RpcPriority.AUDIT, web3jService.getWeb3j().ethBlockNumber());
 
                 if (blockNumber == null) {
                     throw new BlockchainException("Block number response is null");
@@ -435,10 +531,10 @@ public class BlockchainEvidenceEventServiceImpl implements BlockchainEvidenceEve
         log.info("Starting real-time blockchain event listening...");
 
         try {
-            // 获取最后同步的区块号
-            BigInteger startBlock = getLastSyncedBlockNumber();
+            // 获取已完成的最高区块号（其之前的缺口由缺口审计补齐）
+            BigInteger startBlock = syncCheckpointService.getHighestCompletedBlock();
 
-            // 从最后同步区块的下一个区块开始监听，确保连续性
+            // 从已完成区块的下一个区块开始监听，确保连续性
             DefaultBlockParameter fromBlock = startBlock.compareTo(BigInteger.ZERO) >= 0
                     ? DefaultBlockParameter.valueOf(startBlock.add(BigInteger.ONE))
                     : DefaultBlockParameterName.LATEST;
@@ -446,6 +542,9 @@ public class BlockchainEvidenceEventServiceImpl implements BlockchainEvidenceEve
             log.info("Starting real-time event listening from block: {}",
                     fromBlock instanceof DefaultBlockParameterName ? "LATEST"
                             : startBlock.add(BigInteger.ONE));
+            subscriptionResumeBlocks.put("EvidenceSubmitted", startBlock.add(BigInteger.ONE));
+            subscriptionResumeBlocks.put("EvidenceStatusChanged", startBlock.add(BigInteger.ONE));
+            subscriptionResumeBlocks.put("EvidenceRevoked", startBlock.add(BigInteger.ONE));
 
             // 启动 EvidenceSubmitted 事件订阅
             evidenceSubmittedSubscription = evidenceStorageContract
@@ -502,8 +601,12 @@ public class BlockchainEvidenceEventServiceImpl implements BlockchainEvidenceEve
 
     /**
      * 处理日志结果
+     *
+     * @param priority 节点RPC调用优先级
+     * @param advanceCheckpoint 是否推进同步检查点（实时事件为 true，历史批次由批次完成时统一记录）
      */
-    private void processLogResult(Log logResult) throws Exception {
+    private void processLogResult(Log logResult, RpcPriority priority, boolean advanceCheckpoint)
+            throws Exception {
         if (logResult != null) {
             String txHash = logResult.getTransactionHash();
 
@@ -512,8 +615,9 @@ public class BlockchainEvidenceEventServiceImpl implements BlockchainEvidenceEve
             }
 
             // 获取交易收据
-            TransactionReceipt receipt = web3jService.getWeb3j().ethGetTransactionReceipt(txHash)
-                    .send().getTransactionReceipt().orElseThrow(() -> new BlockchainException(
+            TransactionReceipt receipt = rpcBudgetScheduler
+                    .send(priority, web3jService.getWeb3j().ethGetTransactionReceipt(txHash))
+                    .getTransactionReceipt().orElseThrow(() -> new BlockchainException(
                             "Transaction receipt not found: " + txHash));
 
             if (receipt == null) {
@@ -521,24 +625,26 @@ public class BlockchainEvidenceEventServiceImpl implements BlockchainEvidenceEve
             }
 
             // 处理交易收据中的所有事件
-            processTransactionReceipt(receipt);
+            processTransactionReceipt(receipt, priority, advanceCheckpoint);
         }
     }
 
     /**
      * 处理交易收据
      */
-    private void processTransactionReceipt(TransactionReceipt receipt) throws IOException {
+    private void processTransactionReceipt(TransactionReceipt receipt, RpcPriority priority,
+            boolean advanceCheckpoint) throws IOException {
         String contractAddress = evidenceStorageContract.getContractAddress();
         BigInteger blockNumber = receipt.getBlockNumber();
         String transactionHash = receipt.getTransactionHash();
 
         // 获取区块时间戳
-        BigInteger blockTimestamp = getBlockTimestamp(blockNumber);
+        BigInteger blockTimestamp = getBlockTimestamp(blockNumber, priority);
 
         log.debug("Processing transaction receipt for: {}", transactionHash);
 
         boolean hasEvents = false;
+        boolean failed = false;
 
         // 处理 EvidenceSubmitted 事件
         try {
@@ -553,7 +659,9 @@ public class BlockchainEvidenceEventServiceImpl implements BlockchainEvidenceEve
                 }
             }
         } catch (Exception e) {
-            log.debug("No EvidenceSubmitted events found in receipt: {}", e.getMessage());
+            log.error("Failed to process EvidenceSubmitted events in transaction {}: {}", transactionHash,
+                    e.getMessage());
+            failed = true;
         }
 
         // 处理 EvidenceStatusChanged 事件
@@ -571,7 +679,9 @@ public class BlockchainEvidenceEventServiceImpl implements BlockchainEvidenceEve
                 }
             }
         } catch (Exception e) {
-            log.debug("No EvidenceStatusChanged events found in receipt: {}", e.getMessage());
+            log.error("Failed to process EvidenceStatusChanged events in transaction {}: {}", transactionHash,
+                    e.getMessage());
+            failed = true;
         }
 
         // 处理 EvidenceRevoked 事件
@@ -587,18 +697,24 @@ public class BlockchainEvidenceEventServiceImpl implements BlockchainEvidenceEve
                 }
             }
         } catch (Exception e) {
-            log.debug("No EvidenceRevoked events found in receipt: {}", e.getMessage());
+            log.error("Failed to process EvidenceRevoked events in transaction {}: {}", transactionHash,
+                    e.getMessage());
+            failed = true;
         }
 
-        // 如果处理了事件，更新同步状态到当前区块
-        if (hasEvents) {
+        // 任一事件处理失败时整个收据视为失败：历史批次会重试，实时事件所在区块保持未完成
+        if (failed) {
+            throw new BlockchainException(
+                    "Failed to process events in transaction " + transactionHash);
+        }
+
+        // 实时事件只标记自身所在的区块，其余区块由历史批次或缺口审计完成
+        if (hasEvents && advanceCheckpoint) {
             try {
-                updateSyncStatus(blockNumber);
-                log.debug("Updated sync status to block {} after processing real-time events",
-                        blockNumber);
+                syncCheckpointService.markRangeCompleted(blockNumber, blockNumber);
+                log.debug("Marked block {} completed after processing events", blockNumber);
             } catch (Exception e) {
-                log.error(
-                        "Failed to update sync status after processing real-time events from block {}",
+                log.error("Failed to mark block {} completed after processing events",
                         blockNumber, e);
             }
         }
@@ -637,9 +753,10 @@ public class BlockchainEvidenceEventServiceImpl implements BlockchainEvidenceEve
     /**
      * 获取区块时间戳
      */
-    private BigInteger getBlockTimestamp(BigInteger blockNumber) throws IOException {
-        EthBlock ethBlock = web3jService.getWeb3j()
-                .ethGetBlockByNumber(DefaultBlockParameter.valueOf(blockNumber), false).send();
+    private BigInteger getBlockTimestamp(BigInteger blockNumber, RpcPriority priority)
+            throws IOException {
+        EthBlock ethBlock = rpcBudgetScheduler.send(priority, web3jService.getWeb3j()
+                .ethGetBlockByNumber(DefaultBlockParameter.valueOf(blockNumber), false));
 
         if (ethBlock.getBlock() == null) {
             throw new BlockchainException("Block not found: " + blockNumber);
@@ -760,7 +877,8 @@ public class BlockchainEvidenceEventServiceImpl implements BlockchainEvidenceEve
         log.debug(
                 "Processing real-time EvidenceSubmitted event: evidenceId={}, submitter={}, timestamp={}",
                 event.evidenceId, event.user, event.timestamp);
-        processLogResult(event.log);
+        recordSubscriptionDelivery("EvidenceSubmitted", event.log);
+        processLogResult(event.log, RpcPriority.REAL_TIME, true);
     }
 
     /**
@@ -771,7 +889,8 @@ public class BlockchainEvidenceEventServiceImpl implements BlockchainEvidenceEve
         log.debug(
                 "Processing real-time EvidenceStatusChanged event: evidenceId={}, oldStatus={}, newStatus={}",
                 event.evidenceId, event.oldStatus, event.newStatus);
-        processLogResult(event.log);
+        recordSubscriptionDelivery("EvidenceStatusChanged", event.log);
+        processLogResult(event.log, RpcPriority.REAL_TIME, true);
     }
 
     /**
@@ -782,8 +901,8 @@ public class BlockchainEvidenceEventServiceImpl implements BlockchainEvidenceEve
         log.debug(
                 "Processing real-time EvidenceRevoked event: evidenceId={}, revoker={}, reason={}",
                 event.evidenceId, event.revoker, event.timestamp);
-
-        processLogResult(event.log);
+        recordSubscriptionDelivery("EvidenceRevoked", event.log);
+        processLogResult(event.log, RpcPriority.REAL_TIME, true);
     }
 
     /**
@@ -828,6 +947,9 @@ public class BlockchainEvidenceEventServiceImpl implements BlockchainEvidenceEve
     private void handleSubscriptionError(String eventType, Throwable error) {
         log.error("Subscription error for {} event: {}", eventType, error.getMessage());
 
+        // 立即记录中断造成的缺口，即使重新订阅失败也能由缺口审计补齐
+        recordSubscriptionGap(eventType, syncCheckpointService.getHighestCompletedBlock());
+
         // 如果系统仍在运行，尝试重新订阅
         if (isListening.get()) {
             log.warn("Attempting to restart {} subscription", eventType);
@@ -844,6 +966,35 @@ public class BlockchainEvidenceEventServiceImpl implements BlockchainEvidenceEve
         }
     }
 
+    /**
+     * 记录订阅已收到的事件所在区块（同一区块的后续事件可能尚未送达，因此该区块本身仍视为未确认）
+     */
+    private void recordSubscriptionDelivery(String eventType, Log eventLog) {
+        if (eventLog != null && eventLog.getBlockNumber() != null) {
+            subscriptionResumeBlocks.merge(eventType, eventLog.getBlockNumber(), BigInteger::max);
+        }
+    }
+
+    /**
+     * 将订阅未确认收到的区块范围记录为缺口
+     *
+     * @param endBlock 缺口结束区块（包含）
+     */
+    private void recordSubscriptionGap(String eventType, BigInteger endBlock) {
+        BigInteger resumeBlock = subscriptionResumeBlocks.get(eventType);
+        if (resumeBlock == null || resumeBlock.compareTo(endBlock) > 0) {
+            return;
+        }
+
+        try {
+            syncCheckpointService.markRangeIncomplete(resumeBlock, endBlock);
+            log.warn("Recorded gap from block {} to {} for interrupted {} subscription",
+                    resumeBlock, endBlock, eventType);
+        } catch (Exception e) {
+            log.error("Failed to record gap for interrupted {} subscription", eventType, e);
+        }
+    }
+
     /**
      * 重新启动指定类型的订阅
      */
@@ -854,7 +1005,10 @@ public class BlockchainEvidenceEventServiceImpl implements BlockchainEvidenceEve
         }
 
         try {
-            BigInteger startBlock = getLastSyncedBlockNumber().add(BigInteger.ONE);
+            // 新订阅从已完成的最高区块之后开始，之前未确认收到的区块记录为缺口
+            BigInteger highestCompletedBlock = syncCheckpointService.getHighestCompletedBlock();
+            recordSubscriptionGap(eventType, highestCompletedBlock);
+            BigInteger startBlock = highestCompletedBlock.add(BigInteger.ONE);
             DefaultBlockParameter fromBlock = DefaultBlockParameter.valueOf(startBlock);
 
             switch (eventType) {
@@ -924,6 +1078,7 @@ public class BlockchainEvidenceEventServiceImpl implements BlockchainEvidenceEve
                     log.warn("Unknown event type for subscription restart: {}", eventType);
             }
 
+            subscriptionResumeBlocks.put(eventType, startBlock);
             log.info("Successfully restarted {} subscription", eventType);
 
         } catch (Exception e) {
@@ -0,0 +1,191 @@
+package cn.edu.gfkd.evidence.service;
+
+import java.nio.ByteBuffer;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 热点证书内存缓存
+ *
+ * 主要职责： 1. 按字节数限定容量的 LRU 缓存，刚提交的证据证书被反复下载时直接从内存返回 2. 可选把证书放在堆外内存，避免大 PDF 进入年轻代
+ * 3. 超过单条上限的证书不缓存 4. 证书重新生成或删除时失效 5. 统计命中率
+ *
+ * 从存储读取前先取失效代数，读取期间发生失效时不回填，避免把已被替换或删除的旧内容放回缓存。
+ */
+@Service @Slf4j
+public class CertificateCache {
+
+    @Value("${certificate.cache.enabled:true}")
+    private boolean enabled;
+
+    @Value("${certificate.cache.max-bytes:67108864}")
+    private long maxBytes;
+
+    @Value("${certificate.cache.max-entry-bytes:2097152}")
+    private long maxEntryBytes;
+
+    @Value("${certificate.cache.off-heap:false}")
+    private boolean offHeap;
+
+    // 按访问顺序排列，最久未访问的在前
+    private final LinkedHashMap<String, ByteBuffer> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long currentBytes;
+
+    // 失效代数，只在持有锁时推进
+    private long generation;
+
+    private final AtomicLong hits = new AtomicLong(0);
+    private final AtomicLong misses = new AtomicLong(0);
+    private final AtomicLong evictions = new AtomicLong(0);
+
+    /**
+     * 获取缓存的证书内容
+     *
+     * @param certificateId 证书ID
+     * @return 只读的证书内容，未命中时返回 Optional.empty()
+     */
+    public Optional<ByteBuffer> get(String certificateId) {
+        if (!enabled || certificateId == null) {
+            return Optional.empty();
+        }
+
+        ByteBuffer buffer;
+        synchronized (this) {
+            buffer = entries.get(certificateId);
+        }
+
+        if (buffer == null) {
+            misses.incrementAndGet();
+            return Optional.empty();
+        }
+        hits.incrementAndGet();
+        return Optional.of(buffer.asReadOnlyBuffer());
+    }
+
+    /**
+     * 该大小的证书是否会被缓存（调用方据此决定是否把证书读入内存）
+     */
+    public boolean accepts(long size) {
+        return enabled && size > 0 && size <= maxEntryBytes && size <= maxBytes;
+    }
+
+    /**
+     * 当前失效代数，调用方在从存储读取证书前获取，回填时交给 {@link #putIfCurrent}
+     */
+    public synchronized long currentGeneration() {
+        return generation;
+    }
+
+    /**
+     * 缓存证书内容，必要时淘汰最久未访问的证书（堆内缓存直接持有 data，调用方之后不得修改）
+     *
+     * @return 缓存后的只读内容；不缓存时返回包装原数组的只读内容
+     */
+    public ByteBuffer put(String certificateId, byte[] data) {
+        return putIfCurrent(certificateId, data, -1);
+    }
+
+    /**
+     * 读取期间没有发生失效时缓存证书内容
+     *
+     * @param loadGeneration 读取前通过 {@link #currentGeneration()} 获取的失效代数，-1 表示不检查
+     * @return 缓存后的只读内容；不缓存时返回包装原数组的只读内容
+     */
+    public ByteBuffer putIfCurrent(String certificateId, byte[] data, long loadGeneration) {
+        if (!accepts(data.length)) {
+            return ByteBuffer.wrap(data).asReadOnlyBuffer();
+        }
+
+        ByteBuffer buffer;
+        if (offHeap) {
+            buffer = ByteBuffer.allocateDirect(data.length);
+            buffer.put(data).flip();
+        } else {
+            buffer = ByteBuffer.wrap(data);
+        }
+
+        synchronized (this) {
+            if (loadGeneration >= 0 && loadGeneration != generation) {
+                log.debug("Certificate {} was invalidated while loading, not caching", certificateId);
+                return buffer.asReadOnlyBuffer();
+            }
+            ByteBuffer previous = entries.put(certificateId, buffer);
+            if (previous != null) {
+                currentBytes -= previous.capacity();
+            }
+            currentBytes += buffer.capacity();
+            evictIfNecessary();
+        }
+        return buffer.asReadOnlyBuffer();
+    }
+
+    /**
+     * 使单个证书的缓存失效
+     */
+    public synchronized void invalidate(String certificateId) {
+        generation++;
+        ByteBuffer removed = entries.remove(certificateId);
+        if (removed != null) {
+            currentBytes -= removed.capacity();
+        }
+    }
+
+    /**
+     * 清空缓存
+     */
+    public synchronized void invalidateAll() {
+        generation++;
+        entries.clear();
+        currentBytes = 0;
+    }
+
+    /**
+     * 命中率（0~1），尚无访问时为 0
+     */
+    public double getHitRatio() {
+        long hitCount = hits.get();
+        long total = hitCount + misses.get();
+        return total == 0 ? 0 : (double) hitCount / total;
+    }
+
+    /**
+     * 获取统计信息
+     */
+    public String getStatistics() {
+        if (!enabled) {
+            return "disabled";
+        }
+
+        int entryCount;
+        long bytes;
+        synchronized (this) {
+            entryCount = entries.size();
+            bytes = currentBytes;
+        }
+        return String.format("hit ratio %.1f%% (%d hits, %d misses), %d entries, %d/%d bytes%s, "
+                + "%d evictions", getHitRatio() * 100, hits.get(), misses.get(), entryCount, bytes,
+                maxBytes, offHeap ? " off-heap" : "", evictions.get());
+    }
+
+    /**
+     * 淘汰最久未访问的证书直到总字节数不超过上限（调用方需持有锁）
+     */
+    private void evictIfNecessary() {
+        Iterator<Map.Entry<String, ByteBuffer>> iterator = entries.entrySet().iterator();
+        while (currentBytes > maxBytes && iterator.hasNext()) {
+            Map.Entry<String, ByteBuffer> eldest = iterator.next();
+            currentBytes -= eldest.getValue().capacity();
+            iterator.remove();
+            evictions.incrementAndGet();
+            log.debug("Evicted certificate {} from cache", eldest.getKey());
+        }
+    }
+}
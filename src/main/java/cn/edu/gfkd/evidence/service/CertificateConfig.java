@@ -11,6 +11,21 @@ public class CertificateConfig {
     private String templatePath = "classpath:static/proof_template.pdf";
     private String outputPath = "data/certificates";
     private String fontPath = "classpath:static/fonts/simhei.ttf";
+
+    // 模板版本：更换模板时修改；为空时取模板文件内容摘要的前 12 位
+    private String templateVersion = "";
     private boolean autoCreateDirectory = true;
 
+    // 渲染引擎：acroform 填充表单字段，fast 直接写入页面内容流
+    private String renderEngine = "acroform";
+
+    // 输出配置：standard 保持原有输出，compact 子集化字体、扁平化表单、合并重复资源并压缩对象流
+    private String outputProfile = "standard";
+
+    // 生成模式：eager 由渲染流水线提前生成，on-demand 在首次下载时生成
+    private String generationMode = "eager";
+
+    // 按需生成时，并发请求等待同一次渲染的最长时间（毫秒）
+    private long onDemandWaitTimeoutMs = 30000;
+
 }
\ No newline at end of file
@@ -0,0 +1,250 @@
+package cn.edu.gfkd.evidence.service;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.pdfbox.cos.COSArray;
+import org.apache.pdfbox.cos.COSBase;
+import org.apache.pdfbox.cos.COSBoolean;
+import org.apache.pdfbox.cos.COSDictionary;
+import org.apache.pdfbox.cos.COSFloat;
+import org.apache.pdfbox.cos.COSInteger;
+import org.apache.pdfbox.cos.COSName;
+import org.apache.pdfbox.cos.COSNull;
+import org.apache.pdfbox.cos.COSObject;
+import org.apache.pdfbox.cos.COSStream;
+import org.apache.pdfbox.cos.COSString;
+import org.apache.pdfbox.pdfwriter.compress.CompressParameters;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDResources;
+import org.apache.pdfbox.pdmodel.interactive.form.PDAcroForm;
+import org.springframework.stereotype.Service;
+
+import cn.edu.gfkd.evidence.service.signing.CertificateSigner;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 证书文档输出
+ *
+ * 主要职责： 1. 按输出配置（standard / compact）保存证书文档 2. compact 配置下删除扁平化后残留的表单结构 3. 合并页面中内容相同的图像等资源
+ * 4. 使用对象流压缩写出文档 5. 启用签名时对保存后的文档做 PAdES 签名
+ */
+@Service @Slf4j
+public class CertificateDocumentWriter {
+
+    static final String PROFILE_COMPACT = "compact";
+
+    private final CertificateConfig certificateConfig;
+    private final CertificateSigner certificateSigner;
+
+    public CertificateDocumentWriter(CertificateConfig certificateConfig,
+            CertificateSigner certificateSigner) {
+        this.certificateConfig = certificateConfig;
+        this.certificateSigner = certificateSigner;
+    }
+
+    /**
+     * 是否使用体积优化的输出配置（渲染引擎据此决定是否子集化字体并扁平化表单）
+     */
+    public boolean isCompact() {
+        return PROFILE_COMPACT.equalsIgnoreCase(certificateConfig.getOutputProfile());
+    }
+
+    /**
+     * 按输出配置保存文档
+     *
+     * @param document 已渲染完成的证书文档
+     * @return PDF 字节
+     * @throws IOException 保存失败时抛出
+     */
+    public byte[] write(PDDocument document) throws IOException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        write(document, outputStream);
+        return outputStream.toByteArray();
+    }
+
+    /**
+     * 按输出配置把文档直接保存到输出流（不关闭输出流）
+     *
+     * @param document 已渲染完成的证书文档
+     * @param outputStream 目标输出流
+     * @throws IOException 保存失败时抛出
+     */
+    public void write(PDDocument document, OutputStream outputStream) throws IOException {
+        if (certificateSigner.isEnabled()) {
+            // 签名以增量更新追加在保存后的文档之后，需要先得到完整的文档字节
+            ByteArrayOutputStream unsigned = new ByteArrayOutputStream();
+            save(document, unsigned);
+            certificateSigner.sign(unsigned.toByteArray(), outputStream);
+        } else {
+            save(document, outputStream);
+        }
+    }
+
+    private void save(PDDocument document, OutputStream outputStream) throws IOException {
+        if (isCompact()) {
+            removeEmptyForm(document);
+            int merged = deduplicateResources(document);
+            if (merged > 0) {
+                log.debug("Merged {} duplicate resources in certificate", merged);
+            }
+            document.save(outputStream, CompressParameters.DEFAULT_COMPRESSION);
+        } else {
+            document.save(outputStream);
+        }
+    }
+
+    /**
+     * 扁平化后表单已没有字段时，删除表单及其默认资源
+     */
+    private void removeEmptyForm(PDDocument document) {
+        PDAcroForm acroForm = document.getDocumentCatalog().getAcroForm();
+        if (acroForm != null && acroForm.getFields().isEmpty()) {
+            document.getDocumentCatalog().setAcroForm(null);
+        }
+    }
+
+    /**
+     * 让引用内容相同的图像/表单对象的页面资源指向同一个对象，重复的对象在保存时不再写出
+     */
+    private int deduplicateResources(PDDocument document) throws IOException {
+        Map<String, COSStream> streamsByDigest = new HashMap<>();
+        // 间接对象按对象身份编号，同一文档内的编号在整个合并过程中保持一致
+        Map<COSBase, Integer> identities = new IdentityHashMap<>();
+        int merged = 0;
+
+        for (PDPage page : document.getPages()) {
+            PDResources resources = page.getResources();
+            if (resources == null) {
+                continue;
+            }
+
+            COSDictionary xObjects = resources.getCOSObject().getCOSDictionary(COSName.XOBJECT);
+            if (xObjects == null) {
+                continue;
+            }
+
+            for (COSName name : new ArrayList<>(xObjects.keySet())) {
+                COSBase value = xObjects.getDictionaryObject(name);
+                if (!(value instanceof COSStream)) {
+                    continue;
+                }
+
+                COSStream stream = (COSStream) value;
+                String digest = digest(stream, identities);
+                COSStream existing = streamsByDigest.putIfAbsent(digest, stream);
+                if (existing != null && existing != stream) {
+                    xObjects.setItem(name, existing);
+                    merged++;
+                }
+            }
+        }
+
+        return merged;
+    }
+
+    /**
+     * 以流字典（除 /Length 外的全部条目）和原始（未解码）内容计算摘要
+     */
+    private String digest(COSStream stream, Map<COSBase, Integer> identities) throws IOException {
+        MessageDigest messageDigest;
+        try {
+            messageDigest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IOException("SHA-256 not available", e);
+        }
+
+        StringBuilder dictionary = new StringBuilder();
+        appendDictionary(dictionary, stream, identities, Collections.newSetFromMap(
+                new IdentityHashMap<>()));
+        messageDigest.update(dictionary.toString().getBytes(StandardCharsets.UTF_8));
+        messageDigest.update((byte) 0);
+
+        try (InputStream rawStream = stream.createRawInputStream()) {
+            byte[] buffer = new byte[8192];
+            int read;
+            while ((read = rawStream.read(buffer)) != -1) {
+                messageDigest.update(buffer, 0, read);
+            }
+        }
+
+        return HexFormat.of().formatHex(messageDigest.digest());
+    }
+
+    /**
+     * 按键名排序写出字典条目；/Length 随压缩方式变化，不参与比较
+     */
+    private void appendDictionary(StringBuilder out, COSDictionary dictionary,
+            Map<COSBase, Integer> identities, Set<COSBase> visiting) {
+        visiting.add(dictionary);
+        List<COSName> keys = new ArrayList<>(dictionary.keySet());
+        keys.sort(Comparator.comparing(COSName::getName));
+        out.append("<<");
+        for (COSName key : keys) {
+            if (COSName.LENGTH.equals(key)) {
+                continue;
+            }
+            out.append('/').append(key.getName()).append(' ');
+            appendValue(out, dictionary.getItem(key), identities, visiting);
+            out.append(' ');
+        }
+        out.append(">>");
+        visiting.remove(dictionary);
+    }
+
+    /**
+     * 直接对象按内容写出；间接引用、流以及循环引用的对象只有是同一对象时才视为相同
+     */
+    private void appendValue(StringBuilder out, COSBase value, Map<COSBase, Integer> identities,
+            Set<COSBase> visiting) {
+        if (value instanceof COSObject reference) {
+            appendIdentity(out, reference.getObject(), identities);
+        } else if (value instanceof COSStream || visiting.contains(value)) {
+            appendIdentity(out, value, identities);
+        } else if (value instanceof COSDictionary dictionary) {
+            appendDictionary(out, dictionary, identities, visiting);
+        } else if (value instanceof COSArray array) {
+            visiting.add(array);
+            out.append('[');
+            for (int i = 0; i < array.size(); i++) {
+                appendValue(out, array.get(i), identities, visiting);
+                out.append(' ');
+            }
+            out.append(']');
+            visiting.remove(array);
+        } else if (value instanceof COSName name) {
+            out.append('/').append(name.getName());
+        } else if (value instanceof COSString string) {
+            out.append('<').append(HexFormat.of().formatHex(string.getBytes())).append('>');
+        } else if (value instanceof COSInteger integer) {
+            out.append(integer.longValue());
+        } else if (value instanceof COSFloat number) {
+            out.append(number.floatValue()).append('f');
+        } else if (value instanceof COSBoolean bool) {
+            out.append(bool.getValue());
+        } else if (value == null || value instanceof COSNull) {
+            out.append("null");
+        } else {
+            appendIdentity(out, value, identities);
+        }
+    }
+
+    private void appendIdentity(StringBuilder out, COSBase value, Map<COSBase, Integer> identities) {
+        out.append('@').append(identities.computeIfAbsent(value, key -> identities.size()));
+    }
+}
@@ -0,0 +1,143 @@
+package cn.edu.gfkd.evidence.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.Optional;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipException;
+import java.util.zip.ZipOutputStream;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+
+import cn.edu.gfkd.evidence.dto.CertificateExportFilter;
+import cn.edu.gfkd.evidence.repository.EvidenceRepository;
+import cn.edu.gfkd.evidence.repository.EvidenceRepository.CertificateExportRow;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 证书批量导出服务
+ *
+ * 主要职责： 1. 按用户地址、状态、时间和区块范围筛选证据 2. 按主键游标分批查询，内存占用与导出数量无关 3. 从证书存储顺序读取证书，
+ * 直接写入响应的 ZIP 流，不产生临时文件 4. 存储中缺失的证书跳过并记录日志 5. 提前通知存储预取后续证书，远程存储的读取与 ZIP 写入重叠
+ */
+@Service @RequiredArgsConstructor @Slf4j
+public class CertificateExportService {
+
+    private final EvidenceRepository evidenceRepository;
+    private final CertificateStorageService certificateStorageService;
+
+    @Value("${certificate.export.batch-size:500}")
+    private int batchSize = 500;
+
+    // 每写出这么多个证书通知存储预取后面两段的证书，0 表示不预取
+    @Value("${certificate.export.prefetch:16}")
+    private int prefetch = 16;
+
+    // 导出响应的异步超时（毫秒），只作用于导出请求，0 表示不限制
+    @Value("${certificate.export.timeout-ms:3600000}")
+    private long timeoutMs = 3600000;
+
+    /**
+     * 导出响应的异步超时（毫秒），0 表示不限制
+     */
+    public long getTimeoutMs() {
+        return timeoutMs;
+    }
+
+    /**
+     * 把符合条件的证书写成 ZIP 输出到 outputStream（不关闭 outputStream）
+     *
+     * @return 导出的证书数量
+     */
+    public int exportCertificates(CertificateExportFilter filter, OutputStream outputStream)
+            throws IOException {
+        long startTime = System.currentTimeMillis();
+        int exported = 0;
+        int missing = 0;
+        long afterId = 0;
+
+        ZipOutputStream zipStream = new ZipOutputStream(outputStream);
+        // PDF 内容本身已压缩，只用最快的压缩级别
+        zipStream.setLevel(Deflater.BEST_SPEED);
+
+        List<CertificateExportRow> batch;
+        do {
+            batch = evidenceRepository.findCertificateExportBatch(afterId, filter.getUserAddress(),
+                    filter.getStatus(), filter.getFrom(), filter.getTo(), filter.getFromBlock(),
+                    filter.getToBlock(), PageRequest.of(0, batchSize));
+
+            for (int i = 0; i < batch.size(); i++) {
+                if (prefetch > 0 && i % prefetch == 0) {
+                    prefetchCertificates(batch.subList(i,
+                            Math.min(batch.size(), i + 2 * prefetch)));
+                }
+
+                CertificateExportRow row = batch.get(i);
+                afterId = row.getId();
+                if (writeEntry(zipStream, row)) {
+                    exported++;
+                } else {
+                    missing++;
+                }
+            }
+            zipStream.flush();
+        } while (batch.size() == batchSize);
+
+        zipStream.finish();
+        zipStream.flush();
+
+        log.info("Exported {} certificates ({} missing from storage) in {}ms", exported, missing,
+                System.currentTimeMillis() - startTime);
+        return exported;
+    }
+
+    private void prefetchCertificates(List<CertificateExportRow> rows) {
+        certificateStorageService.prefetchCertificates(
+                rows.stream().map(CertificateExportRow::getCertificateId).toList());
+    }
+
+    private boolean writeEntry(ZipOutputStream zipStream, CertificateExportRow row)
+            throws IOException {
+        Optional<InputStream> certificateStream = certificateStorageService
+                .openCertificateStream(row.getCertificateId());
+        if (certificateStream.isEmpty()) {
+            log.warn("Certificate {} of evidence {} not found in storage, skipped from export",
+                    row.getCertificateId(), row.getEvidenceId());
+            return false;
+        }
+
+        try (InputStream inputStream = certificateStream.get()) {
+            try {
+                zipStream.putNextEntry(newEntry(entryName(row, false), row));
+            } catch (ZipException e) {
+                // 不同证据ID替换字符后可能重名，改用带主键的名称
+                zipStream.putNextEntry(newEntry(entryName(row, true), row));
+            }
+            inputStream.transferTo(zipStream);
+            zipStream.closeEntry();
+        }
+        return true;
+    }
+
+    private ZipEntry newEntry(String name, CertificateExportRow row) {
+        ZipEntry entry = new ZipEntry(name);
+        if (row.getCreatedAt() != null) {
+            entry.setTimeLocal(row.getCreatedAt());
+        }
+        return entry;
+    }
+
+    private String entryName(CertificateExportRow row, boolean withId) {
+        String evidenceId = row.getEvidenceId() != null ? row.getEvidenceId()
+                : String.valueOf(row.getId());
+        // 证据ID中的冒号、斜杠等字符在解压时会被当作路径
+        String name = "certificate_" + evidenceId.replaceAll("[^A-Za-z0-9._-]", "_");
+        return (withId ? name + "_" + row.getId() : name) + ".pdf";
+    }
+}
@@ -0,0 +1,411 @@
+package cn.edu.gfkd.evidence.service;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import cn.edu.gfkd.evidence.entity.EvidenceEntity;
+import cn.edu.gfkd.evidence.enums.CertificateStatus;
+import cn.edu.gfkd.evidence.exception.CertificateGenerationException;
+import cn.edu.gfkd.evidence.repository.EvidenceRepository;
+import cn.edu.gfkd.evidence.service.retry.RetryHandler;
+import cn.edu.gfkd.evidence.service.storage.EvidenceCache;
+import cn.edu.gfkd.evidence.service.sync.CatchUpModeService;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 异步证书渲染服务
+ *
+ * 主要职责： 1. 以证据表的证书状态列作为持久化队列（pending → rendering → ready/failed） 2. 由有界工作线程池并发渲染证书，事件处理事务中不再渲染PDF
+ * 3. 失败时按指数退避重试，超过最大次数后标记为失败 4. 启动时回收上次异常退出遗留的 rendering 任务 5. 追赶模式下暂停领取任务
+ * 6. 按需生成模式下不提前渲染，首次下载时渲染，同一证据的并发请求合并为一次渲染
+ */
+@Service @Slf4j
+public class CertificateRenderingService {
+
+    private final EvidenceRepository evidenceRepository;
+    private final CertificateStorageService certificateStorageService;
+    private final CatchUpModeService catchUpModeService;
+    private final RetryHandler retryHandler;
+    private final CertificateConfig certificateConfig;
+    private final EvidenceCache evidenceCache;
+
+    // 渲染并发度与轮询配置
+    @Value("${certificate.rendering.concurrency:2}")
+    private int concurrency;
+
+    @Value("${certificate.rendering.poll-interval-ms:1000}")
+    private long pollIntervalMs;
+
+    // 重试与退避配置
+    @Value("${certificate.rendering.max-attempts:5}")
+    private int maxAttempts;
+
+    @Value("${certificate.rendering.initial-backoff-ms:2000}")
+    private long initialBackoffMs;
+
+    @Value("${certificate.rendering.max-backoff-ms:300000}")
+    private long maxBackoffMs;
+
+    private ScheduledExecutorService pollScheduler;
+    private ThreadPoolExecutor renderExecutor;
+    private final AtomicInteger inFlight = new AtomicInteger(0);
+
+    // 按需渲染的单飞表：证据ID → 正在进行的渲染
+    private final ConcurrentHashMap<Long, CompletableFuture<String>> onDemandRenders = new ConcurrentHashMap<>();
+
+    // 统计信息
+    private final AtomicLong renderedCount = new AtomicLong(0);
+    private final AtomicLong failedAttemptCount = new AtomicLong(0);
+
+    public CertificateRenderingService(EvidenceRepository evidenceRepository,
+            CertificateStorageService certificateStorageService,
+            CatchUpModeService catchUpModeService, RetryHandler retryHandler,
+            CertificateConfig certificateConfig, EvidenceCache evidenceCache) {
+        this.evidenceRepository = evidenceRepository;
+        this.certificateStorageService = certificateStorageService;
+        this.catchUpModeService = catchUpModeService;
+        this.retryHandler = retryHandler;
+        this.certificateConfig = certificateConfig;
+        this.evidenceCache = evidenceCache;
+    }
+
+    /**
+     * 是否为按需生成模式
+     */
+    public boolean isOnDemand() {
+        return "on-demand".equalsIgnoreCase(certificateConfig.getGenerationMode());
+    }
+
+    /**
+     * 启动渲染工作线程池和轮询调度器
+     */
+    public synchronized void start() {
+        if (pollScheduler != null) {
+            log.warn("Certificate rendering service is already running");
+            return;
+        }
+
+        // 回收上次运行中被中断的任务
+        int recovered = retryHandler.executeWithRetryTransactional(
+                () -> evidenceRepository.updateAllCertificateStatus(
+                        CertificateStatus.RENDERING.getCode(), CertificateStatus.PENDING.getCode()),
+                "recover interrupted certificate renders");
+        if (recovered > 0) {
+            evidenceCache.invalidateAll();
+            log.info("Recovered {} interrupted certificate renders", recovered);
+        }
+
+        if (isOnDemand()) {
+            log.info("Certificate generation mode is on-demand, background rendering disabled");
+            return;
+        }
+
+        AtomicInteger threadIndex = new AtomicInteger(0);
+        renderExecutor = new ThreadPoolExecutor(concurrency, concurrency, 0L,
+                TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(concurrency), runnable -> {
+                    Thread thread = new Thread(runnable,
+                            "certificate-render-" + threadIndex.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+
+        pollScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "certificate-render-poller");
+            thread.setDaemon(true);
+            return thread;
+        });
+        pollScheduler.scheduleWithFixedDelay(this::pollPendingCertificates, pollIntervalMs,
+                pollIntervalMs, TimeUnit.MILLISECONDS);
+
+        log.info("Certificate rendering service started - concurrency: {}, max attempts: {}",
+                concurrency, maxAttempts);
+    }
+
+    /**
+     * 停止渲染服务，正在渲染的任务会在下次启动时重新领取
+     */
+    @PreDestroy
+    public synchronized void stop() {
+        if (pollScheduler == null) {
+            return;
+        }
+
+        pollScheduler.shutdownNow();
+        renderExecutor.shutdown();
+        try {
+            if (!renderExecutor.awaitTermination(30, TimeUnit.SECONDS)) {
+                renderExecutor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            renderExecutor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+        pollScheduler = null;
+        renderExecutor = null;
+
+        log.info("Certificate rendering service stopped");
+    }
+
+    /**
+     * 将证据标记为等待生成证书（由事件处理器在其事务中调用，不执行渲染）
+     *
+     * @param evidence 证据实体
+     */
+    public void enqueue(EvidenceEntity evidence) {
+        evidence.setCertificateStatus(CertificateStatus.PENDING.getCode());
+        evidence.setCertificateAttempts(0);
+        evidence.setCertificateNextAttemptAt(null);
+
+        // 事务提交后立即唤醒轮询，避免等待下一个轮询周期
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(
+                    new TransactionSynchronization() {
+                        @Override
+                        public void afterCommit() {
+                            wakeUp();
+                        }
+                    });
+        }
+    }
+
+    /**
+     * 立即触发一次轮询
+     */
+    public void wakeUp() {
+        ScheduledExecutorService scheduler = pollScheduler;
+        if (scheduler != null && !scheduler.isShutdown()) {
+            try {
+                scheduler.execute(this::pollPendingCertificates);
+            } catch (RejectedExecutionException e) {
+                log.debug("Certificate render poller is shutting down");
+            }
+        }
+    }
+
+    /**
+     * 获取证据的证书ID，尚未生成时立即渲染（按需生成）
+     *
+     * 同一证据的并发请求只触发一次渲染，其余请求等待该次渲染的结果。
+     *
+     * @param evidenceId 证据主键
+     * @return 证书ID
+     * @throws CertificateGenerationException 渲染失败或等待超时时抛出
+     */
+    public String getOrRenderCertificate(Long evidenceId) throws CertificateGenerationException {
+        CompletableFuture<String> render = new CompletableFuture<>();
+        CompletableFuture<String> existing = onDemandRenders.putIfAbsent(evidenceId, render);
+        if (existing != null) {
+            return awaitRender(evidenceId, existing);
+        }
+
+        try {
+            String certificateId = renderOnDemand(evidenceId);
+            render.complete(certificateId);
+            return certificateId;
+        } catch (RuntimeException e) {
+            render.completeExceptionally(e);
+            throw e;
+        } finally {
+            onDemandRenders.remove(evidenceId, render);
+        }
+    }
+
+    private String renderOnDemand(Long evidenceId) throws CertificateGenerationException {
+        EvidenceEntity evidence = evidenceRepository.findById(evidenceId)
+                .orElseThrow(() -> new CertificateGenerationException(
+                        "Evidence not found with id: " + evidenceId));
+
+        // 等待期间可能已由其他请求或后台任务生成
+        if (evidence.getCertificateId() != null && !evidence.getCertificateId().isEmpty()) {
+            return evidence.getCertificateId();
+        }
+
+        log.info("Rendering certificate on demand for evidenceId: {}", evidence.getEvidenceId());
+        certificateStorageService.generateAndStoreCertificate(evidence);
+        String certificateId = evidence.getCertificateId();
+        String certificateHash = evidence.getCertificateHash();
+        String templateVersion = evidence.getCertificateTemplateVersion();
+
+        retryHandler.executeWithRetryTransactional(
+                () -> evidenceRepository.markCertificateReady(evidenceId, certificateId,
+                        certificateHash, templateVersion, CertificateStatus.READY.getCode()),
+                "mark on-demand certificate ready");
+        evidenceCache.invalidate(evidenceId);
+        renderedCount.incrementAndGet();
+        return certificateId;
+    }
+
+    private String awaitRender(Long evidenceId, CompletableFuture<String> render)
+            throws CertificateGenerationException {
+        try {
+            return render.get(certificateConfig.getOnDemandWaitTimeoutMs(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CertificateGenerationException(
+                    "Interrupted while waiting for certificate of evidence " + evidenceId, e);
+        } catch (TimeoutException e) {
+            throw new CertificateGenerationException(
+                    "Timed out waiting for certificate of evidence " + evidenceId, e);
+        } catch (ExecutionException e) {
+            throw new CertificateGenerationException(
+                    "Failed to generate certificate: " + e.getCause().getMessage(), e.getCause());
+        }
+    }
+
+    /**
+     * 领取到期的待生成任务并提交给工作线程池
+     *
+     * @return 本次提交的任务数量
+     */
+    public int pollPendingCertificates() {
+        if (catchUpModeService.isCatchingUp()) {
+            return 0;
+        }
+
+        ThreadPoolExecutor executor = renderExecutor;
+        if (executor == null) {
+            return 0;
+        }
+
+        int capacity = concurrency * 2 - inFlight.get();
+        if (capacity <= 0) {
+            return 0;
+        }
+
+        int submitted = 0;
+        try {
+            List<Long> candidates = evidenceRepository.findCertificateRenderCandidates(
+                    CertificateStatus.PENDING.getCode(), LocalDateTime.now(),
+                    PageRequest.of(0, capacity));
+
+            for (Long id : candidates) {
+                // 条件更新领取任务，保证同一证据只被一个工作线程渲染
+                int claimed = evidenceRepository.compareAndSetCertificateStatus(id,
+                        CertificateStatus.PENDING.getCode(),
+                        CertificateStatus.RENDERING.getCode());
+                if (claimed == 0) {
+                    continue;
+                }
+                evidenceCache.invalidate(id);
+
+                inFlight.incrementAndGet();
+                try {
+                    executor.execute(() -> renderCertificate(id));
+                    submitted++;
+                } catch (RejectedExecutionException e) {
+                    inFlight.decrementAndGet();
+                    evidenceRepository.compareAndSetCertificateStatus(id,
+                            CertificateStatus.RENDERING.getCode(),
+                            CertificateStatus.PENDING.getCode());
+                    evidenceCache.invalidate(id);
+                    break;
+                }
+            }
+        } catch (Exception e) {
+            log.error("Error while polling pending certificates", e);
+        }
+
+        return submitted;
+    }
+
+    /**
+     * 渲染单个证书并更新状态
+     */
+    void renderCertificate(Long id) {
+        try {
+            EvidenceEntity evidence = evidenceRepository.findById(id).orElse(null);
+            if (evidence == null) {
+                log.warn("Evidence {} disappeared before certificate rendering", id);
+                return;
+            }
+
+            try {
+                certificateStorageService.generateAndStoreCertificate(evidence);
+                String certificateId = evidence.getCertificateId();
+                String certificateHash = evidence.getCertificateHash();
+                String templateVersion = evidence.getCertificateTemplateVersion();
+
+                retryHandler.executeWithRetryTransactional(
+                        () -> evidenceRepository.markCertificateReady(id, certificateId,
+                                certificateHash, templateVersion,
+                                CertificateStatus.READY.getCode()),
+                        "mark certificate ready");
+                evidenceCache.invalidate(id);
+                renderedCount.incrementAndGet();
+
+                log.debug("Certificate rendered for evidenceId: {}, certificateId: {}",
+                        evidence.getEvidenceId(), certificateId);
+            } catch (Exception e) {
+                failedAttemptCount.incrementAndGet();
+                recordFailure(evidence, e);
+            }
+        } catch (Exception e) {
+            log.error("Unexpected error while rendering certificate for evidence {}", id, e);
+        } finally {
+            inFlight.decrementAndGet();
+        }
+    }
+
+    /**
+     * 记录失败并安排退避重试
+     */
+    private void recordFailure(EvidenceEntity evidence, Exception cause) {
+        int attempts = evidence.getCertificateAttempts() + 1;
+
+        if (attempts >= maxAttempts) {
+            log.error("Certificate rendering for evidenceId: {} failed after {} attempts: {}",
+                    evidence.getEvidenceId(), attempts, cause.getMessage(), cause);
+            retryHandler.executeWithRetryTransactional(
+                    () -> evidenceRepository.markCertificateAttemptFailed(evidence.getId(),
+                            CertificateStatus.FAILED.getCode(), attempts, null),
+                    "mark certificate failed");
+            evidenceCache.invalidate(evidence.getId());
+            return;
+        }
+
+        long backoffMs = calculateBackoffMs(attempts);
+        log.warn("Certificate rendering for evidenceId: {} failed (attempt {}/{}), retrying in {}ms: {}",
+                evidence.getEvidenceId(), attempts, maxAttempts, backoffMs, cause.getMessage());
+        retryHandler.executeWithRetryTransactional(
+                () -> evidenceRepository.markCertificateAttemptFailed(evidence.getId(),
+                        CertificateStatus.PENDING.getCode(), attempts,
+                        LocalDateTime.now().plusNanos(backoffMs * 1_000_000L)),
+                "schedule certificate retry");
+        evidenceCache.invalidate(evidence.getId());
+    }
+
+    /**
+     * 计算第 N 次失败后的退避时间
+     */
+    long calculateBackoffMs(int attempts) {
+        long backoff = initialBackoffMs << Math.min(attempts - 1, 30);
+        return Math.min(backoff, maxBackoffMs);
+    }
+
+    /**
+     * 获取渲染统计信息
+     */
+    public String getStatistics() {
+        return String.format("in flight: %d, rendered: %d, failed attempts: %d", inFlight.get(),
+                renderedCount.get(), failedAttemptCount.get());
+    }
+}
@@ -0,0 +1,340 @@
+package cn.edu.gfkd.evidence.service;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+
+import cn.edu.gfkd.evidence.entity.CertificateRerenderJob;
+import cn.edu.gfkd.evidence.entity.EvidenceEntity;
+import cn.edu.gfkd.evidence.enums.CertificateStatus;
+import cn.edu.gfkd.evidence.repository.CertificateRerenderJobRepository;
+import cn.edu.gfkd.evidence.repository.EvidenceRepository;
+import cn.edu.gfkd.evidence.service.retry.RetryHandler;
+import cn.edu.gfkd.evidence.service.storage.EvidenceCache;
+import cn.edu.gfkd.evidence.service.sync.CatchUpModeService;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 证书批量重新生成服务
+ *
+ * 主要职责： 1. 模板更新后由管理员触发，重新生成模板版本不是当前版本的已有证书 2. 按主键游标分批遍历证据，每批在有界工作线程池上并发渲染
+ * 3. 每批完成后把游标写入任务表作为检查点，重启后从检查点继续 4. 追赶模式下或实时渲染队列积压时暂停，优先保证实时链路
+ * 5. 证书先完整写入存储再更新证据记录，单个失败不影响整个任务
+ */
+@Service @Slf4j
+public class CertificateRerenderService {
+
+    private final EvidenceRepository evidenceRepository;
+    private final CertificateRerenderJobRepository jobRepository;
+    private final CertificateService certificateService;
+    private final CertificateTemplateCache certificateTemplateCache;
+    private final CatchUpModeService catchUpModeService;
+    private final RetryHandler retryHandler;
+    private final EvidenceCache evidenceCache;
+
+    @Value("${certificate.rerender.concurrency:4}")
+    private int concurrency;
+
+    @Value("${certificate.rerender.batch-size:200}")
+    private int batchSize;
+
+    // 实时渲染队列中等待生成的证书超过该数量时暂停重新生成
+    @Value("${certificate.rerender.max-pending-backlog:50}")
+    private long maxPendingBacklog;
+
+    @Value("${certificate.rerender.throttle-pause-ms:2000}")
+    private long throttlePauseMs;
+
+    private ExecutorService coordinator;
+    private ExecutorService workers;
+    private volatile boolean stopRequested;
+
+    public CertificateRerenderService(EvidenceRepository evidenceRepository,
+            CertificateRerenderJobRepository jobRepository, CertificateService certificateService,
+            CertificateTemplateCache certificateTemplateCache,
+            CatchUpModeService catchUpModeService, RetryHandler retryHandler,
+            EvidenceCache evidenceCache) {
+        this.evidenceRepository = evidenceRepository;
+        this.jobRepository = jobRepository;
+        this.certificateService = certificateService;
+        this.certificateTemplateCache = certificateTemplateCache;
+        this.catchUpModeService = catchUpModeService;
+        this.retryHandler = retryHandler;
+        this.evidenceCache = evidenceCache;
+    }
+
+    /**
+     * 重新加载模板并启动重新生成任务；已有任务在运行时直接返回该任务
+     *
+     * @return 正在运行的任务
+     */
+    public synchronized CertificateRerenderJob startJob() throws IOException {
+        Optional<CertificateRerenderJob> running = jobRepository
+                .findFirstByStatusOrderByIdDesc(CertificateRerenderJob.STATUS_RUNNING);
+        if (running.isPresent() && coordinator != null) {
+            return running.get();
+        }
+
+        // 读取磁盘上的新模板，之后生成的证书都使用新版本
+        certificateTemplateCache.invalidate();
+        String templateVersion = certificateTemplateCache.getTemplateVersion();
+
+        CertificateRerenderJob job;
+        if (running.isPresent() && running.get().getTemplateVersion().equals(templateVersion)) {
+            job = running.get();
+        } else {
+            running.ifPresent(previous -> finish(previous, CertificateRerenderJob.STATUS_CANCELLED,
+                    "Superseded by template version " + templateVersion));
+            job = jobRepository.save(new CertificateRerenderJob(templateVersion));
+        }
+
+        launch(job);
+        return job;
+    }
+
+    /**
+     * 继续上次未完成的任务（系统启动时调用）
+     */
+    public synchronized void resume() {
+        if (coordinator != null) {
+            return;
+        }
+
+        jobRepository.findFirstByStatusOrderByIdDesc(CertificateRerenderJob.STATUS_RUNNING)
+                .ifPresent(job -> {
+                    log.info("Resuming certificate re-render job {} from evidence id {}",
+                            job.getId(), job.getLastEvidenceId());
+                    launch(job);
+                });
+    }
+
+    /**
+     * 取消正在运行的任务
+     */
+    public synchronized Optional<CertificateRerenderJob> cancelJob() {
+        Optional<CertificateRerenderJob> running = jobRepository
+                .findFirstByStatusOrderByIdDesc(CertificateRerenderJob.STATUS_RUNNING);
+        stop();
+        running.ifPresent(job -> finish(job, CertificateRerenderJob.STATUS_CANCELLED,
+                "Cancelled by administrator"));
+        return running;
+    }
+
+    /**
+     * 获取最近一次任务
+     */
+    public Optional<CertificateRerenderJob> getLatestJob() {
+        return jobRepository.findFirstByOrderByIdDesc();
+    }
+
+    /**
+     * 停止任务线程，任务保持运行状态，下次启动时从检查点继续
+     */
+    @PreDestroy
+    public synchronized void stop() {
+        if (coordinator == null) {
+            return;
+        }
+
+        stopRequested = true;
+        coordinator.shutdownNow();
+        workers.shutdown();
+        try {
+            if (!workers.awaitTermination(30, TimeUnit.SECONDS)) {
+                workers.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            workers.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+        coordinator = null;
+        workers = null;
+
+        log.info("Certificate re-render job stopped");
+    }
+
+    /**
+     * 是否有任务在运行
+     */
+    public boolean isRunning() {
+        return coordinator != null;
+    }
+
+    private void launch(CertificateRerenderJob job) {
+        stopRequested = false;
+        AtomicInteger threadIndex = new AtomicInteger(0);
+        workers = Executors.newFixedThreadPool(concurrency, runnable -> {
+            Thread thread = new Thread(runnable,
+                    "certificate-rerender-" + threadIndex.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        coordinator = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "certificate-rerender-coordinator");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        ExecutorService jobWorkers = workers;
+        coordinator.execute(() -> runJob(job, jobWorkers));
+
+        log.info("Certificate re-render job {} started - template version: {}, concurrency: {}",
+                job.getId(), job.getTemplateVersion(), concurrency);
+    }
+
+    /**
+     * 逐批处理直到没有旧版本证书
+     */
+    void runJob(CertificateRerenderJob job, ExecutorService jobWorkers) {
+        long startTime = System.currentTimeMillis();
+        try {
+            while (!stopRequested) {
+                if (shouldThrottle()) {
+                    Thread.sleep(throttlePauseMs);
+                    continue;
+                }
+
+                List<Long> batch = evidenceRepository.findCertificateRerenderCandidates(
+                        job.getLastEvidenceId(), job.getTemplateVersion(),
+                        PageRequest.of(0, batchSize));
+                if (batch.isEmpty()) {
+                    finish(job, CertificateRerenderJob.STATUS_COMPLETED, null);
+                    log.info("Certificate re-render job {} completed in {}ms - rendered: {}, "
+                            + "failed: {}", job.getId(), System.currentTimeMillis() - startTime,
+                            job.getRenderedCount(), job.getFailedCount());
+                    return;
+                }
+
+                processBatch(job, batch, jobWorkers);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            log.error("Certificate re-render job {} aborted", job.getId(), e);
+            job.setErrorMessage(e.getMessage());
+            saveJob(job);
+        } finally {
+            release(jobWorkers);
+        }
+    }
+
+    /**
+     * 任务线程退出时释放线程池（stop() 已释放时跳过）
+     */
+    private synchronized void release(ExecutorService jobWorkers) {
+        if (workers != jobWorkers) {
+            return;
+        }
+
+        jobWorkers.shutdown();
+        coordinator.shutdown();
+        workers = null;
+        coordinator = null;
+    }
+
+    /**
+     * 并发渲染一批证据，全部结束后推进检查点
+     */
+    void processBatch(CertificateRerenderJob job, List<Long> batch, ExecutorService jobWorkers) {
+        List<CompletableFuture<Boolean>> renders = new ArrayList<>(batch.size());
+        for (Long id : batch) {
+            renders.add(CompletableFuture.supplyAsync(() -> rerender(id, job.getTemplateVersion()),
+                    jobWorkers));
+        }
+
+        long rendered = 0;
+        for (CompletableFuture<Boolean> render : renders) {
+            if (render.join()) {
+                rendered++;
+            }
+        }
+        if (stopRequested) {
+            // 批次被中断，下次从原检查点重新处理这一批
+            return;
+        }
+
+        // 批内全部结束后才推进游标，检查点之前的证据都已处理
+        job.setLastEvidenceId(batch.get(batch.size() - 1));
+        job.setRenderedCount(job.getRenderedCount() + rendered);
+        job.setFailedCount(job.getFailedCount() + batch.size() - rendered);
+        saveJob(job);
+    }
+
+    /**
+     * 重新生成单个证书
+     *
+     * @return 是否成功
+     */
+    boolean rerender(Long id, String templateVersion) {
+        if (stopRequested) {
+            return false;
+        }
+
+        try {
+            EvidenceEntity evidence = evidenceRepository.findById(id).orElse(null);
+            if (evidence == null || evidence.getCertificateId() == null
+                    || templateVersion.equals(evidence.getCertificateTemplateVersion())) {
+                // 已删除或已被实时链路按新模板生成
+                return true;
+            }
+
+            String certificateId = certificateService.generateCertificate(evidence);
+            String certificateHash = evidence.getCertificateHash();
+            String renderedVersion = evidence.getCertificateTemplateVersion();
+            retryHandler.executeWithRetryTransactional(
+                    () -> evidenceRepository.markCertificateReady(id, certificateId,
+                            certificateHash, renderedVersion, CertificateStatus.READY.getCode()),
+                    "mark re-rendered certificate ready");
+            evidenceCache.invalidate(id);
+            return true;
+        } catch (Exception e) {
+            log.warn("Failed to re-render certificate for evidence {}: {}", id, e.getMessage());
+            return false;
+        }
+    }
+
+    private boolean shouldThrottle() {
+        if (catchUpModeService.isCatchingUp()) {
+            return true;
+        }
+        return evidenceRepository.countByCertificateStatus(
+                CertificateStatus.PENDING.getCode()) > maxPendingBacklog;
+    }
+
+    private void finish(CertificateRerenderJob job, String status, String message) {
+        job.setStatus(status);
+        job.setErrorMessage(message);
+        job.setCompletedAt(LocalDateTime.now());
+        saveJob(job);
+    }
+
+    private void saveJob(CertificateRerenderJob job) {
+        retryHandler.executeWithRetryTransactional(() -> jobRepository.save(job),
+                "save certificate re-render checkpoint");
+    }
+
+    /**
+     * 获取统计信息
+     */
+    public String getStatistics() {
+        return getLatestJob()
+                .map(job -> String.format("job %d %s%s, template %s, rendered: %d, failed: %d, "
+                        + "checkpoint: %d", job.getId(), job.getStatus(),
+                        job.isRunning() && !isRunning() ? " (paused)" : "",
+                        job.getTemplateVersion(), job.getRenderedCount(), job.getFailedCount(),
+                        job.getLastEvidenceId()))
+                .orElse("no jobs");
+    }
+}
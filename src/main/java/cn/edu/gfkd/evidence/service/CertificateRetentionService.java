@@ -0,0 +1,235 @@
+package cn.edu.gfkd.evidence.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import cn.edu.gfkd.evidence.enums.CertificateStatus;
+import cn.edu.gfkd.evidence.repository.EvidenceRepository;
+import cn.edu.gfkd.evidence.service.retry.RetryHandler;
+import cn.edu.gfkd.evidence.service.storage.CertificateMetadata;
+import cn.edu.gfkd.evidence.service.storage.EvidenceCache;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 证书保留期清理服务
+ *
+ * 主要职责： 1. 周期性删除创建时间超过保留期的证书，保留天数为 0 时不启用 2. 从存储的创建时间索引中按从早到晚取出过期证书，
+ * 每次只处理一批，开销与过期证书数量成正比，不遍历全部证书 3. 先清除证据表中的证书引用（状态置为 expired），再删除存储中的证书，
+ * 中途退出时证据不会指向已删除的证书，未删除的证书下次仍会被取出 4. 按每秒删除数量限速，避免清理占满磁盘和数据库
+ *
+ * 只有维护创建时间索引的存储（filesystem、segment）支持保留期清理；S3 等存储上配置了保留天数时不启动调度器并输出警告，
+ * 过期删除应改用存储桶的生命周期规则。
+ */
+@Service @Slf4j
+public class CertificateRetentionService {
+
+    private final EvidenceRepository evidenceRepository;
+    private final CertificateService certificateService;
+    private final RetryHandler retryHandler;
+    private final EvidenceCache evidenceCache;
+
+    // 证书保留天数，0 表示永久保留
+    @Value("${certificate.retention.days:0}")
+    private int retentionDays;
+
+    @Value("${certificate.retention.batch-size:200}")
+    private int batchSize;
+
+    // 每秒最多删除的证书数量，0 表示不限速
+    @Value("${certificate.retention.max-deletes-per-second:100}")
+    private int maxDeletesPerSecond;
+
+    @Value("${certificate.retention.interval-sec:3600}")
+    private long intervalSec;
+
+    @Value("${certificate.retention.initial-delay-sec:300}")
+    private long initialDelaySec;
+
+    private ScheduledExecutorService retentionScheduler;
+    private final AtomicBoolean isRunning = new AtomicBoolean(false);
+    private final AtomicLong expiredCount = new AtomicLong();
+
+    public CertificateRetentionService(EvidenceRepository evidenceRepository,
+            CertificateService certificateService, RetryHandler retryHandler,
+            EvidenceCache evidenceCache) {
+        this.evidenceRepository = evidenceRepository;
+        this.certificateService = certificateService;
+        this.retryHandler = retryHandler;
+        this.evidenceCache = evidenceCache;
+    }
+
+    /**
+     * 启动保留期清理调度器
+     */
+    public void start() {
+        if (retentionDays <= 0) {
+            log.info("Certificate retention is disabled");
+            return;
+        }
+
+        if (isRunning.get()) {
+            log.warn("Certificate retention is already running");
+            return;
+        }
+
+        if (!certificateService.supportsCreatedAtIndex()) {
+            log.warn("Certificate retention is configured to keep {} days, but the {} certificate "
+                    + "storage has no creation-time index; retention will NOT run. Configure an "
+                    + "expiration lifecycle rule on the storage instead, or set "
+                    + "certificate.retention.days=0", retentionDays,
+                    certificateService.getStorageType());
+            return;
+        }
+
+        retentionScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "certificate-retention");
+            thread.setDaemon(true);
+            thread.setPriority(Thread.MIN_PRIORITY);
+            return thread;
+        });
+        retentionScheduler.scheduleWithFixedDelay(this::runScheduled, initialDelaySec, intervalSec,
+                TimeUnit.SECONDS);
+        isRunning.set(true);
+
+        log.info("Certificate retention started - keep: {} days, batch size: {}, "
+                + "max deletes per second: {}", retentionDays, batchSize, maxDeletesPerSecond);
+    }
+
+    /**
+     * 停止保留期清理调度器，正在处理的批次处理完后退出
+     */
+    public void stop() {
+        if (!isRunning.getAndSet(false)) {
+            return;
+        }
+
+        if (retentionScheduler != null) {
+            retentionScheduler.shutdownNow();
+            try {
+                retentionScheduler.awaitTermination(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            retentionScheduler = null;
+        }
+
+        log.info("Certificate retention stopped");
+    }
+
+    private void runScheduled() {
+        try {
+            purgeExpired(System.currentTimeMillis() - TimeUnit.DAYS.toMillis(retentionDays));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            log.error("Certificate retention run failed", e);
+        }
+    }
+
+    /**
+     * 分批删除创建时间早于截止时间的证书
+     *
+     * @param cutoffMillis 截止时间（毫秒时间戳，不包含）
+     * @return 删除的证书数量
+     * @throws InterruptedException 限速等待时被中断
+     */
+    public long purgeExpired(long cutoffMillis) throws InterruptedException {
+        long purged = 0;
+        while (!Thread.currentThread().isInterrupted()) {
+            long batchStart = System.nanoTime();
+            List<CertificateMetadata> batch = certificateService
+                    .findCertificatesCreatedBefore(cutoffMillis, batchSize);
+            if (batch.isEmpty()) {
+                break;
+            }
+
+            int deleted = purgeBatch(batch);
+            purged += deleted;
+            if (deleted == 0) {
+                // 整批都未删除时停止，避免反复处理同一批，下次运行再重试
+                log.warn("No certificate in the retention batch was deleted, retrying next run");
+                break;
+            }
+
+            throttle(batch.size(), batchStart);
+        }
+
+        if (purged > 0) {
+            expiredCount.addAndGet(purged);
+            log.info("Certificate retention removed {} certificates created before {}", purged,
+                    cutoffMillis);
+        }
+        return purged;
+    }
+
+    /**
+     * 清除一批证书：先清除证据引用，再删除存储中的证书
+     *
+     * @return 删除的证书数量
+     */
+    int purgeBatch(List<CertificateMetadata> batch) {
+        // 取出后被重新生成的证书创建时间已变化，跳过
+        List<String> certificateIds = new ArrayList<>(batch.size());
+        for (CertificateMetadata metadata : batch) {
+            Optional<CertificateMetadata> current = certificateService
+                    .getCertificateMetadata(metadata.getCertificateId());
+            if (current.isPresent()
+                    && current.get().getCreatedAtMillis() == metadata.getCreatedAtMillis()) {
+                certificateIds.add(metadata.getCertificateId());
+            }
+        }
+        if (certificateIds.isEmpty()) {
+            return 0;
+        }
+
+        int cleared = retryHandler.executeWithRetryTransactional(
+                () -> evidenceRepository.clearCertificateReferences(certificateIds,
+                        CertificateStatus.EXPIRED.getCode()),
+                "clear expired certificate references");
+        // 批量更新不知道涉及哪些证据，整体失效
+        evidenceCache.invalidateAll();
+        log.debug("Cleared {} evidence references to expired certificates", cleared);
+
+        int deleted = 0;
+        for (String certificateId : certificateIds) {
+            if (certificateService.deleteCertificate(certificateId)) {
+                deleted++;
+            }
+        }
+        return deleted;
+    }
+
+    /**
+     * 按每秒删除数量限速：本批耗时不足配额时等待剩余时间
+     */
+    private void throttle(int batchSize, long batchStartNanos) throws InterruptedException {
+        if (maxDeletesPerSecond <= 0) {
+            return;
+        }
+
+        long minNanos = TimeUnit.SECONDS.toNanos(batchSize) / maxDeletesPerSecond;
+        long remainingNanos = minNanos - (System.nanoTime() - batchStartNanos);
+        if (remainingNanos > 0) {
+            TimeUnit.NANOSECONDS.sleep(remainingNanos);
+        }
+    }
+
+    /**
+     * 获取统计信息
+     */
+    public String getStatistics() {
+        if (retentionDays <= 0) {
+            return "disabled";
+        }
+        return String.format("keep %d days, expired: %d", retentionDays, expiredCount.get());
+    }
+}
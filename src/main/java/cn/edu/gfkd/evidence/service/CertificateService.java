@@ -1,19 +1,23 @@
 package cn.edu.gfkd.evidence.service;
 
-import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.text.SimpleDateFormat;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 
 import org.apache.pdfbox.Loader;
 import org.apache.pdfbox.cos.COSName;
-import org.apache.pdfbox.io.RandomAccessRead;
-import org.apache.pdfbox.io.RandomAccessReadBuffer;
 import org.apache.pdfbox.pdmodel.PDDocument;
 import org.apache.pdfbox.pdmodel.PDResources;
 import org.apache.pdfbox.pdmodel.font.PDFont;
@@ -22,67 +26,103 @@ import org.apache.pdfbox.pdmodel.interactive.form.PDAcroForm;
 import org.apache.pdfbox.pdmodel.interactive.form.PDField;
 import org.apache.pdfbox.pdmodel.interactive.form.PDNonTerminalField;
 import org.apache.pdfbox.pdmodel.interactive.form.PDTextField;
-import org.springframework.core.io.ClassPathResource;
 import org.springframework.core.io.Resource;
 import org.springframework.stereotype.Service;
 
 import cn.edu.gfkd.evidence.entity.EvidenceEntity;
 import cn.edu.gfkd.evidence.exception.CertificateGenerationException;
+import cn.edu.gfkd.evidence.service.storage.ByteBufferResource;
+import cn.edu.gfkd.evidence.service.storage.CertificateMetadata;
 import cn.edu.gfkd.evidence.service.storage.CertificateStorage;
+import cn.edu.gfkd.evidence.service.storage.CertificateStorageFactory;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
 @Service @RequiredArgsConstructor @Slf4j
 public class CertificateService {
 
-    private final CertificateStorage certificateStorage;
+    private final CertificateStorageFactory certificateStorageFactory;
+    private final CertificateTemplateCache certificateTemplateCache;
+    private final CertificateConfig certificateConfig;
+    private final FastCertificateRenderer fastCertificateRenderer;
+    private final CertificateDocumentWriter certificateDocumentWriter;
+    private final CertificateCache certificateCache;
 
     public String generateCertificate(EvidenceEntity evidence)
             throws CertificateGenerationException {
         log.debug("Generating certificate for evidenceId: {}", evidence.getEvidenceId());
 
+        // 先取版本再渲染：渲染期间模板被替换时记为旧版本，之后会被重新生成
+        String templateVersion = getTemplateVersion();
+
+        // PDF 直接写入存储的临时文件，不在内存中缓冲整个证书
         try {
-            // Load template PDF
-            Resource templateResource = new ClassPathResource("static/proof_template.pdf");
-            if (!templateResource.exists()) {
+            CertificateStorage storage = certificateStorageFactory.getStorage();
+            String certificateId = storage.storeCertificate(evidence,
+                    outputStream -> renderCertificate(evidence, outputStream));
+            evidence.setCertificateHash(computeCertificateHash(certificateId));
+            evidence.setCertificateTemplateVersion(templateVersion);
+            certificateCache.invalidate(certificateId);
+            log.info("Certificate generated and stored with ID: {}", certificateId);
+            return certificateId;
+        } catch (IOException e) {
+            log.error("Failed to store certificate for evidence {}: {}",
+                    evidence.getEvidenceId(), e.getMessage(), e);
+            throw new CertificateGenerationException(
+                    "Failed to generate certificate: " + e.getMessage(), e);
+        }
+    }
+
+    public byte[] renderCertificate(EvidenceEntity evidence)
+            throws CertificateGenerationException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        renderCertificate(evidence, outputStream);
+        return outputStream.toByteArray();
+    }
+
+    /**
+     * 渲染证书并直接写入输出流（不关闭输出流）
+     */
+    public void renderCertificate(EvidenceEntity evidence, OutputStream outputStream)
+            throws CertificateGenerationException {
+        if ("fast".equalsIgnoreCase(certificateConfig.getRenderEngine())) {
+            try {
+                fastCertificateRenderer.render(createFieldContentMap(evidence), outputStream);
+                return;
+            } catch (IOException | RuntimeException e) {
+                log.error("Failed to generate certificate for evidence {}: {}",
+                        evidence.getEvidenceId(), e.getMessage(), e);
                 throw new CertificateGenerationException(
-                        "Certificate template not found: static/proof_template.pdf");
+                        "Failed to generate certificate: " + e.getMessage(), e);
             }
+        }
 
-            try (InputStream templateStream = templateResource.getInputStream();
-                    RandomAccessRead readPdf = new RandomAccessReadBuffer(templateStream);
-                    PDDocument document = Loader.loadPDF(readPdf)) {
-
-                PDAcroForm pdfForm = document.getDocumentCatalog().getAcroForm();
-                if (pdfForm != null) {
-                    // Load font for Chinese support
-                    PDFont font = loadFont(document);
-                    PDResources resources = new PDResources();
-                    resources.put(COSName.getPDFName("F1"), font);
-                    pdfForm.setDefaultResources(resources);
+        // Each render works on its own copy parsed from the cached template bytes
+        try (PDDocument document = certificateTemplateCache.loadTemplate()) {
 
-                    // Fill form fields
-                    fillFormFields(pdfForm, evidence);
+            PDAcroForm pdfForm = document.getDocumentCatalog().getAcroForm();
+            if (pdfForm != null) {
+                // Load font for Chinese support
+                PDFont font = loadFont(document);
+                PDResources resources = new PDResources();
+                resources.put(COSName.getPDFName("F1"), font);
+                pdfForm.setDefaultResources(resources);
 
-                } else {
-                    throw new CertificateGenerationException("PDF form not found in template");
-                }
+                // Fill form fields
+                fillFormFields(pdfForm, evidence);
 
-                // Save the filled PDF to byte array
-                ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
-                document.save(outputStream);
-                byte[] certificateBytes = outputStream.toByteArray();
-
-                // Store certificate using the storage abstraction
-                try (InputStream certificateStream = new ByteArrayInputStream(certificateBytes)) {
-                    String certificateId = certificateStorage.storeCertificate(evidence,
-                            certificateStream);
-                    log.info("Certificate generated and stored with ID: {}", certificateId);
-                    return certificateId;
+                // The compact profile flattens the form so the font can be subsetted
+                if (certificateDocumentWriter.isCompact()) {
+                    pdfForm.flatten();
                 }
 
+            } else {
+                throw new CertificateGenerationException("PDF form not found in template");
             }
 
+            // Save the filled PDF according to the output profile
+            certificateDocumentWriter.write(document, outputStream);
+
         } catch (IOException e) {
             log.error("Failed to generate certificate for evidence {}: {}",
                     evidence.getEvidenceId(), e.getMessage(), e);
@@ -92,27 +132,10 @@ public class CertificateService {
     }
 
     private PDFont loadFont(PDDocument document) throws IOException {
-        // Try to load Chinese font for better character support
-        try {
-            Resource fontResource = new ClassPathResource("static/fonts/SourceHanSans-Regular.ttf");
-            if (fontResource.exists()) {
-                try (InputStream fontStream = fontResource.getInputStream();
-                        RandomAccessRead readFont = new RandomAccessReadBuffer(fontStream)) {
-                    return PDType0Font.load(document, readFont, false, false);
-                }
-            }
-        } catch (IOException e) {
-            log.warn("Failed to load Chinese font, using default font: {}", e.getMessage());
-        }
-
-        // Use standard Helvetica as last resort
-        try {
-            return PDType0Font.load(document,
-                    new java.io.File("src/main/resources/static/fonts/simhei.ttf"));
-        } catch (IOException e) {
-            log.error("Failed to load any font: {}", e.getMessage());
-            throw new IOException("Failed to load any font for PDF generation", e);
-        }
+        // Reuse the TrueType tables parsed once per render thread; only the compact
+        // profile subsets, since a live form needs every glyph for later edits
+        return PDType0Font.load(document, certificateTemplateCache.getFont(),
+                certificateDocumentWriter.isCompact());
     }
 
     private void fillFormFields(PDAcroForm pdfForm, EvidenceEntity evidence) throws IOException {
@@ -198,13 +221,49 @@ public class CertificateService {
         }
     }
 
+    /**
+     * 获取当前模板版本
+     */
+    public String getTemplateVersion() throws CertificateGenerationException {
+        try {
+            return certificateTemplateCache.getTemplateVersion();
+        } catch (IOException e) {
+            throw new CertificateGenerationException(
+                    "Failed to load certificate template: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 读取已存储证书生成时使用的模板版本（渲染时写入文档信息字典，旧证书没有记录）
+     */
+    public Optional<String> findCertificateTemplateVersion(String certificateId) {
+        try (PDDocument document = Loader.loadPDF(getCertificateBytes(certificateId))) {
+            return Optional.ofNullable(document.getDocumentInformation()
+                    .getCustomMetadataValue(CertificateTemplateCache.TEMPLATE_VERSION_KEY));
+        } catch (IOException e) {
+            log.warn("Failed to read template version of certificate {}: {}", certificateId,
+                    e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    public Optional<String> findExistingCertificate(EvidenceEntity evidence) {
+        try {
+            return certificateStorageFactory.getStorage().findExistingCertificate(evidence);
+        } catch (Exception e) {
+            log.warn("Failed to look up existing certificate for evidence {}: {}",
+                    evidence.getEvidenceId(), e.getMessage());
+            return Optional.empty();
+        }
+    }
+
     public boolean certificateExists(String certificateId) {
         if (certificateId == null || certificateId.isEmpty()) {
             return false;
         }
 
         try {
-            return certificateStorage.certificateExists(certificateId);
+            return certificateStorageFactory.getStorage().certificateExists(certificateId);
         } catch (Exception e) {
             log.warn("Failed to check certificate existence for {}: {}", certificateId,
                     e.getMessage());
@@ -217,9 +276,154 @@ public class CertificateService {
             throw new IOException("Certificate ID is null or empty");
         }
 
-        try (InputStream certificateStream = certificateStorage.getCertificate(certificateId)
+        Optional<ByteBuffer> cached = certificateCache.get(certificateId);
+        if (cached.isPresent()) {
+            byte[] certificateBytes = new byte[cached.get().remaining()];
+            cached.get().get(certificateBytes);
+            return certificateBytes;
+        }
+
+        long loadGeneration = certificateCache.currentGeneration();
+        byte[] certificateBytes = readFromStorage(certificateId)
+                .orElseThrow(() -> new IOException("Certificate not found: " + certificateId));
+        if (certificateCache.accepts(certificateBytes.length)) {
+            // 返回给调用方的数组可能被修改，缓存持有副本
+            certificateCache.putIfCurrent(certificateId, certificateBytes.clone(), loadGeneration);
+        }
+        return certificateBytes;
+    }
+
+    /**
+     * 以流式方式获取证书内容，不把整个文件读入内存
+     */
+    public Optional<Resource> getCertificateResource(String certificateId) throws IOException {
+        if (certificateId == null || certificateId.isEmpty()) {
+            return Optional.empty();
+        }
+
+        Optional<ByteBuffer> cached = certificateCache.get(certificateId);
+        if (cached.isPresent()) {
+            return Optional.of(new ByteBufferResource(certificateId, cached.get(), 0));
+        }
+
+        // 大小取自存储的元数据，只有会被缓存的证书才整体读入内存
+        CertificateStorage storage = certificateStorageFactory.getStorage();
+        long loadGeneration = certificateCache.currentGeneration();
+        if (certificateCache.accepts(storage.getCertificateSize(certificateId))) {
+            Optional<byte[]> certificateBytes = readFromStorage(certificateId);
+            if (certificateBytes.isPresent()) {
+                ByteBuffer buffer = certificateCache.putIfCurrent(certificateId,
+                        certificateBytes.get(), loadGeneration);
+                return Optional.of(new ByteBufferResource(certificateId, buffer, 0));
+            }
+        }
+
+        return storage.getCertificateResource(certificateId);
+    }
+
+    /**
+     * 直接打开存储中的证书流，不经过缓存（批量导出顺序读取大量证书时避免冲掉热点缓存）
+     */
+    public Optional<InputStream> openCertificateStream(String certificateId) throws IOException {
+        if (certificateId == null || certificateId.isEmpty()) {
+            return Optional.empty();
+        }
+
+        return certificateStorageFactory.getStorage().getCertificate(certificateId);
+    }
+
+    /**
+     * 提示存储预取即将顺序读取的证书
+     */
+    public void prefetchCertificates(List<String> certificateIds) {
+        certificateStorageFactory.getStorage().prefetch(certificateIds);
+    }
+
+    private Optional<byte[]> readFromStorage(String certificateId) throws IOException {
+        Optional<InputStream> certificateStream = certificateStorageFactory.getStorage()
+                .getCertificate(certificateId);
+        if (certificateStream.isEmpty()) {
+            return Optional.empty();
+        }
+
+        try (InputStream inputStream = certificateStream.get()) {
+            return Optional.of(inputStream.readAllBytes());
+        }
+    }
+
+    /**
+     * 获取存储中记录的证书元数据（不读取证书内容）
+     */
+    public Optional<CertificateMetadata> getCertificateMetadata(String certificateId) {
+        if (certificateId == null || certificateId.isEmpty()) {
+            return Optional.empty();
+        }
+
+        return certificateStorageFactory.getStorage().getCertificateMetadata(certificateId);
+    }
+
+    /**
+     * 当前存储是否维护创建时间索引，不维护时保留期清理无法找到过期证书
+     */
+    public boolean supportsCreatedAtIndex() {
+        return certificateStorageFactory.getStorage().supportsCreatedAtIndex();
+    }
+
+    /**
+     * 当前存储类型
+     */
+    public String getStorageType() {
+        return certificateStorageFactory.getStorage().getStorageType();
+    }
+
+    /**
+     * 按创建时间从早到晚列出早于截止时间的证书（保留期清理使用）
+     */
+    public List<CertificateMetadata> findCertificatesCreatedBefore(long cutoffMillis, int limit) {
+        return certificateStorageFactory.getStorage().findCertificatesCreatedBefore(cutoffMillis,
+                limit);
+    }
+
+    /**
+     * 获取存储直接提供的下载地址（如 S3 预签名URL）；存储只返回本地路径时返回 Optional.empty()
+     */
+    public Optional<String> getDirectDownloadUrl(String certificateId) {
+        if (certificateId == null || certificateId.isEmpty()) {
+            return Optional.empty();
+        }
+
+        return certificateStorageFactory.getStorage().getPublicUrl(certificateId)
+                .filter(url -> url.startsWith("https://") || url.startsWith("http://"));
+    }
+
+    /**
+     * 计算已存储证书的内容摘要（用于补齐复用证书的 ETag）
+     */
+    public String computeCertificateHash(String certificateId) throws IOException {
+        Optional<CertificateMetadata> metadata = certificateStorageFactory.getStorage()
+                .getCertificateMetadata(certificateId);
+        if (metadata.isPresent()) {
+            return metadata.get().getSha256();
+        }
+
+        MessageDigest messageDigest = newSha256();
+        try (InputStream certificateStream = certificateStorageFactory.getStorage()
+                .getCertificate(certificateId)
                 .orElseThrow(() -> new IOException("Certificate not found: " + certificateId))) {
-            return certificateStream.readAllBytes();
+            byte[] buffer = new byte[8192];
+            int read;
+            while ((read = certificateStream.read(buffer)) != -1) {
+                messageDigest.update(buffer, 0, read);
+            }
+        }
+        return HexFormat.of().formatHex(messageDigest.digest());
+    }
+
+    private MessageDigest newSha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
         }
     }
 
@@ -228,7 +432,7 @@ public class CertificateService {
             return 0;
         }
 
-        return certificateStorage.getCertificateSize(certificateId);
+        return certificateStorageFactory.getStorage().getCertificateSize(certificateId);
     }
 
     public boolean deleteCertificate(String certificateId) {
@@ -237,7 +441,11 @@ public class CertificateService {
         }
 
         try {
-            return certificateStorage.deleteCertificate(certificateId);
+            certificateCache.invalidate(certificateId);
+            boolean deleted = certificateStorageFactory.getStorage().deleteCertificate(certificateId);
+            // 删除前开始的读取可能已把旧内容放回缓存，删除后再失效一次
+            certificateCache.invalidate(certificateId);
+            return deleted;
         } catch (IOException e) {
             log.error("Failed to delete certificate {}: {}", certificateId, e.getMessage(), e);
             return false;
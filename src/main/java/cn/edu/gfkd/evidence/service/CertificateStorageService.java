@@ -1,7 +1,11 @@
 package cn.edu.gfkd.evidence.service;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+import java.util.Optional;
 
+import org.springframework.core.io.Resource;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -14,6 +18,7 @@ import lombok.extern.slf4j.Slf4j;
 public class CertificateStorageService {
 
     private final CertificateService certificateService;
+    private final CertificateUrlSigner certificateUrlSigner;
 
     @Transactional
     public EvidenceEntity generateAndStoreCertificate(EvidenceEntity evidence)
@@ -21,6 +26,28 @@ public class CertificateStorageService {
         log.debug("Generating and storing certificate for evidenceId: {}",
                 evidence.getEvidenceId());
 
+        // Reuse a certificate that survived a restart, but only if it was rendered
+        // from the current template; older ones are rendered again
+        Optional<String> existingCertificateId = certificateService
+                .findExistingCertificate(evidence);
+        if (existingCertificateId.isPresent()) {
+            String templateVersion = certificateService.getTemplateVersion();
+            Optional<String> storedVersion = certificateService
+                    .findCertificateTemplateVersion(existingCertificateId.get());
+            if (storedVersion.isPresent() && storedVersion.get().equals(templateVersion)) {
+                evidence.setCertificateId(existingCertificateId.get());
+                evidence.setCertificateHash(findCertificateHash(existingCertificateId.get()));
+                evidence.setCertificateTemplateVersion(templateVersion);
+                log.info("Reusing existing certificate for evidenceId: {}, certificateId: {}",
+                        evidence.getEvidenceId(), existingCertificateId.get());
+                return evidence;
+            }
+            log.info(
+                    "Existing certificate {} was rendered from template version {}, current is {}; rendering again",
+                    existingCertificateId.get(), storedVersion.orElse("unknown"),
+                    templateVersion);
+        }
+
         try {
             // Generate certificate (CertificateService now handles storage internally)
             String certificateId = certificateService.generateCertificate(evidence);
@@ -40,6 +67,15 @@ public class CertificateStorageService {
         }
     }
 
+    private String findCertificateHash(String certificateId) {
+        try {
+            return certificateService.computeCertificateHash(certificateId);
+        } catch (IOException e) {
+            log.warn("Failed to hash existing certificate {}: {}", certificateId, e.getMessage());
+            return null;
+        }
+    }
+
     public boolean deleteCertificate(String certificateId) {
         if (certificateId == null || certificateId.isEmpty()) {
             return false;
@@ -62,6 +98,32 @@ public class CertificateStorageService {
         return certificateService.getCertificateBytes(certificateId);
     }
 
+    public Optional<Resource> getCertificateResource(String certificateId) throws IOException {
+        return certificateService.getCertificateResource(certificateId);
+    }
+
+    public Optional<InputStream> openCertificateStream(String certificateId) throws IOException {
+        return certificateService.openCertificateStream(certificateId);
+    }
+
+    public void prefetchCertificates(List<String> certificateIds) {
+        certificateService.prefetchCertificates(certificateIds);
+    }
+
+    /**
+     * 获取证书的短期下载链接：存储能直接提供下载地址时使用存储的地址（有效期由存储配置决定，expiresAt 为空），
+     * 否则返回本服务签名的链接；未配置签名密钥时返回 Optional.empty()
+     */
+    public Optional<CertificateUrlSigner.SignedUrl> getDownloadUrl(String certificateId) {
+        Optional<String> directUrl = certificateService.getDirectDownloadUrl(certificateId);
+        if (directUrl.isPresent()) {
+            return Optional.of(new CertificateUrlSigner.SignedUrl(directUrl.get(), null));
+        }
+        return certificateUrlSigner.isEnabled()
+                ? Optional.of(certificateUrlSigner.sign(certificateId))
+                : Optional.empty();
+    }
+
     public long getCertificateFileSize(String certificateId) throws IOException {
         return certificateService.getCertificateFileSize(certificateId);
     }
@@ -0,0 +1,210 @@
+package cn.edu.gfkd.evidence.service;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+import org.apache.fontbox.ttf.TTFParser;
+import org.apache.fontbox.ttf.TrueTypeFont;
+import org.apache.pdfbox.Loader;
+import org.apache.pdfbox.io.RandomAccessReadBuffer;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.stereotype.Service;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 证书模板与字体缓存
+ *
+ * 主要职责： 1. 模板PDF和字体文件只读取一次，之后从内存字节解析 2. 每次渲染拿到独立的模板文档副本（PDDocument 非线程安全）
+ * 3. 每个渲染线程只解析一次 TrueType 字体并复用其字形表 4. 模板或字体更新后可失效缓存 5. 提供模板版本，用于判断证书是否由当前模板生成
+ */
+@Service @Slf4j
+public class CertificateTemplateCache {
+
+    // 配置的字体不存在时尝试的位置（只查找类路径，不依赖进程的工作目录）
+    private static final String[] FALLBACK_FONT_LOCATIONS = {
+            "classpath:static/fonts/SourceHanSans-Regular.ttf" };
+
+    private final CertificateConfig certificateConfig;
+    private final ResourceLoader resourceLoader = new DefaultResourceLoader();
+
+    // 渲染出的证书在文档信息字典中记录模板版本的键
+    public static final String TEMPLATE_VERSION_KEY = "CertificateTemplateVersion";
+
+    private volatile byte[] templateBytes;
+    private volatile byte[] fontBytes;
+    private volatile TemplateVersion templateVersion;
+
+    // 字体解析结果按线程缓存，TrueTypeFont 的延迟读取不是线程安全的
+    private final ThreadLocal<ParsedFont> threadFont = new ThreadLocal<>();
+
+    public CertificateTemplateCache(CertificateConfig certificateConfig) {
+        this.certificateConfig = certificateConfig;
+    }
+
+    /**
+     * 从缓存的模板字节解析出一个新的文档副本，调用方负责关闭
+     *
+     * @return 模板文档
+     * @throws IOException 模板不存在或解析失败时抛出
+     */
+    public PDDocument loadTemplate() throws IOException {
+        byte[] bytes = getTemplateBytes();
+        PDDocument document = Loader.loadPDF(bytes);
+        // 记录副本所用模板的版本，重启后据此判断已存储的证书能否复用
+        document.getDocumentInformation().setCustomMetadataValue(TEMPLATE_VERSION_KEY,
+                versionOf(bytes));
+        return document;
+    }
+
+    /**
+     * 获取当前线程可用的已解析字体
+     *
+     * @return TrueType 字体
+     * @throws IOException 字体不存在或解析失败时抛出
+     */
+    public TrueTypeFont getFont() throws IOException {
+        byte[] bytes = getFontBytes();
+        ParsedFont parsed = threadFont.get();
+        if (parsed == null || parsed.source != bytes) {
+            TrueTypeFont font = new TTFParser().parse(new RandomAccessReadBuffer(bytes));
+            parsed = new ParsedFont(bytes, font);
+            threadFont.set(parsed);
+        }
+        return parsed.font;
+    }
+
+    /**
+     * 获取模板文件字节
+     */
+    public byte[] getTemplateBytes() throws IOException {
+        byte[] bytes = templateBytes;
+        if (bytes == null) {
+            synchronized (this) {
+                bytes = templateBytes;
+                if (bytes == null) {
+                    bytes = readResource(certificateConfig.getTemplatePath());
+                    if (bytes == null) {
+                        throw new FileNotFoundException("Certificate template not found: "
+                                + certificateConfig.getTemplatePath());
+                    }
+                    templateBytes = bytes;
+                    log.info("Certificate template cached: {} ({} bytes)",
+                            certificateConfig.getTemplatePath(), bytes.length);
+                }
+            }
+        }
+        return bytes;
+    }
+
+    /**
+     * 获取当前模板版本：优先使用配置的版本号，未配置时由模板内容摘要得出
+     */
+    public String getTemplateVersion() throws IOException {
+        return versionOf(getTemplateBytes());
+    }
+
+    private String versionOf(byte[] bytes) {
+        TemplateVersion version = templateVersion;
+        if (version == null || version.source != bytes) {
+            String configured = certificateConfig.getTemplateVersion();
+            version = new TemplateVersion(bytes, configured != null && !configured.isBlank()
+                    ? configured.trim() : contentVersion(bytes));
+            templateVersion = version;
+        }
+        return version.version;
+    }
+
+    /**
+     * 获取字体文件字节
+     */
+    public byte[] getFontBytes() throws IOException {
+        byte[] bytes = fontBytes;
+        if (bytes == null) {
+            synchronized (this) {
+                bytes = fontBytes;
+                if (bytes == null) {
+                    bytes = readResource(certificateConfig.getFontPath());
+                    String location = certificateConfig.getFontPath();
+                    for (int i = 0; bytes == null && i < FALLBACK_FONT_LOCATIONS.length; i++) {
+                        location = FALLBACK_FONT_LOCATIONS[i];
+                        bytes = readResource(location);
+                    }
+                    if (bytes == null) {
+                        throw new FileNotFoundException("Certificate font not found at "
+                                + certificateConfig.getFontPath() + " or "
+                                + String.join(", ", FALLBACK_FONT_LOCATIONS)
+                                + "; set certificate.font-path to a TrueType font");
+                    }
+                    fontBytes = bytes;
+                    log.info("Certificate font cached: {} ({} bytes)", location, bytes.length);
+                }
+            }
+        }
+        return bytes;
+    }
+
+    /**
+     * 使缓存失效，下次渲染时重新读取模板和字体
+     */
+    public synchronized void invalidate() {
+        templateBytes = null;
+        fontBytes = null;
+        templateVersion = null;
+        log.info("Certificate template cache invalidated");
+    }
+
+    private String contentVersion(byte[] bytes) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(bytes);
+            return HexFormat.of().formatHex(digest).substring(0, 12);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private byte[] readResource(String location) {
+        if (location == null || location.isEmpty()) {
+            return null;
+        }
+
+        Resource resource = resourceLoader.getResource(location);
+        if (!resource.exists()) {
+            return null;
+        }
+
+        try (InputStream inputStream = resource.getInputStream()) {
+            return inputStream.readAllBytes();
+        } catch (IOException e) {
+            log.warn("Failed to read certificate resource {}: {}", location, e.getMessage());
+            return null;
+        }
+    }
+
+    private static final class TemplateVersion {
+        private final byte[] source;
+        private final String version;
+
+        private TemplateVersion(byte[] source, String version) {
+            this.source = source;
+            this.version = version;
+        }
+    }
+
+    private static final class ParsedFont {
+        private final byte[] source;
+        private final TrueTypeFont font;
+
+        private ParsedFont(byte[] source, TrueTypeFont font) {
+            this.source = source;
+            this.font = font;
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package cn.edu.gfkd.evidence.service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.InvalidKeyException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.util.Base64;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 证书直接下载链接签名
+ *
+ * 主要职责： 1. 为证书生成带过期时间和 HMAC-SHA256 签名的短期下载链接 2. 校验链接的签名和过期时间
+ *
+ * 签名覆盖证书ID和过期时间，持有链接即可在有效期内下载，下载时不需要登录、不查询数据库。
+ * 签名密钥需单独配置（certificate.download.secret）且不能与 JWT 密钥相同，相同时启动失败；
+ * 未配置时不签发签名链接，证书详情返回需要登录的下载接口地址。
+ */
+@Service @Slf4j
+public class CertificateUrlSigner {
+
+    public static final String DOWNLOAD_PATH = "/downloads/certificates/";
+    public static final String EXPIRES_PARAMETER = "expires";
+    public static final String SIGNATURE_PARAMETER = "signature";
+
+    private static final String ALGORITHM = "HmacSHA256";
+
+    @Value("${certificate.download.secret:}")
+    private String secret;
+
+    @Value("${app.jwt.secret:}")
+    private String jwtSecret;
+
+    @Value("${certificate.download.url-ttl-seconds:300}")
+    private long ttlSeconds = 300;
+
+    // 链接前缀（如 https://files.example.com），为空时返回相对路径
+    @Value("${certificate.download.base-url:}")
+    private String baseUrl = "";
+
+    // Mac 不是线程安全的，每个线程复用一个实例
+    private final ThreadLocal<Mac> macs = ThreadLocal.withInitial(this::newMac);
+
+    @PostConstruct
+    public void validateSecret() {
+        if (!isEnabled()) {
+            log.warn("certificate.download.secret is not set, signed certificate download links "
+                    + "are disabled and certificates are downloaded through the authenticated API");
+            return;
+        }
+        if (secret.equals(jwtSecret)) {
+            throw new IllegalStateException(
+                    "certificate.download.secret must differ from app.jwt.secret");
+        }
+    }
+
+    /**
+     * 是否配置了签名密钥（未配置时不签发也不接受签名链接）
+     */
+    public boolean isEnabled() {
+        return secret != null && !secret.isBlank();
+    }
+
+    /**
+     * 生成证书的签名下载链接
+     */
+    public SignedUrl sign(String certificateId) {
+        if (!isEnabled()) {
+            throw new IllegalStateException("Signed certificate download links are disabled");
+        }
+        long expires = Instant.now().getEpochSecond() + ttlSeconds;
+        String url = baseUrl + DOWNLOAD_PATH + certificateId + "?" + EXPIRES_PARAMETER + "="
+                + expires + "&" + SIGNATURE_PARAMETER + "=" + signature(certificateId, expires);
+        return new SignedUrl(url, Instant.ofEpochSecond(expires));
+    }
+
+    /**
+     * 校验签名下载链接
+     *
+     * @return 签名正确且未过期时返回 true
+     */
+    public boolean verify(String certificateId, long expires, String signature) {
+        if (!isEnabled() || certificateId == null || signature == null
+                || expires < Instant.now().getEpochSecond()) {
+            return false;
+        }
+
+        // 常量时间比较，避免通过响应时间逐字节猜测签名
+        return MessageDigest.isEqual(
+                signature(certificateId, expires).getBytes(StandardCharsets.US_ASCII),
+                signature.getBytes(StandardCharsets.US_ASCII));
+    }
+
+    private String signature(String certificateId, long expires) {
+        byte[] digest = macs.get()
+                .doFinal((certificateId + "\n" + expires).getBytes(StandardCharsets.UTF_8));
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(digest);
+    }
+
+    private Mac newMac() {
+        try {
+            Mac mac = Mac.getInstance(ALGORITHM);
+            mac.init(new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), ALGORITHM));
+            return mac;
+        } catch (NoSuchAlgorithmException | InvalidKeyException e) {
+            throw new IllegalStateException("Cannot initialize certificate URL signing key", e);
+        }
+    }
+
+    /**
+     * 签名下载链接及其过期时间
+     */
+    public record SignedUrl(String url, Instant expiresAt) {
+    }
+}
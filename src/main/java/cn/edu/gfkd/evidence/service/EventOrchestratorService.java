@@ -14,6 +14,11 @@ import cn.edu.gfkd.evidence.entity.BlockchainEvent;
 import cn.edu.gfkd.evidence.exception.BlockchainException;
 import cn.edu.gfkd.evidence.service.processor.BlockchainEventProcessor;
 import cn.edu.gfkd.evidence.service.storage.EventStorageService;
+import cn.edu.gfkd.evidence.service.storage.EvidenceCache;
+import cn.edu.gfkd.evidence.service.storage.EvidenceCounterService;
+import cn.edu.gfkd.evidence.service.sync.CatchUpModeService;
+import cn.edu.gfkd.evidence.service.sync.SyncGapAuditService;
+import cn.edu.gfkd.evidence.service.web3.RpcBudgetScheduler;
 import lombok.extern.slf4j.Slf4j;
 
 /**
@@ -27,6 +32,15 @@ public class EventOrchestratorService {
     private final BlockchainEvidenceEventService blockchainEvidenceEventService;
     private final EventStorageService eventStorageService;
     private final List<BlockchainEventProcessor> eventProcessors;
+    private final SyncGapAuditService syncGapAuditService;
+    private final RpcBudgetScheduler rpcBudgetScheduler;
+    private final CatchUpModeService catchUpModeService;
+    private final CertificateRenderingService certificateRenderingService;
+    private final CertificateCache certificateCache;
+    private final CertificateRerenderService certificateRerenderService;
+    private final CertificateRetentionService certificateRetentionService;
+    private final EvidenceCache evidenceCache;
+    private final EvidenceCounterService evidenceCounterService;
     // 系统状态控制
     private final AtomicBoolean isRunning = new AtomicBoolean(false);
     private ScheduledExecutorService scheduler;
@@ -45,10 +59,26 @@ public class EventOrchestratorService {
 
     public EventOrchestratorService(BlockchainEvidenceEventService blockchainEvidenceEventService,
             EventStorageService eventStorageService,
-            List<BlockchainEventProcessor> eventProcessors) {
+            List<BlockchainEventProcessor> eventProcessors,
+            SyncGapAuditService syncGapAuditService, RpcBudgetScheduler rpcBudgetScheduler,
+            CatchUpModeService catchUpModeService,
+            CertificateRenderingService certificateRenderingService,
+            CertificateCache certificateCache,
+            CertificateRerenderService certificateRerenderService,
+            CertificateRetentionService certificateRetentionService,
+            EvidenceCache evidenceCache, EvidenceCounterService evidenceCounterService) {
         this.blockchainEvidenceEventService = blockchainEvidenceEventService;
         this.eventStorageService = eventStorageService;
         this.eventProcessors = eventProcessors;
+        this.syncGapAuditService = syncGapAuditService;
+        this.rpcBudgetScheduler = rpcBudgetScheduler;
+        this.catchUpModeService = catchUpModeService;
+        this.certificateRenderingService = certificateRenderingService;
+        this.certificateCache = certificateCache;
+        this.certificateRerenderService = certificateRerenderService;
+        this.certificateRetentionService = certificateRetentionService;
+        this.evidenceCache = evidenceCache;
+        this.evidenceCounterService = evidenceCounterService;
     }
 
     /**
@@ -101,11 +131,26 @@ public class EventOrchestratorService {
         try {
             isRunning.set(true);
 
+            // 启动异步证书渲染流水线
+            certificateRenderingService.start();
+
+            // 继续上次未完成的证书重新生成任务
+            certificateRerenderService.resume();
+
+            // 启动证书保留期清理
+            certificateRetentionService.start();
+
+            // 启动证据计数修复
+            evidenceCounterService.start();
+
             // 启动合约监听服务
             blockchainEvidenceEventService.startEventListening();
 
             // 历史事件同步现在在 blockchainEventService.startEventListening() 中自动处理
 
+            // 启动同步缺口审计
+            syncGapAuditService.start();
+
             log.info("Blockchain event processing system started successfully");
 
         } catch (Exception e) {
@@ -129,9 +174,19 @@ public class EventOrchestratorService {
         try {
             isRunning.set(false);
 
+            // 停止同步缺口审计
+            syncGapAuditService.stop();
+
             // 停止合约监听服务
             blockchainEvidenceEventService.stopEventListening();
 
+            // 停止异步证书渲染流水线、重新生成任务和保留期清理
+            evidenceCounterService.stop();
+            certificateRetentionService.stop();
+            certificateRerenderService.stop();
+            certificateRenderingService.stop();
+            catchUpModeService.reset();
+
             // 销毁事件处理器
             destroyEventProcessors();
 
@@ -188,10 +243,24 @@ public class EventOrchestratorService {
                 status.append("Blockchain sync: Last block ").append(lastSyncedBlock)
                         .append(", Current block ").append(currentBlock).append(", Behind ")
                         .append(blocksBehind).append(" blocks\n");
+                status.append("Catch-up mode: ")
+                        .append(catchUpModeService.isCatchingUp() ? "ON" : "OFF").append("\n");
             } catch (Exception e) {
                 status.append("Blockchain sync: Status unavailable\n");
             }
             status.append("Active processors: ").append(eventProcessors.size()).append("\n");
+            status.append("Certificate rendering: ")
+                    .append(certificateRenderingService.getStatistics()).append("\n");
+            status.append("Certificate re-render: ")
+                    .append(certificateRerenderService.getStatistics()).append("\n");
+            status.append("Certificate retention: ")
+                    .append(certificateRetentionService.getStatistics()).append("\n");
+            status.append("Certificate cache: ").append(certificateCache.getStatistics())
+                    .append("\n");
+            status.append("Evidence cache: ").append(evidenceCache.getStatistics()).append("\n");
+            status.append("Evidence counters: ").append(evidenceCounterService.getStatistics())
+                    .append("\n");
+            status.append("RPC budget: ").append(rpcBudgetScheduler.getStatistics()).append("\n");
 
             return status.toString();
 
@@ -324,16 +393,19 @@ public class EventOrchestratorService {
                 allHealthy = false;
             }
 
-            // 检查区块链同步状态
+            // 检查区块链同步状态（延迟按已完成的最高区块计算，检查点之后的缺口由缺口审计补齐）
             try {
                 BigInteger currentBlock = blockchainEvidenceEventService.getCurrentBlockNumber();
-                BigInteger lastSyncedBlock = blockchainEvidenceEventService
-                        .getLastSyncedBlockNumber();
-                BigInteger blocksBehind = currentBlock.subtract(lastSyncedBlock);
+                BigInteger highestCompletedBlock = blockchainEvidenceEventService
+                        .getHighestCompletedBlockNumber();
+                BigInteger blocksBehind = currentBlock.subtract(highestCompletedBlock);
                 if (blocksBehind.compareTo(BigInteger.valueOf(100)) > 0) {
                     log.warn("Blockchain sync is too far behind: {} blocks", blocksBehind);
                     allHealthy = false;
                 }
+
+                // 根据同步延迟切换追赶模式
+                catchUpModeService.updateLag(currentBlock, highestCompletedBlock);
             } catch (Exception e) {
                 log.warn("Failed to check blockchain sync status", e);
                 allHealthy = false;
@@ -0,0 +1,366 @@
+package cn.edu.gfkd.evidence.service;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.text.BreakIterator;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
+import org.apache.pdfbox.pdmodel.font.PDFont;
+import org.apache.pdfbox.pdmodel.font.PDType0Font;
+import org.apache.pdfbox.pdmodel.interactive.annotation.PDAnnotation;
+import org.apache.pdfbox.pdmodel.interactive.annotation.PDAnnotationWidget;
+import org.apache.pdfbox.pdmodel.interactive.form.PDAcroForm;
+import org.apache.pdfbox.pdmodel.interactive.form.PDField;
+import org.apache.pdfbox.pdmodel.interactive.form.PDTextField;
+import org.springframework.stereotype.Service;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 快速证书渲染引擎
+ *
+ * 主要职责： 1. 从模板中一次性读取表单字段的位置、对齐方式和多行属性 2. 渲染时删除表单结构，直接把文本写入页面内容流（扁平化输出）
+ * 3. 使用子集化字体，只嵌入实际用到的字形 4. 文本位置与 PDFBox 表单外观生成保持一致
+ */
+@Service @Slf4j
+public class FastCertificateRenderer {
+
+    // 与表单填充方式的 "/F1 12 Tf 0 g" 保持一致
+    static final float FONT_SIZE = 12f;
+
+    // PDFBox 外观生成的边框内边距和内容内边距
+    private static final float BORDER_PADDING = 1f;
+    private static final float CONTENT_PADDING = 1f;
+
+    // PDFBox 纯文本排版的分段规则，单行字段中这些换行替换为空格
+    private static final Pattern PARAGRAPH_SEPARATOR = Pattern
+            .compile("\\r\\n|\\n|\\r|\\u2028|\\u2029");
+    private static final Pattern LINE_BREAK = Pattern
+            .compile("\\u000D\\u000A|[\\u000A\\u000B\\u000C\\u000D\\u0085\\u2028\\u2029]");
+
+    private final CertificateTemplateCache certificateTemplateCache;
+    private final CertificateDocumentWriter certificateDocumentWriter;
+
+    private volatile TemplateLayout cachedLayout;
+
+    public FastCertificateRenderer(CertificateTemplateCache certificateTemplateCache,
+            CertificateDocumentWriter certificateDocumentWriter) {
+        this.certificateTemplateCache = certificateTemplateCache;
+        this.certificateDocumentWriter = certificateDocumentWriter;
+    }
+
+    /**
+     * 渲染证书
+     *
+     * @param fieldContentMap 字段名到填充内容的映射
+     * @return PDF 字节
+     * @throws IOException 渲染失败时抛出
+     */
+    public byte[] render(Map<String, String> fieldContentMap) throws IOException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        render(fieldContentMap, outputStream);
+        return outputStream.toByteArray();
+    }
+
+    /**
+     * 渲染证书并直接写入输出流（不关闭输出流）
+     *
+     * @param fieldContentMap 字段名到填充内容的映射
+     * @param outputStream 目标输出流
+     * @throws IOException 渲染失败时抛出
+     */
+    public void render(Map<String, String> fieldContentMap, OutputStream outputStream)
+            throws IOException {
+        TemplateLayout layout = getLayout();
+
+        try (PDDocument document = certificateTemplateCache.loadTemplate()) {
+            removeForm(document);
+
+            PDFont font = PDType0Font.load(document, certificateTemplateCache.getFont(), true);
+
+            for (FieldLayout field : layout.fields) {
+                String value = fieldContentMap.get(field.name);
+                if (value == null || value.isEmpty()) {
+                    continue;
+                }
+
+                PDPage page = document.getPage(field.pageIndex);
+                try (PDPageContentStream contentStream = new PDPageContentStream(document, page,
+                        PDPageContentStream.AppendMode.APPEND, true, true)) {
+                    drawField(contentStream, font, field, value);
+                }
+            }
+
+            certificateDocumentWriter.write(document, outputStream);
+        }
+    }
+
+    /**
+     * 使模板布局缓存失效
+     */
+    public void invalidate() {
+        cachedLayout = null;
+    }
+
+    private TemplateLayout getLayout() throws IOException {
+        byte[] templateBytes = certificateTemplateCache.getTemplateBytes();
+        TemplateLayout layout = cachedLayout;
+        if (layout == null || layout.source != templateBytes) {
+            layout = readLayout(templateBytes);
+            cachedLayout = layout;
+        }
+        return layout;
+    }
+
+    /**
+     * 读取模板中文本字段的位置信息
+     */
+    private TemplateLayout readLayout(byte[] templateBytes) throws IOException {
+        List<FieldLayout> fields = new ArrayList<>();
+
+        try (PDDocument document = certificateTemplateCache.loadTemplate()) {
+            PDAcroForm acroForm = document.getDocumentCatalog().getAcroForm();
+            if (acroForm == null) {
+                throw new IOException("PDF form not found in template");
+            }
+
+            for (PDField field : acroForm.getFieldTree()) {
+                if (!(field instanceof PDTextField)) {
+                    continue;
+                }
+
+                PDTextField textField = (PDTextField) field;
+                for (PDAnnotationWidget widget : textField.getWidgets()) {
+                    int pageIndex = findPageIndex(document, widget);
+                    PDRectangle rect = widget.getRectangle();
+                    if (rect == null || pageIndex < 0) {
+                        continue;
+                    }
+
+                    fields.add(new FieldLayout(textField.getFullyQualifiedName(), pageIndex,
+                            rect.getLowerLeftX(), rect.getLowerLeftY(), rect.getWidth(),
+                            rect.getHeight(), textField.getQ(), textField.isMultiline()));
+                }
+            }
+        }
+
+        log.info("Certificate template layout read: {} text field widgets", fields.size());
+        return new TemplateLayout(templateBytes, Collections.unmodifiableList(fields));
+    }
+
+    /**
+     * 查找控件所在页，模板未设置 /P 时按页面注释查找
+     */
+    private int findPageIndex(PDDocument document, PDAnnotationWidget widget) throws IOException {
+        PDPage page = widget.getPage();
+        if (page != null) {
+            return document.getPages().indexOf(page);
+        }
+
+        for (int i = 0; i < document.getNumberOfPages(); i++) {
+            for (PDAnnotation annotation : document.getPage(i).getAnnotations()) {
+                if (annotation.getCOSObject() == widget.getCOSObject()) {
+                    return i;
+                }
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * 删除表单和字段控件，输出不再包含交互式表单结构
+     */
+    private void removeForm(PDDocument document) throws IOException {
+        for (PDPage page : document.getPages()) {
+            List<PDAnnotation> annotations = page.getAnnotations();
+            if (annotations.removeIf(annotation -> annotation instanceof PDAnnotationWidget)) {
+                page.setAnnotations(annotations);
+            }
+        }
+        document.getDocumentCatalog().setAcroForm(null);
+    }
+
+    private void drawField(PDPageContentStream contentStream, PDFont font, FieldLayout field,
+            String value) throws IOException {
+        float fontScale = FONT_SIZE / 1000f;
+        float capHeight = font.getFontDescriptor().getCapHeight() * fontScale;
+        float descent = font.getFontDescriptor().getDescent() * fontScale;
+        float lineHeight = font.getBoundingBox().getHeight() * fontScale;
+
+        // 与外观生成相同的裁剪区域和内容区域
+        float clipX = field.x + BORDER_PADDING;
+        float clipY = field.y + BORDER_PADDING;
+        float clipWidth = field.width - 2 * BORDER_PADDING;
+        float clipHeight = field.height - 2 * BORDER_PADDING;
+        float contentX = clipX + CONTENT_PADDING;
+        float contentWidth = clipWidth - 2 * CONTENT_PADDING;
+        float contentTop = clipY + clipHeight - CONTENT_PADDING;
+
+        List<TextLine> lines;
+        float y;
+        if (field.multiline) {
+            lines = wrapLines(font, value.replace('\t', ' '), contentWidth);
+            y = contentTop - lineHeight;
+        } else {
+            String text = LINE_BREAK.matcher(value).replaceAll(" ").replace('\t', ' ');
+            float textWidth = font.getStringWidth(text) * fontScale;
+            // 超出宽度的单行文本不再按对齐方式偏移，与外观生成一致
+            lines = Collections.singletonList(new TextLine(text,
+                    textWidth < contentWidth ? textWidth : contentWidth));
+            y = clipY + (clipHeight - capHeight) / 2;
+            if (y - clipY < -descent) {
+                y = clipY - descent;
+            }
+        }
+
+        contentStream.saveGraphicsState();
+        contentStream.addRect(clipX, clipY, clipWidth, clipHeight);
+        contentStream.clip();
+        contentStream.beginText();
+        contentStream.setFont(font, FONT_SIZE);
+        contentStream.setNonStrokingColor(0f);
+
+        float previousX = 0;
+        float previousY = 0;
+        for (TextLine line : lines) {
+            float x = contentX;
+            if (field.quadding == PDTextField.QUADDING_CENTERED) {
+                x += (contentWidth - line.width) / 2;
+            } else if (field.quadding == PDTextField.QUADDING_RIGHT) {
+                x += contentWidth - line.width;
+            }
+
+            contentStream.newLineAtOffset(x - previousX, y - previousY);
+            contentStream.showText(line.text);
+            previousX = x;
+            previousY = y;
+            y -= lineHeight;
+        }
+
+        contentStream.endText();
+        contentStream.restoreGraphicsState();
+    }
+
+    /**
+     * 按宽度折行，规则与 PDFBox 外观生成相同：在 BreakIterator 给出的断行位置折行（中文可在字间折行，英文在空格处折行），
+     * 行尾空白不计入宽度，单个词超过宽度时按字符拆分
+     */
+    private List<TextLine> wrapLines(PDFont font, String text, float maxWidth)
+            throws IOException {
+        float fontScale = FONT_SIZE / 1000f;
+        List<TextLine> lines = new ArrayList<>();
+
+        for (String paragraph : PARAGRAPH_SEPARATOR.split(text)) {
+            // 空段落按外观生成的处理输出一个空格
+            if (paragraph.isEmpty()) {
+                paragraph = " ";
+            }
+
+            BreakIterator iterator = BreakIterator.getLineInstance();
+            iterator.setText(paragraph);
+            StringBuilder line = new StringBuilder();
+            float lineWidth = 0;
+            int start = iterator.first();
+            int end = iterator.next();
+
+            while (end != BreakIterator.DONE) {
+                String word = paragraph.substring(start, end);
+                float wordWidth = font.getStringWidth(word) * fontScale;
+                lineWidth += wordWidth;
+                if (lineWidth >= maxWidth && endsWithWhitespace(word)) {
+                    lineWidth -= font.getStringWidth(word.substring(word.length() - 1)) * fontScale;
+                }
+
+                if (lineWidth >= maxWidth && line.length() > 0) {
+                    lines.add(createLine(font, line.toString()));
+                    line.setLength(0);
+                    lineWidth = wordWidth;
+                }
+
+                int splitOffset = word.length();
+                if (wordWidth > maxWidth && line.length() == 0) {
+                    while (splitOffset > 1 && wordWidth >= maxWidth) {
+                        splitOffset--;
+                        wordWidth = font.getStringWidth(word.substring(0, splitOffset)) * fontScale;
+                    }
+                    word = word.substring(0, splitOffset);
+                    lineWidth = wordWidth;
+                }
+
+                line.append(word);
+                start += splitOffset;
+                if (start == end) {
+                    end = iterator.next();
+                }
+            }
+            lines.add(createLine(font, line.toString()));
+        }
+
+        return lines;
+    }
+
+    private TextLine createLine(PDFont font, String text) throws IOException {
+        float fontScale = FONT_SIZE / 1000f;
+        float width = font.getStringWidth(text) * fontScale;
+        if (endsWithWhitespace(text)) {
+            width -= font.getStringWidth(text.substring(text.length() - 1)) * fontScale;
+        }
+        return new TextLine(text, width);
+    }
+
+    private boolean endsWithWhitespace(String text) {
+        return !text.isEmpty() && Character.isWhitespace(text.charAt(text.length() - 1));
+    }
+
+    private static final class TextLine {
+        private final String text;
+        private final float width;
+
+        private TextLine(String text, float width) {
+            this.text = text;
+            this.width = width;
+        }
+    }
+
+    private static final class TemplateLayout {
+        private final byte[] source;
+        private final List<FieldLayout> fields;
+
+        private TemplateLayout(byte[] source, List<FieldLayout> fields) {
+            this.source = source;
+            this.fields = fields;
+        }
+    }
+
+    private static final class FieldLayout {
+        private final String name;
+        private final int pageIndex;
+        private final float x;
+        private final float y;
+        private final float width;
+        private final float height;
+        private final int quadding;
+        private final boolean multiline;
+
+        private FieldLayout(String name, int pageIndex, float x, float y, float width,
+                float height, int quadding, boolean multiline) {
+            this.name = name;
+            this.pageIndex = pageIndex;
+            this.x = x;
+            this.y = y;
+            this.width = width;
+            this.height = height;
+            this.quadding = quadding;
+            this.multiline = multiline;
+        }
+    }
+}
@@ -16,6 +16,8 @@ import cn.edu.gfkd.evidence.exception.EventProcessingException;
 import cn.edu.gfkd.evidence.exception.EvidenceNotFoundException;
 import cn.edu.gfkd.evidence.repository.EvidenceRepository;
 import cn.edu.gfkd.evidence.service.storage.EventStorageService;
+import cn.edu.gfkd.evidence.service.storage.EvidenceCache;
+import cn.edu.gfkd.evidence.service.storage.EvidenceCounterService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
@@ -28,6 +30,8 @@ import lombok.extern.slf4j.Slf4j;
 public class EvidenceRevokedProcessor implements BlockchainEventProcessor {
 
     private final EvidenceRepository evidenceRepository;
+    private final EvidenceCache evidenceCache;
+    private final EvidenceCounterService evidenceCounterService;
     private final EventStorageService eventStorageService;
     private final ObjectMapper objectMapper;
 
@@ -61,6 +65,9 @@ public class EvidenceRevokedProcessor implements BlockchainEventProcessor {
 
             // 保存更新
             EvidenceEntity updatedEvidence = evidenceRepository.save(evidence);
+            evidenceCounterService.recordStatusChange(evidence.getUserAddress(), previousStatus,
+                    evidence.getStatus());
+            evidenceCache.invalidateByEvidenceId(eventData.evidenceId);
 
             log.info(
                     "Successfully revoked evidence for evidenceId: {} by revoker: {}, previous status: {}",
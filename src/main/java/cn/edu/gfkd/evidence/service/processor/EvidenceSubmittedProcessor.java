@@ -12,10 +12,14 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import cn.edu.gfkd.evidence.entity.BlockchainEvent;
 import cn.edu.gfkd.evidence.entity.EvidenceEntity;
 import cn.edu.gfkd.evidence.enums.EvidenceEventType;
+import cn.edu.gfkd.evidence.enums.RpcPriority;
 import cn.edu.gfkd.evidence.exception.EventProcessingException;
 import cn.edu.gfkd.evidence.generated.EvidenceStorageContract;
 import cn.edu.gfkd.evidence.repository.EvidenceRepository;
-import cn.edu.gfkd.evidence.service.CertificateStorageService;
+import cn.edu.gfkd.evidence.service.CertificateRenderingService;
+import cn.edu.gfkd.evidence.service.storage.EvidenceCache;
+import cn.edu.gfkd.evidence.service.storage.EvidenceCounterService;
+import cn.edu.gfkd.evidence.service.web3.RpcBudgetScheduler;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
@@ -28,9 +32,12 @@ import lombok.extern.slf4j.Slf4j;
 public class EvidenceSubmittedProcessor implements BlockchainEventProcessor {
 
     private final EvidenceRepository evidenceRepository;
+    private final EvidenceCache evidenceCache;
+    private final EvidenceCounterService evidenceCounterService;
     private final EvidenceStorageContract evidenceStorageContract;
     private final ObjectMapper objectMapper;
-    private final CertificateStorageService certificateStorageService;
+    private final CertificateRenderingService certificateRenderingService;
+    private final RpcBudgetScheduler rpcBudgetScheduler;
 
     @Override @Transactional
     public void processEvent(BlockchainEvent event) throws EventProcessingException {
@@ -63,23 +70,19 @@ public class EvidenceSubmittedProcessor implements BlockchainEventProcessor {
             evidence.setTransactionHash(event.getTransactionHash());
             evidence.setStatus("effective");
 
-            // 生成并存储证书
-            try {
-                evidence = certificateStorageService.generateAndStoreCertificate(evidence);
-                log.debug("Certificate generated for evidenceId: {}", eventData.evidenceId);
-            } catch (Exception e) {
-                // 证书生成失败不应该影响证据存储，只记录警告
-                log.warn("Failed to generate certificate for evidenceId: {}, evidence still stored. Error: {}", 
-                        eventData.evidenceId, e.getMessage(), e);
-            }
+            // 证书由异步渲染流水线生成，事务中只记录待生成状态
+            certificateRenderingService.enqueue(evidence);
 
             // 保存证据记录
             EvidenceEntity savedEvidence = evidenceRepository.save(evidence);
+            evidenceCounterService.recordCreated(savedEvidence.getUserAddress(),
+                    savedEvidence.getStatus());
+            evidenceCache.invalidateByEvidenceId(eventData.evidenceId);
 
             log.info(
                     "Successfully created new evidence record for evidenceId: {} with id: {} from contract, certificate: {}",
-                    eventData.evidenceId, savedEvidence.getId(), 
-                    savedEvidence.getCertificateId() != null ? "generated" : "failed");
+                    eventData.evidenceId, savedEvidence.getId(),
+                    savedEvidence.getCertificateStatus());
 
         } catch (EventProcessingException e) {
             throw e;
@@ -174,8 +177,9 @@ public class EvidenceSubmittedProcessor implements BlockchainEventProcessor {
         log.debug("Retrieving complete evidence from contract for evidenceId: {}", evidenceId);
 
         try {
-            EvidenceStorageContract.Evidence contractEvidence = evidenceStorageContract
-                    .getEvidence(evidenceId).send();
+            EvidenceStorageContract.Evidence contractEvidence = rpcBudgetScheduler
+                    .call(RpcPriority.PROCESSOR,
+                            () -> evidenceStorageContract.getEvidence(evidenceId).send());
 
             if (contractEvidence != null && contractEvidence.exists) {
                 EvidenceEntity evidence = new EvidenceEntity(
@@ -0,0 +1,395 @@
+package cn.edu.gfkd.evidence.service.signing;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.security.GeneralSecurityException;
+import java.security.KeyStore;
+import java.security.MessageDigest;
+import java.security.PrivateKey;
+import java.security.cert.Certificate;
+import java.security.cert.X509Certificate;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.pdfbox.Loader;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.interactive.digitalsignature.ExternalSigningSupport;
+import org.apache.pdfbox.pdmodel.interactive.digitalsignature.PDSignature;
+import org.apache.pdfbox.pdmodel.interactive.digitalsignature.SignatureOptions;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.stereotype.Service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 证书 PAdES 数字签名
+ *
+ * 主要职责： 1. 启用签名时在启动阶段加载签名私钥和证书链，之后复用预编码的签名者信息和每线程初始化好的签名实例
+ * 2. 以 ETSI.CAdES.detached 格式对证书 PDF 增量签名，签名值附带时间戳服务签发的时间戳令牌（PAdES baseline-T）
+ * 3. 批量签名：并发准备多个文档的签名值，一次向时间戳服务申请整批令牌后写回各文档
+ *
+ * 启用签名但未配置密钥库时启动失败；只有显式设置 certificate.signing.allow-self-signed=true（仅用于开发和测试）
+ * 才使用进程内生成的自签名密钥。
+ */
+@Service @Slf4j
+public class CertificateSigner {
+
+    private final TimestampAuthority timestampAuthority;
+
+    @Value("${certificate.signing.enabled:false}")
+    private boolean enabled;
+
+    // PKCS12 等密钥库位置，支持 classpath: 和 file: 前缀
+    @Value("${certificate.signing.keystore-path:}")
+    private String keystorePath = "";
+
+    // 未配置密钥库时是否允许使用临时自签名密钥（仅用于开发和测试）
+    @Value("${certificate.signing.allow-self-signed:false}")
+    private boolean allowSelfSigned;
+
+    @Value("${certificate.signing.keystore-type:PKCS12}")
+    private String keystoreType = "PKCS12";
+
+    @Value("${certificate.signing.keystore-password:}")
+    private String keystorePassword = "";
+
+    // 为空时使用密钥库中的第一个私钥条目
+    @Value("${certificate.signing.key-alias:}")
+    private String keyAlias = "";
+
+    @Value("${certificate.signing.timestamp:true}")
+    private boolean timestampEnabled = true;
+
+    // 为签名预留的字节数（PDF 中以两倍长度的十六进制占位），需容纳证书链和时间戳令牌
+    @Value("${certificate.signing.signature-size:8192}")
+    private int signatureSize = 8192;
+
+    @Value("${certificate.signing.reason:区块链存证证明}")
+    private String reason = "区块链存证证明";
+
+    @Value("${certificate.signing.location:}")
+    private String location = "";
+
+    @Value("${certificate.signing.batch-concurrency:4}")
+    private int batchConcurrency = 4;
+
+    private volatile CmsSignatureBuilder signatureBuilder;
+    private volatile X509Certificate signingCertificate;
+    private ExecutorService batchExecutor;
+
+    public CertificateSigner(TimestampAuthority timestampAuthority) {
+        this.timestampAuthority = timestampAuthority;
+    }
+
+    /**
+     * 启用签名时在启动阶段加载密钥，密钥库缺失或无法读取时启动失败
+     */
+    @PostConstruct
+    public void loadSigningKey() {
+        if (!enabled) {
+            return;
+        }
+
+        try {
+            builder();
+        } catch (IOException e) {
+            throw new IllegalStateException(e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 是否启用证书签名
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * 签名单个证书 PDF
+     *
+     * @param pdf 未签名的 PDF
+     * @param outputStream 签名后的 PDF 写入的输出流（不关闭）
+     * @throws IOException 签名失败时抛出
+     */
+    public void sign(byte[] pdf, OutputStream outputStream) throws IOException {
+        PreparedSignature prepared = prepare(pdf, outputStream);
+        try {
+            byte[] timestampToken = timestampEnabled ? timestampAuthority.timestamp(
+                    CmsSignatureBuilder.sha256(prepared.signatureValue())) : null;
+            complete(prepared, timestampToken);
+        } finally {
+            prepared.close();
+        }
+    }
+
+    public byte[] sign(byte[] pdf) throws IOException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream(pdf.length + 2 * signatureSize
+                + 2048);
+        sign(pdf, outputStream);
+        return outputStream.toByteArray();
+    }
+
+    /**
+     * 批量签名：并发计算各文档的签名值，再一次申请整批时间戳令牌
+     *
+     * 目前渲染流程逐个签名，本方法供批量调用方使用（如基准测试和离线批处理）。
+     *
+     * @param pdfs 未签名的 PDF
+     * @return 签名后的 PDF，与输入一一对应
+     * @throws IOException 任一文档签名失败时抛出
+     */
+    public List<byte[]> signBatch(List<byte[]> pdfs) throws IOException {
+        if (pdfs.isEmpty()) {
+            return List.of();
+        }
+
+        List<ByteArrayOutputStream> outputs = new ArrayList<>(pdfs.size());
+        List<CompletableFuture<PreparedSignature>> futures = new ArrayList<>(pdfs.size());
+        ExecutorService executor = batchExecutor();
+        for (byte[] pdf : pdfs) {
+            ByteArrayOutputStream output = new ByteArrayOutputStream(pdf.length
+                    + 2 * signatureSize + 2048);
+            outputs.add(output);
+            futures.add(CompletableFuture.supplyAsync(() -> {
+                try {
+                    return prepare(pdf, output);
+                } catch (IOException e) {
+                    throw new CompletionException(e);
+                }
+            }, executor));
+        }
+
+        List<PreparedSignature> prepared = new ArrayList<>(pdfs.size());
+        try {
+            IOException failure = null;
+            for (CompletableFuture<PreparedSignature> future : futures) {
+                try {
+                    prepared.add(future.join());
+                } catch (CompletionException e) {
+                    if (failure == null) {
+                        failure = e.getCause() instanceof IOException io ? io
+                                : new IOException("Failed to sign certificate", e.getCause());
+                    }
+                }
+            }
+            if (failure != null) {
+                throw failure;
+            }
+
+            List<byte[]> timestampTokens = Collections.nCopies(prepared.size(), null);
+            if (timestampEnabled) {
+                List<byte[]> imprints = new ArrayList<>(prepared.size());
+                for (PreparedSignature signature : prepared) {
+                    imprints.add(CmsSignatureBuilder.sha256(signature.signatureValue()));
+                }
+                timestampTokens = timestampAuthority.timestamp(imprints);
+            }
+
+            for (int i = 0; i < prepared.size(); i++) {
+                complete(prepared.get(i), timestampTokens.get(i));
+            }
+        } finally {
+            for (PreparedSignature signature : prepared) {
+                signature.close();
+            }
+        }
+
+        List<byte[]> signed = new ArrayList<>(outputs.size());
+        for (ByteArrayOutputStream output : outputs) {
+            signed.add(output.toByteArray());
+        }
+        return signed;
+    }
+
+    /**
+     * 签名证书（首次调用时加载密钥）
+     */
+    public X509Certificate getSigningCertificate() throws IOException {
+        builder();
+        return signingCertificate;
+    }
+
+    @PreDestroy
+    public synchronized void shutdown() {
+        if (batchExecutor != null) {
+            batchExecutor.shutdownNow();
+            batchExecutor = null;
+        }
+    }
+
+    /**
+     * 添加签名字典并增量保存，计算签名值；文档保持打开，直到写入签名
+     */
+    private PreparedSignature prepare(byte[] pdf, OutputStream outputStream) throws IOException {
+        CmsSignatureBuilder builder = builder();
+        PDDocument document = Loader.loadPDF(pdf);
+        SignatureOptions options = new SignatureOptions();
+        try {
+            PDSignature signature = new PDSignature();
+            signature.setFilter(PDSignature.FILTER_ADOBE_PPKLITE);
+            signature.setSubFilter(PDSignature.SUBFILTER_ETSI_CADES_DETACHED);
+            signature.setName(signingCertificate.getSubjectX500Principal().getName());
+            signature.setReason(reason);
+            if (!location.isEmpty()) {
+                signature.setLocation(location);
+            }
+            signature.setSignDate(Calendar.getInstance());
+            options.setPreferredSignatureSize(signatureSize);
+            document.addSignature(signature, options);
+
+            ExternalSigningSupport externalSigning = document
+                    .saveIncrementalForExternalSigning(outputStream);
+            byte[] signedAttributes = builder.signedAttributes(CmsSignatureBuilder.OID_DATA,
+                    digest(externalSigning.getContent()));
+            return new PreparedSignature(document, options, externalSigning, signedAttributes,
+                    builder.sign(signedAttributes));
+        } catch (IOException | GeneralSecurityException | RuntimeException e) {
+            options.close();
+            document.close();
+            throw e instanceof IOException io ? io
+                    : new IOException("Failed to sign certificate: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 组装 CMS 签名并写入预留位置
+     */
+    private void complete(PreparedSignature prepared, byte[] timestampToken) throws IOException {
+        byte[] cmsSignature = signatureBuilder.signedData(CmsSignatureBuilder.OID_DATA, null,
+                prepared.signedAttributes(), prepared.signatureValue(), timestampToken);
+        if (cmsSignature.length > signatureSize) {
+            throw new IOException("CMS signature of " + cmsSignature.length
+                    + " bytes exceeds the reserved signature size " + signatureSize);
+        }
+        prepared.externalSigning().setSignature(cmsSignature);
+    }
+
+    private byte[] digest(InputStream content) throws IOException {
+        MessageDigest messageDigest;
+        try {
+            messageDigest = MessageDigest.getInstance("SHA-256");
+        } catch (GeneralSecurityException e) {
+            throw new IOException("SHA-256 not available", e);
+        }
+
+        byte[] buffer = new byte[8192];
+        int read;
+        while ((read = content.read(buffer)) != -1) {
+            messageDigest.update(buffer, 0, read);
+        }
+        return messageDigest.digest();
+    }
+
+    private CmsSignatureBuilder builder() throws IOException {
+        CmsSignatureBuilder current = signatureBuilder;
+        if (current == null) {
+            synchronized (this) {
+                current = signatureBuilder;
+                if (current == null) {
+                    try {
+                        current = loadCredentials();
+                    } catch (GeneralSecurityException e) {
+                        throw new IOException("Failed to load certificate signing key: "
+                                + e.getMessage(), e);
+                    }
+                    signatureBuilder = current;
+                }
+            }
+        }
+        return current;
+    }
+
+    private CmsSignatureBuilder loadCredentials() throws IOException, GeneralSecurityException {
+        if (keystorePath == null || keystorePath.isBlank()) {
+            if (!allowSelfSigned) {
+                throw new GeneralSecurityException("certificate.signing.keystore-path is not "
+                        + "configured; set certificate.signing.allow-self-signed=true to sign "
+                        + "with an ephemeral key in development");
+            }
+            log.warn("No certificate signing keystore configured, signing with an ephemeral "
+                    + "self-signed key (development only)");
+            SelfSignedCertificates.Issued issued = SelfSignedCertificates
+                    .issue("Evidence Certificate Signer", false, Duration.ofDays(365));
+            signingCertificate = issued.certificate();
+            return new CmsSignatureBuilder(issued.keyPair().getPrivate(),
+                    List.of(issued.certificate()));
+        }
+
+        char[] password = keystorePassword.toCharArray();
+        KeyStore keyStore = KeyStore.getInstance(keystoreType);
+        try (InputStream inputStream = new DefaultResourceLoader().getResource(keystorePath)
+                .getInputStream()) {
+            keyStore.load(inputStream, password);
+        }
+
+        String alias = keyAlias;
+        if (alias == null || alias.isBlank()) {
+            alias = Collections.list(keyStore.aliases()).stream()
+                    .filter(name -> isKeyEntry(keyStore, name)).findFirst()
+                    .orElseThrow(() -> new GeneralSecurityException(
+                            "No private key entry in " + keystorePath));
+        }
+
+        PrivateKey privateKey = (PrivateKey) keyStore.getKey(alias, password);
+        Certificate[] chain = keyStore.getCertificateChain(alias);
+        if (privateKey == null || chain == null || chain.length == 0) {
+            throw new GeneralSecurityException("Key entry " + alias + " has no private key or chain");
+        }
+
+        List<X509Certificate> certificates = new ArrayList<>(chain.length);
+        for (Certificate certificate : chain) {
+            certificates.add((X509Certificate) certificate);
+        }
+        signingCertificate = certificates.get(0);
+        log.info("Certificate signing key loaded: {} ({} certificates in chain)",
+                signingCertificate.getSubjectX500Principal(), certificates.size());
+        return new CmsSignatureBuilder(privateKey, certificates);
+    }
+
+    private static boolean isKeyEntry(KeyStore keyStore, String alias) {
+        try {
+            return keyStore.isKeyEntry(alias);
+        } catch (GeneralSecurityException e) {
+            return false;
+        }
+    }
+
+    private synchronized ExecutorService batchExecutor() {
+        if (batchExecutor == null) {
+            AtomicInteger threadIndex = new AtomicInteger(0);
+            batchExecutor = Executors.newFixedThreadPool(batchConcurrency, runnable -> {
+                Thread thread = new Thread(runnable,
+                        "certificate-signing-" + threadIndex.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        return batchExecutor;
+    }
+
+    /**
+     * 已计算签名值、等待写入 CMS 签名的文档
+     */
+    private record PreparedSignature(PDDocument document, SignatureOptions options,
+            ExternalSigningSupport externalSigning, byte[] signedAttributes,
+            byte[] signatureValue) {
+
+        void close() throws IOException {
+            options.close();
+            document.close();
+        }
+    }
+}
@@ -0,0 +1,168 @@
+package cn.edu.gfkd.evidence.service.signing;
+
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.PrivateKey;
+import java.security.Signature;
+import java.security.cert.X509Certificate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * CMS SignedData 签名构造（RFC 5652）
+ *
+ * 主要职责： 1. 加载时一次性编码签名者标识、证书集合和 ESS signingCertificateV2 属性，每次签名只编码摘要和签名值
+ * 2. 每个线程复用一个已用私钥初始化的 {@link Signature} 实例 3. 签名分为计算签名值和组装 SignedData 两步，
+ * 两步之间可以为签名值申请时间戳（批量签名时一次申请一批）
+ *
+ * 签名属性只包含 contentType、messageDigest 和 signingCertificateV2，不含 signingTime，满足 PAdES baseline 要求。
+ */
+final class CmsSignatureBuilder {
+
+    static final String OID_DATA = "1.2.840.113549.1.7.1";
+    static final String OID_SIGNED_DATA = "1.2.840.113549.1.7.2";
+    static final String OID_SHA256 = "2.16.840.1.101.3.4.2.1";
+    static final String OID_SIGNATURE_TIMESTAMP_TOKEN = "1.2.840.113549.1.9.16.2.14";
+
+    private static final String OID_CONTENT_TYPE = "1.2.840.113549.1.9.3";
+    private static final String OID_MESSAGE_DIGEST = "1.2.840.113549.1.9.4";
+    private static final String OID_SIGNING_CERTIFICATE_V2 = "1.2.840.113549.1.9.16.2.47";
+    private static final String OID_SHA256_WITH_RSA = "1.2.840.113549.1.1.11";
+    private static final String OID_ECDSA_WITH_SHA256 = "1.2.840.10045.4.3.2";
+
+    private final PrivateKey privateKey;
+    private final String signatureAlgorithm;
+    private final byte[] signatureAlgorithmIdentifier;
+    private final byte[] signerIdentifier;
+    private final byte[] certificates;
+    private final byte[] signingCertificateAttribute;
+
+    // Signature 不是线程安全的，每个线程复用一个已初始化的实例
+    private final ThreadLocal<Signature> signatures = ThreadLocal.withInitial(this::newSignature);
+
+    CmsSignatureBuilder(PrivateKey privateKey, List<X509Certificate> chain)
+            throws GeneralSecurityException {
+        this.privateKey = privateKey;
+        if ("EC".equals(privateKey.getAlgorithm())) {
+            this.signatureAlgorithm = "SHA256withECDSA";
+            this.signatureAlgorithmIdentifier = Der.algorithm(OID_ECDSA_WITH_SHA256);
+        } else if ("RSA".equals(privateKey.getAlgorithm())) {
+            this.signatureAlgorithm = "SHA256withRSA";
+            this.signatureAlgorithmIdentifier = Der.algorithm(OID_SHA256_WITH_RSA, Der.NULL);
+        } else {
+            throw new GeneralSecurityException(
+                    "Unsupported signing key algorithm: " + privateKey.getAlgorithm());
+        }
+
+        X509Certificate signerCertificate = chain.get(0);
+        this.signerIdentifier = Der.sequence(signerCertificate.getIssuerX500Principal().getEncoded(),
+                Der.integer(signerCertificate.getSerialNumber()));
+
+        List<byte[]> encodedCertificates = new ArrayList<>(chain.size());
+        for (X509Certificate certificate : chain) {
+            encodedCertificates.add(certificate.getEncoded());
+        }
+        this.certificates = Der.implicitSetOf(0, encodedCertificates);
+
+        // ESSCertIDv2 使用默认的 SHA-256，省略 hashAlgorithm 字段
+        byte[] certificateHash = sha256(signerCertificate.getEncoded());
+        this.signingCertificateAttribute = attribute(OID_SIGNING_CERTIFICATE_V2,
+                Der.sequence(Der.sequence(Der.sequence(Der.octetString(certificateHash)))));
+
+        // 提前初始化一次，密钥不可用时在加载阶段失败
+        newSignature();
+    }
+
+    /**
+     * 编码签名属性（DER SET，签名值即对该编码计算）
+     *
+     * @param contentType 被签名内容的类型
+     * @param contentDigest 被签名内容的 SHA-256 摘要
+     */
+    byte[] signedAttributes(String contentType, byte[] contentDigest) {
+        return Der.setOf(List.of(
+                attribute(OID_CONTENT_TYPE, Der.oid(contentType)),
+                attribute(OID_MESSAGE_DIGEST, Der.octetString(contentDigest)),
+                signingCertificateAttribute));
+    }
+
+    /**
+     * 对签名属性计算签名值
+     */
+    byte[] sign(byte[] signedAttributes) throws GeneralSecurityException {
+        Signature signature = signatures.get();
+        signature.update(signedAttributes);
+        return signature.sign();
+    }
+
+    /**
+     * 组装 ContentInfo(SignedData)
+     *
+     * @param contentType 被签名内容的类型
+     * @param encapsulatedContent 封装的内容，分离式签名时为 null
+     * @param signedAttributes {@link #signedAttributes} 的结果
+     * @param signatureValue {@link #sign} 的结果
+     * @param timestampToken 签名值的时间戳令牌，没有时为 null
+     */
+    byte[] signedData(String contentType, byte[] encapsulatedContent, byte[] signedAttributes,
+            byte[] signatureValue, byte[] timestampToken) {
+        byte[] encapsulatedContentInfo = encapsulatedContent == null
+                ? Der.sequence(Der.oid(contentType))
+                : Der.sequence(Der.oid(contentType),
+                        Der.explicit(0, Der.octetString(encapsulatedContent)));
+
+        // 签名属性在 SignerInfo 中以 [0] IMPLICIT 编码，内容与签名时的 SET 相同
+        byte[] signedAttributesContent = contentOf(signedAttributes);
+        byte[] signerInfo = timestampToken == null
+                ? Der.sequence(Der.integer(1), signerIdentifier, Der.algorithm(OID_SHA256),
+                        Der.implicitConstructed(0, signedAttributesContent),
+                        signatureAlgorithmIdentifier, Der.octetString(signatureValue))
+                : Der.sequence(Der.integer(1), signerIdentifier, Der.algorithm(OID_SHA256),
+                        Der.implicitConstructed(0, signedAttributesContent),
+                        signatureAlgorithmIdentifier, Der.octetString(signatureValue),
+                        Der.implicitConstructed(1,
+                                attribute(OID_SIGNATURE_TIMESTAMP_TOKEN, timestampToken)));
+
+        // 封装非 data 类型内容时版本为 3
+        byte[] signedData = Der.sequence(Der.integer(OID_DATA.equals(contentType) ? 1 : 3),
+                Der.set(Der.algorithm(OID_SHA256)), encapsulatedContentInfo, certificates,
+                Der.set(signerInfo));
+        return Der.sequence(Der.oid(OID_SIGNED_DATA), Der.explicit(0, signedData));
+    }
+
+    static byte[] sha256(byte[] data) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(data);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private static byte[] attribute(String type, byte[] value) {
+        return Der.sequence(Der.oid(type), Der.set(value));
+    }
+
+    /**
+     * 去掉 TLV 的标签和长度，返回内容部分
+     */
+    private static byte[] contentOf(byte[] encoded) {
+        int offset = 2;
+        if ((encoded[1] & 0x80) != 0) {
+            offset += encoded[1] & 0x7F;
+        }
+        byte[] content = new byte[encoded.length - offset];
+        System.arraycopy(encoded, offset, content, 0, content.length);
+        return content;
+    }
+
+    private Signature newSignature() {
+        try {
+            Signature signature = Signature.getInstance(signatureAlgorithm);
+            signature.initSign(privateKey);
+            return signature;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Cannot initialize certificate signing key", e);
+        }
+    }
+}
@@ -0,0 +1,162 @@
+package cn.edu.gfkd.evidence.service.signing;
+
+import java.io.ByteArrayOutputStream;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 最小的 ASN.1 DER 编码工具，只包含生成 CMS 签名、时间戳令牌和自签名证书所需的类型
+ */
+final class Der {
+
+    static final byte[] NULL = { 0x05, 0x00 };
+
+    private static final DateTimeFormatter UTC_TIME = DateTimeFormatter
+            .ofPattern("yyMMddHHmmss'Z'").withZone(ZoneOffset.UTC);
+    private static final DateTimeFormatter GENERALIZED_TIME = DateTimeFormatter
+            .ofPattern("yyyyMMddHHmmss").withZone(ZoneOffset.UTC);
+
+    private Der() {
+    }
+
+    static byte[] sequence(byte[]... elements) {
+        return tlv(0x30, elements);
+    }
+
+    static byte[] set(byte[]... elements) {
+        return tlv(0x31, elements);
+    }
+
+    /**
+     * SET OF：DER 要求元素按编码字节排序
+     */
+    static byte[] setOf(List<byte[]> elements) {
+        return tlv(0x31, sorted(elements));
+    }
+
+    static byte[] integer(BigInteger value) {
+        return tlv(0x02, value.toByteArray());
+    }
+
+    static byte[] integer(long value) {
+        return integer(BigInteger.valueOf(value));
+    }
+
+    static byte[] bool(boolean value) {
+        return tlv(0x01, new byte[] { value ? (byte) 0xFF : 0x00 });
+    }
+
+    static byte[] octetString(byte[] value) {
+        return tlv(0x04, value);
+    }
+
+    static byte[] bitString(byte[] value) {
+        byte[] content = new byte[value.length + 1];
+        System.arraycopy(value, 0, content, 1, value.length);
+        return tlv(0x03, content);
+    }
+
+    static byte[] utf8String(String value) {
+        return tlv(0x0C, value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    static byte[] utcTime(Instant time) {
+        return tlv(0x17, UTC_TIME.format(time).getBytes(StandardCharsets.US_ASCII));
+    }
+
+    /**
+     * GeneralizedTime，保留毫秒；DER 要求去掉小数部分末尾的 0
+     */
+    static byte[] generalizedTime(Instant time) {
+        StringBuilder value = new StringBuilder(GENERALIZED_TIME.format(time));
+        int millis = time.getNano() / 1_000_000;
+        if (millis > 0) {
+            String fraction = String.format("%03d", millis).replaceAll("0+$", "");
+            value.append('.').append(fraction);
+        }
+        value.append('Z');
+        return tlv(0x18, value.toString().getBytes(StandardCharsets.US_ASCII));
+    }
+
+    static byte[] oid(String dotted) {
+        String[] arcs = dotted.split("\\.");
+        ByteArrayOutputStream content = new ByteArrayOutputStream();
+        writeBase128(content, Long.parseLong(arcs[0]) * 40 + Long.parseLong(arcs[1]));
+        for (int i = 2; i < arcs.length; i++) {
+            writeBase128(content, Long.parseLong(arcs[i]));
+        }
+        return tlv(0x06, content.toByteArray());
+    }
+
+    /**
+     * [n] EXPLICIT：在完整编码外再包一层上下文标签
+     */
+    static byte[] explicit(int tagNumber, byte[] element) {
+        return tlv(0xA0 | tagNumber, element);
+    }
+
+    /**
+     * [n] IMPLICIT 的构造类型：用上下文标签替换原有的 SET/SEQUENCE 标签
+     */
+    static byte[] implicitConstructed(int tagNumber, byte[]... contents) {
+        return tlv(0xA0 | tagNumber, contents);
+    }
+
+    /**
+     * [n] IMPLICIT 的 SET OF（元素排序）
+     */
+    static byte[] implicitSetOf(int tagNumber, List<byte[]> elements) {
+        return tlv(0xA0 | tagNumber, sorted(elements));
+    }
+
+    static byte[] algorithm(String oid) {
+        return sequence(oid(oid));
+    }
+
+    static byte[] algorithm(String oid, byte[] parameters) {
+        return sequence(oid(oid), parameters);
+    }
+
+    static byte[] tlv(int tag, byte[]... contents) {
+        int length = 0;
+        for (byte[] content : contents) {
+            length += content.length;
+        }
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream(length + 6);
+        out.write(tag);
+        if (length < 0x80) {
+            out.write(length);
+        } else {
+            int lengthBytes = (Integer.SIZE - Integer.numberOfLeadingZeros(length) + 7) / 8;
+            out.write(0x80 | lengthBytes);
+            for (int i = lengthBytes - 1; i >= 0; i--) {
+                out.write(length >>> (i * 8));
+            }
+        }
+        for (byte[] content : contents) {
+            out.writeBytes(content);
+        }
+        return out.toByteArray();
+    }
+
+    private static byte[][] sorted(List<byte[]> elements) {
+        List<byte[]> copy = new ArrayList<>(elements);
+        copy.sort(Arrays::compareUnsigned);
+        return copy.toArray(new byte[0][]);
+    }
+
+    private static void writeBase128(ByteArrayOutputStream out, long value) {
+        int groups = Math.max(1, (Long.SIZE - Long.numberOfLeadingZeros(value) + 6) / 7);
+        for (int i = groups - 1; i >= 0; i--) {
+            int group = (int) ((value >>> (i * 7)) & 0x7F);
+            out.write(i > 0 ? group | 0x80 : group);
+        }
+    }
+}
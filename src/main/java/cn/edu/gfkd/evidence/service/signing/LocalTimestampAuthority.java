@@ -0,0 +1,89 @@
+package cn.edu.gfkd.evidence.service.signing;
+
+import java.io.IOException;
+import java.security.GeneralSecurityException;
+import java.security.cert.X509Certificate;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 进程内的本地时间戳服务（外部 TSA 的替身）
+ *
+ * 主要职责： 1. 首次使用时生成时间戳服务的密钥和自签名证书（带关键的 timeStamping 扩展密钥用途）
+ * 2. 按 RFC 3161 签发 TSTInfo 并以 CMS SignedData 封装为时间戳令牌，令牌内附带时间戳服务证书
+ *
+ * 密钥只在进程内有效，验证方需要信任本次运行的时间戳服务证书；接入正式 TSA 时替换 {@link TimestampAuthority} 实现即可。
+ */
+@Component @Slf4j
+public class LocalTimestampAuthority implements TimestampAuthority {
+
+    private static final String OID_TST_INFO = "1.2.840.113549.1.9.16.1.4";
+
+    @Value("${certificate.signing.tsa-policy:1.2.3.4.1}")
+    private String policy = "1.2.3.4.1";
+
+    private final AtomicLong serialNumber = new AtomicLong(System.currentTimeMillis());
+
+    private volatile CmsSignatureBuilder signatureBuilder;
+    private volatile X509Certificate certificate;
+
+    @Override
+    public byte[] timestamp(byte[] sha256Imprint) throws IOException {
+        CmsSignatureBuilder builder = builder();
+        byte[] tstInfo = Der.sequence(
+                Der.integer(1),
+                Der.oid(policy),
+                Der.sequence(Der.algorithm(CmsSignatureBuilder.OID_SHA256),
+                        Der.octetString(sha256Imprint)),
+                Der.integer(serialNumber.incrementAndGet()),
+                Der.generalizedTime(Instant.now()));
+
+        try {
+            byte[] signedAttributes = builder.signedAttributes(OID_TST_INFO,
+                    CmsSignatureBuilder.sha256(tstInfo));
+            return builder.signedData(OID_TST_INFO, tstInfo, signedAttributes,
+                    builder.sign(signedAttributes), null);
+        } catch (GeneralSecurityException e) {
+            throw new IOException("Failed to sign timestamp token: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 时间戳服务证书（验证时间戳令牌时作为信任锚）
+     */
+    public X509Certificate getCertificate() throws IOException {
+        builder();
+        return certificate;
+    }
+
+    private CmsSignatureBuilder builder() throws IOException {
+        CmsSignatureBuilder current = signatureBuilder;
+        if (current == null) {
+            synchronized (this) {
+                current = signatureBuilder;
+                if (current == null) {
+                    try {
+                        SelfSignedCertificates.Issued issued = SelfSignedCertificates
+                                .issue("Evidence Local TSA", true, Duration.ofDays(3650));
+                        certificate = issued.certificate();
+                        current = new CmsSignatureBuilder(issued.keyPair().getPrivate(),
+                                List.of(issued.certificate()));
+                    } catch (GeneralSecurityException e) {
+                        throw new IOException("Failed to create local timestamp authority key", e);
+                    }
+                    signatureBuilder = current;
+                    log.info("Local timestamp authority initialized: {}",
+                            certificate.getSubjectX500Principal());
+                }
+            }
+        }
+        return current;
+    }
+}
@@ -0,0 +1,98 @@
+package cn.edu.gfkd.evidence.service.signing;
+
+import java.io.ByteArrayInputStream;
+import java.math.BigInteger;
+import java.security.GeneralSecurityException;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.SecureRandom;
+import java.security.Signature;
+import java.security.cert.CertificateFactory;
+import java.security.cert.X509Certificate;
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * 生成自签名证书（本地时间戳服务和未配置密钥库时的开发用签名密钥）
+ */
+final class SelfSignedCertificates {
+
+    private static final String OID_COMMON_NAME = "2.5.4.3";
+    private static final String OID_ORGANIZATION = "2.5.4.10";
+    private static final String OID_BASIC_CONSTRAINTS = "2.5.29.19";
+    private static final String OID_KEY_USAGE = "2.5.29.15";
+    private static final String OID_EXTENDED_KEY_USAGE = "2.5.29.37";
+    private static final String OID_TIME_STAMPING = "1.3.6.1.5.5.7.3.8";
+    private static final String OID_SHA256_WITH_RSA = "1.2.840.113549.1.1.11";
+
+    // digitalSignature | nonRepudiation
+    private static final byte KEY_USAGE_SIGNING = (byte) 0xC0;
+
+    private SelfSignedCertificates() {
+    }
+
+    /**
+     * 自签名证书及其私钥
+     */
+    record Issued(KeyPair keyPair, X509Certificate certificate) {
+    }
+
+    /**
+     * 生成 RSA 2048 自签名证书
+     *
+     * @param commonName 证书主体名称
+     * @param timeStamping 是否为时间戳服务证书（带关键的 timeStamping 扩展密钥用途）
+     * @param validity 有效期
+     */
+    static Issued issue(String commonName, boolean timeStamping, Duration validity)
+            throws GeneralSecurityException {
+        KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+        generator.initialize(2048);
+        KeyPair keyPair = generator.generateKeyPair();
+
+        byte[] name = Der.sequence(
+                Der.set(Der.sequence(Der.oid(OID_ORGANIZATION), Der.utf8String("Evidence"))),
+                Der.set(Der.sequence(Der.oid(OID_COMMON_NAME), Der.utf8String(commonName))));
+        Instant notBefore = Instant.now().minus(Duration.ofMinutes(5));
+        byte[] signatureAlgorithm = Der.algorithm(OID_SHA256_WITH_RSA, Der.NULL);
+
+        byte[] extensions = timeStamping
+                ? Der.sequence(basicConstraints(), keyUsage(), extendedKeyUsage())
+                : Der.sequence(basicConstraints(), keyUsage());
+        byte[] tbsCertificate = Der.sequence(
+                Der.explicit(0, Der.integer(2)),
+                Der.integer(new BigInteger(63, new SecureRandom())),
+                signatureAlgorithm,
+                name,
+                Der.sequence(Der.utcTime(notBefore), Der.utcTime(notBefore.plus(validity))),
+                name,
+                keyPair.getPublic().getEncoded(),
+                Der.explicit(3, extensions));
+
+        Signature signature = Signature.getInstance("SHA256withRSA");
+        signature.initSign(keyPair.getPrivate());
+        signature.update(tbsCertificate);
+        byte[] certificate = Der.sequence(tbsCertificate, signatureAlgorithm,
+                Der.bitString(signature.sign()));
+
+        X509Certificate parsed = (X509Certificate) CertificateFactory.getInstance("X.509")
+                .generateCertificate(new ByteArrayInputStream(certificate));
+        return new Issued(keyPair, parsed);
+    }
+
+    private static byte[] basicConstraints() {
+        return Der.sequence(Der.oid(OID_BASIC_CONSTRAINTS), Der.bool(true),
+                Der.octetString(Der.sequence()));
+    }
+
+    private static byte[] keyUsage() {
+        // 未使用位数 6：只有前两位有效
+        byte[] bits = Der.tlv(0x03, new byte[] { 6, KEY_USAGE_SIGNING });
+        return Der.sequence(Der.oid(OID_KEY_USAGE), Der.bool(true), Der.octetString(bits));
+    }
+
+    private static byte[] extendedKeyUsage() {
+        return Der.sequence(Der.oid(OID_EXTENDED_KEY_USAGE), Der.bool(true),
+                Der.octetString(Der.sequence(Der.oid(OID_TIME_STAMPING))));
+    }
+}
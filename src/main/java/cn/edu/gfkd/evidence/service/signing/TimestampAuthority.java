@@ -0,0 +1,38 @@
+package cn.edu.gfkd.evidence.service.signing;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * RFC 3161 时间戳服务
+ *
+ * 为签名值签发时间戳令牌，使签名时间可以离线验证（PAdES baseline-T）。
+ */
+public interface TimestampAuthority {
+
+    /**
+     * 为消息摘要签发时间戳令牌
+     *
+     * @param sha256Imprint 被加盖时间戳数据的 SHA-256 摘要
+     * @return DER 编码的 TimeStampToken（ContentInfo）
+     * @throws IOException 签发失败时抛出
+     */
+    byte[] timestamp(byte[] sha256Imprint) throws IOException;
+
+    /**
+     * 批量签发时间戳令牌，结果与输入一一对应
+     * 默认逐个调用 {@link #timestamp(byte[])}；远程时间戳服务可重写为一次请求，分摊往返开销
+     *
+     * @param sha256Imprints 被加盖时间戳数据的 SHA-256 摘要
+     * @return DER 编码的 TimeStampToken
+     * @throws IOException 签发失败时抛出
+     */
+    default List<byte[]> timestamp(List<byte[]> sha256Imprints) throws IOException {
+        List<byte[]> tokens = new ArrayList<>(sha256Imprints.size());
+        for (byte[] imprint : sha256Imprints) {
+            tokens.add(timestamp(imprint));
+        }
+        return tokens;
+    }
+}
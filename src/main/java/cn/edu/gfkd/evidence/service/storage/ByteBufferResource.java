@@ -0,0 +1,87 @@
+package cn.edu.gfkd.evidence.service.storage;
+
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+
+import org.springframework.core.io.AbstractResource;
+
+/**
+ * 基于 ByteBuffer（内存映射切片或缓存的堆外内存）的证书资源
+ *
+ * 每次 getInputStream 返回独立的读取位置，下载接口可据此按 Range 请求分段输出，不复制整个证书。
+ */
+public class ByteBufferResource extends AbstractResource {
+
+    private final String certificateId;
+    private final ByteBuffer buffer;
+    private final long lastModified;
+
+    public ByteBufferResource(String certificateId, ByteBuffer buffer, long lastModified) {
+        this.certificateId = certificateId;
+        this.buffer = buffer.asReadOnlyBuffer();
+        this.lastModified = lastModified;
+    }
+
+    @Override
+    public String getDescription() {
+        return "certificate buffer [" + certificateId + "]";
+    }
+
+    @Override
+    public InputStream getInputStream() {
+        return new ByteBufferInputStream(buffer);
+    }
+
+    @Override
+    public boolean exists() {
+        return true;
+    }
+
+    @Override
+    public long contentLength() {
+        return buffer.remaining();
+    }
+
+    @Override
+    public long lastModified() {
+        return lastModified;
+    }
+
+    private static final class ByteBufferInputStream extends InputStream {
+        private final ByteBuffer buffer;
+
+        private ByteBufferInputStream(ByteBuffer buffer) {
+            this.buffer = buffer.duplicate();
+        }
+
+        @Override
+        public int read() {
+            return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] bytes, int offset, int length) {
+            if (length == 0) {
+                return 0;
+            }
+            if (!buffer.hasRemaining()) {
+                return -1;
+            }
+            int count = Math.min(length, buffer.remaining());
+            buffer.get(bytes, offset, count);
+            return count;
+        }
+
+        @Override
+        public long skip(long n) {
+            int count = (int) Math.max(0, Math.min(n, buffer.remaining()));
+            buffer.position(buffer.position() + count);
+            return count;
+        }
+
+        @Override
+        public int available() {
+            return buffer.remaining();
+        }
+    }
+}
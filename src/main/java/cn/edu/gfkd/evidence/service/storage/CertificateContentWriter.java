@@ -0,0 +1,16 @@
+package cn.edu.gfkd.evidence.service.storage;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * 证书内容生成回调：把证书内容直接写入存储提供的输出流，避免先在内存中缓冲整个 PDF
+ */
+@FunctionalInterface
+public interface CertificateContentWriter {
+
+    /**
+     * 写出证书内容（不要关闭输出流）
+     */
+    void writeTo(OutputStream outputStream) throws IOException;
+}
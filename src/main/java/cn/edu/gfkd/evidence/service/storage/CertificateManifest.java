@@ -0,0 +1,331 @@
+package cn.edu.gfkd.evidence.service.storage;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 证书元数据清单
+ *
+ * 主要职责： 1. 在内存中维护证书ID → 元数据的映射，元数据查询不访问文件系统 2. 以追加日志的形式持久化到存储目录下的清单文件
+ * 3. 启动时回放清单文件，删除记录过多时压缩重写 4. 维护每个内容摘要被多少证书引用，用于内容寻址存储的去重和回收
+ * 5. 维护按创建时间排序的索引，保留期清理只访问过期的条目 6. 丢弃异常退出时写了一半的末尾记录，并在继续追加前重写清单
+ *
+ * 清单文件每行一条记录：{@code +<TAB>id<TAB>size<TAB>sha256<TAB>createdAtMillis} 或 {@code -<TAB>id}
+ */
+@Slf4j
+public class CertificateManifest {
+
+    private static final String PUT = "+";
+    private static final String REMOVE = "-";
+
+    private final Path manifestFile;
+    private final Map<String, CertificateMetadata> entries = new ConcurrentHashMap<>();
+    private final Map<String, Integer> referenceCounts = new ConcurrentHashMap<>();
+    private final NavigableSet<CertificateMetadata> byCreatedAt = new ConcurrentSkipListSet<>(
+            CertificateMetadata.CREATED_AT_ORDER);
+
+    private FileOutputStream output;
+    private BufferedWriter writer;
+    private int recordCount;
+    // 清单文件末尾可能有不完整的记录，下次追加前需要先重写
+    private boolean tailDamaged;
+
+    public CertificateManifest(Path manifestFile) {
+        this.manifestFile = manifestFile;
+    }
+
+    /**
+     * 回放清单文件
+     *
+     * @return 清单文件不存在时返回 false，调用方应扫描存储目录重建
+     * @throws IOException 读取失败时抛出
+     */
+    public synchronized boolean load() throws IOException {
+        entries.clear();
+        recordCount = 0;
+        if (!Files.exists(manifestFile)) {
+            return false;
+        }
+
+        // 最后一行没有换行符说明写入被中断，即使能解析出字段也不可信
+        boolean endsWithNewline = endsWithNewline();
+        boolean damaged = !endsWithNewline;
+        try (BufferedReader reader = Files.newBufferedReader(manifestFile, StandardCharsets.UTF_8)) {
+            String previous = null;
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (previous != null) {
+                    damaged |= !applyRecord(previous);
+                }
+                previous = line;
+            }
+            if (previous != null) {
+                if (endsWithNewline) {
+                    damaged |= !applyRecord(previous);
+                } else {
+                    log.warn("Discarding torn certificate manifest record: {}", previous);
+                }
+            }
+        }
+
+        rebuildIndexes();
+        log.info("Certificate manifest loaded: {} entries from {} records", entries.size(),
+                recordCount);
+
+        // 末尾记录损坏时重写，否则之后追加的记录会接在半行后面；被覆盖或删除的记录超过一半时压缩
+        if (damaged) {
+            log.warn("Certificate manifest {} has a torn or malformed record, rewriting",
+                    manifestFile);
+            rewrite(entries.values());
+        } else if (recordCount > 2 * entries.size() + 64) {
+            rewrite(entries.values());
+        }
+        tailDamaged = false;
+        return true;
+    }
+
+    /**
+     * 用给定的元数据整体替换清单（重建或压缩时使用）
+     */
+    public synchronized void replaceAll(Collection<CertificateMetadata> metadata)
+            throws IOException {
+        entries.clear();
+        for (CertificateMetadata item : metadata) {
+            entries.put(item.getCertificateId(), item);
+        }
+        rebuildIndexes();
+        rewrite(entries.values());
+    }
+
+    public Optional<CertificateMetadata> get(String certificateId) {
+        return Optional.ofNullable(entries.get(certificateId));
+    }
+
+    public boolean contains(String certificateId) {
+        return entries.containsKey(certificateId);
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * 当前所有条目的快照
+     */
+    public List<CertificateMetadata> values() {
+        return new ArrayList<>(entries.values());
+    }
+
+    /**
+     * 按创建时间从早到晚返回早于截止时间的条目，只访问返回的条目
+     *
+     * @param cutoffMillis 截止时间（不包含）
+     * @param limit 最多返回的条目数量
+     */
+    public List<CertificateMetadata> createdBefore(long cutoffMillis, int limit) {
+        List<CertificateMetadata> expired = new ArrayList<>(Math.min(limit, 256));
+        for (CertificateMetadata item : byCreatedAt) {
+            if (item.getCreatedAtMillis() >= cutoffMillis || expired.size() >= limit) {
+                break;
+            }
+            expired.add(item);
+        }
+        return expired;
+    }
+
+    /**
+     * 引用指定内容摘要的证书数量
+     */
+    public int referenceCount(String sha256) {
+        return referenceCounts.getOrDefault(sha256, 0);
+    }
+
+    /**
+     * 写入或替换条目
+     *
+     * @return 被替换的旧条目，没有时返回 null
+     */
+    public synchronized CertificateMetadata put(CertificateMetadata metadata) throws IOException {
+        append(formatPut(metadata));
+        CertificateMetadata previous = entries.put(metadata.getCertificateId(), metadata);
+        if (previous != null) {
+            release(previous.getSha256());
+            byCreatedAt.remove(previous);
+        }
+        referenceCounts.merge(metadata.getSha256(), 1, Integer::sum);
+        byCreatedAt.add(metadata);
+        return previous;
+    }
+
+    /**
+     * 删除条目
+     *
+     * @return 被删除的条目，不存在时返回 null
+     */
+    public synchronized CertificateMetadata remove(String certificateId) throws IOException {
+        CertificateMetadata removed = entries.remove(certificateId);
+        if (removed != null) {
+            append(String.join("\t", REMOVE, certificateId));
+            release(removed.getSha256());
+            byCreatedAt.remove(removed);
+        }
+        return removed;
+    }
+
+    public synchronized void close() throws IOException {
+        if (writer != null) {
+            writer.close();
+            writer = null;
+            output = null;
+        }
+    }
+
+    private void release(String sha256) {
+        referenceCounts.computeIfPresent(sha256, (key, count) -> count > 1 ? count - 1 : null);
+    }
+
+    private void rebuildIndexes() {
+        referenceCounts.clear();
+        byCreatedAt.clear();
+        for (CertificateMetadata item : entries.values()) {
+            referenceCounts.merge(item.getSha256(), 1, Integer::sum);
+            byCreatedAt.add(item);
+        }
+    }
+
+    /**
+     * 回放一条记录
+     *
+     * @return 记录格式错误被跳过时返回 false
+     */
+    private boolean applyRecord(String line) {
+        if (line.isEmpty()) {
+            return true;
+        }
+
+        String[] parts = line.split("\t");
+        try {
+            if (PUT.equals(parts[0]) && parts.length == 5) {
+                entries.put(parts[1], new CertificateMetadata(parts[1], Long.parseLong(parts[2]),
+                        parts[3], Long.parseLong(parts[4])));
+                recordCount++;
+                return true;
+            } else if (REMOVE.equals(parts[0]) && parts.length == 2) {
+                entries.remove(parts[1]);
+                recordCount++;
+                return true;
+            }
+        } catch (NumberFormatException e) {
+            // 按格式错误处理
+        }
+        log.warn("Skipping malformed certificate manifest record: {}", line);
+        return false;
+    }
+
+    private boolean endsWithNewline() throws IOException {
+        try (FileChannel channel = FileChannel.open(manifestFile, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size == 0) {
+                return true;
+            }
+            ByteBuffer last = ByteBuffer.allocate(1);
+            return channel.read(last, size - 1) == 1 && last.get(0) == '\n';
+        }
+    }
+
+    /**
+     * 把已追加的记录同步到磁盘（同步期间不阻塞新的追加）
+     */
+    public void sync() throws IOException {
+        FileOutputStream current;
+        synchronized (this) {
+            if (output == null) {
+                return;
+            }
+            writer.flush();
+            current = output;
+        }
+        current.getChannel().force(false);
+    }
+
+    private void append(String record) throws IOException {
+        if (tailDamaged) {
+            // 上次追加中途失败，先用内存中的条目重写，避免新记录接在半行后面
+            rewrite(entries.values());
+            tailDamaged = false;
+        }
+        if (writer == null) {
+            output = new FileOutputStream(manifestFile.toFile(), true);
+            writer = new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8));
+        }
+        try {
+            writer.write(record);
+            writer.write('\n');
+            writer.flush();
+        } catch (IOException e) {
+            tailDamaged = true;
+            closeQuietly();
+            throw e;
+        }
+        recordCount++;
+    }
+
+    private void closeQuietly() {
+        try {
+            close();
+        } catch (IOException e) {
+            log.debug("Failed to close certificate manifest after a failed append: {}",
+                    e.getMessage());
+            writer = null;
+            output = null;
+        }
+    }
+
+    private String formatPut(CertificateMetadata metadata) {
+        return String.join("\t", PUT, metadata.getCertificateId(),
+                Long.toString(metadata.getSize()), metadata.getSha256(),
+                Long.toString(metadata.getCreatedAtMillis()));
+    }
+
+    private void rewrite(Collection<CertificateMetadata> metadata) throws IOException {
+        close();
+
+        Path tempFile = manifestFile.resolveSibling(manifestFile.getFileName() + ".tmp");
+        try (FileOutputStream fileOut = new FileOutputStream(tempFile.toFile());
+                BufferedWriter out = new BufferedWriter(
+                        new OutputStreamWriter(fileOut, StandardCharsets.UTF_8))) {
+            for (CertificateMetadata item : metadata) {
+                out.write(formatPut(item));
+                out.write('\n');
+            }
+            out.flush();
+            // 替换前落盘，避免断电后留下空的清单
+            fileOut.getChannel().force(false);
+        }
+        Files.move(tempFile, manifestFile, StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+        recordCount = metadata.size();
+
+        log.info("Certificate manifest rewritten with {} entries", recordCount);
+    }
+}
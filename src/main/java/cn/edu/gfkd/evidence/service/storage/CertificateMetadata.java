@@ -0,0 +1,45 @@
+package cn.edu.gfkd.evidence.service.storage;
+
+import java.util.Comparator;
+
+/**
+ * 证书元数据（大小、内容摘要、创建时间）
+ */
+public final class CertificateMetadata {
+
+    /**
+     * 按创建时间排序，创建时间相同时按证书ID排序（用于保留期清理的时间索引）
+     */
+    public static final Comparator<CertificateMetadata> CREATED_AT_ORDER = Comparator
+            .comparingLong(CertificateMetadata::getCreatedAtMillis)
+            .thenComparing(CertificateMetadata::getCertificateId);
+
+    private final String certificateId;
+    private final long size;
+    private final String sha256;
+    private final long createdAtMillis;
+
+    public CertificateMetadata(String certificateId, long size, String sha256,
+            long createdAtMillis) {
+        this.certificateId = certificateId;
+        this.size = size;
+        this.sha256 = sha256;
+        this.createdAtMillis = createdAtMillis;
+    }
+
+    public String getCertificateId() {
+        return certificateId;
+    }
+
+    public long getSize() {
+        return size;
+    }
+
+    public String getSha256() {
+        return sha256;
+    }
+
+    public long getCreatedAtMillis() {
+        return createdAtMillis;
+    }
+}
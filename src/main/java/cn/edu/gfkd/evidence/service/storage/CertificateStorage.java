@@ -1,9 +1,15 @@
 package cn.edu.gfkd.evidence.service.storage;
 
 import cn.edu.gfkd.evidence.entity.EvidenceEntity;
+import org.springframework.core.io.InputStreamResource;
+import org.springframework.core.io.Resource;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 /**
@@ -21,6 +27,21 @@ public interface CertificateStorage {
      */
     String storeCertificate(EvidenceEntity evidence, InputStream certificateData) throws IOException;
     
+    /**
+     * 以回调方式存储证书，证书内容由 contentWriter 直接写入存储
+     * 默认先写入内存缓冲再调用 storeCertificate(evidence, InputStream)；能直接写入目标位置的实现应重写，避免在内存中缓冲整个证书
+     * @param evidence 证据实体
+     * @param contentWriter 证书内容生成回调
+     * @return 证书ID
+     * @throws IOException 存储失败时抛出异常
+     */
+    default String storeCertificate(EvidenceEntity evidence, CertificateContentWriter contentWriter)
+            throws IOException {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        contentWriter.writeTo(buffer);
+        return storeCertificate(evidence, new ByteArrayInputStream(buffer.toByteArray()));
+    }
+    
     /**
      * 获取证书数据
      * @param certificateId 证书ID
@@ -29,6 +50,17 @@ public interface CertificateStorage {
      */
     Optional<InputStream> getCertificate(String certificateId) throws IOException;
     
+    /**
+     * 获取可流式输出的证书资源
+     * 默认包装 getCertificate 返回的数据流；能按偏移读取的实现应返回可随机访问的资源，以支持 Range 请求
+     * @param certificateId 证书ID
+     * @return 证书资源，如果不存在返回Optional.empty()
+     * @throws IOException 读取失败时抛出异常
+     */
+    default Optional<Resource> getCertificateResource(String certificateId) throws IOException {
+        return getCertificate(certificateId).map(InputStreamResource::new);
+    }
+    
     /**
      * 删除证书
      * @param certificateId 证书ID
@@ -52,6 +84,34 @@ public interface CertificateStorage {
      */
     long getCertificateSize(String certificateId) throws IOException;
     
+    /**
+     * 获取证书元数据（大小、内容摘要、创建时间）
+     * @param certificateId 证书ID
+     * @return 元数据，如果不存在或实现不维护元数据返回Optional.empty()
+     */
+    default Optional<CertificateMetadata> getCertificateMetadata(String certificateId) {
+        return Optional.empty();
+    }
+    
+    /**
+     * 是否维护按创建时间排序的索引（保留期清理依赖该索引）
+     * @return 实现了 {@link #findCertificatesCreatedBefore} 时返回 true
+     */
+    default boolean supportsCreatedAtIndex() {
+        return false;
+    }
+    
+    /**
+     * 按创建时间从早到晚列出早于截止时间的证书（用于保留期清理，开销只与过期证书数量相关）
+     * 默认返回空列表；不维护创建时间索引的实现不参与保留期清理
+     * @param cutoffMillis 截止时间（毫秒时间戳，不包含）
+     * @param limit 最多返回的数量
+     * @return 过期证书的元数据
+     */
+    default List<CertificateMetadata> findCertificatesCreatedBefore(long cutoffMillis, int limit) {
+        return List.of();
+    }
+    
     /**
      * 获取证书的公开访问URL（如果适用）
      * @param certificateId 证书ID
@@ -59,6 +119,24 @@ public interface CertificateStorage {
      */
     Optional<String> getPublicUrl(String certificateId);
     
+    /**
+     * 查找证据已存储的证书（用于重启后复用已有证书，避免重新生成）
+     * @param evidence 证据实体
+     * @return 证书ID，如果不存在返回Optional.empty()
+     */
+    default Optional<String> findExistingCertificate(EvidenceEntity evidence) {
+        return Optional.empty();
+    }
+    
+    /**
+     * 提示存储即将顺序读取这些证书，远程存储可提前异步读取以掩盖网络延迟
+     * 默认不处理；预取只是优化，调用方仍通过 getCertificate 读取
+     * @param certificateIds 即将读取的证书ID
+     */
+    default void prefetch(Collection<String> certificateIds) {
+        // 默认空实现，远程存储可以根据需要重写
+    }
+    
     /**
      * 获取存储类型标识
      * @return 存储类型名称
@@ -1,5 +1,6 @@
 package cn.edu.gfkd.evidence.service.storage;
 
+import java.io.IOException;
 import java.util.List;
 import java.util.Map;
 import java.util.function.Function;
@@ -9,6 +10,7 @@ import org.springframework.stereotype.Component;
 
 import cn.edu.gfkd.evidence.config.CertificateStorageConfig;
 import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
@@ -44,6 +46,26 @@ public class CertificateStorageFactory {
         } else {
             log.info("Using certificate storage type: {}", storageType);
         }
+
+        // 加载存储的元数据清单等启动状态，避免在首个请求中完成
+        try {
+            defaultStorage.initialize();
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to initialize certificate storage: "
+                    + defaultStorage.getStorageType(), e);
+        }
+    }
+
+    @PreDestroy
+    public void destroy() {
+        for (CertificateStorage storage : storageImplementations) {
+            try {
+                storage.cleanup();
+            } catch (IOException e) {
+                log.warn("Failed to clean up certificate storage {}: {}",
+                        storage.getStorageType(), e.getMessage());
+            }
+        }
     }
 
     public CertificateStorage getStorage() {
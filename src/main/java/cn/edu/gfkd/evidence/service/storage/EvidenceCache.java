@@ -0,0 +1,249 @@
+package cn.edu.gfkd.evidence.service.storage;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import cn.edu.gfkd.evidence.entity.EvidenceEntity;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 证据记录读穿缓存
+ *
+ * 主要职责： 1. 按主键、evidenceId 和交易哈希读取证据，未命中时读库并回填，三个键共享同一条目 2. 按条目数限定容量的 LRU 缓存，条目超过 TTL 后重新读库
+ * 3. 事件处理器和证书流水线修改证据后失效对应条目，在事务中修改时提交后再失效一次 4. 统计命中率
+ *
+ * 每次失效都会推进代数：读库前记下代数，读库期间发生过失效时不回填，避免并发读取把提交前的旧记录写回缓存。
+ * 不缓存不存在的证据。缓存返回的实体由多个请求共享，调用方不得修改。
+ */
+@Service @Slf4j
+public class EvidenceCache {
+
+    @Value("${evidence.cache.enabled:true}")
+    private boolean enabled = true;
+
+    @Value("${evidence.cache.max-entries:10000}")
+    private int maxEntries = 10000;
+
+    @Value("${evidence.cache.ttl-sec:300}")
+    private long ttlSec = 300;
+
+    // 按访问顺序排列，最久未访问的在前
+    private final LinkedHashMap<Long, CachedEvidence> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final Map<String, Long> idsByEvidenceId = new HashMap<>();
+    private final Map<String, Long> idsByTransactionHash = new HashMap<>();
+
+    // 失效代数，只在持有锁时推进
+    private long generation;
+
+    private final AtomicLong hits = new AtomicLong(0);
+    private final AtomicLong misses = new AtomicLong(0);
+    private final AtomicLong evictions = new AtomicLong(0);
+    private final AtomicLong invalidations = new AtomicLong(0);
+
+    /**
+     * 按主键读取证据
+     *
+     * @param id 证据主键
+     * @param loader 未命中时的读库操作
+     */
+    public Optional<EvidenceEntity> getById(Long id, Supplier<Optional<EvidenceEntity>> loader) {
+        return getOrLoad(id, loader);
+    }
+
+    /**
+     * 按 evidenceId 读取证据
+     */
+    public Optional<EvidenceEntity> getByEvidenceId(String evidenceId,
+            Supplier<Optional<EvidenceEntity>> loader) {
+        Long id;
+        synchronized (this) {
+            id = idsByEvidenceId.get(evidenceId);
+        }
+        return getOrLoad(id, loader);
+    }
+
+    /**
+     * 按交易哈希读取证据
+     */
+    public Optional<EvidenceEntity> getByTransactionHash(String transactionHash,
+            Supplier<Optional<EvidenceEntity>> loader) {
+        Long id;
+        synchronized (this) {
+            id = idsByTransactionHash.get(transactionHash);
+        }
+        return getOrLoad(id, loader);
+    }
+
+    /**
+     * 使单条证据的缓存失效（在事务中调用时提交或回滚后再失效一次）
+     *
+     * @param id 证据主键
+     */
+    public void invalidate(Long id) {
+        if (id != null) {
+            afterWrite(() -> removeEntry(id));
+        }
+    }
+
+    /**
+     * 按 evidenceId 使证据的缓存失效（在事务中调用时提交或回滚后再失效一次）
+     */
+    public void invalidateByEvidenceId(String evidenceId) {
+        if (evidenceId != null) {
+            afterWrite(() -> removeEntry(idsByEvidenceId.get(evidenceId)));
+        }
+    }
+
+    /**
+     * 清空缓存（批量更新证据后调用）
+     */
+    public void invalidateAll() {
+        afterWrite(this::clear);
+    }
+
+    /**
+     * 命中率（0~1），尚无访问时为 0
+     */
+    public double getHitRatio() {
+        long hitCount = hits.get();
+        long total = hitCount + misses.get();
+        return total == 0 ? 0 : (double) hitCount / total;
+    }
+
+    /**
+     * 获取统计信息
+     */
+    public String getStatistics() {
+        if (!enabled) {
+            return "disabled";
+        }
+
+        int entryCount;
+        synchronized (this) {
+            entryCount = entries.size();
+        }
+        return String.format("hit ratio %.1f%% (%d hits, %d misses), %d/%d entries, "
+                + "%d evictions, %d invalidations", getHitRatio() * 100, hits.get(), misses.get(),
+                entryCount, maxEntries, evictions.get(), invalidations.get());
+    }
+
+    private Optional<EvidenceEntity> getOrLoad(Long id, Supplier<Optional<EvidenceEntity>> loader) {
+        if (!enabled) {
+            return loader.get();
+        }
+
+        long loadGeneration;
+        synchronized (this) {
+            CachedEvidence cached = id == null ? null : entries.get(id);
+            if (cached != null && cached.expiresAtNanos() - System.nanoTime() > 0) {
+                hits.incrementAndGet();
+                return Optional.of(cached.evidence());
+            }
+            if (cached != null) {
+                removeEntry(id);
+            }
+            loadGeneration = generation;
+        }
+
+        misses.incrementAndGet();
+        Optional<EvidenceEntity> loaded = loader.get();
+        loaded.ifPresent(evidence -> putIfCurrent(evidence, loadGeneration));
+        return loaded;
+    }
+
+    /**
+     * 读库期间没有发生失效时回填缓存
+     */
+    private synchronized void putIfCurrent(EvidenceEntity evidence, long loadGeneration) {
+        if (generation != loadGeneration || evidence.getId() == null) {
+            return;
+        }
+
+        // 先移除旧条目，保证别名索引不残留旧的 evidenceId / 交易哈希
+        removeEntry(evidence.getId());
+        entries.put(evidence.getId(), new CachedEvidence(evidence,
+                System.nanoTime() + TimeUnit.SECONDS.toNanos(ttlSec)));
+        if (evidence.getEvidenceId() != null) {
+            idsByEvidenceId.put(evidence.getEvidenceId(), evidence.getId());
+        }
+        if (evidence.getTransactionHash() != null) {
+            idsByTransactionHash.put(evidence.getTransactionHash(), evidence.getId());
+        }
+        evictIfNecessary();
+    }
+
+    private void afterWrite(Runnable invalidation) {
+        if (!enabled) {
+            return;
+        }
+
+        invalidateNow(invalidation);
+
+        // 提交前的失效挡不住事务提交前开始的读取，提交后再失效一次
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(
+                    new TransactionSynchronization() {
+                        @Override
+                        public void afterCompletion(int status) {
+                            invalidateNow(invalidation);
+                        }
+                    });
+        }
+    }
+
+    private synchronized void invalidateNow(Runnable invalidation) {
+        generation++;
+        invalidation.run();
+        invalidations.incrementAndGet();
+    }
+
+    /**
+     * 移除条目及其别名索引（调用方需持有锁）
+     */
+    private void removeEntry(Long id) {
+        if (id == null) {
+            return;
+        }
+        CachedEvidence removed = entries.remove(id);
+        if (removed != null) {
+            idsByEvidenceId.remove(removed.evidence().getEvidenceId(), id);
+            idsByTransactionHash.remove(removed.evidence().getTransactionHash(), id);
+        }
+    }
+
+    private void clear() {
+        entries.clear();
+        idsByEvidenceId.clear();
+        idsByTransactionHash.clear();
+    }
+
+    /**
+     * 淘汰最久未访问的条目直到条目数不超过上限（调用方需持有锁）
+     */
+    private void evictIfNecessary() {
+        Iterator<Map.Entry<Long, CachedEvidence>> iterator = entries.entrySet().iterator();
+        while (entries.size() > maxEntries && iterator.hasNext()) {
+            CachedEvidence eldest = iterator.next().getValue();
+            iterator.remove();
+            idsByEvidenceId.remove(eldest.evidence().getEvidenceId(), eldest.evidence().getId());
+            idsByTransactionHash.remove(eldest.evidence().getTransactionHash(),
+                    eldest.evidence().getId());
+            evictions.incrementAndGet();
+            log.debug("Evicted evidence {} from cache", eldest.evidence().getEvidenceId());
+        }
+    }
+
+    private record CachedEvidence(EvidenceEntity evidence, long expiresAtNanos) {
+    }
+}
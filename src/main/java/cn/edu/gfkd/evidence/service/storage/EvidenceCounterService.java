@@ -0,0 +1,228 @@
+package cn.edu.gfkd.evidence.service.storage;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import cn.edu.gfkd.evidence.entity.EvidenceCounter;
+import cn.edu.gfkd.evidence.repository.EvidenceCounterRepository;
+import cn.edu.gfkd.evidence.repository.EvidenceRepository;
+import cn.edu.gfkd.evidence.service.retry.RetryHandler;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 证据数量计数服务
+ *
+ * 主要职责： 1. 证据新增、状态变更和删除时增量更新 (用户地址, 状态) 计数和全局计数，在调用方的事务中执行，与证据修改一同提交或回滚
+ * 2. 为统计接口提供计数，读取的行数只与状态种类数有关，不随证据数量增长 3. 周期性按证据表重新计算全部计数，修正遗漏的增量
+ *
+ * 首次出现的 (用户地址, 状态) 由插入创建，两个事务并发插入同一行时后提交的一方因主键冲突失败，由事件重试重新处理。
+ */
+@Service @Slf4j
+public class EvidenceCounterService {
+
+    private final EvidenceCounterRepository evidenceCounterRepository;
+    private final EvidenceRepository evidenceRepository;
+    private final RetryHandler retryHandler;
+
+    // 重新计算的间隔，0 表示只在启动后执行一次
+    @Value("${evidence.counters.repair-interval-sec:86400}")
+    private long repairIntervalSec = 86400;
+
+    @Value("${evidence.counters.repair-initial-delay-sec:60}")
+    private long repairInitialDelaySec = 60;
+
+    private ScheduledExecutorService repairScheduler;
+    private final AtomicBoolean isRunning = new AtomicBoolean(false);
+    private final AtomicLong repairCount = new AtomicLong();
+    private final AtomicLong correctedCount = new AtomicLong();
+
+    public EvidenceCounterService(EvidenceCounterRepository evidenceCounterRepository,
+            EvidenceRepository evidenceRepository, RetryHandler retryHandler) {
+        this.evidenceCounterRepository = evidenceCounterRepository;
+        this.evidenceRepository = evidenceRepository;
+        this.retryHandler = retryHandler;
+    }
+
+    /**
+     * 记录新增的证据
+     */
+    public void recordCreated(String userAddress, String status) {
+        add(userAddress, status, 1);
+    }
+
+    /**
+     * 记录证据状态变更，状态未变化时不更新
+     */
+    public void recordStatusChange(String userAddress, String fromStatus, String toStatus) {
+        if (Objects.equals(fromStatus, toStatus)) {
+            return;
+        }
+        add(userAddress, fromStatus, -1);
+        add(userAddress, toStatus, 1);
+    }
+
+    /**
+     * 记录删除的证据
+     */
+    public void recordDeleted(String userAddress, String status) {
+        add(userAddress, status, -1);
+    }
+
+    public long countAll() {
+        return evidenceCounterRepository.sumByUserAddress(EvidenceCounter.ALL_USERS);
+    }
+
+    public long countByStatus(String status) {
+        return evidenceCounterRepository.findCount(EvidenceCounter.ALL_USERS, status).orElse(0L);
+    }
+
+    public long countByUserAddress(String userAddress) {
+        return evidenceCounterRepository.sumByUserAddress(userAddress);
+    }
+
+    public long countByUserAddressAndStatus(String userAddress, String status) {
+        return evidenceCounterRepository.findCount(userAddress, status).orElse(0L);
+    }
+
+    private void add(String userAddress, String status, long delta) {
+        if (userAddress == null || status == null) {
+            return;
+        }
+        addToCounter(userAddress, status, delta);
+        addToCounter(EvidenceCounter.ALL_USERS, status, delta);
+    }
+
+    private void addToCounter(String userAddress, String status, long delta) {
+        if (evidenceCounterRepository.addToCount(userAddress, status, delta) == 0) {
+            evidenceCounterRepository
+                    .saveAndFlush(new EvidenceCounter(userAddress, status, delta));
+        }
+    }
+
+    /**
+     * 启动计数修复调度器
+     */
+    public void start() {
+        if (isRunning.get()) {
+            log.warn("Evidence counter repair is already running");
+            return;
+        }
+
+        repairScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "evidence-counter-repair");
+            thread.setDaemon(true);
+            thread.setPriority(Thread.MIN_PRIORITY);
+            return thread;
+        });
+        if (repairIntervalSec > 0) {
+            repairScheduler.scheduleWithFixedDelay(this::runScheduled, repairInitialDelaySec,
+                    repairIntervalSec, TimeUnit.SECONDS);
+        } else {
+            repairScheduler.schedule(this::runScheduled, repairInitialDelaySec, TimeUnit.SECONDS);
+        }
+        isRunning.set(true);
+
+        log.info("Evidence counter repair started - interval: {}s", repairIntervalSec);
+    }
+
+    /**
+     * 停止计数修复调度器
+     */
+    public void stop() {
+        if (!isRunning.getAndSet(false)) {
+            return;
+        }
+
+        if (repairScheduler != null) {
+            repairScheduler.shutdownNow();
+            try {
+                repairScheduler.awaitTermination(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            repairScheduler = null;
+        }
+
+        log.info("Evidence counter repair stopped");
+    }
+
+    private void runScheduled() {
+        try {
+            rebuild();
+        } catch (Exception e) {
+            log.error("Evidence counter repair failed", e);
+        }
+    }
+
+    /**
+     * 按证据表重新计算全部计数
+     *
+     * @return 与重新计算结果不一致的计数器数量
+     */
+    public int rebuild() {
+        int corrected = retryHandler.executeWithRetryTransactional(() -> {
+            Map<String, Long> totalsByStatus = new HashMap<>();
+            Map<EvidenceCounter.Key, Long> expected = new HashMap<>();
+            for (EvidenceRepository.EvidenceCountRow row : evidenceRepository
+                    .countGroupByUserAddressAndStatus()) {
+                expected.put(new EvidenceCounter.Key(row.getUserAddress(), row.getStatus()),
+                        row.getEvidenceCount());
+                totalsByStatus.merge(row.getStatus(), row.getEvidenceCount(), Long::sum);
+            }
+            totalsByStatus.forEach((status, count) -> expected
+                    .put(new EvidenceCounter.Key(EvidenceCounter.ALL_USERS, status), count));
+
+            // 只改写不一致的计数器；已没有对应证据的计数器删除
+            int mismatched = 0;
+            List<EvidenceCounter> stale = new ArrayList<>();
+            for (EvidenceCounter counter : evidenceCounterRepository.findAll()) {
+                Long count = expected.remove(
+                        new EvidenceCounter.Key(counter.getUserAddress(), counter.getStatus()));
+                if (count == null) {
+                    stale.add(counter);
+                    if (counter.getEvidenceCount() != 0) {
+                        mismatched++;
+                    }
+                } else if (count != counter.getEvidenceCount()) {
+                    counter.setEvidenceCount(count);
+                    mismatched++;
+                }
+            }
+            evidenceCounterRepository.deleteAll(stale);
+
+            List<EvidenceCounter> missing = new ArrayList<>(expected.size());
+            expected.forEach((key, count) -> missing
+                    .add(new EvidenceCounter(key.getUserAddress(), key.getStatus(), count)));
+            evidenceCounterRepository.saveAll(missing);
+            return mismatched + missing.size();
+        }, "rebuild evidence counters");
+
+        repairCount.incrementAndGet();
+        correctedCount.addAndGet(corrected);
+        if (corrected > 0) {
+            log.warn("Evidence counter repair corrected {} counters", corrected);
+        } else {
+            log.debug("Evidence counters are consistent with the evidence table");
+        }
+        return corrected;
+    }
+
+    /**
+     * 获取统计信息
+     */
+    public String getStatistics() {
+        return String.format("repairs: %d, corrected counters: %d", repairCount.get(),
+                correctedCount.get());
+    }
+}
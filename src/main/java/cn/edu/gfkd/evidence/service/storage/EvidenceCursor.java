@@ -0,0 +1,65 @@
+package cn.edu.gfkd.evidence.service.storage;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+import cn.edu.gfkd.evidence.entity.EvidenceEntity;
+import cn.edu.gfkd.evidence.enums.EvidenceSortKey;
+
+/**
+ * 证据游标分页的位置：上一页最后一条记录的 (排序值, id)，以及生成游标时的排序方式
+ *
+ * 对外编码为不透明的 URL 安全 Base64 字符串；游标只能用于生成它的排序方式。
+ */
+public record EvidenceCursor(EvidenceSortKey sortKey, boolean descending, Object sortValue,
+        long id) {
+
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+    /**
+     * 指向指定记录之后的游标
+     */
+    public static EvidenceCursor after(EvidenceEntity evidence, EvidenceSortKey sortKey,
+            boolean descending) {
+        Object sortValue = switch (sortKey) {
+            case CREATED_AT -> evidence.getCreatedAt();
+            case ID -> evidence.getId();
+        };
+        return new EvidenceCursor(sortKey, descending, sortValue, evidence.getId());
+    }
+
+    public String encode() {
+        String value = sortKey.getProperty() + "|" + (descending ? "desc" : "asc") + "|"
+                + (sortKey == EvidenceSortKey.ID ? "" : sortValue) + "|" + id;
+        return ENCODER.encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * 解析游标
+     *
+     * @throws IllegalArgumentException 游标格式无效时抛出
+     */
+    public static EvidenceCursor decode(String cursor) {
+        try {
+            String[] parts = new String(DECODER.decode(cursor), StandardCharsets.UTF_8)
+                    .split("\\|", -1);
+            EvidenceSortKey sortKey = parts.length == 4 ? EvidenceSortKey.fromProperty(parts[0])
+                    : null;
+            if (sortKey == null || !("desc".equals(parts[1]) || "asc".equals(parts[1]))) {
+                throw new IllegalArgumentException("Invalid cursor");
+            }
+
+            long id = Long.parseLong(parts[3]);
+            Object sortValue = switch (sortKey) {
+                case CREATED_AT -> LocalDateTime.parse(parts[2]);
+                case ID -> id;
+            };
+            return new EvidenceCursor(sortKey, "desc".equals(parts[1]), sortValue, id);
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid cursor", e);
+        }
+    }
+}
@@ -6,9 +6,12 @@ import java.util.Optional;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.util.StringUtils;
 
+import cn.edu.gfkd.evidence.dto.CursorSlice;
 import cn.edu.gfkd.evidence.entity.EvidenceEntity;
+import cn.edu.gfkd.evidence.enums.EvidenceSortKey;
 import cn.edu.gfkd.evidence.exception.EvidenceNotFoundException;
 import cn.edu.gfkd.evidence.repository.EvidenceRepository;
 import lombok.RequiredArgsConstructor;
@@ -17,12 +20,21 @@ import lombok.extern.slf4j.Slf4j;
 @Service @RequiredArgsConstructor @Slf4j
 public class EvidenceStorageService {
 
+    // 游标分页每页最多返回的记录数
+    public static final int MAX_SLICE_SIZE = 100;
+
     private final EvidenceRepository evidenceRepository;
+    private final EvidenceCache evidenceCache;
+    private final EvidenceCounterService evidenceCounterService;
 
+    @Transactional
     public EvidenceEntity createEvidence(EvidenceEntity evidence) {
         validateEvidence(evidence);
         log.info("Creating new evidence for user: {}", evidence.getUserAddress());
         EvidenceEntity savedEvidence = evidenceRepository.save(evidence);
+        evidenceCounterService.recordCreated(savedEvidence.getUserAddress(),
+                savedEvidence.getStatus());
+        evidenceCache.invalidate(savedEvidence.getId());
         log.info("Successfully created evidence with ID: {}", savedEvidence.getId());
         return savedEvidence;
     }
@@ -43,15 +55,17 @@ public class EvidenceStorageService {
     }
 
     public Optional<EvidenceEntity> getEvidenceById(Long id) {
-        return evidenceRepository.findById(id);
+        return evidenceCache.getById(id, () -> evidenceRepository.findById(id));
     }
 
     public Optional<EvidenceEntity> getEvidenceByEvidenceId(String evidenceId) {
-        return evidenceRepository.findByEvidenceId(evidenceId);
+        return evidenceCache.getByEvidenceId(evidenceId,
+                () -> evidenceRepository.findByEvidenceId(evidenceId));
     }
 
     public Optional<EvidenceEntity> getEvidenceByTransactionHash(String transactionHash) {
-        return evidenceRepository.findByTransactionHash(transactionHash);
+        return evidenceCache.getByTransactionHash(transactionHash,
+                () -> evidenceRepository.findByTransactionHash(transactionHash));
     }
 
     public List<EvidenceEntity> getEvidenceByUserAddress(String userAddress) {
@@ -79,6 +93,50 @@ public class EvidenceStorageService {
         return evidenceRepository.findByFilters(evidenceId, userAddress, status, pageable);
     }
 
+    /**
+     * 游标分页查询证据：从游标位置继续读取，不扫描前面的页，不执行 COUNT（除非 includeTotal）
+     *
+     * @param evidenceId 证据ID模糊匹配，为空时不筛选
+     * @param userAddress 用户地址，为空时不筛选
+     * @param status 证据状态，为空时不筛选
+     * @param sortKey 排序字段
+     * @param descending 是否降序
+     * @param cursor 上一页返回的游标，第一页为空
+     * @param size 每页数量（1 ~ {@value #MAX_SLICE_SIZE}）
+     * @param includeTotal 是否统计符合条件的总数
+     * @throws IllegalArgumentException 游标无效、与排序方式不一致或数量超出范围时抛出
+     */
+    public CursorSlice<EvidenceEntity> scrollEvidence(String evidenceId, String userAddress,
+            String status, EvidenceSortKey sortKey, boolean descending, String cursor, int size,
+            boolean includeTotal) {
+        if (size < 1 || size > MAX_SLICE_SIZE) {
+            throw new IllegalArgumentException(
+                    "Page size must be between 1 and " + MAX_SLICE_SIZE);
+        }
+
+        EvidenceCursor after = null;
+        if (StringUtils.hasText(cursor)) {
+            after = EvidenceCursor.decode(cursor);
+            if (after.sortKey() != sortKey || after.descending() != descending) {
+                throw new IllegalArgumentException("Cursor was issued for a different sort order");
+            }
+        }
+
+        // 多取一条判断是否还有下一页
+        List<EvidenceEntity> rows = evidenceRepository.findEvidenceSlice(evidenceId, userAddress,
+                status, sortKey, descending, after == null ? null : after.sortValue(),
+                after == null ? null : after.id(), size + 1);
+        boolean hasNext = rows.size() > size;
+        List<EvidenceEntity> content = hasNext ? rows.subList(0, size) : rows;
+        String nextCursor = hasNext
+                ? EvidenceCursor.after(content.get(size - 1), sortKey, descending).encode()
+                : null;
+        Long total = includeTotal
+                ? evidenceRepository.countEvidence(evidenceId, userAddress, status)
+                : null;
+        return new CursorSlice<>(content, size, hasNext, nextCursor, total);
+    }
+
     public long countByUserAddress(String userAddress) {
         return evidenceRepository.countByUserAddress(userAddress);
     }
@@ -95,24 +153,42 @@ public class EvidenceStorageService {
         return evidenceRepository.existsByTransactionHash(transactionHash);
     }
 
+    @Transactional
     public EvidenceEntity updateEvidence(EvidenceEntity evidence) {
         validateEvidence(evidence);
         log.info("Updating evidence with ID: {}", evidence.getId());
-        return evidenceRepository.save(evidence);
+        // 保存前读取原状态，用于调整计数（用户地址取自链上提交者，不会变化）
+        Optional<String> previousStatus = evidence.getId() == null ? Optional.empty()
+                : evidenceRepository.findStatusById(evidence.getId());
+        EvidenceEntity updatedEvidence = evidenceRepository.save(evidence);
+        if (previousStatus.isPresent()) {
+            evidenceCounterService.recordStatusChange(updatedEvidence.getUserAddress(),
+                    previousStatus.get(), updatedEvidence.getStatus());
+        } else {
+            evidenceCounterService.recordCreated(updatedEvidence.getUserAddress(),
+                    updatedEvidence.getStatus());
+        }
+        evidenceCache.invalidate(updatedEvidence.getId());
+        return updatedEvidence;
     }
 
+    @Transactional
     public void deleteEvidence(Long id) {
-        if (!evidenceRepository.existsById(id)) {
-            throw new EvidenceNotFoundException("Evidence not found with ID: " + id);
-        }
-        evidenceRepository.deleteById(id);
+        EvidenceEntity evidence = evidenceRepository.findById(id).orElseThrow(
+                () -> new EvidenceNotFoundException("Evidence not found with ID: " + id));
+        evidenceRepository.delete(evidence);
+        evidenceCounterService.recordDeleted(evidence.getUserAddress(), evidence.getStatus());
+        evidenceCache.invalidate(id);
         log.info("Deleted evidence with ID: {}", id);
     }
 
+    @Transactional
     public void deleteEvidenceByEvidenceId(String evidenceId) {
         EvidenceEntity evidence = evidenceRepository.findByEvidenceId(evidenceId).orElseThrow(
                 () -> new EvidenceNotFoundException("Evidence not found: " + evidenceId));
         evidenceRepository.delete(evidence);
+        evidenceCounterService.recordDeleted(evidence.getUserAddress(), evidence.getStatus());
+        evidenceCache.invalidate(evidence.getId());
         log.info("Deleted evidence with evidence ID: {}", evidenceId);
     }
 
@@ -1,14 +1,30 @@
 package cn.edu.gfkd.evidence.service.storage;
 
-import java.io.FileInputStream;
+import java.io.BufferedOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
 import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Stream;
 
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
 import org.springframework.stereotype.Component;
 
 import cn.edu.gfkd.evidence.config.CertificateStorageConfig;
@@ -17,6 +33,13 @@ import lombok.extern.slf4j.Slf4j;
 
 /**
  * 基于文件系统的证书存储实现
+ *
+ * 证书按内容摘要存放在分片目录中（objects/ab/cd/&lt;sha256&gt;.pdf），内容相同的证书只保存一份。
+ * 证书ID到内容摘要的映射以及大小、创建时间记录在存储目录下的清单文件中并常驻内存，存在性和大小查询不访问文件系统。
+ * 清单是证书ID映射的唯一来源（证据表的 certificate_id / certificate_hash 列保存同样的映射，可用于人工恢复）。
+ * 启动时若发现旧的平铺布局（&lt;base&gt;/cert_xxx.pdf），在后台逐个迁移，迁移期间旧文件仍可读取。
+ * 证书内容直接流式写入临时文件，完整写入后原子重命名到分片目录，读取方不会看到写了一半的文件；
+ * 数据文件、目录和清单的落盘时机由 {@link FsyncPolicy} 决定。
  */
 @Component @Slf4j
 public class FileSystemCertificateStorage implements CertificateStorage {
@@ -24,16 +47,44 @@ public class FileSystemCertificateStorage implements CertificateStorage {
     private final String basePath;
     private final boolean createDirectories;
     private final String urlBasePath;
+    private final boolean migrateOnStartup;
+    private final FsyncPolicy fsyncPolicy;
+    private final GroupFsync groupFsync;
+
+    static final String MANIFEST_FILE_NAME = ".manifest";
+    static final String OBJECTS_DIRECTORY = "objects";
+    static final String TEMP_DIRECTORY = "tmp";
+    private static final String EXTENSION = ".pdf";
+    private static final int WRITE_BUFFER_SIZE = 64 * 1024;
+
+    private volatile CertificateManifest manifest;
+
+    // 旧布局迁移完成前，读取时需要回退检查平铺目录
+    private volatile boolean legacyFilesPresent;
 
     public FileSystemCertificateStorage(CertificateStorageConfig config) {
         this.basePath = config.getFilesystem().getBasePath();
         this.createDirectories = config.getFilesystem().isCreateDirectories();
         this.urlBasePath = config.getFilesystem().getUrlBasePath();
+        this.migrateOnStartup = config.getFilesystem().isMigrateOnStartup();
+        this.fsyncPolicy = FsyncPolicy.fromCode(config.getFilesystem().getFsync());
+        this.groupFsync = new GroupFsync(() -> getManifest().sync(),
+                config.getFilesystem().getFsyncGroupWindowMs());
     }
 
     @Override
     public String storeCertificate(EvidenceEntity evidence, InputStream certificateData)
             throws IOException {
+        return storeCertificate(evidence, outputStream -> {
+            try (InputStream inputStream = certificateData) {
+                inputStream.transferTo(outputStream);
+            }
+        });
+    }
+
+    @Override
+    public String storeCertificate(EvidenceEntity evidence, CertificateContentWriter contentWriter)
+            throws IOException {
         log.debug("Storing certificate for evidenceId: {}", evidence.getEvidenceId());
 
         // 确保基础目录存在
@@ -41,18 +92,51 @@ public class FileSystemCertificateStorage implements CertificateStorage {
 
         // 生成证书ID
         String certificateId = generateCertificateId(evidence);
-        Path filePath = Paths.get(basePath, certificateId + ".pdf");
 
-        // 创建父目录（如果需要）
-        Path parentDir = filePath.getParent();
-        if (parentDir != null && !Files.exists(parentDir)) {
-            Files.createDirectories(parentDir);
+        // 内容直接写入临时文件，同时计算大小和摘要；按落盘策略同步后才重命名到最终位置
+        Path tempDir = Paths.get(basePath, TEMP_DIRECTORY);
+        Files.createDirectories(tempDir);
+        Path tempFile = Files.createTempFile(tempDir, certificateId, EXTENSION);
+        MessageDigest messageDigest = newSha256();
+        long size;
+        try (FileChannel channel = FileChannel.open(tempFile, StandardOpenOption.WRITE)) {
+            DigestOutputStream digestStream = new DigestOutputStream(new BufferedOutputStream(
+                    Channels.newOutputStream(channel), WRITE_BUFFER_SIZE), messageDigest);
+            contentWriter.writeTo(digestStream);
+            digestStream.flush();
+            size = channel.position();
+            if (fsyncPolicy != FsyncPolicy.NONE) {
+                channel.force(false);
+            }
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(tempFile);
+            throw e;
+        }
+        String sha256 = HexFormat.of().formatHex(messageDigest.digest());
+
+        Path objectPath = objectPath(sha256);
+        Set<Path> changedDirectories = new LinkedHashSet<>();
+        synchronized (this) {
+            if (Files.exists(objectPath)) {
+                // 内容相同的证书已存在，直接复用
+                Files.delete(tempFile);
+                log.debug("Certificate content already stored, deduplicated: {}", sha256);
+            } else {
+                createDirectories(objectPath.getParent(), changedDirectories);
+                moveAtomically(tempFile, objectPath);
+                changedDirectories.add(objectPath.getParent());
+            }
+
+            CertificateMetadata previous = getManifest().put(
+                    new CertificateMetadata(certificateId, size, sha256, System.currentTimeMillis()));
+            if (previous != null && !previous.getSha256().equals(sha256)) {
+                releaseObject(previous.getSha256());
+            }
         }
 
-        // 存储文件
-        Files.copy(certificateData, filePath, StandardCopyOption.REPLACE_EXISTING);
+        makeDurable(changedDirectories);
 
-        log.info("Certificate stored successfully: {} -> {}", certificateId, filePath);
+        log.info("Certificate stored successfully: {} -> {}", certificateId, objectPath);
         return certificateId;
     }
 
@@ -62,30 +146,60 @@ public class FileSystemCertificateStorage implements CertificateStorage {
             return Optional.empty();
         }
 
-        Path filePath = Paths.get(basePath, certificateId + ".pdf");
-        if (!Files.exists(filePath)) {
+        Optional<CertificateMetadata> metadata = getManifest().get(certificateId);
+        if (metadata.isEmpty()) {
             log.debug("Certificate file not found: {}", certificateId);
             return Optional.empty();
         }
 
-        InputStream inputStream = new FileInputStream(filePath.toFile());
-        return Optional.of(inputStream);
+        try {
+            return Optional.of(Files.newInputStream(resolveContent(metadata.get())));
+        } catch (NoSuchFileException e) {
+            // 迁移恰好移走了旧文件时重试一次
+            try {
+                return Optional.of(Files.newInputStream(objectPath(metadata.get().getSha256())));
+            } catch (NoSuchFileException retry) {
+                log.warn("Certificate {} is in the manifest but its file is missing",
+                        certificateId);
+                return Optional.empty();
+            }
+        }
     }
 
     @Override
-    public boolean deleteCertificate(String certificateId) throws IOException {
+    public Optional<Resource> getCertificateResource(String certificateId) throws IOException {
         if (certificateId == null || certificateId.isEmpty()) {
-            return false;
+            return Optional.empty();
+        }
+
+        Optional<CertificateMetadata> metadata = getManifest().get(certificateId);
+        if (metadata.isEmpty()) {
+            return Optional.empty();
         }
 
-        Path filePath = Paths.get(basePath, certificateId + ".pdf");
-        if (!Files.exists(filePath)) {
-            log.debug("Certificate file not found for deletion: {}", certificateId);
+        // 基于文件通道的资源：响应按块直接从文件输出，Range 请求只读取所需区间
+        return Optional.of(new FileSystemResource(resolveContent(metadata.get())));
+    }
+
+    @Override
+    public boolean deleteCertificate(String certificateId) throws IOException {
+        if (certificateId == null || certificateId.isEmpty()) {
             return false;
         }
 
         try {
-            Files.delete(filePath);
+            CertificateMetadata removed;
+            synchronized (this) {
+                removed = getManifest().remove(certificateId);
+                if (removed == null) {
+                    log.debug("Certificate file not found for deletion: {}", certificateId);
+                    return false;
+                }
+                releaseObject(removed.getSha256());
+            }
+            if (legacyFilesPresent) {
+                Files.deleteIfExists(legacyPath(certificateId));
+            }
             log.info("Certificate file deleted successfully: {}", certificateId);
             return true;
         } catch (IOException e) {
@@ -100,8 +214,12 @@ public class FileSystemCertificateStorage implements CertificateStorage {
             return false;
         }
 
-        Path filePath = Paths.get(basePath, certificateId + ".pdf");
-        return Files.exists(filePath);
+        try {
+            return getManifest().contains(certificateId);
+        } catch (IOException e) {
+            log.warn("Failed to load certificate manifest: {}", e.getMessage());
+            return false;
+        }
     }
 
     @Override
@@ -110,27 +228,58 @@ public class FileSystemCertificateStorage implements CertificateStorage {
             return 0;
         }
 
-        Path filePath = Paths.get(basePath, certificateId + ".pdf");
-        if (!Files.exists(filePath)) {
-            return 0;
+        return getManifest().get(certificateId).map(CertificateMetadata::getSize).orElse(0L);
+    }
+
+    @Override
+    public Optional<CertificateMetadata> getCertificateMetadata(String certificateId) {
+        if (certificateId == null || certificateId.isEmpty()) {
+            return Optional.empty();
+        }
+
+        try {
+            return getManifest().get(certificateId);
+        } catch (IOException e) {
+            log.warn("Failed to load certificate manifest: {}", e.getMessage());
+            return Optional.empty();
         }
+    }
 
-        return Files.size(filePath);
+    @Override
+    public boolean supportsCreatedAtIndex() {
+        return true;
+    }
+
+    @Override
+    public List<CertificateMetadata> findCertificatesCreatedBefore(long cutoffMillis, int limit) {
+        try {
+            return getManifest().createdBefore(cutoffMillis, limit);
+        } catch (IOException e) {
+            log.warn("Failed to load certificate manifest: {}", e.getMessage());
+            return List.of();
+        }
     }
 
     @Override
     public Optional<String> getPublicUrl(String certificateId) {
-        if (certificateId == null || certificateId.isEmpty()) {
+        Optional<CertificateMetadata> metadata = getCertificateMetadata(certificateId);
+        if (metadata.isEmpty()) {
             return Optional.empty();
         }
 
-        try {
-            String publicUrl = urlBasePath + "/" + certificateId + ".pdf";
-            return Optional.of(publicUrl);
-        } catch (Exception e) {
-            log.warn("Failed to generate public URL for {}: {}", certificateId, e.getMessage());
+        String sha256 = metadata.get().getSha256();
+        return Optional.of(urlBasePath + "/" + OBJECTS_DIRECTORY + "/" + sha256.substring(0, 2)
+                + "/" + sha256.substring(2, 4) + "/" + sha256 + EXTENSION);
+    }
+
+    @Override
+    public Optional<String> findExistingCertificate(EvidenceEntity evidence) {
+        if (evidence == null || evidence.getEvidenceId() == null) {
             return Optional.empty();
         }
+
+        String certificateId = generateCertificateId(evidence);
+        return certificateExists(certificateId) ? Optional.of(certificateId) : Optional.empty();
     }
 
     @Override
@@ -142,6 +291,288 @@ public class FileSystemCertificateStorage implements CertificateStorage {
     public void initialize() throws IOException {
         log.info("Initializing FileSystemCertificateStorage with base path: {}", basePath);
         ensureBaseDirectoryExists();
+        getManifest();
+        removeStaleTempFiles();
+
+        if (legacyFilesPresent && migrateOnStartup) {
+            Thread migration = new Thread(() -> {
+                try {
+                    migrateLegacyLayout();
+                } catch (IOException e) {
+                    log.error("Certificate layout migration failed: {}", e.getMessage(), e);
+                }
+            }, "certificate-layout-migration");
+            migration.setDaemon(true);
+            migration.start();
+        }
+    }
+
+    @Override
+    public void cleanup() throws IOException {
+        CertificateManifest current = manifest;
+        if (current != null) {
+            current.close();
+        }
+    }
+
+    /**
+     * 把平铺目录中的旧证书文件迁移到分片目录（可在服务运行时执行，迁移中的证书仍可读取）
+     *
+     * @return 迁移的文件数量
+     * @throws IOException 列出目录失败时抛出
+     */
+    public int migrateLegacyLayout() throws IOException {
+        List<Path> legacyFiles = listLegacyFiles();
+        if (legacyFiles.isEmpty()) {
+            legacyFilesPresent = false;
+            return 0;
+        }
+
+        log.info("Migrating {} certificates from flat layout in {}", legacyFiles.size(), basePath);
+        int migrated = 0;
+        for (Path file : legacyFiles) {
+            try {
+                if (migrateLegacyFile(file)) {
+                    migrated++;
+                }
+            } catch (IOException e) {
+                log.warn("Failed to migrate certificate {}: {}", file, e.getMessage());
+            }
+        }
+
+        legacyFilesPresent = !listLegacyFiles().isEmpty();
+        log.info("Certificate layout migration finished: {} migrated, legacy files remaining: {}",
+                migrated, legacyFilesPresent);
+        return migrated;
+    }
+
+    private boolean migrateLegacyFile(Path file) throws IOException {
+        String certificateId = certificateIdOf(file);
+        String sha256 = hashFile(file);
+        long size = Files.size(file);
+        long createdAt = Files.getLastModifiedTime(file).toMillis();
+
+        synchronized (this) {
+            if (!Files.exists(file)) {
+                return false;
+            }
+
+            Optional<CertificateMetadata> current = getManifest().get(certificateId);
+            if (current.isPresent() && !current.get().getSha256().equals(sha256)
+                    && Files.exists(objectPath(current.get().getSha256()))) {
+                // 迁移开始后该证书已重新写入分片目录，旧文件作废
+                Files.delete(file);
+                return false;
+            }
+
+            Path objectPath = objectPath(sha256);
+            if (Files.exists(objectPath)) {
+                Files.delete(file);
+            } else {
+                Files.createDirectories(objectPath.getParent());
+                moveAtomically(file, objectPath);
+            }
+
+            if (current.isEmpty() || !current.get().getSha256().equals(sha256)) {
+                getManifest().put(new CertificateMetadata(certificateId, size, sha256, createdAt));
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 获取证书清单，首次访问时加载；清单文件不存在时扫描平铺目录重建
+     */
+    private CertificateManifest getManifest() throws IOException {
+        CertificateManifest current = manifest;
+        if (current == null) {
+            synchronized (this) {
+                current = manifest;
+                if (current == null) {
+                    ensureBaseDirectoryExists();
+                    List<Path> legacyFiles = listLegacyFiles();
+                    legacyFilesPresent = !legacyFiles.isEmpty();
+
+                    current = new CertificateManifest(Paths.get(basePath, MANIFEST_FILE_NAME));
+                    if (!current.load()) {
+                        if (Files.exists(Paths.get(basePath, OBJECTS_DIRECTORY))) {
+                            log.warn("Certificate manifest missing but {} contains stored objects; "
+                                    + "their certificate ids must be restored from the evidence table",
+                                    basePath);
+                        }
+                        current.replaceAll(scanLegacyFiles(legacyFiles));
+                    }
+                    manifest = current;
+                }
+            }
+        }
+        return current;
+    }
+
+    /**
+     * 计算平铺目录中证书文件的元数据（仅在清单缺失时执行一次）
+     */
+    private List<CertificateMetadata> scanLegacyFiles(List<Path> legacyFiles) throws IOException {
+        List<CertificateMetadata> metadata = new ArrayList<>();
+        for (Path file : legacyFiles) {
+            metadata.add(new CertificateMetadata(certificateIdOf(file), Files.size(file),
+                    hashFile(file), Files.getLastModifiedTime(file).toMillis()));
+        }
+
+        log.info("Rebuilt certificate manifest from {} files in {}", metadata.size(), basePath);
+        return metadata;
+    }
+
+    private List<Path> listLegacyFiles() throws IOException {
+        try (var stream = Files.list(Paths.get(basePath))) {
+            return stream.filter(Files::isRegularFile)
+                    .filter(path -> path.getFileName().toString().endsWith(EXTENSION)).toList();
+        }
+    }
+
+    /**
+     * 内容摘要对应的分片路径：objects/前两位/第三四位/摘要.pdf
+     */
+    private Path objectPath(String sha256) {
+        return Paths.get(basePath, OBJECTS_DIRECTORY, sha256.substring(0, 2),
+                sha256.substring(2, 4), sha256 + EXTENSION);
+    }
+
+    private Path legacyPath(String certificateId) {
+        return Paths.get(basePath, certificateId + EXTENSION);
+    }
+
+    /**
+     * 解析证书内容所在路径；迁移完成后不再访问文件系统
+     */
+    private Path resolveContent(CertificateMetadata metadata) {
+        Path objectPath = objectPath(metadata.getSha256());
+        if (legacyFilesPresent && !Files.exists(objectPath)) {
+            return legacyPath(metadata.getCertificateId());
+        }
+        return objectPath;
+    }
+
+    /**
+     * 内容不再被任何证书引用时删除对应的分片文件
+     */
+    private void releaseObject(String sha256) throws IOException {
+        if (getManifest().referenceCount(sha256) == 0) {
+            Files.deleteIfExists(objectPath(sha256));
+        }
+    }
+
+    /**
+     * 按落盘策略同步重命名涉及的目录和清单
+     *
+     * 目录分布在不同分片中，由各写入线程并发同步；所有写入共用同一个清单文件，grouped 策略下由一组写入合并为一次同步。
+     */
+    private void makeDurable(Set<Path> changedDirectories) throws IOException {
+        if (fsyncPolicy == FsyncPolicy.NONE) {
+            return;
+        }
+
+        for (Path directory : changedDirectories) {
+            syncDirectory(directory);
+        }
+        if (fsyncPolicy == FsyncPolicy.GROUPED) {
+            groupFsync.await();
+        } else {
+            getManifest().sync();
+        }
+    }
+
+    /**
+     * 删除上次进程中断时遗留的临时文件（启动时尚无写入，临时目录中的文件都已失效）
+     */
+    private void removeStaleTempFiles() throws IOException {
+        Path tempDir = Paths.get(basePath, TEMP_DIRECTORY);
+        if (!Files.isDirectory(tempDir)) {
+            return;
+        }
+
+        int removed = 0;
+        try (Stream<Path> files = Files.list(tempDir)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                if (Files.deleteIfExists(file)) {
+                    removed++;
+                }
+            }
+        }
+        if (removed > 0) {
+            log.info("Removed {} incomplete certificate temp files", removed);
+        }
+    }
+
+    private void syncDirectory(Path directory) throws IOException {
+        FileChannel channel;
+        try {
+            channel = FileChannel.open(directory, StandardOpenOption.READ);
+        } catch (IOException e) {
+            // 部分平台（如 Windows）不能以文件方式打开目录，此时依赖文件系统自身的元数据日志
+            log.debug("Directory fsync not supported for {}: {}", directory, e.getMessage());
+            return;
+        }
+        try (channel) {
+            channel.force(true);
+        }
+    }
+
+    /**
+     * 创建目录，并把新增目录项所在的父目录记入 changedDirectories
+     */
+    private void createDirectories(Path directory, Set<Path> changedDirectories)
+            throws IOException {
+        if (Files.isDirectory(directory)) {
+            return;
+        }
+
+        Path topmostCreated = directory;
+        while (topmostCreated.getParent() != null
+                && !Files.isDirectory(topmostCreated.getParent())) {
+            topmostCreated = topmostCreated.getParent();
+        }
+        Files.createDirectories(directory);
+
+        for (Path path = directory; path != null; path = path.getParent()) {
+            changedDirectories.add(path.getParent());
+            if (path.equals(topmostCreated)) {
+                break;
+            }
+        }
+    }
+
+    private void moveAtomically(Path source, Path target) throws IOException {
+        try {
+            Files.move(source, target, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    private String certificateIdOf(Path file) {
+        String fileName = file.getFileName().toString();
+        return fileName.substring(0, fileName.length() - EXTENSION.length());
+    }
+
+    private String hashFile(Path file) throws IOException {
+        MessageDigest messageDigest = newSha256();
+        try (InputStream inputStream = Files.newInputStream(file)) {
+            byte[] buffer = new byte[8192];
+            int read;
+            while ((read = inputStream.read(buffer)) != -1) {
+                messageDigest.update(buffer, 0, read);
+            }
+        }
+        return HexFormat.of().formatHex(messageDigest.digest());
+    }
+
+    private MessageDigest newSha256() throws IOException {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IOException("SHA-256 not available", e);
+        }
     }
 
     private void ensureBaseDirectoryExists() throws IOException {
@@ -165,56 +596,25 @@ public class FileSystemCertificateStorage implements CertificateStorage {
     }
 
     /**
-     * 获取证书存储的基础路径
-     * 
-     * @return 基础路径
+     * 当前落盘策略
      */
-    public String getBasePath() {
-        return basePath;
+    public FsyncPolicy getFsyncPolicy() {
+        return fsyncPolicy;
     }
 
     /**
-     * 清理过期的证书文件
-     * 
-     * @param daysToKeep 保留天数
-     * @return 清理的文件数量
-     * @throws IOException 清理失败时抛出异常
+     * 合并同步已执行的次数（grouped 策略下可据此观察合并效果）
      */
-    public int cleanupOldCertificates(int daysToKeep) throws IOException {
-        log.info("Cleaning up certificates older than {} days", daysToKeep);
-
-        Path baseDir = Paths.get(basePath);
-        if (!Files.exists(baseDir)) {
-            return 0;
-        }
-
-        long cutoffTime = System.currentTimeMillis() - (daysToKeep * 24L * 60L * 60L * 1000L);
-        int cleanedCount = 0;
-
-        try (var stream = Files.walk(baseDir)) {
-            var files = stream.filter(Files::isRegularFile)
-                    .filter(path -> path.toString().endsWith(".pdf")).filter(path -> {
-                        try {
-                            return Files.getLastModifiedTime(path).toMillis() < cutoffTime;
-                        } catch (IOException e) {
-                            log.warn("Failed to get last modified time for {}: {}", path,
-                                    e.getMessage());
-                            return false;
-                        }
-                    }).toList();
-
-            for (Path file : files) {
-                try {
-                    Files.delete(file);
-                    cleanedCount++;
-                    log.debug("Deleted old certificate: {}", file);
-                } catch (IOException e) {
-                    log.error("Failed to delete old certificate {}: {}", file, e.getMessage(), e);
-                }
-            }
-        }
+    public long getFsyncGroupCount() {
+        return groupFsync.getGroupCount();
+    }
 
-        log.info("Cleaned up {} old certificate files", cleanedCount);
-        return cleanedCount;
+    /**
+     * 获取证书存储的基础路径
+     *
+     * @return 基础路径
+     */
+    public String getBasePath() {
+        return basePath;
     }
-}
\ No newline at end of file
+}
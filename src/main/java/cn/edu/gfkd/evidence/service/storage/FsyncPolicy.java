@@ -0,0 +1,50 @@
+package cn.edu.gfkd.evidence.service.storage;
+
+/**
+ * 证书写入的落盘策略
+ *
+ * 无论哪种策略，证书都先完整写入临时文件再原子重命名，进程崩溃不会留下写了一半的证书；
+ * 落盘策略只决定操作系统崩溃或断电时已返回的写入是否保证不丢失。
+ */
+public enum FsyncPolicy {
+
+    /**
+     * 每个证书写入后立即同步数据文件、目录和清单，返回时已持久化
+     */
+    PER_FILE("per-file"),
+
+    /**
+     * 数据文件逐个同步，目录和清单的同步由同一时间窗口内的并发写入合并执行，返回时已持久化
+     */
+    GROUPED("grouped"),
+
+    /**
+     * 不主动同步，由操作系统决定何时写回磁盘
+     */
+    NONE("none");
+
+    private final String code;
+
+    FsyncPolicy(String code) {
+        this.code = code;
+    }
+
+    public String getCode() {
+        return code;
+    }
+
+    /**
+     * 根据配置值查找策略
+     *
+     * @throws IllegalArgumentException 配置值无法识别时抛出
+     */
+    public static FsyncPolicy fromCode(String code) {
+        for (FsyncPolicy policy : values()) {
+            if (policy.code.equalsIgnoreCase(code) || policy.name().equalsIgnoreCase(code)) {
+                return policy;
+            }
+        }
+        throw new IllegalArgumentException("Unknown fsync policy: " + code
+                + " (expected per-file, grouped or none)");
+    }
+}
@@ -0,0 +1,118 @@
+package cn.edu.gfkd.evidence.service.storage;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+
+/**
+ * 合并同步：并发写入完成后各自等待，由其中一个写入线程作为组长在收集窗口结束后执行一次同步，
+ * 其余线程等待该次同步完成后返回
+ *
+ * 不需要额外的后台线程；组长同步期间到达的写入自动进入下一组。
+ */
+class GroupFsync {
+
+    /**
+     * 一组写入的同步动作
+     */
+    @FunctionalInterface
+    interface SyncAction {
+        void sync() throws IOException;
+    }
+
+    private final SyncAction action;
+    private final long windowMs;
+
+    private long requested;
+    private long completed;
+    private boolean syncing;
+
+    // 最近一次失败覆盖的请求区间 (failedAfter, failedThrough]
+    private long failedAfter;
+    private long failedThrough;
+    private IOException failure;
+
+    private long groupCount;
+
+    GroupFsync(SyncAction action, long windowMs) {
+        this.action = action;
+        this.windowMs = windowMs;
+    }
+
+    /**
+     * 等待包含本次写入的一组同步完成
+     *
+     * @throws IOException 本组同步失败或等待被中断时抛出
+     */
+    void await() throws IOException {
+        long ticket;
+        synchronized (this) {
+            ticket = ++requested;
+
+            try {
+                while (syncing && completed < ticket) {
+                    wait();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while waiting for fsync");
+            }
+            if (completed >= ticket) {
+                checkFailure(ticket);
+                return;
+            }
+            syncing = true;
+        }
+
+        // 组长：等待收集窗口，让并发写入加入本组
+        if (windowMs > 0) {
+            try {
+                Thread.sleep(windowMs);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        long previous;
+        long upTo;
+        synchronized (this) {
+            previous = completed;
+            upTo = requested;
+        }
+
+        IOException error = null;
+        try {
+            action.sync();
+        } catch (IOException e) {
+            error = e;
+        }
+
+        synchronized (this) {
+            if (error != null) {
+                failedAfter = previous;
+                failedThrough = upTo;
+                failure = error;
+            }
+            completed = upTo;
+            syncing = false;
+            groupCount++;
+            notifyAll();
+        }
+
+        if (error != null) {
+            throw error;
+        }
+    }
+
+    /**
+     * 已执行的同步次数
+     */
+    synchronized long getGroupCount() {
+        return groupCount;
+    }
+
+    private void checkFailure(long ticket) throws IOException {
+        if (failure != null && ticket > failedAfter && ticket <= failedThrough) {
+            throw new IOException("Group fsync failed: " + failure.getMessage(), failure);
+        }
+    }
+}
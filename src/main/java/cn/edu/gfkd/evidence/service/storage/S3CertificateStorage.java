@@ -0,0 +1,414 @@
+package cn.edu.gfkd.evidence.service.storage;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.stereotype.Component;
+
+import cn.edu.gfkd.evidence.config.CertificateStorageConfig;
+import cn.edu.gfkd.evidence.entity.EvidenceEntity;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 基于 S3 兼容对象存储的证书存储实现（certificate.storage.type=s3）
+ *
+ * 主要职责： 1. 多个应用实例共用同一个存储桶，证书不再绑定单台主机的磁盘 2. 证书内容边生成边上传，超过分片大小时改为分片上传，
+ * 失败时中止上传，不留下不完整的对象 3. 证书的大小、摘要和创建时间保存在对象的用户元数据中 4. getPublicUrl 返回有时效的预签名下载URL
+ * 5. 批量顺序读取前可异步预取后续证书，掩盖每次请求的网络延迟
+ *
+ * 分片上传的对象在开始上传时摘要尚未算出，元数据中没有 sha256，由调用方读取内容计算。
+ */
+@Component @Slf4j
+public class S3CertificateStorage implements CertificateStorage {
+
+    static final String META_SHA256 = "sha256";
+    static final String META_CREATED_AT = "created-at";
+
+    private static final int INITIAL_BUFFER_SIZE = 64 * 1024;
+
+    private final CertificateStorageConfig.S3 config;
+
+    private volatile S3Client client;
+
+    // 异步预取的证书，按预取顺序淘汰
+    private final LinkedHashMap<String, CompletableFuture<Optional<byte[]>>> prefetched =
+            new LinkedHashMap<>();
+    private final AtomicLong prefetchHits = new AtomicLong(0);
+    private final AtomicLong multipartUploads = new AtomicLong(0);
+
+    public S3CertificateStorage(CertificateStorageConfig config) {
+        this.config = config.getS3();
+    }
+
+    @Override
+    public String storeCertificate(EvidenceEntity evidence, InputStream certificateData)
+            throws IOException {
+        return storeCertificate(evidence, certificateData::transferTo);
+    }
+
+    @Override
+    public String storeCertificate(EvidenceEntity evidence, CertificateContentWriter contentWriter)
+            throws IOException {
+        if (evidence == null || evidence.getEvidenceId() == null) {
+            throw new IllegalArgumentException("Evidence and evidence ID cannot be null");
+        }
+
+        String certificateId = generateCertificateId(evidence);
+        String key = objectKey(certificateId);
+        discardPrefetched(certificateId);
+
+        UploadOutputStream upload = new UploadOutputStream(key);
+        try {
+            contentWriter.writeTo(upload);
+            upload.finish();
+        } catch (IOException | RuntimeException e) {
+            upload.abort();
+            throw e;
+        }
+
+        log.info("Certificate stored successfully: {} -> s3://{}/{} ({} bytes{})", certificateId,
+                config.getBucket(), key, upload.size, upload.uploadId != null ? ", multipart" : "");
+        return certificateId;
+    }
+
+    @Override
+    public Optional<InputStream> getCertificate(String certificateId) throws IOException {
+        if (certificateId == null || certificateId.isEmpty()) {
+            return Optional.empty();
+        }
+
+        CompletableFuture<Optional<byte[]>> prefetch;
+        synchronized (prefetched) {
+            prefetch = prefetched.remove(certificateId);
+        }
+        if (prefetch != null) {
+            try {
+                Optional<byte[]> content = prefetch.join();
+                prefetchHits.incrementAndGet();
+                return content.map(ByteArrayInputStream::new);
+            } catch (RuntimeException e) {
+                log.debug("Prefetch of certificate {} failed, reading again: {}", certificateId,
+                        e.getMessage());
+            }
+        }
+
+        return client().getObject(objectKey(certificateId));
+    }
+
+    @Override
+    public boolean deleteCertificate(String certificateId) throws IOException {
+        if (certificateId == null || certificateId.isEmpty()) {
+            return false;
+        }
+
+        String key = objectKey(certificateId);
+        discardPrefetched(certificateId);
+        // S3 删除不存在的对象也返回成功，先查询以返回是否真正删除
+        if (client().headObject(key).isEmpty()) {
+            log.debug("Certificate not found for deletion: {}", certificateId);
+            return false;
+        }
+
+        client().deleteObject(key);
+        log.info("Certificate deleted successfully: {}", certificateId);
+        return true;
+    }
+
+    @Override
+    public boolean certificateExists(String certificateId) {
+        if (certificateId == null || certificateId.isEmpty()) {
+            return false;
+        }
+
+        try {
+            return client().headObject(objectKey(certificateId)).isPresent();
+        } catch (IOException e) {
+            log.warn("Failed to check certificate {} in S3: {}", certificateId, e.getMessage());
+            return false;
+        }
+    }
+
+    @Override
+    public long getCertificateSize(String certificateId) throws IOException {
+        if (certificateId == null || certificateId.isEmpty()) {
+            return 0;
+        }
+
+        return client().headObject(objectKey(certificateId)).map(S3Client.ObjectInfo::size)
+                .orElse(0L);
+    }
+
+    @Override
+    public Optional<CertificateMetadata> getCertificateMetadata(String certificateId) {
+        if (certificateId == null || certificateId.isEmpty()) {
+            return Optional.empty();
+        }
+
+        try {
+            return client().headObject(objectKey(certificateId))
+                    .filter(info -> info.metadata().containsKey(META_SHA256))
+                    .map(info -> new CertificateMetadata(certificateId, info.size(),
+                            info.metadata().get(META_SHA256),
+                            parseLong(info.metadata().get(META_CREATED_AT))));
+        } catch (IOException e) {
+            log.warn("Failed to read certificate {} metadata from S3: {}", certificateId,
+                    e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    @Override
+    public Optional<String> getPublicUrl(String certificateId) {
+        if (certificateId == null || certificateId.isEmpty()
+                || config.getPresignedUrlExpirySeconds() <= 0) {
+            return Optional.empty();
+        }
+
+        return Optional.of(client().presignGet(objectKey(certificateId),
+                Duration.ofSeconds(config.getPresignedUrlExpirySeconds())));
+    }
+
+    @Override
+    public Optional<String> findExistingCertificate(EvidenceEntity evidence) {
+        if (evidence == null || evidence.getEvidenceId() == null) {
+            return Optional.empty();
+        }
+
+        String certificateId = generateCertificateId(evidence);
+        return certificateExists(certificateId) ? Optional.of(certificateId) : Optional.empty();
+    }
+
+    /**
+     * 异步预取证书；连接都在使用中时不再预取剩余的证书
+     */
+    @Override
+    public void prefetch(Collection<String> certificateIds) {
+        if (config.getPrefetchMaxEntries() <= 0) {
+            return;
+        }
+
+        for (String certificateId : certificateIds) {
+            if (certificateId == null || certificateId.isEmpty()) {
+                continue;
+            }
+            synchronized (prefetched) {
+                if (prefetched.containsKey(certificateId)) {
+                    continue;
+                }
+            }
+
+            CompletableFuture<Optional<byte[]>> future = client()
+                    .getObjectAsync(objectKey(certificateId));
+            if (future == null) {
+                return;
+            }
+
+            synchronized (prefetched) {
+                prefetched.put(certificateId, future);
+                Iterator<CompletableFuture<Optional<byte[]>>> eldest = prefetched.values()
+                        .iterator();
+                while (prefetched.size() > config.getPrefetchMaxEntries() && eldest.hasNext()) {
+                    eldest.next().cancel(false);
+                    eldest.remove();
+                }
+            }
+        }
+    }
+
+    @Override
+    public String getStorageType() {
+        return "s3";
+    }
+
+    @Override
+    public void initialize() throws IOException {
+        log.info("Initializing S3CertificateStorage with endpoint: {}, bucket: {}, prefix: {}",
+                config.getEndpoint(), config.getBucket(), config.getKeyPrefix());
+
+        S3Client s3 = client();
+        if (config.isCreateBucket() && !s3.bucketExists()) {
+            s3.createBucket();
+            log.info("Created S3 bucket {}", config.getBucket());
+        }
+    }
+
+    @Override
+    public synchronized void cleanup() throws IOException {
+        synchronized (prefetched) {
+            prefetched.values().forEach(future -> future.cancel(false));
+            prefetched.clear();
+        }
+        if (client != null) {
+            client.close();
+            client = null;
+        }
+    }
+
+    /**
+     * 预取命中次数
+     */
+    public long getPrefetchHits() {
+        return prefetchHits.get();
+    }
+
+    /**
+     * 分片上传的证书数量
+     */
+    public long getMultipartUploadCount() {
+        return multipartUploads.get();
+    }
+
+    /**
+     * 按需创建客户端（未使用 S3 存储时不建立连接池）
+     */
+    private S3Client client() {
+        S3Client current = client;
+        if (current != null) {
+            return current;
+        }
+
+        synchronized (this) {
+            if (client == null) {
+                client = new S3Client(config.getEndpoint(), config.getRegion(), config.getBucket(),
+                        config.isPathStyleAccess(), config.getAccessKey(), config.getSecretKey(),
+                        config.getMaxConnections(), Duration.ofMillis(config.getConnectTimeoutMs()),
+                        Duration.ofMillis(config.getRequestTimeoutMs()));
+            }
+            return client;
+        }
+    }
+
+    private void discardPrefetched(String certificateId) {
+        CompletableFuture<Optional<byte[]>> stale;
+        synchronized (prefetched) {
+            stale = prefetched.remove(certificateId);
+        }
+        if (stale != null) {
+            stale.cancel(false);
+        }
+    }
+
+    private String objectKey(String certificateId) {
+        return config.getKeyPrefix() + certificateId + ".pdf";
+    }
+
+    private String generateCertificateId(EvidenceEntity evidence) {
+        // 与文件系统存储相同的证书ID规则，便于在存储之间迁移
+        String safeEvidenceId = evidence.getEvidenceId().replaceAll("[^a-zA-Z0-9._-]", "_");
+        return "cert_" + safeEvidenceId;
+    }
+
+    private static long parseLong(String value) {
+        try {
+            return value != null ? Long.parseLong(value) : 0;
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    /**
+     * 上传输出流：内容不超过一个分片时缓冲后单次上传，否则每满一个分片上传一次
+     */
+    private final class UploadOutputStream extends OutputStream {
+
+        private final String key;
+        private final long createdAtMillis = System.currentTimeMillis();
+        private final int partSize = (int) Math.min(config.getPartSizeBytes(),
+                Integer.MAX_VALUE - 8);
+        private final MessageDigest digest;
+
+        private byte[] buffer = new byte[Math.min(partSize, INITIAL_BUFFER_SIZE)];
+        private int count;
+        private long size;
+        private String uploadId;
+        private final List<String> partETags = new ArrayList<>();
+
+        private UploadOutputStream(String key) throws IOException {
+            this.key = key;
+            try {
+                this.digest = MessageDigest.getInstance("SHA-256");
+            } catch (NoSuchAlgorithmException e) {
+                throw new IOException("SHA-256 not available", e);
+            }
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[] { (byte) b }, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] data, int offset, int length) throws IOException {
+            digest.update(data, offset, length);
+            size += length;
+
+            while (length > 0) {
+                if (count == partSize) {
+                    uploadPart();
+                }
+                if (count == buffer.length) {
+                    buffer = Arrays.copyOf(buffer,
+                            (int) Math.min((long) buffer.length * 2, partSize));
+                }
+                int chunk = Math.min(length, buffer.length - count);
+                System.arraycopy(data, offset, buffer, count, chunk);
+                count += chunk;
+                offset += chunk;
+                length -= chunk;
+            }
+        }
+
+        private void uploadPart() throws IOException {
+            if (uploadId == null) {
+                uploadId = client().createMultipartUpload(key,
+                        Map.of(META_CREATED_AT, String.valueOf(createdAtMillis)));
+            }
+            partETags.add(client().uploadPart(key, uploadId, partETags.size() + 1, buffer, count));
+            count = 0;
+        }
+
+        private void finish() throws IOException {
+            if (uploadId == null) {
+                client().putObject(key, buffer, count, Map.of(
+                        META_SHA256, HexFormat.of().formatHex(digest.digest()),
+                        META_CREATED_AT, String.valueOf(createdAtMillis)));
+                return;
+            }
+
+            if (count > 0) {
+                uploadPart();
+            }
+            client().completeMultipartUpload(key, uploadId, partETags);
+            multipartUploads.incrementAndGet();
+        }
+
+        private void abort() {
+            if (uploadId == null) {
+                return;
+            }
+
+            try {
+                client().abortMultipartUpload(key, uploadId);
+            } catch (IOException e) {
+                log.warn("Failed to abort multipart upload {} of {}: {}", uploadId, key,
+                        e.getMessage());
+            }
+        }
+    }
+}
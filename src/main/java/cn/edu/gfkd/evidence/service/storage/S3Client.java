@@ -0,0 +1,486 @@
+package cn.edu.gfkd.evidence.service.storage;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.security.InvalidKeyException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+/**
+ * 最小化的 S3 REST 客户端（支持路径风格和虚拟主机风格寻址，兼容 MinIO 等 S3 兼容存储）
+ *
+ * 主要职责： 1. 使用 AWS Signature V4 签名请求，生成预签名下载URL 2. 对象的上传、分片上传、读取、元数据查询和删除
+ * 3. 共用一个 HttpClient 复用 keep-alive 连接，并用信号量限制同时占用的连接数
+ *
+ * 只实现证书存储需要的操作；请求体在调用前已完整缓冲，签名时直接计算负载摘要。
+ */
+final class S3Client implements AutoCloseable {
+
+    static final String METADATA_PREFIX = "x-amz-meta-";
+
+    private static final String ALGORITHM = "AWS4-HMAC-SHA256";
+    private static final String SERVICE = "s3";
+    private static final String UNSIGNED_PAYLOAD = "UNSIGNED-PAYLOAD";
+    private static final DateTimeFormatter AMZ_DATE = DateTimeFormatter
+            .ofPattern("yyyyMMdd'T'HHmmss'Z'").withZone(ZoneOffset.UTC);
+    private static final Pattern UPLOAD_ID = Pattern.compile("<UploadId>([^<]+)</UploadId>");
+
+    private final URI endpoint;
+    private final String region;
+    private final String bucket;
+    private final boolean pathStyle;
+    private final String accessKey;
+    private final String secretKey;
+    private final Duration requestTimeout;
+
+    private final ExecutorService executor;
+    private final HttpClient httpClient;
+    private final Semaphore connections;
+
+    S3Client(String endpoint, String region, String bucket, boolean pathStyle, String accessKey,
+            String secretKey, int maxConnections, Duration connectTimeout,
+            Duration requestTimeout) {
+        URI base = URI.create(endpoint.endsWith("/") ? endpoint.substring(0,
+                endpoint.length() - 1) : endpoint);
+        // 虚拟主机风格把存储桶放在主机名中
+        this.endpoint = pathStyle ? base : URI.create(base.getScheme() + "://" + bucket + "."
+                + base.getRawAuthority());
+        this.region = region;
+        this.bucket = bucket;
+        this.pathStyle = pathStyle;
+        this.accessKey = accessKey;
+        this.secretKey = secretKey;
+        this.requestTimeout = requestTimeout;
+        this.connections = new Semaphore(maxConnections);
+
+        AtomicInteger threadIndex = new AtomicInteger(0);
+        this.executor = Executors.newFixedThreadPool(Math.max(2, maxConnections / 4), runnable -> {
+            Thread thread = new Thread(runnable, "certificate-s3-" + threadIndex.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.httpClient = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(connectTimeout).executor(executor).build();
+    }
+
+    /**
+     * 存储桶是否存在
+     */
+    boolean bucketExists() throws IOException {
+        HttpResponse<byte[]> response = send(signed("HEAD", "", Map.of(), Map.of(), null));
+        return response.statusCode() / 100 == 2;
+    }
+
+    void createBucket() throws IOException {
+        HttpResponse<byte[]> response = send(signed("PUT", "", Map.of(), Map.of(), null));
+        expectSuccess(response, "create bucket " + bucket);
+    }
+
+    /**
+     * 单次上传整个对象
+     */
+    void putObject(String key, byte[] data, int length, Map<String, String> metadata)
+            throws IOException {
+        HttpResponse<byte[]> response = send(signed("PUT", key, Map.of(), metadataHeaders(metadata),
+                new Body(data, length)));
+        expectSuccess(response, "put " + key);
+    }
+
+    /**
+     * 开始分片上传
+     *
+     * @return 上传ID
+     */
+    String createMultipartUpload(String key, Map<String, String> metadata) throws IOException {
+        HttpResponse<byte[]> response = send(signed("POST", key, Map.of("uploads", ""),
+                metadataHeaders(metadata), null));
+        expectSuccess(response, "create multipart upload " + key);
+
+        Matcher matcher = UPLOAD_ID.matcher(new String(response.body(), StandardCharsets.UTF_8));
+        if (!matcher.find()) {
+            throw new IOException("S3 multipart upload response for " + key + " has no UploadId");
+        }
+        return matcher.group(1);
+    }
+
+    /**
+     * 上传一个分片
+     *
+     * @return 分片的 ETag
+     */
+    String uploadPart(String key, String uploadId, int partNumber, byte[] data, int length)
+            throws IOException {
+        HttpResponse<byte[]> response = send(signed("PUT", key,
+                Map.of("partNumber", String.valueOf(partNumber), "uploadId", uploadId), Map.of(),
+                new Body(data, length)));
+        expectSuccess(response, "upload part " + partNumber + " of " + key);
+
+        return response.headers().firstValue("ETag").orElseThrow(() -> new IOException(
+                "S3 upload part response for " + key + " has no ETag"));
+    }
+
+    void completeMultipartUpload(String key, String uploadId, List<String> partETags)
+            throws IOException {
+        StringBuilder xml = new StringBuilder("<CompleteMultipartUpload>");
+        for (int i = 0; i < partETags.size(); i++) {
+            xml.append("<Part><PartNumber>").append(i + 1).append("</PartNumber><ETag>")
+                    .append(partETags.get(i)).append("</ETag></Part>");
+        }
+        xml.append("</CompleteMultipartUpload>");
+        byte[] body = xml.toString().getBytes(StandardCharsets.UTF_8);
+
+        HttpResponse<byte[]> response = send(signed("POST", key, Map.of("uploadId", uploadId),
+                Map.of(), new Body(body, body.length)));
+        expectSuccess(response, "complete multipart upload " + key);
+        // S3 在合并失败时也可能返回 200，错误放在响应体中
+        if (new String(response.body(), StandardCharsets.UTF_8).contains("<Error>")) {
+            throw new IOException("S3 complete multipart upload " + key + " failed: "
+                    + new String(response.body(), StandardCharsets.UTF_8));
+        }
+    }
+
+    void abortMultipartUpload(String key, String uploadId) throws IOException {
+        send(signed("DELETE", key, Map.of("uploadId", uploadId), Map.of(), null));
+    }
+
+    /**
+     * 读取对象；返回的数据流关闭时释放连接
+     */
+    Optional<InputStream> getObject(String key) throws IOException {
+        acquire();
+        HttpResponse<InputStream> response;
+        try {
+            response = httpClient.send(signed("GET", key, Map.of(), Map.of(), null),
+                    HttpResponse.BodyHandlers.ofInputStream());
+        } catch (IOException | RuntimeException e) {
+            connections.release();
+            throw e;
+        } catch (InterruptedException e) {
+            connections.release();
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while reading " + key);
+        }
+
+        InputStream body = new ReleasingInputStream(response.body());
+        if (response.statusCode() == 404) {
+            body.close();
+            return Optional.empty();
+        }
+        if (response.statusCode() / 100 != 2) {
+            String error;
+            try (body) {
+                error = new String(body.readNBytes(512), StandardCharsets.UTF_8);
+            }
+            throw new IOException("S3 get " + key + " failed: " + response.statusCode() + " "
+                    + error);
+        }
+        return Optional.of(body);
+    }
+
+    /**
+     * 异步读取整个对象；没有空闲连接时不发起请求，返回 null
+     */
+    CompletableFuture<Optional<byte[]>> getObjectAsync(String key) {
+        if (!connections.tryAcquire()) {
+            return null;
+        }
+
+        HttpRequest request;
+        try {
+            request = signed("GET", key, Map.of(), Map.of(), null);
+        } catch (IOException e) {
+            connections.release();
+            return CompletableFuture.failedFuture(e);
+        }
+        return httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofByteArray())
+                .whenComplete((response, error) -> connections.release())
+                .thenApply(response -> {
+                    if (response.statusCode() == 404) {
+                        return Optional.<byte[]>empty();
+                    }
+                    if (response.statusCode() / 100 != 2) {
+                        throw new IllegalStateException("S3 get " + key + " failed: "
+                                + response.statusCode());
+                    }
+                    return Optional.of(response.body());
+                });
+    }
+
+    /**
+     * 查询对象大小和用户元数据
+     */
+    Optional<ObjectInfo> headObject(String key) throws IOException {
+        HttpResponse<byte[]> response = send(signed("HEAD", key, Map.of(), Map.of(), null));
+        if (response.statusCode() == 404) {
+            return Optional.empty();
+        }
+        expectSuccess(response, "head " + key);
+
+        Map<String, String> metadata = new TreeMap<>();
+        response.headers().map().forEach((name, values) -> {
+            String lowerName = name.toLowerCase();
+            if (lowerName.startsWith(METADATA_PREFIX) && !values.isEmpty()) {
+                metadata.put(lowerName.substring(METADATA_PREFIX.length()), values.get(0));
+            }
+        });
+        long size = response.headers().firstValueAsLong("Content-Length").orElse(0);
+        return Optional.of(new ObjectInfo(size, metadata));
+    }
+
+    void deleteObject(String key) throws IOException {
+        HttpResponse<byte[]> response = send(signed("DELETE", key, Map.of(), Map.of(), null));
+        if (response.statusCode() != 404) {
+            expectSuccess(response, "delete " + key);
+        }
+    }
+
+    /**
+     * 生成预签名的下载URL
+     */
+    String presignGet(String key, Duration expiry) {
+        return presign("GET", key, expiry, Instant.now());
+    }
+
+    @Override
+    public void close() {
+        executor.shutdownNow();
+    }
+
+    String presign(String method, String key, Duration expiry, Instant now) {
+        String amzDate = AMZ_DATE.format(now);
+        String scope = amzDate.substring(0, 8) + "/" + region + "/" + SERVICE + "/aws4_request";
+
+        Map<String, String> query = new TreeMap<>();
+        query.put("X-Amz-Algorithm", ALGORITHM);
+        query.put("X-Amz-Credential", accessKey + "/" + scope);
+        query.put("X-Amz-Date", amzDate);
+        query.put("X-Amz-Expires", String.valueOf(expiry.toSeconds()));
+        query.put("X-Amz-SignedHeaders", "host");
+
+        String canonicalUri = canonicalUri(key);
+        String canonicalQuery = canonicalQuery(query);
+        String canonicalRequest = method + "\n" + canonicalUri + "\n" + canonicalQuery + "\nhost:"
+                + host() + "\n\nhost\n" + UNSIGNED_PAYLOAD;
+        String signature = sign(amzDate, scope, canonicalRequest);
+
+        return endpoint + canonicalUri + "?" + canonicalQuery + "&X-Amz-Signature=" + signature;
+    }
+
+    /**
+     * 计算请求的 Authorization 头（headers 的名称须为小写）
+     */
+    String authorization(String method, String key, Map<String, String> query,
+            Map<String, String> headers) {
+        String amzDate = headers.get("x-amz-date");
+        String scope = amzDate.substring(0, 8) + "/" + region + "/" + SERVICE + "/aws4_request";
+
+        Map<String, String> signedHeaders = new TreeMap<>(headers);
+        signedHeaders.put("host", host());
+        StringBuilder canonicalHeaders = new StringBuilder();
+        for (Map.Entry<String, String> header : signedHeaders.entrySet()) {
+            canonicalHeaders.append(header.getKey()).append(':')
+                    .append(header.getValue().trim()).append('\n');
+        }
+        String signedHeaderNames = String.join(";", signedHeaders.keySet());
+
+        String canonicalRequest = method + "\n" + canonicalUri(key) + "\n"
+                + canonicalQuery(query) + "\n" + canonicalHeaders + "\n" + signedHeaderNames
+                + "\n" + headers.get("x-amz-content-sha256");
+        return ALGORITHM + " Credential=" + accessKey + "/" + scope + ", SignedHeaders="
+                + signedHeaderNames + ", Signature=" + sign(amzDate, scope, canonicalRequest);
+    }
+
+    private HttpRequest signed(String method, String key, Map<String, String> query,
+            Map<String, String> extraHeaders, Body body) throws IOException {
+        Instant now = Instant.now();
+        Map<String, String> headers = new TreeMap<>(extraHeaders);
+        headers.put("x-amz-date", AMZ_DATE.format(now));
+        headers.put("x-amz-content-sha256", body == null ? sha256Hex(new byte[0], 0)
+                : sha256Hex(body.data, body.length));
+
+        String canonicalQuery = canonicalQuery(query);
+        URI uri = URI.create(endpoint + canonicalUri(key)
+                + (canonicalQuery.isEmpty() ? "" : "?" + canonicalQuery));
+        HttpRequest.Builder builder = HttpRequest.newBuilder(uri).timeout(requestTimeout)
+                .method(method, body == null ? HttpRequest.BodyPublishers.noBody()
+                        : HttpRequest.BodyPublishers.ofByteArray(body.data, 0, body.length));
+        headers.forEach(builder::header);
+        builder.header("Authorization", authorization(method, key, query, headers));
+        return builder.build();
+    }
+
+    private HttpResponse<byte[]> send(HttpRequest request) throws IOException {
+        acquire();
+        try {
+            return httpClient.send(request, HttpResponse.BodyHandlers.ofByteArray());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted during S3 " + request.method() + " "
+                    + request.uri().getPath());
+        } finally {
+            connections.release();
+        }
+    }
+
+    private void acquire() throws IOException {
+        try {
+            connections.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for an S3 connection");
+        }
+    }
+
+    private void expectSuccess(HttpResponse<byte[]> response, String operation)
+            throws IOException {
+        if (response.statusCode() / 100 != 2) {
+            byte[] body = response.body() != null ? response.body() : new byte[0];
+            throw new IOException("S3 " + operation + " failed: " + response.statusCode() + " "
+                    + new String(body, 0, Math.min(body.length, 512), StandardCharsets.UTF_8));
+        }
+    }
+
+    private Map<String, String> metadataHeaders(Map<String, String> metadata) {
+        Map<String, String> headers = new TreeMap<>();
+        metadata.forEach((name, value) -> headers.put(METADATA_PREFIX + name.toLowerCase(), value));
+        return headers;
+    }
+
+    private String canonicalUri(String key) {
+        StringBuilder uri = new StringBuilder();
+        if (pathStyle) {
+            uri.append('/').append(encode(bucket));
+        }
+        if (!key.isEmpty()) {
+            for (String segment : key.split("/", -1)) {
+                uri.append('/').append(encode(segment));
+            }
+        }
+        return uri.length() == 0 ? "/" : uri.toString();
+    }
+
+    private String canonicalQuery(Map<String, String> query) {
+        List<String> parameters = new ArrayList<>();
+        new TreeMap<>(query).forEach((name, value) -> parameters.add(encode(name) + "="
+                + encode(value)));
+        return String.join("&", parameters);
+    }
+
+    private String host() {
+        int port = endpoint.getPort();
+        boolean defaultPort = port == -1
+                || ("http".equals(endpoint.getScheme()) && port == 80)
+                || ("https".equals(endpoint.getScheme()) && port == 443);
+        return defaultPort ? endpoint.getHost() : endpoint.getHost() + ":" + port;
+    }
+
+    private String sign(String amzDate, String scope, String canonicalRequest) {
+        byte[] canonicalBytes = canonicalRequest.getBytes(StandardCharsets.UTF_8);
+        String stringToSign = ALGORITHM + "\n" + amzDate + "\n" + scope + "\n"
+                + sha256Hex(canonicalBytes, canonicalBytes.length);
+
+        byte[] key = hmac(("AWS4" + secretKey).getBytes(StandardCharsets.UTF_8),
+                amzDate.substring(0, 8));
+        key = hmac(key, region);
+        key = hmac(key, SERVICE);
+        key = hmac(key, "aws4_request");
+        return HexFormat.of().formatHex(hmac(key, stringToSign));
+    }
+
+    /**
+     * RFC 3986 编码，只保留非保留字符
+     */
+    private static String encode(String value) {
+        StringBuilder encoded = new StringBuilder();
+        for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+            char c = (char) (b & 0xff);
+            if ((c >= 'A' && c <= 'Z') || (c >= 'a' && c <= 'z') || (c >= '0' && c <= '9')
+                    || c == '-' || c == '_' || c == '.' || c == '~') {
+                encoded.append(c);
+            } else {
+                encoded.append('%').append(String.format("%02X", b & 0xff));
+            }
+        }
+        return encoded.toString();
+    }
+
+    private static byte[] hmac(byte[] key, String data) {
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(new SecretKeySpec(key, "HmacSHA256"));
+            return mac.doFinal(data.getBytes(StandardCharsets.UTF_8));
+        } catch (NoSuchAlgorithmException | InvalidKeyException e) {
+            throw new IllegalStateException("HmacSHA256 not available", e);
+        }
+    }
+
+    private static String sha256Hex(byte[] data, int length) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(data, 0, length);
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    /**
+     * 对象大小和用户元数据（元数据名称不含 x-amz-meta- 前缀）
+     */
+    record ObjectInfo(long size, Map<String, String> metadata) {
+    }
+
+    private record Body(byte[] data, int length) {
+    }
+
+    /**
+     * 关闭时释放连接许可
+     */
+    private final class ReleasingInputStream extends FilterInputStream {
+
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        private ReleasingInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                super.close();
+            } finally {
+                if (released.compareAndSet(false, true)) {
+                    connections.release();
+                }
+            }
+        }
+    }
+}
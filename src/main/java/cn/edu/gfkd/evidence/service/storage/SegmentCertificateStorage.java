@@ -0,0 +1,696 @@
+package cn.edu.gfkd.evidence.service.storage;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Component;
+
+import cn.edu.gfkd.evidence.config.CertificateStorageConfig;
+import cn.edu.gfkd.evidence.entity.EvidenceEntity;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 基于段文件的证书存储实现（certificate.storage.type=segment）
+ *
+ * 主要职责： 1. 把证书追加写入大的段文件，每条记录带证书ID、创建时间和内容摘要 2. 内存中维护证书ID → 段内偏移的索引，启动时顺序扫描段文件重建
+ * 3. 通过内存映射的段文件切片读取证书，不复制到堆内存 4. 删除时追加删除记录，后台压缩已删除数据占比高的段文件
+ * 5. 维护按创建时间排序的索引，保留期清理只访问过期的证书
+ *
+ * 段文件记录格式（大端）：magic(int) type(byte) idLength(short) id createdAt(long)，
+ * 写入记录之后为 sha256(32字节) dataLength(int) data。异常退出后最后一个段文件末尾不完整或摘要不符的记录在启动时截断。
+ *
+ * 每个段记录其中出现过写入记录的证书ID，压缩时只有更早的段仍含该证书的写入记录才保留删除记录。
+ */
+@Component @Slf4j
+public class SegmentCertificateStorage implements CertificateStorage {
+
+    private static final int RECORD_MAGIC = 0x43455254;
+    private static final byte TYPE_PUT = 1;
+    private static final byte TYPE_DELETE = 2;
+    private static final int SHA256_LENGTH = 32;
+    private static final int BASE_HEADER_LENGTH = 4 + 1 + 2 + 8;
+    private static final String SEGMENT_PREFIX = "segment-";
+    private static final String SEGMENT_SUFFIX = ".dat";
+
+    private final String basePath;
+    private final long maxSegmentBytes;
+    private final double compactionGarbageRatio;
+    private final long compactionIntervalMs;
+
+    private final Map<String, Location> index = new ConcurrentHashMap<>();
+    private final NavigableSet<CertificateMetadata> byCreatedAt = new ConcurrentSkipListSet<>(
+            CertificateMetadata.CREATED_AT_ORDER);
+    private final ConcurrentSkipListMap<Integer, Segment> segments = new ConcurrentSkipListMap<>();
+
+    // 追加写入（包括压缩时的搬移）串行执行
+    private final Object writeLock = new Object();
+    private Segment activeSegment;
+
+    private volatile boolean initialized;
+    private ScheduledExecutorService compactionScheduler;
+
+    public SegmentCertificateStorage(CertificateStorageConfig config) {
+        this.basePath = config.getSegment().getBasePath();
+        // 单个段文件整体映射，不能超过 MappedByteBuffer 的容量上限
+        this.maxSegmentBytes = Math.min(config.getSegment().getMaxSegmentBytes(),
+                Integer.MAX_VALUE);
+        this.compactionGarbageRatio = config.getSegment().getCompactionGarbageRatio();
+        this.compactionIntervalMs = config.getSegment().getCompactionIntervalMs();
+    }
+
+    @Override
+    public String storeCertificate(EvidenceEntity evidence, InputStream certificateData)
+            throws IOException {
+        ensureInitialized();
+        log.debug("Storing certificate for evidenceId: {}", evidence.getEvidenceId());
+
+        String certificateId = generateCertificateId(evidence);
+        byte[] data = certificateData.readAllBytes();
+        byte[] sha256 = newSha256().digest(data);
+
+        synchronized (writeLock) {
+            Location location = append(TYPE_PUT, certificateId, System.currentTimeMillis(),
+                    sha256, ByteBuffer.wrap(data));
+            Location previous = indexPut(certificateId, location);
+            if (previous != null) {
+                addGarbage(previous.segmentId, previous.recordLength);
+            }
+        }
+
+        log.info("Certificate stored successfully: {} ({} bytes)", certificateId, data.length);
+        return certificateId;
+    }
+
+    @Override
+    public Optional<InputStream> getCertificate(String certificateId) throws IOException {
+        return readSlice(certificateId)
+                .map(slice -> new ByteBufferResource(certificateId, slice, 0).getInputStream());
+    }
+
+    @Override
+    public Optional<Resource> getCertificateResource(String certificateId) throws IOException {
+        Optional<CertificateMetadata> metadata = getCertificateMetadata(certificateId);
+        if (metadata.isEmpty()) {
+            return Optional.empty();
+        }
+
+        return readSlice(certificateId).map(slice -> new ByteBufferResource(certificateId, slice,
+                metadata.get().getCreatedAtMillis()));
+    }
+
+    @Override
+    public boolean deleteCertificate(String certificateId) throws IOException {
+        if (certificateId == null || certificateId.isEmpty()) {
+            return false;
+        }
+        ensureInitialized();
+
+        synchronized (writeLock) {
+            Location previous = indexRemove(certificateId);
+            if (previous == null) {
+                log.debug("Certificate not found for deletion: {}", certificateId);
+                return false;
+            }
+
+            Location tombstone = append(TYPE_DELETE, certificateId, System.currentTimeMillis(),
+                    null, null);
+            addGarbage(previous.segmentId, previous.recordLength);
+            addGarbage(tombstone.segmentId, tombstone.recordLength);
+        }
+
+        log.info("Certificate deleted successfully: {}", certificateId);
+        return true;
+    }
+
+    @Override
+    public boolean certificateExists(String certificateId) {
+        if (certificateId == null || certificateId.isEmpty()) {
+            return false;
+        }
+
+        try {
+            ensureInitialized();
+        } catch (IOException e) {
+            log.warn("Failed to open certificate segments: {}", e.getMessage());
+            return false;
+        }
+        return index.containsKey(certificateId);
+    }
+
+    @Override
+    public long getCertificateSize(String certificateId) throws IOException {
+        return getCertificateMetadata(certificateId).map(CertificateMetadata::getSize).orElse(0L);
+    }
+
+    @Override
+    public Optional<CertificateMetadata> getCertificateMetadata(String certificateId) {
+        if (!certificateExists(certificateId)) {
+            return Optional.empty();
+        }
+
+        Location location = index.get(certificateId);
+        if (location == null) {
+            return Optional.empty();
+        }
+        return Optional.of(metadataOf(certificateId, location));
+    }
+
+    @Override
+    public boolean supportsCreatedAtIndex() {
+        return true;
+    }
+
+    @Override
+    public List<CertificateMetadata> findCertificatesCreatedBefore(long cutoffMillis, int limit) {
+        try {
+            ensureInitialized();
+        } catch (IOException e) {
+            log.warn("Failed to open certificate segments: {}", e.getMessage());
+            return List.of();
+        }
+
+        List<CertificateMetadata> expired = new ArrayList<>(Math.min(limit, 256));
+        for (CertificateMetadata item : byCreatedAt) {
+            if (item.getCreatedAtMillis() >= cutoffMillis || expired.size() >= limit) {
+                break;
+            }
+            expired.add(item);
+        }
+        return expired;
+    }
+
+    @Override
+    public Optional<String> getPublicUrl(String certificateId) {
+        // 段文件中的证书没有独立的文件路径
+        return Optional.empty();
+    }
+
+    @Override
+    public Optional<String> findExistingCertificate(EvidenceEntity evidence) {
+        if (evidence == null || evidence.getEvidenceId() == null) {
+            return Optional.empty();
+        }
+
+        String certificateId = generateCertificateId(evidence);
+        return certificateExists(certificateId) ? Optional.of(certificateId) : Optional.empty();
+    }
+
+    @Override
+    public String getStorageType() {
+        return "segment";
+    }
+
+    @Override
+    public void initialize() throws IOException {
+        log.info("Initializing SegmentCertificateStorage with base path: {}", basePath);
+        ensureInitialized();
+
+        synchronized (this) {
+            if (compactionScheduler == null && compactionIntervalMs > 0) {
+                compactionScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                    Thread thread = new Thread(runnable, "certificate-segment-compaction");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+                compactionScheduler.scheduleWithFixedDelay(() -> {
+                    try {
+                        compact();
+                    } catch (Exception e) {
+                        log.error("Certificate segment compaction failed: {}", e.getMessage(), e);
+                    }
+                }, compactionIntervalMs, compactionIntervalMs, TimeUnit.MILLISECONDS);
+            }
+        }
+    }
+
+    @Override
+    public synchronized void cleanup() throws IOException {
+        if (compactionScheduler != null) {
+            compactionScheduler.shutdownNow();
+            compactionScheduler = null;
+        }
+
+        synchronized (writeLock) {
+            for (Segment segment : segments.values()) {
+                segment.channel.close();
+            }
+            segments.clear();
+            index.clear();
+            byCreatedAt.clear();
+            activeSegment = null;
+            initialized = false;
+        }
+    }
+
+    /**
+     * 压缩已删除数据占比超过阈值的封存段：搬移仍有效的记录到活动段后删除原段文件
+     *
+     * @return 压缩的段文件数量
+     * @throws IOException 读写段文件失败时抛出
+     */
+    public int compact() throws IOException {
+        ensureInitialized();
+        int compacted = 0;
+
+        for (Segment segment : new ArrayList<>(segments.values())) {
+            if (segment == activeSegment || segment.size == 0) {
+                continue;
+            }
+
+            double garbageRatio = (double) segment.garbageBytes.get() / segment.size;
+            if (garbageRatio < compactionGarbageRatio) {
+                continue;
+            }
+
+            compactSegment(segment);
+            compacted++;
+        }
+
+        if (compacted > 0) {
+            log.info("Compacted {} certificate segments, {} segments remaining", compacted,
+                    segments.size());
+        }
+        return compacted;
+    }
+
+    /**
+     * 段文件数量（用于监控）
+     */
+    public int getSegmentCount() {
+        return segments.size();
+    }
+
+    private void compactSegment(Segment segment) throws IOException {
+        ByteBuffer contents = segment.slice(0, (int) segment.size);
+
+        scanRecords(contents, false, record -> {
+            synchronized (writeLock) {
+                if (record.type == TYPE_PUT) {
+                    Location current = index.get(record.certificateId);
+                    if (current != null && current.segmentId == segment.id
+                            && current.dataOffset == record.dataOffset) {
+                        ByteBuffer data = contents.slice((int) record.dataOffset,
+                                record.dataLength);
+                        // 搬移保留原创建时间，时间索引不变
+                        index.put(record.certificateId, append(TYPE_PUT, record.certificateId,
+                                record.createdAtMillis, HexFormat.of().parseHex(record.sha256),
+                                data));
+                    }
+                } else if (!index.containsKey(record.certificateId)
+                        && olderSegmentHasPut(segment.id, record.certificateId)) {
+                    // 更早的段仍有该证书的写入记录时删除记录需要保留，否则重启后会恢复被删除的证书
+                    Location tombstone = append(TYPE_DELETE, record.certificateId,
+                            record.createdAtMillis, null, null);
+                    addGarbage(tombstone.segmentId, tombstone.recordLength);
+                }
+            }
+        });
+
+        synchronized (writeLock) {
+            segments.remove(segment.id);
+            segment.channel.close();
+        }
+        // 已映射的切片在文件删除后仍可被正在进行的读取使用
+        Files.deleteIfExists(segment.path);
+        log.debug("Certificate segment {} compacted and removed", segment.path);
+    }
+
+    /**
+     * 比指定段更早的段中是否仍有该证书的写入记录
+     */
+    private boolean olderSegmentHasPut(int segmentId, String certificateId) {
+        for (Segment older : segments.headMap(segmentId, false).values()) {
+            if (older.putIds.contains(certificateId)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private Optional<ByteBuffer> readSlice(String certificateId) throws IOException {
+        if (certificateId == null || certificateId.isEmpty()) {
+            return Optional.empty();
+        }
+        ensureInitialized();
+
+        // 压缩可能在查索引和读取之间移走记录，此时按新位置重试一次
+        for (int attempt = 0; attempt < 2; attempt++) {
+            Location location = index.get(certificateId);
+            if (location == null) {
+                log.debug("Certificate not found: {}", certificateId);
+                return Optional.empty();
+            }
+
+            Segment segment = segments.get(location.segmentId);
+            if (segment != null) {
+                try {
+                    return Optional.of(segment.slice(location.dataOffset, location.dataLength));
+                } catch (IOException e) {
+                    if (segments.containsKey(location.segmentId)) {
+                        throw e;
+                    }
+                }
+            }
+        }
+        return Optional.empty();
+    }
+
+    private void ensureInitialized() throws IOException {
+        if (initialized) {
+            return;
+        }
+
+        synchronized (writeLock) {
+            if (initialized) {
+                return;
+            }
+
+            Path baseDir = Paths.get(basePath);
+            Files.createDirectories(baseDir);
+
+            List<Path> segmentFiles;
+            try (var stream = Files.list(baseDir)) {
+                segmentFiles = stream.filter(path -> {
+                    String name = path.getFileName().toString();
+                    return name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX);
+                }).sorted().toList();
+            }
+
+            for (int i = 0; i < segmentFiles.size(); i++) {
+                Segment segment = openSegment(segmentFiles.get(i));
+                segments.put(segment.id, segment);
+                loadSegment(segment, i == segmentFiles.size() - 1);
+            }
+
+            activeSegment = segments.isEmpty() ? createSegment(1) : segments.lastEntry().getValue();
+            initialized = true;
+
+            log.info("Certificate segments loaded: {} certificates in {} segments", index.size(),
+                    segments.size());
+        }
+    }
+
+    private void loadSegment(Segment segment, boolean last) throws IOException {
+        long fileSize = segment.channel.size();
+        if (fileSize == 0) {
+            return;
+        }
+
+        ByteBuffer contents = segment.channel.map(FileChannel.MapMode.READ_ONLY, 0, fileSize);
+        // 只有最后一个段可能在写入中途被中断，逐条校验摘要；封存的段只做结构校验，避免启动时读完全部数据
+        long validEnd = scanRecords(contents, last, record -> {
+            if (record.type == TYPE_PUT) {
+                segment.putIds.add(record.certificateId);
+                Location previous = indexPut(record.certificateId, new Location(segment.id,
+                        record.dataOffset, record.dataLength, record.recordLength, record.sha256,
+                        record.createdAtMillis));
+                if (previous != null) {
+                    addGarbage(previous.segmentId, previous.recordLength);
+                }
+            } else {
+                Location previous = indexRemove(record.certificateId);
+                if (previous != null) {
+                    addGarbage(previous.segmentId, previous.recordLength);
+                }
+                segment.garbageBytes.addAndGet(record.recordLength);
+            }
+        });
+
+        if (validEnd < fileSize) {
+            if (last) {
+                log.warn("Truncating incomplete record at offset {} of {}", validEnd, segment.path);
+                segment.channel.truncate(validEnd);
+            } else {
+                log.warn("Ignoring corrupt data after offset {} of {}", validEnd, segment.path);
+            }
+        }
+        segment.size = validEnd;
+    }
+
+    /**
+     * 顺序解析段内记录
+     *
+     * @param verifyDigest 是否校验写入记录的内容摘要，摘要不符的记录视为不完整
+     * @return 最后一条完整记录的结束偏移
+     */
+    private long scanRecords(ByteBuffer contents, boolean verifyDigest, RecordVisitor visitor)
+            throws IOException {
+        MessageDigest digest = verifyDigest ? newSha256() : null;
+        ByteBuffer buffer = contents.duplicate();
+        int limit = buffer.limit();
+        int position = 0;
+
+        while (limit - position >= BASE_HEADER_LENGTH) {
+            buffer.position(position);
+            if (buffer.getInt() != RECORD_MAGIC) {
+                break;
+            }
+
+            byte type = buffer.get();
+            int idLength = buffer.getShort() & 0xFFFF;
+            if (buffer.remaining() < idLength + 8) {
+                break;
+            }
+            byte[] idBytes = new byte[idLength];
+            buffer.get(idBytes);
+            long createdAtMillis = buffer.getLong();
+
+            Record record = new Record();
+            record.type = type;
+            record.certificateId = new String(idBytes, StandardCharsets.UTF_8);
+            record.createdAtMillis = createdAtMillis;
+
+            if (type == TYPE_PUT) {
+                if (buffer.remaining() < SHA256_LENGTH + 4) {
+                    break;
+                }
+                byte[] sha256 = new byte[SHA256_LENGTH];
+                buffer.get(sha256);
+                int dataLength = buffer.getInt();
+                if (dataLength < 0 || buffer.remaining() < dataLength) {
+                    break;
+                }
+                if (digest != null) {
+                    digest.update(buffer.slice(buffer.position(), dataLength));
+                    if (!MessageDigest.isEqual(sha256, digest.digest())) {
+                        log.warn("Digest mismatch for certificate {} at offset {}",
+                                record.certificateId, position);
+                        break;
+                    }
+                }
+                record.sha256 = HexFormat.of().formatHex(sha256);
+                record.dataOffset = buffer.position();
+                record.dataLength = dataLength;
+                buffer.position(buffer.position() + dataLength);
+            } else if (type != TYPE_DELETE) {
+                break;
+            }
+
+            record.recordLength = buffer.position() - position;
+            visitor.visit(record);
+            position = buffer.position();
+        }
+
+        return position;
+    }
+
+    /**
+     * 追加一条记录到活动段，调用方需持有 writeLock
+     */
+    private Location append(byte type, String certificateId, long createdAtMillis, byte[] sha256,
+            ByteBuffer data) throws IOException {
+        byte[] idBytes = certificateId.getBytes(StandardCharsets.UTF_8);
+        int dataLength = data == null ? 0 : data.remaining();
+        int headerLength = BASE_HEADER_LENGTH + idBytes.length
+                + (type == TYPE_PUT ? SHA256_LENGTH + 4 : 0);
+        long recordLength = (long) headerLength + dataLength;
+
+        if (activeSegment.size > 0 && activeSegment.size + recordLength > maxSegmentBytes) {
+            activeSegment = createSegment(activeSegment.id + 1);
+        }
+
+        ByteBuffer header = ByteBuffer.allocate(headerLength);
+        header.putInt(RECORD_MAGIC);
+        header.put(type);
+        header.putShort((short) idBytes.length);
+        header.put(idBytes);
+        header.putLong(createdAtMillis);
+        if (type == TYPE_PUT) {
+            header.put(sha256);
+            header.putInt(dataLength);
+        }
+        header.flip();
+
+        Segment segment = activeSegment;
+        long recordOffset = segment.size;
+        segment.channel.position(recordOffset);
+        ByteBuffer[] buffers = data == null ? new ByteBuffer[] { header }
+                : new ByteBuffer[] { header, data.duplicate() };
+        long written = 0;
+        while (written < recordLength) {
+            written += segment.channel.write(buffers);
+        }
+        segment.size = recordOffset + recordLength;
+        if (type == TYPE_PUT) {
+            segment.putIds.add(certificateId);
+        }
+
+        return new Location(segment.id, recordOffset + headerLength, dataLength, recordLength,
+                sha256 == null ? null : HexFormat.of().formatHex(sha256), createdAtMillis);
+    }
+
+    private void addGarbage(int segmentId, long bytes) {
+        Segment segment = segments.get(segmentId);
+        if (segment != null) {
+            segment.garbageBytes.addAndGet(bytes);
+        }
+    }
+
+    private Segment createSegment(int id) throws IOException {
+        Path path = Paths.get(basePath, String.format("%s%06d%s", SEGMENT_PREFIX, id,
+                SEGMENT_SUFFIX));
+        Segment segment = openSegment(path);
+        segments.put(segment.id, segment);
+        log.info("Created certificate segment {}", path);
+        return segment;
+    }
+
+    private Segment openSegment(Path path) throws IOException {
+        String name = path.getFileName().toString();
+        int id = Integer.parseInt(name.substring(SEGMENT_PREFIX.length(),
+                name.length() - SEGMENT_SUFFIX.length()));
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        return new Segment(id, path, channel);
+    }
+
+    private MessageDigest newSha256() throws IOException {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IOException("SHA-256 not available", e);
+        }
+    }
+
+    private String generateCertificateId(EvidenceEntity evidence) {
+        // 与文件系统存储相同的证书ID规则，便于在两种存储间迁移
+        String safeEvidenceId = evidence.getEvidenceId().replaceAll("[^a-zA-Z0-9._-]", "_");
+        return "cert_" + safeEvidenceId;
+    }
+
+    private Location indexPut(String certificateId, Location location) {
+        Location previous = index.put(certificateId, location);
+        if (previous != null) {
+            byCreatedAt.remove(metadataOf(certificateId, previous));
+        }
+        byCreatedAt.add(metadataOf(certificateId, location));
+        return previous;
+    }
+
+    private Location indexRemove(String certificateId) {
+        Location previous = index.remove(certificateId);
+        if (previous != null) {
+            byCreatedAt.remove(metadataOf(certificateId, previous));
+        }
+        return previous;
+    }
+
+    private CertificateMetadata metadataOf(String certificateId, Location location) {
+        return new CertificateMetadata(certificateId, location.dataLength, location.sha256,
+                location.createdAtMillis);
+    }
+
+    @FunctionalInterface
+    private interface RecordVisitor {
+        void visit(Record record) throws IOException;
+    }
+
+    private static final class Record {
+        private byte type;
+        private String certificateId;
+        private long createdAtMillis;
+        private String sha256;
+        private long dataOffset;
+        private int dataLength;
+        private long recordLength;
+    }
+
+    private static final class Location {
+        private final int segmentId;
+        private final long dataOffset;
+        private final int dataLength;
+        private final long recordLength;
+        private final String sha256;
+        private final long createdAtMillis;
+
+        private Location(int segmentId, long dataOffset, int dataLength, long recordLength,
+                String sha256, long createdAtMillis) {
+            this.segmentId = segmentId;
+            this.dataOffset = dataOffset;
+            this.dataLength = dataLength;
+            this.recordLength = recordLength;
+            this.sha256 = sha256;
+            this.createdAtMillis = createdAtMillis;
+        }
+    }
+
+    private static final class Segment {
+        private final int id;
+        private final Path path;
+        private final FileChannel channel;
+        private final AtomicLong garbageBytes = new AtomicLong();
+        // 段内出现过写入记录的证书ID（包括已失效的记录）
+        private final Set<String> putIds = ConcurrentHashMap.newKeySet();
+
+        private volatile long size;
+        private volatile MappedByteBuffer mapped;
+
+        private Segment(int id, Path path, FileChannel channel) {
+            this.id = id;
+            this.path = path;
+            this.channel = channel;
+        }
+
+        /**
+         * 获取段内区间的只读切片；活动段增长超出当前映射范围时重新映射
+         */
+        private ByteBuffer slice(long offset, int length) throws IOException {
+            MappedByteBuffer current = mapped;
+            if (current == null || offset + length > current.capacity()) {
+                synchronized (this) {
+                    current = mapped;
+                    if (current == null || offset + length > current.capacity()) {
+                        current = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+                        mapped = current;
+                    }
+                }
+            }
+            return current.slice((int) offset, length).asReadOnlyBuffer();
+        }
+    }
+}
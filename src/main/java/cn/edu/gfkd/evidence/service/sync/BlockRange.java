@@ -0,0 +1,37 @@
+package cn.edu.gfkd.evidence.service.sync;
+
+import java.math.BigInteger;
+
+/**
+ * 区块范围（起止区块均包含在内）
+ */
+public final class BlockRange {
+
+    private final BigInteger startBlock;
+    private final BigInteger endBlock;
+
+    public BlockRange(BigInteger startBlock, BigInteger endBlock) {
+        this.startBlock = startBlock;
+        this.endBlock = endBlock;
+    }
+
+    public BigInteger getStartBlock() {
+        return startBlock;
+    }
+
+    public BigInteger getEndBlock() {
+        return endBlock;
+    }
+
+    /**
+     * 范围内的区块数量
+     */
+    public BigInteger size() {
+        return endBlock.subtract(startBlock).add(BigInteger.ONE);
+    }
+
+    @Override
+    public String toString() {
+        return startBlock + "-" + endBlock;
+    }
+}
@@ -0,0 +1,87 @@
+package cn.edu.gfkd.evidence.service.sync;
+
+import java.math.BigInteger;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 追赶模式服务
+ *
+ * 主要职责： 1. 根据同步延迟自动进入/退出追赶模式（带滞后区间，避免来回切换） 2. 追赶模式下证书渲染流水线暂停领取任务，只写入证据记录
+ * 3. 恢复正常模式后由渲染流水线继续生成积压的证书
+ */
+@Service @Slf4j
+public class CatchUpModeService {
+
+    @Value("${blockchain.sync.catch-up.enabled:true}")
+    private boolean enabled;
+
+    // 延迟超过该区块数时进入追赶模式
+    @Value("${blockchain.sync.catch-up.enter-lag-blocks:100}")
+    private long enterLagBlocks;
+
+    // 延迟降到该区块数以内时恢复正常模式
+    @Value("${blockchain.sync.catch-up.exit-lag-blocks:20}")
+    private long exitLagBlocks;
+
+    private final AtomicBoolean catchingUp = new AtomicBoolean(false);
+    private volatile BigInteger lastLagBlocks = BigInteger.ZERO;
+
+    /**
+     * 根据当前链头和已完成的最高区块更新追赶模式
+     * 
+     * 延迟只反映链头之后尚未处理的积压，检查点之后的缺口由缺口审计补齐，不计入延迟
+     *
+     * @param currentBlock 当前链头区块号
+     * @param syncedBlock 已完成的最高区块号
+     * @return 更新后是否处于追赶模式
+     */
+    public boolean updateLag(BigInteger currentBlock, BigInteger syncedBlock) {
+        if (!enabled || currentBlock == null || syncedBlock == null) {
+            return false;
+        }
+
+        BigInteger lag = currentBlock.subtract(syncedBlock).max(BigInteger.ZERO);
+        lastLagBlocks = lag;
+
+        if (lag.compareTo(BigInteger.valueOf(enterLagBlocks)) > 0) {
+            if (catchingUp.compareAndSet(false, true)) {
+                log.warn("Entering catch-up mode: {} blocks behind, certificate generation deferred",
+                        lag);
+            }
+        } else if (lag.compareTo(BigInteger.valueOf(exitLagBlocks)) <= 0) {
+            if (catchingUp.compareAndSet(true, false)) {
+                log.info("Leaving catch-up mode: {} blocks behind, resuming certificate generation",
+                        lag);
+            }
+        }
+
+        return catchingUp.get();
+    }
+
+    /**
+     * 是否处于追赶模式（证书渲染流水线据此暂停领取任务）
+     */
+    public boolean isCatchingUp() {
+        return catchingUp.get();
+    }
+
+    /**
+     * 最近一次记录的同步延迟区块数
+     */
+    public BigInteger getLastLagBlocks() {
+        return lastLagBlocks;
+    }
+
+    /**
+     * 停止时退出追赶模式
+     */
+    public void reset() {
+        catchingUp.set(false);
+        lastLagBlocks = BigInteger.ZERO;
+    }
+}
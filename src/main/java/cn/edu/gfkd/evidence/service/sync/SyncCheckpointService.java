@@ -0,0 +1,431 @@
+package cn.edu.gfkd.evidence.service.sync;
+
+import java.math.BigInteger;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import cn.edu.gfkd.evidence.entity.SyncStatus;
+import cn.edu.gfkd.evidence.exception.SyncException;
+import cn.edu.gfkd.evidence.repository.SyncStatusRepository;
+import cn.edu.gfkd.evidence.service.retry.RetryHandler;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 同步检查点服务 - 合并写入同步进度
+ *
+ * 主要职责： 1. 在内存中维护已连续完成的最高区块号 2. 按时间间隔或区块数量批量刷新到 SyncStatus 3. 停止和关闭时同步刷新，保证崩溃后的重放范围有界
+ * 4. 持久化检查点之后的已完成范围，供缺口检测使用 5. 记录订阅中断造成的缺口，使其在重启后仍可被审计补齐
+ */
+@Service @Slf4j
+public class SyncCheckpointService {
+
+    private final SyncStatusRepository syncStatusRepository;
+    private final RetryHandler retryHandler;
+
+    // 检查点刷新配置
+    @Value("${blockchain.sync.checkpoint.flush-interval-ms:5000}")
+    private long flushIntervalMs;
+
+    @Value("${blockchain.sync.checkpoint.flush-every-blocks:500}")
+    private long flushEveryBlocks;
+
+    // 内存状态，由 stateLock 保护
+    private final Object stateLock = new Object();
+    private String contractAddress;
+    private BigInteger contiguousBlock;
+    private BigInteger flushedBlock;
+    // 已完成但尚未与连续区间相接的区块范围：起始区块 -> 结束区块
+    private final TreeMap<BigInteger, BigInteger> pendingRanges = new TreeMap<>();
+    private boolean pendingRangesDirty = false;
+
+    // 刷新操作串行化
+    private final Object flushLock = new Object();
+
+    private ScheduledExecutorService flushScheduler;
+    private final AtomicBoolean isRunning = new AtomicBoolean(false);
+
+    public SyncCheckpointService(SyncStatusRepository syncStatusRepository,
+            RetryHandler retryHandler) {
+        this.syncStatusRepository = syncStatusRepository;
+        this.retryHandler = retryHandler;
+    }
+
+    /**
+     * 启动检查点服务，从数据库加载最后持久化的区块号
+     *
+     * @param contractAddress 合约地址
+     */
+    public void start(String contractAddress) {
+        if (isRunning.get()) {
+            log.warn("Sync checkpoint service is already running");
+            return;
+        }
+
+        SyncStatus persisted = retryHandler.executeWithRetry(
+                () -> syncStatusRepository.findById(contractAddress).orElse(null),
+                "load sync checkpoint");
+        BigInteger persistedBlock = persisted != null ? persisted.getLastBlockNumber()
+                : BigInteger.ZERO;
+
+        synchronized (stateLock) {
+            this.contractAddress = contractAddress;
+            this.contiguousBlock = persistedBlock;
+            this.flushedBlock = persistedBlock;
+            this.pendingRanges.clear();
+            if (persisted != null) {
+                for (BlockRange range : decodeRanges(persisted.getCompletedRanges())) {
+                    if (range.getEndBlock().compareTo(persistedBlock) > 0) {
+                        addPendingRange(range.getStartBlock(), range.getEndBlock());
+                    }
+                }
+                drainPendingRanges();
+            }
+            this.pendingRangesDirty = false;
+        }
+
+        flushScheduler = Executors.newSingleThreadScheduledExecutor();
+        flushScheduler.scheduleWithFixedDelay(this::flushQuietly, flushIntervalMs,
+                flushIntervalMs, TimeUnit.MILLISECONDS);
+        isRunning.set(true);
+
+        log.info(
+                "Sync checkpoint service started: contract={}, checkpoint={}, flushInterval={}ms, flushEveryBlocks={}",
+                contractAddress, persistedBlock, flushIntervalMs, flushEveryBlocks);
+    }
+
+    /**
+     * 停止检查点服务并同步刷新最后的检查点
+     */
+    public void stop() {
+        if (!isRunning.getAndSet(false)) {
+            return;
+        }
+
+        log.info("Stopping sync checkpoint service...");
+
+        if (flushScheduler != null) {
+            flushScheduler.shutdown();
+            try {
+                if (!flushScheduler.awaitTermination(10, TimeUnit.SECONDS)) {
+                    flushScheduler.shutdownNow();
+                }
+            } catch (InterruptedException e) {
+                flushScheduler.shutdownNow();
+                Thread.currentThread().interrupt();
+            }
+            flushScheduler = null;
+        }
+
+        flush();
+        log.info("Sync checkpoint service stopped at block {}", getCheckpoint());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        stop();
+    }
+
+    /**
+     * 检查服务是否已启动
+     */
+    public boolean isRunning() {
+        return isRunning.get();
+    }
+
+    /**
+     * 标记区块范围已完成处理
+     *
+     * @param startBlock 起始区块（包含）
+     * @param endBlock 结束区块（包含）
+     */
+    public void markRangeCompleted(BigInteger startBlock, BigInteger endBlock) {
+        if (startBlock.compareTo(endBlock) > 0) {
+            return;
+        }
+
+        boolean shouldFlush;
+        synchronized (stateLock) {
+            if (contiguousBlock == null) {
+                throw new SyncException("Sync checkpoint service has not been started");
+            }
+
+            if (endBlock.compareTo(contiguousBlock) <= 0) {
+                return;
+            }
+
+            if (startBlock.compareTo(contiguousBlock.add(BigInteger.ONE)) <= 0) {
+                contiguousBlock = endBlock;
+                pendingRangesDirty |= drainPendingRanges();
+            } else {
+                addPendingRange(startBlock, endBlock);
+                pendingRangesDirty = true;
+                log.debug("Block range {} to {} completed ahead of checkpoint {}", startBlock,
+                        endBlock, contiguousBlock);
+            }
+
+            shouldFlush = contiguousBlock.subtract(flushedBlock)
+                    .compareTo(BigInteger.valueOf(flushEveryBlocks)) >= 0;
+        }
+
+        if (shouldFlush) {
+            flushQuietly();
+        }
+    }
+
+    /**
+     * 将区块范围重新标记为未完成（订阅中断时其中的事件可能已丢失）
+     * 
+     * 连续检查点会回退到缺口之前，缺口之后已完成的部分保留为待定范围，缺口立即持久化，由缺口审计重新拉取
+     *
+     * @param startBlock 起始区块（包含）
+     * @param endBlock 结束区块（包含）
+     */
+    public void markRangeIncomplete(BigInteger startBlock, BigInteger endBlock) {
+        if (startBlock.compareTo(endBlock) > 0) {
+            return;
+        }
+
+        boolean changed = false;
+        synchronized (stateLock) {
+            if (contiguousBlock == null) {
+                throw new SyncException("Sync checkpoint service has not been started");
+            }
+
+            if (startBlock.compareTo(contiguousBlock) <= 0) {
+                if (endBlock.compareTo(contiguousBlock) < 0) {
+                    addPendingRange(endBlock.add(BigInteger.ONE), contiguousBlock);
+                }
+                contiguousBlock = startBlock.subtract(BigInteger.ONE).max(BigInteger.ZERO);
+                changed = true;
+            }
+            changed |= removePendingRange(startBlock, endBlock);
+
+            if (changed) {
+                pendingRangesDirty = true;
+                log.warn("Block range {} to {} marked incomplete, checkpoint is now {}",
+                        startBlock, endBlock, contiguousBlock);
+            }
+        }
+
+        if (changed) {
+            flushQuietly();
+        }
+    }
+
+    /**
+     * 获取内存中的检查点（已连续完成的最高区块号）
+     */
+    public BigInteger getCheckpoint() {
+        synchronized (stateLock) {
+            return contiguousBlock;
+        }
+    }
+
+    /**
+     * 获取已完成的最高区块号（可能高于检查点，中间存在缺口）
+     */
+    public BigInteger getHighestCompletedBlock() {
+        synchronized (stateLock) {
+            if (contiguousBlock == null) {
+                throw new SyncException("Sync checkpoint service has not been started");
+            }
+            return pendingRanges.isEmpty() ? contiguousBlock
+                    : contiguousBlock.max(pendingRanges.lastEntry().getValue());
+        }
+    }
+
+    /**
+     * 获取最后持久化到数据库的区块号
+     */
+    public BigInteger getFlushedCheckpoint() {
+        synchronized (stateLock) {
+            return flushedBlock;
+        }
+    }
+
+    /**
+     * 查找检查点之后尚未完成的区块缺口
+     * 
+     * @return 缺口列表，按区块号升序
+     */
+    public List<BlockRange> findGaps() {
+        List<BlockRange> gaps = new ArrayList<>();
+        synchronized (stateLock) {
+            if (contiguousBlock == null) {
+                return gaps;
+            }
+            BigInteger expected = contiguousBlock.add(BigInteger.ONE);
+            for (Map.Entry<BigInteger, BigInteger> range : pendingRanges.entrySet()) {
+                if (range.getKey().compareTo(expected) > 0) {
+                    gaps.add(new BlockRange(expected, range.getKey().subtract(BigInteger.ONE)));
+                }
+                expected = expected.max(range.getValue().add(BigInteger.ONE));
+            }
+        }
+        return gaps;
+    }
+
+    /**
+     * 将内存中的检查点写入 SyncStatus
+     *
+     * @throws SyncException 写入失败时抛出
+     */
+    public void flush() {
+        synchronized (flushLock) {
+            String address;
+            BigInteger target;
+            String ranges;
+            synchronized (stateLock) {
+                if (contiguousBlock == null || (contiguousBlock.compareTo(flushedBlock) <= 0
+                        && !pendingRangesDirty)) {
+                    return;
+                }
+                address = contractAddress;
+                target = contiguousBlock;
+                ranges = encodeRanges(pendingRanges);
+                pendingRangesDirty = false;
+            }
+
+            try {
+                retryHandler.executeWithRetryTransactional(() -> {
+                    SyncStatus syncStatus = syncStatusRepository.findById(address)
+                            .orElseGet(() -> new SyncStatus(address, BigInteger.ZERO));
+                    syncStatus.setLastBlockNumber(target);
+                    syncStatus.setCompletedRanges(ranges);
+                    syncStatus.setLastSyncTimestamp(LocalDateTime.now());
+                    syncStatus.setSyncStatus("SYNCED");
+                    return syncStatusRepository.save(syncStatus);
+                }, "flush sync checkpoint");
+            } catch (Exception e) {
+                synchronized (stateLock) {
+                    pendingRangesDirty = true;
+                }
+                throw new SyncException("Failed to flush sync checkpoint to block " + target, e);
+            }
+
+            // 刷新操作串行执行，最后一次写入的值即数据库中的检查点（缺口标记可能使其回退）
+            synchronized (stateLock) {
+                flushedBlock = target;
+            }
+            log.debug("Flushed sync checkpoint: contract={}, blockNumber={}", address, target);
+        }
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (Exception e) {
+            log.error("Failed to flush sync checkpoint, will retry on next flush", e);
+        }
+    }
+
+    /**
+     * 合并已与连续区间相接的待定范围（调用方需持有 stateLock）
+     * 
+     * @return 是否有待定范围被合并
+     */
+    private boolean drainPendingRanges() {
+        boolean drained = false;
+        while (!pendingRanges.isEmpty()) {
+            Map.Entry<BigInteger, BigInteger> first = pendingRanges.firstEntry();
+            if (first.getKey().compareTo(contiguousBlock.add(BigInteger.ONE)) > 0) {
+                break;
+            }
+            pendingRanges.pollFirstEntry();
+            contiguousBlock = contiguousBlock.max(first.getValue());
+            drained = true;
+        }
+        return drained;
+    }
+
+    /**
+     * 加入待定范围，并与相邻或重叠的范围合并（调用方需持有 stateLock）
+     */
+    private void addPendingRange(BigInteger startBlock, BigInteger endBlock) {
+        BigInteger mergedStart = startBlock;
+        BigInteger mergedEnd = endBlock;
+
+        Map.Entry<BigInteger, BigInteger> floor = pendingRanges.floorEntry(startBlock);
+        if (floor != null && floor.getValue().add(BigInteger.ONE).compareTo(startBlock) >= 0) {
+            mergedStart = floor.getKey();
+            mergedEnd = mergedEnd.max(floor.getValue());
+            pendingRanges.remove(floor.getKey());
+        }
+
+        Map.Entry<BigInteger, BigInteger> next = pendingRanges.ceilingEntry(mergedStart);
+        while (next != null && next.getKey().compareTo(mergedEnd.add(BigInteger.ONE)) <= 0) {
+            mergedEnd = mergedEnd.max(next.getValue());
+            pendingRanges.remove(next.getKey());
+            next = pendingRanges.ceilingEntry(mergedStart);
+        }
+
+        pendingRanges.put(mergedStart, mergedEnd);
+    }
+
+    /**
+     * 从待定范围中移除指定区块范围，部分重叠的范围会被截断或拆分（调用方需持有 stateLock）
+     * 
+     * @return 是否有待定范围被修改
+     */
+    private boolean removePendingRange(BigInteger startBlock, BigInteger endBlock) {
+        boolean removed = false;
+        Map.Entry<BigInteger, BigInteger> range = pendingRanges.floorEntry(endBlock);
+        while (range != null && range.getValue().compareTo(startBlock) >= 0) {
+            pendingRanges.remove(range.getKey());
+            if (range.getKey().compareTo(startBlock) < 0) {
+                pendingRanges.put(range.getKey(), startBlock.subtract(BigInteger.ONE));
+            }
+            if (range.getValue().compareTo(endBlock) > 0) {
+                pendingRanges.put(endBlock.add(BigInteger.ONE), range.getValue());
+            }
+            removed = true;
+            range = pendingRanges.lowerEntry(range.getKey());
+        }
+        return removed;
+    }
+
+    private static String encodeRanges(TreeMap<BigInteger, BigInteger> ranges) {
+        if (ranges.isEmpty()) {
+            return null;
+        }
+        StringBuilder encoded = new StringBuilder();
+        for (Map.Entry<BigInteger, BigInteger> range : ranges.entrySet()) {
+            if (encoded.length() > 0) {
+                encoded.append(',');
+            }
+            encoded.append(range.getKey()).append('-').append(range.getValue());
+        }
+        return encoded.toString();
+    }
+
+    private static List<BlockRange> decodeRanges(String encoded) {
+        List<BlockRange> ranges = new ArrayList<>();
+        if (encoded == null || encoded.isBlank()) {
+            return ranges;
+        }
+        for (String part : encoded.split(",")) {
+            String[] bounds = part.trim().split("-");
+            if (bounds.length != 2) {
+                log.warn("Ignoring malformed completed range: {}", part);
+                continue;
+            }
+            try {
+                ranges.add(new BlockRange(new BigInteger(bounds[0]), new BigInteger(bounds[1])));
+            } catch (NumberFormatException e) {
+                log.warn("Ignoring malformed completed range: {}", part);
+            }
+        }
+        return ranges;
+    }
+}
@@ -0,0 +1,157 @@
+package cn.edu.gfkd.evidence.service.sync;
+
+import java.math.BigInteger;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import cn.edu.gfkd.evidence.enums.RpcPriority;
+import cn.edu.gfkd.evidence.exception.BlockchainException;
+import cn.edu.gfkd.evidence.service.BlockchainEvidenceEventService;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 同步缺口审计服务
+ *
+ * 主要职责： 1. 周期性检查检查点之后的已完成区块范围中的缺口 2. 以低优先级只重新拉取缺失的区块范围 3. 避免因漏块而进行全量历史重放
+ */
+@Service @Slf4j
+public class SyncGapAuditService {
+
+    private final SyncCheckpointService syncCheckpointService;
+    private final BlockchainEvidenceEventService blockchainEvidenceEventService;
+
+    // 审计调度配置
+    @Value("${blockchain.sync.gap-audit.enabled:true}")
+    private boolean enabled;
+
+    @Value("${blockchain.sync.gap-audit.interval-sec:120}")
+    private long intervalSec;
+
+    @Value("${blockchain.sync.gap-audit.initial-delay-sec:60}")
+    private long initialDelaySec;
+
+    // 单次审计最多补齐的区块数量，限制对节点和数据库的压力
+    @Value("${blockchain.sync.gap-audit.max-blocks-per-run:1000}")
+    private long maxBlocksPerRun;
+
+    private ScheduledExecutorService auditScheduler;
+    private final AtomicBoolean isRunning = new AtomicBoolean(false);
+
+    public SyncGapAuditService(SyncCheckpointService syncCheckpointService,
+            BlockchainEvidenceEventService blockchainEvidenceEventService) {
+        this.syncCheckpointService = syncCheckpointService;
+        this.blockchainEvidenceEventService = blockchainEvidenceEventService;
+    }
+
+    /**
+     * 启动缺口审计调度器
+     */
+    public void start() {
+        if (!enabled) {
+            log.info("Sync gap audit is disabled");
+            return;
+        }
+
+        if (isRunning.get()) {
+            log.warn("Sync gap audit is already running");
+            return;
+        }
+
+        auditScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "sync-gap-audit");
+            thread.setDaemon(true);
+            thread.setPriority(Thread.MIN_PRIORITY);
+            return thread;
+        });
+        auditScheduler.scheduleWithFixedDelay(this::auditGaps, initialDelaySec, intervalSec,
+                TimeUnit.SECONDS);
+        isRunning.set(true);
+
+        log.info("Sync gap audit started - interval: {}s, initial delay: {}s, max blocks per run: {}",
+                intervalSec, initialDelaySec, maxBlocksPerRun);
+    }
+
+    /**
+     * 停止缺口审计调度器
+     */
+    public void stop() {
+        if (!isRunning.getAndSet(false)) {
+            return;
+        }
+
+        if (auditScheduler != null) {
+            auditScheduler.shutdown();
+            try {
+                if (!auditScheduler.awaitTermination(10, TimeUnit.SECONDS)) {
+                    auditScheduler.shutdownNow();
+                }
+            } catch (InterruptedException e) {
+                auditScheduler.shutdownNow();
+                Thread.currentThread().interrupt();
+            }
+            auditScheduler = null;
+        }
+
+        log.info("Sync gap audit stopped");
+    }
+
+    /**
+     * 执行一次缺口审计，补齐发现的缺口
+     *
+     * @return 本次重新拉取的区块数量
+     */
+    public long auditGaps() {
+        if (!blockchainEvidenceEventService.isListening() || !syncCheckpointService.isRunning()) {
+            log.debug("Event listener not running, skipping gap audit");
+            return 0;
+        }
+
+        try {
+            List<BlockRange> gaps = syncCheckpointService.findGaps();
+            if (gaps.isEmpty()) {
+                log.debug("No sync gaps found");
+                return 0;
+            }
+
+            log.warn("Found {} sync gaps after checkpoint {}: {}", gaps.size(),
+                    syncCheckpointService.getCheckpoint(), gaps);
+
+            long budget = maxBlocksPerRun;
+            long refetched = 0;
+            for (BlockRange gap : gaps) {
+                if (budget <= 0 || Thread.currentThread().isInterrupted()) {
+                    break;
+                }
+
+                BigInteger endBlock = gap.getEndBlock().min(
+                        gap.getStartBlock().add(BigInteger.valueOf(budget - 1)));
+                try {
+                    log.info("Refetching missed block range {} to {}", gap.getStartBlock(),
+                            endBlock);
+                    blockchainEvidenceEventService.syncHistoricalEvents(gap.getStartBlock(),
+                            endBlock, RpcPriority.AUDIT);
+                    long blocks = endBlock.subtract(gap.getStartBlock()).longValue() + 1;
+                    refetched += blocks;
+                    budget -= blocks;
+                } catch (BlockchainException e) {
+                    log.error("Failed to refetch missed block range {} to {}: {}",
+                            gap.getStartBlock(), endBlock, e.getMessage());
+                }
+            }
+
+            log.info("Sync gap audit completed: {} blocks refetched, checkpoint now {}", refetched,
+                    syncCheckpointService.getCheckpoint());
+            return refetched;
+
+        } catch (Exception e) {
+            log.error("Error during sync gap audit", e);
+            return 0;
+        }
+    }
+}
@@ -0,0 +1,251 @@
+package cn.edu.gfkd.evidence.service.web3;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.web3j.protocol.core.Request;
+import org.web3j.protocol.core.Response;
+
+import cn.edu.gfkd.evidence.enums.RpcPriority;
+import cn.edu.gfkd.evidence.exception.BlockchainException;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 共享RPC预算调度器 - 令牌桶限流与优先级分配
+ *
+ * 主要职责：
+ * 1. 以令牌桶限制对节点的总请求速率
+ * 2. 按优先级分配令牌，高优先级等待者先获得令牌
+ * 3. 为实时处理预留令牌，避免历史同步挤占实时处理
+ * 4. 统计各优先级的请求数量和等待时间
+ */
+@Service @Slf4j
+public class RpcBudgetScheduler {
+
+    // 每秒最大请求数，0 表示不限流
+    @Value("${blockchain.rpc.max-requests-per-second:0}")
+    private double maxRequestsPerSecond;
+
+    // 令牌桶容量（允许的突发请求数）
+    @Value("${blockchain.rpc.burst:50}")
+    private int burst;
+
+    // 只有实时处理可以使用的预留令牌数（处理器可使用一半）
+    @Value("${blockchain.rpc.reserved-tokens:10}")
+    private int reservedTokens;
+
+    // 获取令牌的最长等待时间
+    @Value("${blockchain.rpc.max-wait-ms:60000}")
+    private long maxWaitMs;
+
+    private final ReentrantLock lock = new ReentrantLock(true);
+    private final Condition tokensChanged = lock.newCondition();
+    private final int[] waiting = new int[RpcPriority.values().length];
+    private double tokens;
+    private long lastRefillNanos;
+
+    // 统计信息
+    private final AtomicLongArray requestCounts = new AtomicLongArray(RpcPriority.values().length);
+    private final AtomicLongArray waitMillis = new AtomicLongArray(RpcPriority.values().length);
+
+    @PostConstruct
+    public void init() {
+        if (burst < 1) {
+            burst = 1;
+        }
+        if (reservedTokens >= burst) {
+            reservedTokens = burst - 1;
+        }
+        tokens = burst;
+        lastRefillNanos = System.nanoTime();
+
+        if (isLimited()) {
+            log.info("RPC budget enabled: {} requests/s, burst: {}, reserved for real-time: {}",
+                    maxRequestsPerSecond, burst, reservedTokens);
+        } else {
+            log.info("RPC budget disabled, requests are not rate limited");
+        }
+    }
+
+    /**
+     * 按优先级发送Web3j请求
+     *
+     * @param priority 请求优先级
+     * @param request Web3j请求
+     * @return 响应结果
+     * @throws IOException 请求失败时抛出
+     * @throws BlockchainException 等待预算超时或被中断时抛出
+     */
+    public <T extends Response<?>> T send(RpcPriority priority, Request<?, T> request)
+            throws IOException {
+        acquire(priority);
+        return request.send();
+    }
+
+    /**
+     * 按优先级执行任意节点调用（例如合约的 RemoteFunctionCall）
+     *
+     * @param priority 请求优先级
+     * @param call 节点调用
+     * @return 调用结果
+     * @throws Exception 调用失败时抛出
+     */
+    public <T> T call(RpcPriority priority, RpcCall<T> call) throws Exception {
+        acquire(priority);
+        return call.call();
+    }
+
+    /**
+     * 阻塞获取一个令牌
+     *
+     * @param priority 请求优先级
+     * @throws BlockchainException 等待超时或被中断时抛出
+     */
+    public void acquire(RpcPriority priority) {
+        int index = priority.ordinal();
+        requestCounts.incrementAndGet(index);
+
+        if (!isLimited()) {
+            return;
+        }
+
+        long startNanos = System.nanoTime();
+        long deadline = startNanos + TimeUnit.MILLISECONDS.toNanos(maxWaitMs);
+
+        lock.lock();
+        try {
+            waiting[index]++;
+            try {
+                while (true) {
+                    refill();
+                    if (canTake(priority)) {
+                        tokens -= 1;
+                        return;
+                    }
+
+                    long remaining = deadline - System.nanoTime();
+                    if (remaining <= 0) {
+                        throw new BlockchainException(
+                                "Timed out waiting for RPC budget, priority: " + priority);
+                    }
+
+                    double missing = 1 + reserveFor(priority) - tokens;
+                    long nanosToToken = (long) (Math.max(missing, 0) / maxRequestsPerSecond
+                            * TimeUnit.SECONDS.toNanos(1));
+                    tokensChanged.awaitNanos(Math.max(TimeUnit.MILLISECONDS.toNanos(1),
+                            Math.min(remaining, nanosToToken)));
+                }
+            } finally {
+                waiting[index]--;
+                waitMillis.addAndGet(index,
+                        TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos));
+                tokensChanged.signalAll();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new BlockchainException("Interrupted while waiting for RPC budget", e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 非阻塞地尝试获取一个令牌，用于可跳过的低优先级调用（如健康检查）
+     *
+     * @param priority 请求优先级
+     * @return 是否获取成功
+     */
+    public boolean tryAcquire(RpcPriority priority) {
+        if (!isLimited()) {
+            requestCounts.incrementAndGet(priority.ordinal());
+            return true;
+        }
+
+        lock.lock();
+        try {
+            refill();
+            if (canTake(priority)) {
+                tokens -= 1;
+                requestCounts.incrementAndGet(priority.ordinal());
+                return true;
+            }
+            return false;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 获取调度统计信息
+     *
+     * @return 各优先级的请求数和累计等待时间
+     */
+    public String getStatistics() {
+        StringBuilder stats = new StringBuilder();
+        stats.append(isLimited() ? maxRequestsPerSecond + " req/s" : "unlimited");
+        for (RpcPriority priority : RpcPriority.values()) {
+            stats.append(", ").append(priority.name()).append(": ")
+                    .append(requestCounts.get(priority.ordinal())).append(" requests/")
+                    .append(waitMillis.get(priority.ordinal())).append("ms waited");
+        }
+        return stats.toString();
+    }
+
+    private boolean isLimited() {
+        return maxRequestsPerSecond > 0;
+    }
+
+    /**
+     * 按时间补充令牌（调用方需持有锁）
+     */
+    private void refill() {
+        long now = System.nanoTime();
+        double elapsedSeconds = (now - lastRefillNanos) / (double) TimeUnit.SECONDS.toNanos(1);
+        if (elapsedSeconds > 0) {
+            tokens = Math.min(burst, tokens + elapsedSeconds * maxRequestsPerSecond);
+            lastRefillNanos = now;
+        }
+    }
+
+    /**
+     * 检查指定优先级当前能否获取令牌（调用方需持有锁）
+     */
+    private boolean canTake(RpcPriority priority) {
+        for (int i = 0; i < priority.ordinal(); i++) {
+            if (waiting[i] > 0) {
+                return false;
+            }
+        }
+        return tokens >= 1 + reserveFor(priority);
+    }
+
+    /**
+     * 指定优先级必须为更高优先级保留的令牌数
+     */
+    private double reserveFor(RpcPriority priority) {
+        switch (priority) {
+            case REAL_TIME:
+                return 0;
+            case PROCESSOR:
+                return reservedTokens / 2.0;
+            default:
+                return reservedTokens;
+        }
+    }
+
+    /**
+     * 节点调用函数式接口
+     *
+     * @param <T> 返回类型
+     */
+    @FunctionalInterface
+    public interface RpcCall<T> {
+        T call() throws Exception;
+    }
+}
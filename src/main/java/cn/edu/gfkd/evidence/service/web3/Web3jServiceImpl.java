@@ -1,24 +1,34 @@
 package cn.edu.gfkd.evidence.service.web3;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.web3j.protocol.Web3j;
 
+import cn.edu.gfkd.evidence.enums.RpcPriority;
 import cn.edu.gfkd.evidence.exception.BlockchainException;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
 /**
  * Web3j服务实现
- * 
+ *
  * 主要职责：
  * 1. 提供Web3j客户端的统一访问
  * 2. 管理Web3j连接状态
- * 3. 提供连接健康检查功能
+ * 3. 提供连接健康检查功能（结果短时缓存，按健康检查优先级占用RPC预算）
  */
 @Service @RequiredArgsConstructor @Slf4j
 public class Web3jServiceImpl implements Web3jService {
 
     private final Web3j web3j;
+    private final RpcBudgetScheduler rpcBudgetScheduler;
+
+    // 连接检查结果的缓存时间，避免每次获取客户端都请求节点
+    @Value("${blockchain.rpc.health-check-cache-ms:5000}")
+    private long healthCheckCacheMs;
+
+    private volatile boolean lastConnectionValid = true;
+    private volatile long lastConnectionCheckMillis;
 
     @Override
     public Web3j getWeb3j() {
@@ -30,13 +40,32 @@ public class Web3jServiceImpl implements Web3jService {
 
     @Override
     public boolean isConnectionValid() {
+        if (web3j == null) {
+            return false;
+        }
+
+        long now = System.currentTimeMillis();
+        if (now - lastConnectionCheckMillis < healthCheckCacheMs) {
+            return lastConnectionValid;
+        }
+
+        // 预算不足时沿用上次结果，健康检查不与实时处理争抢令牌
+        if (!rpcBudgetScheduler.tryAcquire(RpcPriority.AUDIT)) {
+            return lastConnectionValid;
+        }
+
+        boolean valid;
         try {
             // 简单的连接检查
-            return web3j != null && web3j.ethBlockNumber().send().getBlockNumber() != null;
+            valid = web3j.ethBlockNumber().send().getBlockNumber() != null;
         } catch (Exception e) {
             log.warn("Web3j connection check failed: {}", e.getMessage());
-            return false;
+            valid = false;
         }
+
+        lastConnectionValid = valid;
+        lastConnectionCheckMillis = now;
+        return valid;
     }
 
     @Override
@@ -45,18 +74,18 @@ public class Web3jServiceImpl implements Web3jService {
             if (web3j == null) {
                 return "DISCONNECTED - Web3j client is null";
             }
-            
-            org.web3j.protocol.core.methods.response.EthBlockNumber blockNumber = 
-                web3j.ethBlockNumber().send();
-            
+
+            org.web3j.protocol.core.methods.response.EthBlockNumber blockNumber =
+                rpcBudgetScheduler.send(RpcPriority.AUDIT, web3j.ethBlockNumber());
+
             if (blockNumber == null) {
                 return "ERROR - Block number response is null";
             }
-            
+
             return String.format("CONNECTED - Current block: %d", blockNumber.getBlockNumber());
-            
+
         } catch (Exception e) {
             return String.format("ERROR - %s", e.getMessage());
         }
     }
-}
\ No newline at end of file
+}
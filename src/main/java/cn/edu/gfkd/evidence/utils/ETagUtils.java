@@ -0,0 +1,35 @@
+package cn.edu.gfkd.evidence.utils;
+
+/**
+ * ETag 工具类，供证书下载接口和签名下载处理器共用条件请求的判断逻辑
+ */
+public class ETagUtils {
+
+    private ETagUtils() {
+    }
+
+    /**
+     * 判断 If-None-Match 请求头是否命中当前 ETag
+     *
+     * @param ifNoneMatch If-None-Match 请求头，可以是逗号分隔的多个 ETag 或 *
+     * @param etag        当前资源的强 ETag（带双引号）
+     * @return 命中时返回 true，应返回 304
+     */
+    public static boolean matches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null || ifNoneMatch.isEmpty() || etag == null) {
+            return false;
+        }
+
+        // If-None-Match 使用弱比较，忽略 W/ 前缀
+        for (String candidate : ifNoneMatch.split(",")) {
+            String value = candidate.trim();
+            if (value.startsWith("W/")) {
+                value = value.substring(2);
+            }
+            if (value.equals("*") || value.equals(etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
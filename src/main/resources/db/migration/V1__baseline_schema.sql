@@ -0,0 +1,63 @@
+-- 基线表结构：与实体映射保持一致，使用 IF NOT EXISTS 以兼容由 Hibernate 自动建表的既有数据库
+
+CREATE TABLE IF NOT EXISTS users (
+    id INTEGER PRIMARY KEY AUTOINCREMENT,
+    username VARCHAR(50) NOT NULL UNIQUE,
+    password VARCHAR(100) NOT NULL,
+    email VARCHAR(100) NOT NULL UNIQUE,
+    role VARCHAR(20) NOT NULL,
+    created_at TIMESTAMP,
+    updated_at TIMESTAMP
+);
+
+CREATE TABLE IF NOT EXISTS evidence (
+    id INTEGER PRIMARY KEY AUTOINCREMENT,
+    evidence_id VARCHAR(100) NOT NULL UNIQUE,
+    user_address VARCHAR(42) NOT NULL,
+    file_name VARCHAR(255) NOT NULL,
+    mime_type VARCHAR(100),
+    file_size BIGINT,
+    file_creation_time NUMERIC(38, 0),
+    hash_algorithm VARCHAR(20) NOT NULL,
+    hash_value VARCHAR(66) NOT NULL,
+    status VARCHAR(20) NOT NULL,
+    block_number NUMERIC(38, 0) NOT NULL,
+    transaction_hash VARCHAR(66) NOT NULL UNIQUE,
+    block_timestamp NUMERIC(38, 0) NOT NULL,
+    memo TEXT,
+    revoked_at TIMESTAMP,
+    revoker_address VARCHAR(42),
+    created_at TIMESTAMP NOT NULL,
+    updated_at TIMESTAMP NOT NULL,
+    certificate_id VARCHAR(100)
+);
+
+CREATE INDEX IF NOT EXISTS idx_evidence_user_address ON evidence (user_address);
+CREATE INDEX IF NOT EXISTS idx_evidence_status ON evidence (status);
+
+CREATE TABLE IF NOT EXISTS blockchain_event (
+    id INTEGER PRIMARY KEY AUTOINCREMENT,
+    contract_address VARCHAR(42) NOT NULL,
+    event_name VARCHAR(50) NOT NULL,
+    block_number NUMERIC(38, 0) NOT NULL,
+    transaction_hash VARCHAR(66) NOT NULL UNIQUE,
+    block_timestamp NUMERIC(38, 0) NOT NULL,
+    processed_at TIMESTAMP NOT NULL,
+    is_processed BOOLEAN NOT NULL,
+    processing_failures INTEGER NOT NULL,
+    raw_data TEXT,
+    created_at TIMESTAMP NOT NULL
+);
+
+CREATE INDEX IF NOT EXISTS idx_blockchain_event_processed ON blockchain_event (is_processed, block_number);
+
+CREATE TABLE IF NOT EXISTS sync_status (
+    contract_address VARCHAR(42) NOT NULL PRIMARY KEY,
+    last_block_number NUMERIC(38, 0) NOT NULL,
+    last_sync_timestamp TIMESTAMP NOT NULL,
+    sync_status VARCHAR(20) NOT NULL,
+    error_message TEXT,
+    retry_count INTEGER NOT NULL,
+    created_at TIMESTAMP NOT NULL,
+    updated_at TIMESTAMP NOT NULL
+);
@@ -0,0 +1,2 @@
+-- 记录检查点之后已完成但尚未连续的区块范围，用于缺口检测
+ALTER TABLE sync_status ADD COLUMN completed_ranges TEXT;
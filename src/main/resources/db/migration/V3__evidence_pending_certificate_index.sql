@@ -0,0 +1,3 @@
+-- 追赶模式下推迟生成证书的证据记录（certificate_id 为空）按 id 顺序补生成
+CREATE INDEX IF NOT EXISTS idx_evidence_pending_certificate
+    ON evidence (id) WHERE certificate_id IS NULL;
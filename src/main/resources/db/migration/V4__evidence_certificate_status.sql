@@ -0,0 +1,13 @@
+-- 异步证书渲染流水线：证据表即为持久化的渲染队列
+ALTER TABLE evidence ADD COLUMN certificate_status VARCHAR(20);
+ALTER TABLE evidence ADD COLUMN certificate_attempts INTEGER NOT NULL DEFAULT 0;
+ALTER TABLE evidence ADD COLUMN certificate_next_attempt_at TIMESTAMP;
+
+UPDATE evidence SET certificate_status = 'ready' WHERE certificate_id IS NOT NULL;
+UPDATE evidence SET certificate_status = 'pending'
+    WHERE certificate_id IS NULL AND status = 'effective';
+
+-- 由状态索引取代 V3 的待生成证书索引
+DROP INDEX IF EXISTS idx_evidence_pending_certificate;
+CREATE INDEX IF NOT EXISTS idx_evidence_certificate_status
+    ON evidence (certificate_status, certificate_next_attempt_at, id);
@@ -0,0 +1,2 @@
+-- 证书内容摘要（SHA-256），用作下载接口的强 ETag，条件请求无需读取证书文件
+ALTER TABLE evidence ADD COLUMN certificate_hash VARCHAR(64);
@@ -0,0 +1,19 @@
+-- 证书模板版本：记录生成每份证书所用的模板版本，模板更新后据此批量重新生成
+ALTER TABLE evidence ADD COLUMN certificate_template_version VARCHAR(64);
+
+-- 批量重新生成任务及其进度检查点
+CREATE TABLE IF NOT EXISTS certificate_rerender_job (
+    id INTEGER PRIMARY KEY AUTOINCREMENT,
+    template_version VARCHAR(64) NOT NULL,
+    status VARCHAR(20) NOT NULL,
+    last_evidence_id BIGINT NOT NULL DEFAULT 0,
+    rendered_count BIGINT NOT NULL DEFAULT 0,
+    failed_count BIGINT NOT NULL DEFAULT 0,
+    error_message TEXT,
+    created_at TIMESTAMP NOT NULL,
+    updated_at TIMESTAMP NOT NULL,
+    completed_at TIMESTAMP
+);
+
+CREATE INDEX IF NOT EXISTS idx_certificate_rerender_job_status
+    ON certificate_rerender_job (status, id);
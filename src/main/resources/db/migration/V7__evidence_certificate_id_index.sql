@@ -0,0 +1,2 @@
+-- 保留期清理按证书ID批量清除证据表中的引用
+CREATE INDEX IF NOT EXISTS idx_evidence_certificate_id ON evidence (certificate_id);
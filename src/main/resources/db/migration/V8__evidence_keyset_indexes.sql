@@ -0,0 +1,4 @@
+-- 证据游标分页按 (筛选列, created_at, id) 定位和排序；SQLite 索引末尾隐含 rowid（即 id）
+CREATE INDEX IF NOT EXISTS idx_evidence_user_created ON evidence (user_address, created_at);
+CREATE INDEX IF NOT EXISTS idx_evidence_status_created ON evidence (status, created_at);
+CREATE INDEX IF NOT EXISTS idx_evidence_created ON evidence (created_at);
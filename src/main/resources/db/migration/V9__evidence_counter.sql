@@ -0,0 +1,17 @@
+-- 证据数量计数器：按 (用户地址, 状态) 计数，user_address = '*' 的行为全局计数；统计接口直接读取，不再 COUNT 证据表
+CREATE TABLE IF NOT EXISTS evidence_counter (
+    user_address VARCHAR(42) NOT NULL,
+    status VARCHAR(20) NOT NULL,
+    evidence_count BIGINT NOT NULL DEFAULT 0,
+    updated_at TIMESTAMP NOT NULL,
+    PRIMARY KEY (user_address, status)
+);
+
+-- 用现有证据回填计数
+INSERT INTO evidence_counter (user_address, status, evidence_count, updated_at)
+SELECT user_address, status, COUNT(*), CURRENT_TIMESTAMP FROM evidence
+GROUP BY user_address, status;
+
+INSERT INTO evidence_counter (user_address, status, evidence_count, updated_at)
+SELECT '*', status, COUNT(*), CURRENT_TIMESTAMP FROM evidence
+GROUP BY status;
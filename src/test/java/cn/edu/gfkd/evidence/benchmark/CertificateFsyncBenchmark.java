@@ -0,0 +1,84 @@
+package cn.edu.gfkd.evidence.benchmark;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.util.FileSystemUtils;
+
+import cn.edu.gfkd.evidence.config.CertificateStorageConfig;
+import cn.edu.gfkd.evidence.entity.EvidenceEntity;
+import cn.edu.gfkd.evidence.service.storage.FileSystemCertificateStorage;
+
+/**
+ * 文件系统证书存储在不同 fsync 策略下的并发写入吞吐基准测试（stores/s）
+ *
+ * 8 个线程同时写入互不相同的证书，fsync 参数对应 certificate.storage.filesystem.fsync 的取值。
+ *
+ * 运行方式：mvn test-compile 后以 test classpath 执行本类的 main 方法。 数据写入系统临时目录，
+ * 结果与所在磁盘的 fsync 延迟直接相关。
+ */
+@BenchmarkMode(Mode.Throughput) @OutputTimeUnit(TimeUnit.SECONDS) @Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2) @Fork(1) @Threads(8) @State(Scope.Benchmark)
+public class CertificateFsyncBenchmark {
+
+    @Param({ "per-file", "grouped", "none" })
+    public String fsync;
+
+    private final AtomicInteger sequence = new AtomicInteger();
+    private Path baseDir;
+    private FileSystemCertificateStorage storage;
+
+    @Setup
+    public void setUp() throws IOException {
+        baseDir = Files.createTempDirectory("certificate-fsync-benchmark");
+        CertificateStorageConfig config = new CertificateStorageConfig();
+        config.getFilesystem().setBasePath(baseDir.toString());
+        config.getFilesystem().setMigrateOnStartup(false);
+        config.getFilesystem().setFsync(fsync);
+        storage = new FileSystemCertificateStorage(config);
+        storage.initialize();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        storage.cleanup();
+        FileSystemUtils.deleteRecursively(baseDir);
+    }
+
+    @Benchmark
+    public String store() throws IOException {
+        int version = sequence.incrementAndGet();
+        EvidenceEntity evidence = new EvidenceEntity();
+        evidence.setEvidenceId("EVID:" + version);
+        byte[] content = ("%PDF-1.7 certificate v" + version).getBytes(StandardCharsets.UTF_8);
+        return storage.storeCertificate(evidence, out -> out.write(content));
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(CertificateFsyncBenchmark.class.getSimpleName()).build();
+        new Runner(options).run();
+    }
+}
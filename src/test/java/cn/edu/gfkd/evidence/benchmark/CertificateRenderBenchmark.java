@@ -0,0 +1,113 @@
+package cn.edu.gfkd.evidence.benchmark;
+
+import java.math.BigInteger;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import cn.edu.gfkd.evidence.entity.EvidenceEntity;
+import cn.edu.gfkd.evidence.exception.CertificateGenerationException;
+import cn.edu.gfkd.evidence.service.CertificateCache;
+import cn.edu.gfkd.evidence.service.CertificateConfig;
+import cn.edu.gfkd.evidence.service.CertificateDocumentWriter;
+import cn.edu.gfkd.evidence.service.CertificateService;
+import cn.edu.gfkd.evidence.service.CertificateTemplateCache;
+import cn.edu.gfkd.evidence.service.FastCertificateRenderer;
+import cn.edu.gfkd.evidence.service.signing.CertificateSigner;
+import cn.edu.gfkd.evidence.service.signing.LocalTimestampAuthority;
+
+/**
+ * 证书渲染吞吐基准测试（renders/s）
+ *
+ * coldTemplate 每次渲染都重新读取并解析模板和字体（缓存前的行为），cachedTemplate 复用缓存的模板字节和已解析字体，
+ * fastEngine 使用直接写入内容流的快速渲染引擎。
+ *
+ * 运行方式：mvn test-compile 后以 test classpath 执行本类的 main 方法。 字体位置可通过
+ * -Dcertificate.font-path=file:/path/to/simhei.ttf 指定。
+ */
+@BenchmarkMode(Mode.Throughput) @OutputTimeUnit(TimeUnit.SECONDS) @Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2) @Fork(1) @State(Scope.Thread)
+public class CertificateRenderBenchmark {
+
+    private CertificateConfig certificateConfig;
+    private CertificateService cachedService;
+    private CertificateService fastService;
+    private EvidenceEntity evidence;
+
+    @Setup
+    public void setUp() {
+        certificateConfig = new CertificateConfig();
+        String fontPath = System.getProperty("certificate.font-path");
+        if (fontPath != null) {
+            certificateConfig.setFontPath(fontPath);
+        }
+
+        cachedService = createService(certificateConfig);
+
+        CertificateConfig fastConfig = new CertificateConfig();
+        fastConfig.setFontPath(certificateConfig.getFontPath());
+        fastConfig.setRenderEngine("fast");
+        fastService = createService(fastConfig);
+
+        evidence = createEvidence();
+    }
+
+    @Benchmark
+    public byte[] coldTemplate() throws CertificateGenerationException {
+        return createService(certificateConfig).renderCertificate(evidence);
+    }
+
+    @Benchmark
+    public byte[] cachedTemplate() throws CertificateGenerationException {
+        return cachedService.renderCertificate(evidence);
+    }
+
+    @Benchmark
+    public byte[] fastEngine() throws CertificateGenerationException {
+        return fastService.renderCertificate(evidence);
+    }
+
+    private static CertificateService createService(CertificateConfig config) {
+        CertificateTemplateCache templateCache = new CertificateTemplateCache(config);
+        CertificateDocumentWriter documentWriter = new CertificateDocumentWriter(config,
+                new CertificateSigner(new LocalTimestampAuthority()));
+        return new CertificateService(null, templateCache, config,
+                new FastCertificateRenderer(templateCache, documentWriter), documentWriter,
+                new CertificateCache());
+    }
+
+    static EvidenceEntity createEvidence() {
+        EvidenceEntity evidence = new EvidenceEntity();
+        evidence.setEvidenceId("EVID:1700000000000:CN-GD-SZ");
+        evidence.setUserAddress("0x1234567890123456789012345678901234567890");
+        evidence.setFileName("合同扫描件.pdf");
+        evidence.setMimeType("application/pdf");
+        evidence.setFileSize(2_345_678L);
+        evidence.setHashAlgorithm("SHA256");
+        evidence.setHashValue("0x1234567890abcdef1234567890abcdef1234567890abcdef1234567890abcdef");
+        evidence.setBlockNumber(BigInteger.valueOf(12345L));
+        evidence.setTransactionHash("0xabcdef1234567890abcdef1234567890abcdef1234567890abcdef1234567890");
+        evidence.setBlockTimestamp(BigInteger.valueOf(1700000000L));
+        evidence.setMemo("基准测试证据");
+        return evidence;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(CertificateRenderBenchmark.class.getSimpleName()).build();
+        new Runner(options).run();
+    }
+}
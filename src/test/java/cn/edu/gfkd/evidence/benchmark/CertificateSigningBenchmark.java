@@ -0,0 +1,118 @@
+package cn.edu.gfkd.evidence.benchmark;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import cn.edu.gfkd.evidence.exception.CertificateGenerationException;
+import cn.edu.gfkd.evidence.service.CertificateCache;
+import cn.edu.gfkd.evidence.service.CertificateConfig;
+import cn.edu.gfkd.evidence.service.CertificateDocumentWriter;
+import cn.edu.gfkd.evidence.service.CertificateService;
+import cn.edu.gfkd.evidence.service.CertificateTemplateCache;
+import cn.edu.gfkd.evidence.service.FastCertificateRenderer;
+import cn.edu.gfkd.evidence.service.signing.CertificateSigner;
+import cn.edu.gfkd.evidence.service.signing.LocalTimestampAuthority;
+
+/**
+ * 证书签名吞吐基准测试（documents/s）
+ *
+ * unsigned 为不签名的快速渲染基线，signSingle 逐个签名已渲染的证书，signBatch 并发准备一批证书并一次申请整批时间戳；
+ * timestamp 参数控制是否附带时间戳令牌。
+ *
+ * 运行方式：mvn test-compile 后以 test classpath 执行本类的 main 方法。 字体位置可通过
+ * -Dcertificate.font-path=file:/path/to/simhei.ttf 指定。
+ */
+@BenchmarkMode(Mode.Throughput) @OutputTimeUnit(TimeUnit.SECONDS) @Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2) @Fork(1) @State(Scope.Benchmark)
+public class CertificateSigningBenchmark {
+
+    private static final int BATCH_SIZE = 32;
+
+    @Param({ "true", "false" })
+    public boolean timestamp;
+
+    private CertificateService certificateService;
+    private CertificateSigner certificateSigner;
+    private byte[] unsignedCertificate;
+    private List<byte[]> unsignedBatch;
+
+    @Setup
+    public void setUp() throws Exception {
+        CertificateConfig config = new CertificateConfig();
+        String fontPath = System.getProperty("certificate.font-path");
+        if (fontPath != null) {
+            config.setFontPath(fontPath);
+        }
+        config.setRenderEngine("fast");
+
+        CertificateTemplateCache templateCache = new CertificateTemplateCache(config);
+        CertificateDocumentWriter documentWriter = new CertificateDocumentWriter(config,
+                new CertificateSigner(new LocalTimestampAuthority()));
+        certificateService = new CertificateService(null, templateCache, config,
+                new FastCertificateRenderer(templateCache, documentWriter), documentWriter,
+                new CertificateCache());
+
+        certificateSigner = new CertificateSigner(new LocalTimestampAuthority());
+        ReflectionTestUtils.setField(certificateSigner, "enabled", true);
+        ReflectionTestUtils.setField(certificateSigner, "allowSelfSigned", true);
+        ReflectionTestUtils.setField(certificateSigner, "timestampEnabled", timestamp);
+
+        unsignedCertificate = certificateService
+                .renderCertificate(CertificateRenderBenchmark.createEvidence());
+        unsignedBatch = new ArrayList<>(BATCH_SIZE);
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            unsignedBatch.add(unsignedCertificate);
+        }
+
+        // 预热密钥加载和本地时间戳服务的密钥生成，不计入测量
+        certificateSigner.sign(unsignedCertificate);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        certificateSigner.shutdown();
+    }
+
+    @Benchmark
+    public byte[] unsigned() throws CertificateGenerationException {
+        return certificateService.renderCertificate(CertificateRenderBenchmark.createEvidence());
+    }
+
+    @Benchmark
+    public byte[] signSingle() throws IOException {
+        return certificateSigner.sign(unsignedCertificate);
+    }
+
+    @Benchmark @OperationsPerInvocation(BATCH_SIZE)
+    public List<byte[]> signBatch() throws IOException {
+        return certificateSigner.signBatch(unsignedBatch);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(CertificateSigningBenchmark.class.getSimpleName()).build();
+        new Runner(options).run();
+    }
+}
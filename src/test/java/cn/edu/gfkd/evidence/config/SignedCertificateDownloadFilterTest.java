@@ -0,0 +1,174 @@
+package cn.edu.gfkd.evidence.config;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Optional;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.InputStreamResource;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.util.UriComponents;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import cn.edu.gfkd.evidence.service.CertificateService;
+import cn.edu.gfkd.evidence.service.CertificateUrlSigner;
+import cn.edu.gfkd.evidence.service.storage.CertificateMetadata;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class SignedCertificateDownloadFilterTest {
+
+    private static final byte[] CONTENT = "%PDF-1.7 test certificate".getBytes(StandardCharsets.UTF_8);
+
+    @Mock
+    private CertificateService certificateService;
+
+    private CertificateUrlSigner signer;
+    private SignedCertificateDownloadFilter filter;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        signer = new CertificateUrlSigner();
+        ReflectionTestUtils.setField(signer, "secret", "testSecretKeyThatIsAtLeast256BitsLong");
+        filter = new SignedCertificateDownloadFilter(signer, certificateService);
+
+        when(certificateService.getCertificateMetadata("cert_EVID_1")).thenReturn(Optional.of(
+                new CertificateMetadata("cert_EVID_1", CONTENT.length, "abc123", 0)));
+        when(certificateService.getCertificateResource("cert_EVID_1"))
+                .thenReturn(Optional.of(new ByteArrayResource(CONTENT)));
+    }
+
+    @Test
+    void testValidLink_StreamsCertificate() throws Exception {
+        MockHttpServletResponse response = download(signedRequest("GET", "cert_EVID_1"));
+
+        assertEquals(200, response.getStatus());
+        assertArrayEquals(CONTENT, response.getContentAsByteArray());
+        assertEquals("application/pdf", response.getContentType());
+        assertEquals(CONTENT.length, response.getContentLengthLong());
+        assertEquals("\"abc123\"", response.getHeader("ETag"));
+        assertEquals("attachment; filename=\"certificate_EVID_1.pdf\"",
+                response.getHeader("Content-Disposition"));
+    }
+
+    @Test
+    void testTamperedLink_Forbidden() throws Exception {
+        MockHttpServletRequest request = signedRequest("GET", "cert_EVID_1");
+        request.setRequestURI(CertificateUrlSigner.DOWNLOAD_PATH + "cert_EVID_2");
+
+        assertEquals(403, download(request).getStatus());
+        verify(certificateService, never()).getCertificateResource(any());
+    }
+
+    @Test
+    void testMissingSignature_Forbidden() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET",
+                CertificateUrlSigner.DOWNLOAD_PATH + "cert_EVID_1");
+
+        assertEquals(403, download(request).getStatus());
+    }
+
+    @Test
+    void testMatchingETag_NotModifiedWithoutReadingStorage() throws Exception {
+        MockHttpServletRequest request = signedRequest("GET", "cert_EVID_1");
+        request.addHeader("If-None-Match", "\"abc123\"");
+
+        assertEquals(304, download(request).getStatus());
+        verify(certificateService, never()).getCertificateResource(any());
+    }
+
+    @Test
+    void testWeakETagInList_NotModified() throws Exception {
+        MockHttpServletRequest request = signedRequest("GET", "cert_EVID_1");
+        request.addHeader("If-None-Match", "\"other\", W/\"abc123\"");
+
+        assertEquals(304, download(request).getStatus());
+        verify(certificateService, never()).getCertificateResource(any());
+    }
+
+    @Test
+    void testRange_ReturnsPartialContent() throws Exception {
+        MockHttpServletRequest request = signedRequest("GET", "cert_EVID_1");
+        request.addHeader("Range", "bytes=5-9");
+
+        MockHttpServletResponse response = download(request);
+
+        assertEquals(206, response.getStatus());
+        assertArrayEquals(Arrays.copyOfRange(CONTENT, 5, 10), response.getContentAsByteArray());
+        assertEquals("bytes 5-9/" + CONTENT.length, response.getHeader("Content-Range"));
+        assertEquals("bytes", response.getHeader("Accept-Ranges"));
+    }
+
+    @Test
+    void testUnsatisfiableRange_RangeNotSatisfiable() throws Exception {
+        MockHttpServletRequest request = signedRequest("GET", "cert_EVID_1");
+        request.addHeader("Range", "bytes=1000-2000");
+
+        MockHttpServletResponse response = download(request);
+
+        assertEquals(416, response.getStatus());
+        assertEquals("bytes */" + CONTENT.length, response.getHeader("Content-Range"));
+    }
+
+    @Test
+    void testRangeOnStreamOnlyResource_ReturnsFullContent() throws Exception {
+        when(certificateService.getCertificateResource("cert_EVID_1")).thenReturn(Optional.of(
+                new InputStreamResource(new ByteArrayInputStream(CONTENT))));
+        MockHttpServletRequest request = signedRequest("GET", "cert_EVID_1");
+        request.addHeader("Range", "bytes=5-9");
+
+        MockHttpServletResponse response = download(request);
+
+        assertEquals(200, response.getStatus());
+        assertArrayEquals(CONTENT, response.getContentAsByteArray());
+    }
+
+    @Test
+    void testHead_ReturnsHeadersWithoutReadingStorage() throws Exception {
+        MockHttpServletResponse response = download(signedRequest("HEAD", "cert_EVID_1"));
+
+        assertEquals(200, response.getStatus());
+        assertEquals(CONTENT.length, response.getContentLengthLong());
+        assertEquals(0, response.getContentAsByteArray().length);
+        verify(certificateService, never()).getCertificateResource(any());
+    }
+
+    @Test
+    void testMissingCertificate_NotFound() throws Exception {
+        when(certificateService.getCertificateMetadata("cert_EVID_9")).thenReturn(Optional.empty());
+        when(certificateService.getCertificateResource("cert_EVID_9")).thenReturn(Optional.empty());
+
+        assertEquals(404, download(signedRequest("GET", "cert_EVID_9")).getStatus());
+    }
+
+    private MockHttpServletRequest signedRequest(String method, String certificateId) {
+        UriComponents url = UriComponentsBuilder.fromUriString(signer.sign(certificateId).url()).build();
+        MockHttpServletRequest request = new MockHttpServletRequest(method, url.getPath());
+        url.getQueryParams().forEach((name, values) -> request.addParameter(name, values.get(0)));
+        return request;
+    }
+
+    private MockHttpServletResponse download(MockHttpServletRequest request) throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, new MockFilterChain());
+        return response;
+    }
+}
@@ -4,6 +4,8 @@ import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 import java.math.BigInteger;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.UUID;
 
@@ -13,11 +15,15 @@ import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.test.annotation.DirtiesContext;
 import org.springframework.test.context.ActiveProfiles;
 
+import cn.edu.gfkd.evidence.dto.CursorSlice;
 import cn.edu.gfkd.evidence.entity.EvidenceEntity;
+import cn.edu.gfkd.evidence.enums.EvidenceSortKey;
 import cn.edu.gfkd.evidence.repository.EvidenceRepository;
+import cn.edu.gfkd.evidence.service.storage.EvidenceCounterService;
 import cn.edu.gfkd.evidence.service.storage.EvidenceStorageService;
 
 @SpringBootTest @ActiveProfiles("test") @DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
@@ -29,6 +35,9 @@ class EvidenceStorageServiceIntegrationTest {
     @Autowired
     private EvidenceRepository evidenceRepository;
 
+    @Autowired
+    private EvidenceCounterService evidenceCounterService;
+
     private String generateUniqueTransactionHash() {
         return "0x" + UUID.randomUUID().toString().replace("-", "") + "abcdef1234567890";
     }
@@ -428,4 +437,84 @@ class EvidenceStorageServiceIntegrationTest {
         // Then
         assertThat(count).isZero();
     }
-}
\ No newline at end of file
+
+    @Test
+    void scrollEvidence_FollowingCursors_MatchesOffsetOrder() {
+        // Given
+        String userAddress = "0x1111111111111111111111111111111111111111";
+        for (int i = 0; i < 7; i++) {
+            EvidenceEntity evidence = createTestEvidence();
+            evidence.setUserAddress(userAddress);
+            evidenceRepository.save(evidence);
+        }
+        evidenceRepository.save(createTestEvidence());
+
+        // When
+        List<Long> scrolled = new ArrayList<>();
+        String cursor = null;
+        CursorSlice<EvidenceEntity> slice;
+        do {
+            slice = evidenceStorageService.scrollEvidence(null, userAddress, null,
+                    EvidenceSortKey.CREATED_AT, true, cursor, 3, true);
+            slice.getContent().forEach(evidence -> scrolled.add(evidence.getId()));
+            cursor = slice.getNextCursor();
+        } while (slice.isHasNext());
+
+        // Then
+        List<Long> expected = evidenceRepository.findByUserAddress(userAddress,
+                PageRequest.of(0, 100, Sort.by(Sort.Direction.DESC, "createdAt", "id")))
+                .map(EvidenceEntity::getId).getContent();
+        assertThat(scrolled).containsExactlyElementsOf(expected);
+        assertThat(slice.getTotalElements()).isEqualTo(7);
+    }
+
+    @Test
+    void evidenceCounters_TrackMutationsAndRepairDrift() {
+        // Given
+        String userAddress = "0x2222222222222222222222222222222222222222";
+        EvidenceEntity first = createTestEvidence();
+        first.setUserAddress(userAddress);
+        evidenceStorageService.createEvidence(first);
+        EvidenceEntity second = createTestEvidence();
+        second.setUserAddress(userAddress);
+        EvidenceEntity saved = evidenceStorageService.createEvidence(second);
+        evidenceStorageService.createEvidence(createTestEvidence());
+
+        // When
+        saved.setStatus("revoked");
+        evidenceStorageService.updateEvidence(saved);
+
+        // Then
+        assertThat(evidenceCounterService.countAll()).isEqualTo(3);
+        assertThat(evidenceCounterService.countByStatus("effective")).isEqualTo(2);
+        assertThat(evidenceCounterService.countByStatus("revoked")).isEqualTo(1);
+        assertThat(evidenceCounterService.countByUserAddress(userAddress)).isEqualTo(2);
+        assertThat(evidenceCounterService.countByUserAddressAndStatus(userAddress, "effective"))
+                .isEqualTo(1);
+        assertThat(evidenceCounterService.rebuild()).isZero();
+
+        // 绕过计数直接写入证据表后，修复任务按证据表重新计算
+        evidenceRepository.save(createTestEvidence());
+        assertThat(evidenceCounterService.rebuild()).isEqualTo(2);
+        assertThat(evidenceCounterService.countAll()).isEqualTo(4);
+        assertThat(evidenceCounterService.countByStatus("effective")).isEqualTo(3);
+    }
+
+    @Test
+    void bulkCertificateUpdates_RefreshUpdatedAt() throws InterruptedException {
+        // Given
+        EvidenceEntity saved = evidenceStorageService.createEvidence(createTestEvidence());
+        LocalDateTime before = evidenceRepository.findById(saved.getId()).orElseThrow()
+                .getUpdatedAt();
+        Thread.sleep(20);
+
+        // When
+        int updated = evidenceRepository.markCertificateAttemptFailed(saved.getId(), "pending", 1,
+                null);
+
+        // Then
+        assertThat(updated).isEqualTo(1);
+        assertThat(evidenceRepository.findById(saved.getId()).orElseThrow().getUpdatedAt())
+                .isAfter(before);
+    }
+}
@@ -0,0 +1,43 @@
+package cn.edu.gfkd.evidence.service;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.math.BigInteger;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import cn.edu.gfkd.evidence.service.sync.CatchUpModeService;
+
+class CatchUpModeServiceTest {
+
+    private CatchUpModeService catchUpModeService;
+
+    @BeforeEach
+    void setUp() {
+        catchUpModeService = new CatchUpModeService();
+        ReflectionTestUtils.setField(catchUpModeService, "enabled", true);
+        ReflectionTestUtils.setField(catchUpModeService, "enterLagBlocks", 100L);
+        ReflectionTestUtils.setField(catchUpModeService, "exitLagBlocks", 20L);
+    }
+
+    @Test
+    void testUpdateLag_EntersAndLeavesWithHysteresis() {
+        assertTrue(catchUpModeService.updateLag(BigInteger.valueOf(1000), BigInteger.valueOf(500)));
+
+        // 延迟在退出阈值之上时保持追赶模式
+        assertTrue(catchUpModeService.updateLag(BigInteger.valueOf(1000), BigInteger.valueOf(950)));
+
+        assertFalse(catchUpModeService.updateLag(BigInteger.valueOf(1000), BigInteger.valueOf(990)));
+    }
+
+    @Test
+    void testUpdateLag_Disabled_NeverCatchesUp() {
+        ReflectionTestUtils.setField(catchUpModeService, "enabled", false);
+
+        assertFalse(catchUpModeService.updateLag(BigInteger.valueOf(1000), BigInteger.ZERO));
+        assertFalse(catchUpModeService.isCatchingUp());
+    }
+}
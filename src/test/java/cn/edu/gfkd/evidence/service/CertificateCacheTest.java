@@ -0,0 +1,102 @@
+package cn.edu.gfkd.evidence.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+class CertificateCacheTest {
+
+    private CertificateCache certificateCache;
+
+    @BeforeEach
+    void setUp() {
+        certificateCache = new CertificateCache();
+        ReflectionTestUtils.setField(certificateCache, "enabled", true);
+        ReflectionTestUtils.setField(certificateCache, "maxBytes", 300L);
+        ReflectionTestUtils.setField(certificateCache, "maxEntryBytes", 200L);
+    }
+
+    @Test
+    void testGet_AfterPut_ReturnsContentAndCountsHit() {
+        certificateCache.put("cert_1", bytes(100, 1));
+
+        ByteBuffer cached = certificateCache.get("cert_1").orElseThrow();
+
+        assertEquals(100, cached.remaining());
+        assertEquals(1, cached.get(0));
+        assertFalse(certificateCache.get("cert_2").isPresent());
+        assertEquals(0.5, certificateCache.getHitRatio(), 0.0001);
+    }
+
+    @Test
+    void testPut_OverBudget_EvictsLeastRecentlyUsed() {
+        certificateCache.put("cert_1", bytes(100, 1));
+        certificateCache.put("cert_2", bytes(100, 2));
+        certificateCache.put("cert_3", bytes(100, 3));
+        certificateCache.get("cert_1");
+
+        certificateCache.put("cert_4", bytes(100, 4));
+
+        assertTrue(certificateCache.get("cert_1").isPresent());
+        assertFalse(certificateCache.get("cert_2").isPresent());
+        assertTrue(certificateCache.get("cert_3").isPresent());
+        assertTrue(certificateCache.get("cert_4").isPresent());
+    }
+
+    @Test
+    void testPut_EntryOverLimit_NotCached() {
+        assertFalse(certificateCache.accepts(201));
+
+        certificateCache.put("cert_big", bytes(201, 9));
+
+        assertFalse(certificateCache.get("cert_big").isPresent());
+    }
+
+    @Test
+    void testInvalidate_RemovesEntry() {
+        certificateCache.put("cert_1", bytes(100, 1));
+
+        certificateCache.invalidate("cert_1");
+
+        assertFalse(certificateCache.get("cert_1").isPresent());
+    }
+
+    @Test
+    void testPutIfCurrent_InvalidatedWhileLoading_NotCached() {
+        long loadGeneration = certificateCache.currentGeneration();
+        // 读取存储期间证书被重新生成
+        certificateCache.invalidate("cert_1");
+
+        ByteBuffer returned = certificateCache.putIfCurrent("cert_1", bytes(100, 1), loadGeneration);
+
+        assertEquals(100, returned.remaining());
+        assertFalse(certificateCache.get("cert_1").isPresent());
+
+        certificateCache.putIfCurrent("cert_1", bytes(100, 2), certificateCache.currentGeneration());
+        assertEquals(2, certificateCache.get("cert_1").orElseThrow().get(0));
+    }
+
+    @Test
+    void testPut_OffHeap_StoresDirectBuffer() {
+        ReflectionTestUtils.setField(certificateCache, "offHeap", true);
+
+        certificateCache.put("cert_1", bytes(100, 7));
+
+        ByteBuffer cached = certificateCache.get("cert_1").orElseThrow();
+        assertTrue(cached.isDirect());
+        assertEquals(7, cached.get(99));
+    }
+
+    private byte[] bytes(int length, int value) {
+        byte[] data = new byte[length];
+        Arrays.fill(data, (byte) value);
+        return data;
+    }
+}
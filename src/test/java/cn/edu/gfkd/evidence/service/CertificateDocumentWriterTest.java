@@ -0,0 +1,98 @@
+package cn.edu.gfkd.evidence.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.apache.pdfbox.Loader;
+import org.apache.pdfbox.cos.COSArray;
+import org.apache.pdfbox.cos.COSBase;
+import org.apache.pdfbox.cos.COSDictionary;
+import org.apache.pdfbox.cos.COSInteger;
+import org.apache.pdfbox.cos.COSName;
+import org.apache.pdfbox.cos.COSObject;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDResources;
+import org.apache.pdfbox.pdmodel.graphics.image.LosslessFactory;
+import org.apache.pdfbox.pdmodel.graphics.image.PDImageXObject;
+import org.junit.jupiter.api.Test;
+
+import cn.edu.gfkd.evidence.service.signing.CertificateSigner;
+import cn.edu.gfkd.evidence.service.signing.LocalTimestampAuthority;
+
+class CertificateDocumentWriterTest {
+
+    @Test
+    void testCompact_MergesIdenticalImages() throws Exception {
+        byte[] pdf = writeCompact(false);
+
+        assertEquals(1, countDistinctXObjects(pdf));
+    }
+
+    @Test
+    void testCompact_KeepsImagesWithSameDataButDifferentDecode() throws Exception {
+        byte[] pdf = writeCompact(true);
+
+        // 原始数据相同，但 /Decode 使第二张图反色，不能合并为同一对象
+        assertEquals(2, countDistinctXObjects(pdf));
+    }
+
+    private byte[] writeCompact(boolean invertSecond) throws Exception {
+        CertificateConfig config = new CertificateConfig();
+        config.setOutputProfile(CertificateDocumentWriter.PROFILE_COMPACT);
+        CertificateDocumentWriter writer = new CertificateDocumentWriter(config,
+                new CertificateSigner(new LocalTimestampAuthority()));
+
+        try (PDDocument document = new PDDocument()) {
+            PDPage page = new PDPage();
+            PDResources resources = new PDResources();
+            page.setResources(resources);
+            document.addPage(page);
+
+            BufferedImage image = createImage();
+            PDImageXObject first = LosslessFactory.createFromImage(document, image);
+            PDImageXObject second = LosslessFactory.createFromImage(document, image);
+            if (invertSecond) {
+                COSArray decode = new COSArray();
+                for (int i = 0; i < 3; i++) {
+                    decode.add(COSInteger.ONE);
+                    decode.add(COSInteger.ZERO);
+                }
+                second.getCOSObject().setItem(COSName.DECODE, decode);
+            }
+            resources.add(first);
+            resources.add(second);
+
+            return writer.write(document);
+        }
+    }
+
+    private int countDistinctXObjects(byte[] pdf) throws Exception {
+        try (PDDocument document = Loader.loadPDF(pdf)) {
+            COSDictionary xObjects = document.getPage(0).getResources().getCOSObject()
+                    .getCOSDictionary(COSName.XOBJECT);
+            assertEquals(2, xObjects.size());
+
+            Set<Object> objects = new HashSet<>();
+            for (COSName name : xObjects.keySet()) {
+                COSBase item = xObjects.getItem(name);
+                objects.add(item instanceof COSObject reference ? reference.getKey() : item);
+            }
+            return objects.size();
+        }
+    }
+
+    private BufferedImage createImage() {
+        BufferedImage image = new BufferedImage(8, 8, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = image.createGraphics();
+        graphics.setColor(Color.RED);
+        graphics.fillRect(0, 0, 4, 8);
+        graphics.dispose();
+        return image;
+    }
+}
@@ -0,0 +1,159 @@
+package cn.edu.gfkd.evidence.service;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import cn.edu.gfkd.evidence.dto.CertificateExportFilter;
+import cn.edu.gfkd.evidence.repository.EvidenceRepository;
+import cn.edu.gfkd.evidence.repository.EvidenceRepository.CertificateExportRow;
+
+@ExtendWith(MockitoExtension.class) @MockitoSettings(strictness = Strictness.LENIENT)
+class CertificateExportServiceTest {
+
+    @Mock
+    private EvidenceRepository evidenceRepository;
+
+    @Mock
+    private CertificateStorageService certificateStorageService;
+
+    private CertificateExportService exportService;
+
+    @BeforeEach
+    void setUp() {
+        exportService = new CertificateExportService(evidenceRepository, certificateStorageService);
+        ReflectionTestUtils.setField(exportService, "batchSize", 2);
+    }
+
+    @Test
+    void testExportCertificates_PagesThroughAllBatches() throws Exception {
+        when(evidenceRepository.findCertificateExportBatch(eq(0L), eq("0xuser"), isNull(), isNull(),
+                isNull(), isNull(), isNull(), any(Pageable.class)))
+                .thenReturn(List.of(row(1L, "EVID:1"), row(2L, "EVID:2")));
+        when(evidenceRepository.findCertificateExportBatch(eq(2L), eq("0xuser"), isNull(), isNull(),
+                isNull(), isNull(), isNull(), any(Pageable.class)))
+                .thenReturn(List.of(row(3L, "EVID:3")));
+        when(certificateStorageService.openCertificateStream(any()))
+                .thenAnswer(invocation -> Optional.of(new ByteArrayInputStream(
+                        content(invocation.getArgument(0)))));
+
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        int exported = exportService.exportCertificates(filter(), output);
+
+        Map<String, byte[]> entries = unzip(output.toByteArray());
+        assertEquals(3, exported);
+        assertEquals(List.of("certificate_EVID_1.pdf", "certificate_EVID_2.pdf",
+                "certificate_EVID_3.pdf"), List.copyOf(entries.keySet()));
+        assertArrayEquals(content("cert_EVID_3"), entries.get("certificate_EVID_3.pdf"));
+    }
+
+    @Test
+    void testExportCertificates_SkipsCertificatesMissingFromStorage() throws Exception {
+        when(certificateStorageService.openCertificateStream("cert_EVID_1"))
+                .thenReturn(Optional.empty());
+        when(evidenceRepository.findCertificateExportBatch(eq(0L), any(), any(), any(), any(),
+                any(), any(), any(Pageable.class)))
+                .thenReturn(List.of(row(1L, "EVID:1"), row(2L, "EVID:2")));
+        when(evidenceRepository.findCertificateExportBatch(eq(2L), any(), any(), any(), any(),
+                any(), any(), any(Pageable.class)))
+                .thenReturn(List.of());
+        when(certificateStorageService.openCertificateStream("cert_EVID_2"))
+                .thenReturn(Optional.of(new ByteArrayInputStream(content("cert_EVID_2"))));
+
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        int exported = exportService.exportCertificates(filter(), output);
+
+        Map<String, byte[]> entries = unzip(output.toByteArray());
+        assertEquals(1, exported);
+        assertEquals(List.of("certificate_EVID_2.pdf"), List.copyOf(entries.keySet()));
+    }
+
+    @Test
+    void testExportCertificates_RenamesCollidingEntries() throws Exception {
+        when(evidenceRepository.findCertificateExportBatch(eq(0L), any(), any(), any(), any(),
+                any(), any(), any(Pageable.class)))
+                .thenReturn(List.of(row(1L, "EVID:1"), row(2L, "EVID/1")));
+        when(evidenceRepository.findCertificateExportBatch(eq(2L), any(), any(), any(), any(),
+                any(), any(), any(Pageable.class)))
+                .thenReturn(List.of());
+        when(certificateStorageService.openCertificateStream(any()))
+                .thenAnswer(invocation -> Optional.of(new ByteArrayInputStream(
+                        content(invocation.getArgument(0)))));
+
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        exportService.exportCertificates(filter(), output);
+
+        assertEquals(List.of("certificate_EVID_1.pdf", "certificate_EVID_1_2.pdf"),
+                List.copyOf(unzip(output.toByteArray()).keySet()));
+    }
+
+    private CertificateExportFilter filter() {
+        CertificateExportFilter filter = new CertificateExportFilter();
+        filter.setUserAddress("0xuser");
+        return filter;
+    }
+
+    private CertificateExportRow row(Long id, String evidenceId) {
+        String certificateId = "cert_" + evidenceId.replaceAll("[^A-Za-z0-9]", "_");
+        return new CertificateExportRow() {
+            @Override
+            public Long getId() {
+                return id;
+            }
+
+            @Override
+            public String getEvidenceId() {
+                return evidenceId;
+            }
+
+            @Override
+            public String getCertificateId() {
+                return certificateId;
+            }
+
+            @Override
+            public LocalDateTime getCreatedAt() {
+                return LocalDateTime.of(2025, 1, 1, 0, 0);
+            }
+        };
+    }
+
+    private byte[] content(String certificateId) {
+        return ("%PDF-1.7 " + certificateId).getBytes(StandardCharsets.UTF_8);
+    }
+
+    private Map<String, byte[]> unzip(byte[] archive) throws Exception {
+        Map<String, byte[]> entries = new LinkedHashMap<>();
+        try (ZipInputStream zipStream = new ZipInputStream(new ByteArrayInputStream(archive))) {
+            ZipEntry entry;
+            while ((entry = zipStream.getNextEntry()) != null) {
+                entries.put(entry.getName(), zipStream.readAllBytes());
+            }
+        }
+        return entries;
+    }
+}
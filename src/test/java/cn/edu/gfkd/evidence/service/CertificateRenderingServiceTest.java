@@ -0,0 +1,204 @@
+package cn.edu.gfkd.evidence.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import cn.edu.gfkd.evidence.entity.EvidenceEntity;
+import cn.edu.gfkd.evidence.exception.CertificateGenerationException;
+import cn.edu.gfkd.evidence.repository.EvidenceRepository;
+import cn.edu.gfkd.evidence.service.retry.RetryHandler;
+import cn.edu.gfkd.evidence.service.storage.EvidenceCache;
+import cn.edu.gfkd.evidence.service.sync.CatchUpModeService;
+
+@ExtendWith(MockitoExtension.class) @MockitoSettings(strictness = Strictness.LENIENT)
+class CertificateRenderingServiceTest {
+
+    @Mock
+    private EvidenceRepository evidenceRepository;
+
+    @Mock
+    private CertificateStorageService certificateStorageService;
+
+    @Mock
+    private CatchUpModeService catchUpModeService;
+
+    @Mock
+    private RetryHandler retryHandler;
+
+    private CertificateConfig certificateConfig;
+
+    private CertificateRenderingService renderingService;
+
+    private EvidenceEntity evidence;
+
+    @BeforeEach
+    void setUp() {
+        certificateConfig = new CertificateConfig();
+        renderingService = new CertificateRenderingService(evidenceRepository,
+                certificateStorageService, catchUpModeService, retryHandler, certificateConfig,
+                new EvidenceCache());
+        ReflectionTestUtils.setField(renderingService, "concurrency", 2);
+        ReflectionTestUtils.setField(renderingService, "maxAttempts", 3);
+        ReflectionTestUtils.setField(renderingService, "initialBackoffMs", 1000L);
+        ReflectionTestUtils.setField(renderingService, "maxBackoffMs", 5000L);
+
+        when(retryHandler.executeWithRetryTransactional(any(), anyString()))
+                .thenAnswer(inv -> ((RetryHandler.RetryableOperation<?>) inv.getArgument(0))
+                        .execute());
+
+        evidence = new EvidenceEntity();
+        evidence.setId(7L);
+        evidence.setEvidenceId("EVID:1");
+        when(evidenceRepository.findById(7L)).thenReturn(Optional.of(evidence));
+    }
+
+    @Test
+    void testEnqueue_MarksEvidencePending() {
+        evidence.setCertificateAttempts(2);
+
+        renderingService.enqueue(evidence);
+
+        assertEquals("pending", evidence.getCertificateStatus());
+        assertEquals(0, evidence.getCertificateAttempts());
+    }
+
+    @Test
+    void testRenderCertificate_Success_MarksReady() throws Exception {
+        when(certificateStorageService.generateAndStoreCertificate(evidence)).thenAnswer(inv -> {
+            evidence.setCertificateId("cert_EVID_1");
+            evidence.setCertificateHash("abc123");
+            evidence.setCertificateTemplateVersion("v1");
+            return evidence;
+        });
+
+        renderingService.renderCertificate(7L);
+
+        verify(evidenceRepository).markCertificateReady(7L, "cert_EVID_1", "abc123", "v1", "ready");
+    }
+
+    @Test
+    void testRenderCertificate_Failure_SchedulesRetryWithBackoff() throws Exception {
+        when(certificateStorageService.generateAndStoreCertificate(evidence))
+                .thenThrow(new CertificateGenerationException("template missing"));
+
+        renderingService.renderCertificate(7L);
+
+        verify(evidenceRepository).markCertificateAttemptFailed(eq(7L), eq("pending"), eq(1),
+                any(LocalDateTime.class));
+        verify(evidenceRepository, never()).markCertificateReady(any(), anyString(), any(), any(),
+                anyString());
+    }
+
+    @Test
+    void testRenderCertificate_AttemptsExhausted_MarksFailed() throws Exception {
+        evidence.setCertificateAttempts(2);
+        when(certificateStorageService.generateAndStoreCertificate(evidence))
+                .thenThrow(new CertificateGenerationException("template missing"));
+
+        renderingService.renderCertificate(7L);
+
+        verify(evidenceRepository).markCertificateAttemptFailed(eq(7L), eq("failed"), eq(3),
+                isNull());
+    }
+
+    @Test
+    void testPoll_WhileCatchingUp_DoesNotClaim() {
+        when(catchUpModeService.isCatchingUp()).thenReturn(true);
+
+        assertEquals(0, renderingService.pollPendingCertificates());
+        verify(evidenceRepository, never()).findCertificateRenderCandidates(anyString(),
+                any(LocalDateTime.class), any(Pageable.class));
+        verify(evidenceRepository, never()).compareAndSetCertificateStatus(any(), anyString(),
+                anyString());
+    }
+
+    @Test
+    void testCalculateBackoff_GrowsExponentiallyAndCaps() {
+        assertEquals(1000L, renderingService.calculateBackoffMs(1));
+        assertEquals(2000L, renderingService.calculateBackoffMs(2));
+        assertEquals(4000L, renderingService.calculateBackoffMs(3));
+        assertEquals(5000L, renderingService.calculateBackoffMs(4));
+        assertEquals(5000L, renderingService.calculateBackoffMs(40));
+    }
+
+    @Test
+    void testGetOrRenderCertificate_ConcurrentRequests_RenderOnce() throws Exception {
+        certificateConfig.setGenerationMode("on-demand");
+        CountDownLatch renderStarted = new CountDownLatch(1);
+        CountDownLatch releaseRender = new CountDownLatch(1);
+        when(certificateStorageService.generateAndStoreCertificate(evidence)).thenAnswer(inv -> {
+            renderStarted.countDown();
+            releaseRender.await(5, TimeUnit.SECONDS);
+            evidence.setCertificateId("cert_EVID_1");
+            evidence.setCertificateHash("abc123");
+            evidence.setCertificateTemplateVersion("v1");
+            return evidence;
+        });
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<String>> results = new ArrayList<>();
+            results.add(executor.submit(() -> renderingService.getOrRenderCertificate(7L)));
+            renderStarted.await(5, TimeUnit.SECONDS);
+            for (int i = 0; i < 3; i++) {
+                results.add(executor.submit(() -> renderingService.getOrRenderCertificate(7L)));
+            }
+            Thread.sleep(100);
+            releaseRender.countDown();
+
+            for (Future<String> result : results) {
+                assertEquals("cert_EVID_1", result.get(5, TimeUnit.SECONDS));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        verify(certificateStorageService, times(1)).generateAndStoreCertificate(evidence);
+        verify(evidenceRepository).markCertificateReady(7L, "cert_EVID_1", "abc123", "v1", "ready");
+    }
+
+    @Test
+    void testGetOrRenderCertificate_AlreadyRendered_ReturnsStoredId() throws Exception {
+        evidence.setCertificateId("cert_EVID_1");
+
+        assertEquals("cert_EVID_1", renderingService.getOrRenderCertificate(7L));
+        verify(certificateStorageService, never()).generateAndStoreCertificate(any());
+    }
+
+    @Test
+    void testStart_OnDemandMode_DoesNotStartPoller() {
+        certificateConfig.setGenerationMode("on-demand");
+
+        renderingService.start();
+
+        assertNull(ReflectionTestUtils.getField(renderingService, "pollScheduler"));
+    }
+}
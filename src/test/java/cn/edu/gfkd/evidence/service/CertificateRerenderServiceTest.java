@@ -0,0 +1,164 @@
+package cn.edu.gfkd.evidence.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import cn.edu.gfkd.evidence.entity.CertificateRerenderJob;
+import cn.edu.gfkd.evidence.entity.EvidenceEntity;
+import cn.edu.gfkd.evidence.exception.CertificateGenerationException;
+import cn.edu.gfkd.evidence.repository.CertificateRerenderJobRepository;
+import cn.edu.gfkd.evidence.repository.EvidenceRepository;
+import cn.edu.gfkd.evidence.service.retry.RetryHandler;
+import cn.edu.gfkd.evidence.service.storage.EvidenceCache;
+import cn.edu.gfkd.evidence.service.sync.CatchUpModeService;
+
+@ExtendWith(MockitoExtension.class) @MockitoSettings(strictness = Strictness.LENIENT)
+class CertificateRerenderServiceTest {
+
+    @Mock
+    private EvidenceRepository evidenceRepository;
+
+    @Mock
+    private CertificateRerenderJobRepository jobRepository;
+
+    @Mock
+    private CertificateService certificateService;
+
+    @Mock
+    private CertificateTemplateCache certificateTemplateCache;
+
+    @Mock
+    private CatchUpModeService catchUpModeService;
+
+    @Mock
+    private RetryHandler retryHandler;
+
+    private CertificateRerenderService rerenderService;
+
+    private ExecutorService workers;
+
+    @BeforeEach
+    void setUp() {
+        rerenderService = new CertificateRerenderService(evidenceRepository, jobRepository,
+                certificateService, certificateTemplateCache, catchUpModeService, retryHandler,
+                new EvidenceCache());
+        ReflectionTestUtils.setField(rerenderService, "batchSize", 2);
+        ReflectionTestUtils.setField(rerenderService, "maxPendingBacklog", 10L);
+        workers = Executors.newFixedThreadPool(2);
+
+        when(retryHandler.executeWithRetryTransactional(any(), anyString()))
+                .thenAnswer(inv -> ((RetryHandler.RetryableOperation<?>) inv.getArgument(0))
+                        .execute());
+        when(jobRepository.save(any(CertificateRerenderJob.class)))
+                .thenAnswer(inv -> inv.getArgument(0));
+    }
+
+    @AfterEach
+    void tearDown() {
+        workers.shutdownNow();
+    }
+
+    @Test
+    void testRerender_StoresNewCertificateAndRecordsVersion() throws Exception {
+        EvidenceEntity evidence = evidence(1L, "v1");
+        when(certificateService.generateCertificate(evidence)).thenAnswer(inv -> {
+            evidence.setCertificateHash("newhash");
+            evidence.setCertificateTemplateVersion("v2");
+            return "cert_EVID_1";
+        });
+
+        assertTrue(rerenderService.rerender(1L, "v2"));
+
+        verify(evidenceRepository).markCertificateReady(1L, "cert_EVID_1", "newhash", "v2",
+                "ready");
+    }
+
+    @Test
+    void testRerender_AlreadyCurrentVersion_Skipped() throws Exception {
+        evidence(1L, "v2");
+
+        assertTrue(rerenderService.rerender(1L, "v2"));
+
+        verify(certificateService, never()).generateCertificate(any());
+    }
+
+    @Test
+    void testProcessBatch_AdvancesCheckpointAndCountsFailures() throws Exception {
+        EvidenceEntity first = evidence(1L, "v1");
+        EvidenceEntity second = evidence(2L, "v1");
+        when(certificateService.generateCertificate(first)).thenReturn("cert_EVID_1");
+        when(certificateService.generateCertificate(second))
+                .thenThrow(new CertificateGenerationException("render failed"));
+        CertificateRerenderJob job = new CertificateRerenderJob("v2");
+
+        rerenderService.processBatch(job, List.of(1L, 2L), workers);
+
+        assertEquals(2L, job.getLastEvidenceId());
+        assertEquals(1L, job.getRenderedCount());
+        assertEquals(1L, job.getFailedCount());
+        verify(jobRepository).save(job);
+    }
+
+    @Test
+    void testRunJob_ResumesFromCheckpointAndCompletes() throws Exception {
+        evidence(5L, "v2");
+        CertificateRerenderJob job = new CertificateRerenderJob("v2");
+        job.setLastEvidenceId(4L);
+        when(evidenceRepository.findCertificateRerenderCandidates(eq(4L), eq("v2"),
+                any(Pageable.class))).thenReturn(List.of(5L));
+        when(evidenceRepository.findCertificateRerenderCandidates(eq(5L), eq("v2"),
+                any(Pageable.class))).thenReturn(List.of());
+
+        rerenderService.runJob(job, workers);
+
+        assertEquals(CertificateRerenderJob.STATUS_COMPLETED, job.getStatus());
+        assertEquals(5L, job.getLastEvidenceId());
+        assertFalse(rerenderService.isRunning());
+    }
+
+    @Test
+    void testRunJob_PausesWhileCatchingUp() throws Exception {
+        ReflectionTestUtils.setField(rerenderService, "throttlePauseMs", 10L);
+        when(catchUpModeService.isCatchingUp()).thenReturn(true, true, false);
+        when(evidenceRepository.findCertificateRerenderCandidates(any(), anyString(),
+                any(Pageable.class))).thenReturn(List.of());
+
+        rerenderService.runJob(new CertificateRerenderJob("v2"), workers);
+
+        verify(evidenceRepository).findCertificateRerenderCandidates(any(), anyString(),
+                any(Pageable.class));
+    }
+
+    private EvidenceEntity evidence(Long id, String templateVersion) {
+        EvidenceEntity evidence = new EvidenceEntity();
+        evidence.setId(id);
+        evidence.setEvidenceId("EVID:" + id);
+        evidence.setCertificateId("cert_EVID_" + id);
+        evidence.setCertificateTemplateVersion(templateVersion);
+        when(evidenceRepository.findById(id)).thenReturn(Optional.of(evidence));
+        return evidence;
+    }
+}
@@ -0,0 +1,131 @@
+package cn.edu.gfkd.evidence.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import cn.edu.gfkd.evidence.enums.CertificateStatus;
+import cn.edu.gfkd.evidence.repository.EvidenceRepository;
+import cn.edu.gfkd.evidence.service.retry.RetryHandler;
+import cn.edu.gfkd.evidence.service.storage.CertificateMetadata;
+import cn.edu.gfkd.evidence.service.storage.EvidenceCache;
+
+@ExtendWith(MockitoExtension.class) @MockitoSettings(strictness = Strictness.LENIENT)
+class CertificateRetentionServiceTest {
+
+    @Mock
+    private EvidenceRepository evidenceRepository;
+
+    @Mock
+    private CertificateService certificateService;
+
+    @Mock
+    private RetryHandler retryHandler;
+
+    private CertificateRetentionService retentionService;
+
+    @BeforeEach
+    void setUp() {
+        retentionService = new CertificateRetentionService(evidenceRepository, certificateService,
+                retryHandler, new EvidenceCache());
+        ReflectionTestUtils.setField(retentionService, "batchSize", 2);
+        ReflectionTestUtils.setField(retentionService, "maxDeletesPerSecond", 0);
+
+        when(retryHandler.executeWithRetryTransactional(any(), anyString()))
+                .thenAnswer(inv -> ((RetryHandler.RetryableOperation<?>) inv.getArgument(0))
+                        .execute());
+        when(certificateService.deleteCertificate(anyString())).thenReturn(true);
+    }
+
+    @Test
+    void testPurgeExpired_ClearsReferencesBeforeDeletingInBatches() throws Exception {
+        CertificateMetadata first = stored("cert_1", 1000);
+        CertificateMetadata second = stored("cert_2", 2000);
+        CertificateMetadata third = stored("cert_3", 3000);
+        when(certificateService.findCertificatesCreatedBefore(5000, 2))
+                .thenReturn(List.of(first, second), List.of(third), List.of());
+
+        assertEquals(3, retentionService.purgeExpired(5000));
+
+        InOrder order = inOrder(evidenceRepository, certificateService);
+        order.verify(evidenceRepository).clearCertificateReferences(List.of("cert_1", "cert_2"),
+                CertificateStatus.EXPIRED.getCode());
+        order.verify(certificateService).deleteCertificate("cert_1");
+        order.verify(certificateService).deleteCertificate("cert_2");
+        order.verify(evidenceRepository).clearCertificateReferences(List.of("cert_3"),
+                CertificateStatus.EXPIRED.getCode());
+        order.verify(certificateService).deleteCertificate("cert_3");
+    }
+
+    @Test
+    void testPurgeExpired_SkipsCertificatesRenderedAgainAfterListing() throws Exception {
+        CertificateMetadata listed = new CertificateMetadata("cert_1", 10, "hash", 1000);
+        when(certificateService.getCertificateMetadata("cert_1"))
+                .thenReturn(Optional.of(new CertificateMetadata("cert_1", 10, "hash", 9000)));
+        when(certificateService.findCertificatesCreatedBefore(5000, 2))
+                .thenReturn(List.of(listed), List.of());
+
+        assertEquals(0, retentionService.purgeExpired(5000));
+
+        verify(evidenceRepository, never()).clearCertificateReferences(anyCollection(),
+                anyString());
+        verify(certificateService, never()).deleteCertificate(anyString());
+    }
+
+    @Test
+    void testPurgeExpired_StopsWhenNothingInBatchCanBeDeleted() throws Exception {
+        CertificateMetadata stuck = stored("cert_1", 1000);
+        when(certificateService.findCertificatesCreatedBefore(anyLong(), anyInt()))
+                .thenReturn(List.of(stuck));
+        when(certificateService.deleteCertificate("cert_1")).thenReturn(false);
+
+        assertEquals(0, retentionService.purgeExpired(5000));
+
+        verify(certificateService).deleteCertificate(eq("cert_1"));
+    }
+
+    @Test
+    void testStart_StorageWithoutCreatedAtIndex_DoesNotSchedule() {
+        ReflectionTestUtils.setField(retentionService, "retentionDays", 30);
+        when(certificateService.supportsCreatedAtIndex()).thenReturn(false);
+        when(certificateService.getStorageType()).thenReturn("s3");
+
+        retentionService.start();
+
+        assertNull(ReflectionTestUtils.getField(retentionService, "retentionScheduler"));
+        assertFalse(((AtomicBoolean) ReflectionTestUtils.getField(retentionService, "isRunning"))
+                .get());
+    }
+
+    private CertificateMetadata stored(String certificateId, long createdAtMillis) {
+        CertificateMetadata metadata = new CertificateMetadata(certificateId, 10, "hash",
+                createdAtMillis);
+        when(certificateService.getCertificateMetadata(certificateId))
+                .thenReturn(Optional.of(metadata));
+        return metadata;
+    }
+}
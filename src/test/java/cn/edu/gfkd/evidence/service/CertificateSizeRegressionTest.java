@@ -0,0 +1,86 @@
+package cn.edu.gfkd.evidence.service;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.math.BigInteger;
+
+import org.apache.pdfbox.Loader;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.junit.jupiter.api.Test;
+
+import cn.edu.gfkd.evidence.entity.EvidenceEntity;
+import cn.edu.gfkd.evidence.service.signing.CertificateSigner;
+import cn.edu.gfkd.evidence.service.signing.LocalTimestampAuthority;
+
+/**
+ * 证书体积回归测试
+ *
+ * 使用测试资源中的字体（fonts/OFL.txt），覆盖证书文本用到的字符，可通过 -Dcertificate.test.font-path 换成完整的中文字体。
+ */
+class CertificateSizeRegressionTest {
+
+    // 每份证书的字节预算（模板本身约 270KB，其余应只有子集化字体和文本）
+    private static final long MAX_CERTIFICATE_BYTES = 400 * 1024;
+
+    private final String fontPath = System.getProperty("certificate.test.font-path",
+            "classpath:fonts/EvidenceTestBoxes-Regular.ttf");
+
+    @Test
+    void testCompactProfile_AcroFormEngine_StaysWithinBudget() throws Exception {
+        byte[] compact = render("acroform", "compact");
+        byte[] standard = render("acroform", "standard");
+
+        assertWithinBudget(compact);
+        assertTrue(compact.length < standard.length,
+                "compact " + compact.length + " bytes, standard " + standard.length + " bytes");
+    }
+
+    @Test
+    void testCompactProfile_FastEngine_StaysWithinBudget() throws Exception {
+        byte[] compact = render("fast", "compact");
+
+        assertWithinBudget(compact);
+    }
+
+    private byte[] render(String engine, String profile) throws Exception {
+        CertificateConfig config = new CertificateConfig();
+        config.setFontPath(fontPath);
+        config.setRenderEngine(engine);
+        config.setOutputProfile(profile);
+
+        CertificateTemplateCache templateCache = new CertificateTemplateCache(config);
+        CertificateDocumentWriter documentWriter = new CertificateDocumentWriter(config,
+                new CertificateSigner(new LocalTimestampAuthority()));
+        CertificateService certificateService = new CertificateService(null, templateCache,
+                config, new FastCertificateRenderer(templateCache, documentWriter),
+                documentWriter, new CertificateCache());
+
+        return certificateService.renderCertificate(createTestEvidence());
+    }
+
+    private void assertWithinBudget(byte[] certificate) throws Exception {
+        assertTrue(certificate.length <= MAX_CERTIFICATE_BYTES,
+                "certificate is " + certificate.length + " bytes, budget " + MAX_CERTIFICATE_BYTES);
+
+        // 输出必须仍是可解析的PDF
+        try (PDDocument document = Loader.loadPDF(certificate)) {
+            assertTrue(document.getNumberOfPages() > 0);
+        }
+    }
+
+    private EvidenceEntity createTestEvidence() {
+        EvidenceEntity evidence = new EvidenceEntity();
+        evidence.setEvidenceId("test-evidence-123");
+        evidence.setUserAddress("0x1234567890123456789012345678901234567890");
+        evidence.setFileName("测试文件.pdf");
+        evidence.setMimeType("application/pdf");
+        evidence.setFileSize(1024L);
+        evidence.setHashAlgorithm("SHA256");
+        evidence.setHashValue("0x1234567890abcdef1234567890abcdef1234567890abcdef1234567890abcdef");
+        evidence.setBlockNumber(BigInteger.valueOf(12345L));
+        evidence.setTransactionHash("0xabcdef1234567890abcdef1234567890abcdef1234567890abcdef1234567890");
+        evidence.setBlockTimestamp(BigInteger.valueOf(1640995200L));
+        evidence.setMemo("体积回归测试");
+        return evidence;
+    }
+}
@@ -11,7 +11,9 @@ import org.mockito.junit.jupiter.MockitoExtension;
 
 import java.io.IOException;
 import java.math.BigInteger;
+import java.time.Instant;
 import java.time.LocalDateTime;
+import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
@@ -23,11 +25,14 @@ class CertificateStorageServiceTest {
     @Mock
     private CertificateService certificateService;
 
+    @Mock
+    private CertificateUrlSigner certificateUrlSigner;
+
     private CertificateStorageService certificateStorageService;
 
     @BeforeEach
     void setUp() {
-        certificateStorageService = new CertificateStorageService(certificateService);
+        certificateStorageService = new CertificateStorageService(certificateService, certificateUrlSigner);
     }
 
     @Test
@@ -64,6 +69,70 @@ class CertificateStorageServiceTest {
         verify(certificateService, times(1)).generateCertificate(evidence);
     }
 
+    @Test
+    void testGenerateAndStoreCertificate_ReusesExistingCertificate() {
+        // Given
+        EvidenceEntity evidence = createTestEvidence();
+        String certificateId = "cert_test-evidence-123";
+
+        when(certificateService.findExistingCertificate(evidence))
+                .thenReturn(Optional.of(certificateId));
+        when(certificateService.getTemplateVersion()).thenReturn("v2");
+        when(certificateService.findCertificateTemplateVersion(certificateId))
+                .thenReturn(Optional.of("v2"));
+
+        // When
+        EvidenceEntity result = certificateStorageService.generateAndStoreCertificate(evidence);
+
+        // Then
+        assertEquals(certificateId, result.getCertificateId());
+        assertEquals("v2", result.getCertificateTemplateVersion());
+        verify(certificateService, never()).generateCertificate(any(EvidenceEntity.class));
+    }
+
+    @Test
+    void testGenerateAndStoreCertificate_ExistingCertificateFromOldTemplate_RendersAgain()
+            throws IOException {
+        // Given
+        EvidenceEntity evidence = createTestEvidence();
+        String certificateId = "cert_test-evidence-123";
+
+        when(certificateService.findExistingCertificate(evidence))
+                .thenReturn(Optional.of(certificateId));
+        when(certificateService.getTemplateVersion()).thenReturn("v2");
+        when(certificateService.findCertificateTemplateVersion(certificateId))
+                .thenReturn(Optional.of("v1"));
+        when(certificateService.generateCertificate(evidence)).thenReturn(certificateId);
+
+        // When
+        EvidenceEntity result = certificateStorageService.generateAndStoreCertificate(evidence);
+
+        // Then
+        assertEquals(certificateId, result.getCertificateId());
+        verify(certificateService, times(1)).generateCertificate(evidence);
+        verify(certificateService, never()).computeCertificateHash(any());
+    }
+
+    @Test
+    void testGenerateAndStoreCertificate_ReusedCertificate_RecordsContentHash() throws IOException {
+        // Given
+        EvidenceEntity evidence = createTestEvidence();
+        String certificateId = "cert_test-evidence-123";
+
+        when(certificateService.findExistingCertificate(evidence))
+                .thenReturn(Optional.of(certificateId));
+        when(certificateService.getTemplateVersion()).thenReturn("v2");
+        when(certificateService.findCertificateTemplateVersion(certificateId))
+                .thenReturn(Optional.of("v2"));
+        when(certificateService.computeCertificateHash(certificateId)).thenReturn("abc123");
+
+        // When
+        EvidenceEntity result = certificateStorageService.generateAndStoreCertificate(evidence);
+
+        // Then
+        assertEquals("abc123", result.getCertificateHash());
+    }
+
     @Test
     void testCertificateExists_True() {
         // Given
@@ -230,6 +299,38 @@ class CertificateStorageServiceTest {
         verify(certificateService, never()).deleteCertificate(any());
     }
 
+    @Test
+    void testGetDownloadUrl_SignsUrlWhenStorageHasNoDirectUrl() {
+        CertificateUrlSigner.SignedUrl signedUrl = new CertificateUrlSigner.SignedUrl(
+                "/downloads/certificates/cert_1?expires=1&signature=abc", Instant.now());
+        when(certificateService.getDirectDownloadUrl("cert_1")).thenReturn(Optional.empty());
+        when(certificateUrlSigner.isEnabled()).thenReturn(true);
+        when(certificateUrlSigner.sign("cert_1")).thenReturn(signedUrl);
+
+        assertEquals(Optional.of(signedUrl), certificateStorageService.getDownloadUrl("cert_1"));
+    }
+
+    @Test
+    void testGetDownloadUrl_SigningDisabled_ReturnsEmpty() {
+        when(certificateService.getDirectDownloadUrl("cert_1")).thenReturn(Optional.empty());
+        when(certificateUrlSigner.isEnabled()).thenReturn(false);
+
+        assertTrue(certificateStorageService.getDownloadUrl("cert_1").isEmpty());
+        verify(certificateUrlSigner, never()).sign(any());
+    }
+
+    @Test
+    void testGetDownloadUrl_PrefersStorageDirectUrl() {
+        when(certificateService.getDirectDownloadUrl("cert_1"))
+                .thenReturn(Optional.of("https://s3.example.com/certificates/cert_1.pdf?X-Amz-Signature=abc"));
+
+        CertificateUrlSigner.SignedUrl result = certificateStorageService.getDownloadUrl("cert_1")
+                .orElseThrow();
+
+        assertEquals("https://s3.example.com/certificates/cert_1.pdf?X-Amz-Signature=abc", result.url());
+        verify(certificateUrlSigner, never()).sign(any());
+    }
+
     private EvidenceEntity createTestEvidence() {
         EvidenceEntity evidence = new EvidenceEntity();
         evidence.setId(1L);
@@ -0,0 +1,81 @@
+package cn.edu.gfkd.evidence.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Instant;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.util.UriComponents;
+import org.springframework.web.util.UriComponentsBuilder;
+
+class CertificateUrlSignerTest {
+
+    private CertificateUrlSigner signer;
+
+    @BeforeEach
+    void setUp() {
+        signer = createSigner("testSecretKeyThatIsAtLeast256BitsLong");
+    }
+
+    @Test
+    void testSign_UrlVerifiesUntilExpiry() {
+        CertificateUrlSigner.SignedUrl signedUrl = signer.sign("cert_EVID_1");
+        UriComponents url = UriComponentsBuilder.fromUriString(signedUrl.url()).build();
+
+        assertEquals("/downloads/certificates/cert_EVID_1", url.getPath());
+        long expires = Long.parseLong(url.getQueryParams().getFirst("expires"));
+        assertEquals(signedUrl.expiresAt().getEpochSecond(), expires);
+        assertTrue(signer.verify("cert_EVID_1", expires, url.getQueryParams().getFirst("signature")));
+    }
+
+    @Test
+    void testVerify_RejectsTamperedLinks() {
+        UriComponents url = UriComponentsBuilder.fromUriString(signer.sign("cert_EVID_1").url()).build();
+        long expires = Long.parseLong(url.getQueryParams().getFirst("expires"));
+        String signature = url.getQueryParams().getFirst("signature");
+
+        assertFalse(signer.verify("cert_EVID_2", expires, signature));
+        assertFalse(signer.verify("cert_EVID_1", expires + 3600, signature));
+        assertFalse(signer.verify("cert_EVID_1", expires, signature.substring(1)));
+        assertFalse(signer.verify("cert_EVID_1", expires, null));
+        assertFalse(createSigner("anotherSecretKeyThatIsAtLeast256BitsLong")
+                .verify("cert_EVID_1", expires, signature));
+    }
+
+    @Test
+    void testVerify_RejectsExpiredLinks() {
+        ReflectionTestUtils.setField(signer, "ttlSeconds", -1L);
+        UriComponents url = UriComponentsBuilder.fromUriString(signer.sign("cert_EVID_1").url()).build();
+
+        long expires = Long.parseLong(url.getQueryParams().getFirst("expires"));
+        assertTrue(expires < Instant.now().getEpochSecond());
+        assertFalse(signer.verify("cert_EVID_1", expires, url.getQueryParams().getFirst("signature")));
+    }
+
+    @Test
+    void testValidateSecret_RejectsJwtSecretAndDisablesWhenUnset() {
+        ReflectionTestUtils.setField(signer, "jwtSecret", "jwtSecretKeyThatIsAtLeast256BitsLong");
+        assertDoesNotThrow(signer::validateSecret);
+
+        ReflectionTestUtils.setField(signer, "secret", "");
+        assertDoesNotThrow(signer::validateSecret);
+        assertFalse(signer.isEnabled());
+        assertThrows(IllegalStateException.class, () -> signer.sign("cert_EVID_1"));
+        assertFalse(signer.verify("cert_EVID_1", Long.MAX_VALUE, "signature"));
+
+        ReflectionTestUtils.setField(signer, "secret", "jwtSecretKeyThatIsAtLeast256BitsLong");
+        assertThrows(IllegalStateException.class, signer::validateSecret);
+    }
+
+    private CertificateUrlSigner createSigner(String secret) {
+        CertificateUrlSigner urlSigner = new CertificateUrlSigner();
+        ReflectionTestUtils.setField(urlSigner, "secret", secret);
+        return urlSigner;
+    }
+}
@@ -0,0 +1,184 @@
+package cn.edu.gfkd.evidence.service;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import cn.edu.gfkd.evidence.config.CertificateStorageConfig;
+import cn.edu.gfkd.evidence.entity.EvidenceEntity;
+import cn.edu.gfkd.evidence.service.storage.FileSystemCertificateStorage;
+import cn.edu.gfkd.evidence.service.storage.FsyncPolicy;
+
+class CertificateWriteDurabilityTest {
+
+    private static final int THREADS = 8;
+    private static final int STORES_PER_THREAD = 25;
+
+    @TempDir
+    Path baseDir;
+
+    @Test
+    void testStoreCertificate_FailedWriteKeepsPreviousContent() throws Exception {
+        FileSystemCertificateStorage storage = createStorage(baseDir, "per-file");
+        storage.initialize();
+        storage.storeCertificate(createEvidence("EVID:1"), out -> out.write(bytes(1)));
+
+        // 模拟渲染中途失败：已写出部分内容后抛出异常
+        assertThrows(IOException.class, () -> storage.storeCertificate(createEvidence("EVID:1"),
+                out -> {
+                    out.write(new byte[128 * 1024]);
+                    throw new IOException("renderer crashed");
+                }));
+
+        assertArrayEquals(bytes(1), read(storage, "cert_EVID_1"));
+        assertEquals(0, countTempFiles());
+
+        storage.cleanup();
+        FileSystemCertificateStorage restarted = createStorage(baseDir, "per-file");
+        restarted.initialize();
+        assertArrayEquals(bytes(1), read(restarted, "cert_EVID_1"));
+    }
+
+    @Test
+    void testInitialize_RemovesStaleTempFiles() throws Exception {
+        FileSystemCertificateStorage storage = createStorage(baseDir, "grouped");
+        storage.initialize();
+        storage.storeCertificate(createEvidence("EVID:1"), out -> out.write(bytes(1)));
+        storage.cleanup();
+
+        // 进程在重命名前被杀死时遗留的临时文件
+        Files.write(baseDir.resolve("tmp").resolve("cert_EVID_1123.pdf"), bytes(2));
+
+        FileSystemCertificateStorage restarted = createStorage(baseDir, "grouped");
+        restarted.initialize();
+
+        assertEquals(0, countTempFiles());
+        assertArrayEquals(bytes(1), read(restarted, "cert_EVID_1"));
+    }
+
+    @Test
+    void testInitialize_TornManifestTailIsDiscardedBeforeAppending() throws Exception {
+        FileSystemCertificateStorage storage = createStorage(baseDir, "per-file");
+        storage.initialize();
+        storage.storeCertificate(createEvidence("EVID:1"), out -> out.write(bytes(1)));
+        storage.storeCertificate(createEvidence("EVID:2"), out -> out.write(bytes(2)));
+        storage.cleanup();
+
+        // 进程在追加清单记录中途被杀死：最后一行没有换行符，但字段数量恰好完整
+        Path manifestFile = baseDir.resolve(".manifest");
+        Files.write(manifestFile, "+\tcert_EVID_3\t24\t0badc0de\t17".getBytes(
+                StandardCharsets.UTF_8), StandardOpenOption.APPEND);
+
+        FileSystemCertificateStorage restarted = createStorage(baseDir, "per-file");
+        restarted.initialize();
+        assertFalse(restarted.getCertificateMetadata("cert_EVID_3").isPresent());
+        restarted.storeCertificate(createEvidence("EVID:4"), out -> out.write(bytes(4)));
+        restarted.cleanup();
+
+        // 新记录不能接在半行后面
+        String manifest = Files.readString(manifestFile, StandardCharsets.UTF_8);
+        assertTrue(manifest.endsWith("\n"));
+        for (String line : manifest.split("\n")) {
+            assertTrue(line.split("\t").length == 5 || line.split("\t").length == 2, line);
+        }
+
+        FileSystemCertificateStorage reopened = createStorage(baseDir, "per-file");
+        reopened.initialize();
+        assertArrayEquals(bytes(1), read(reopened, "cert_EVID_1"));
+        assertArrayEquals(bytes(2), read(reopened, "cert_EVID_2"));
+        assertArrayEquals(bytes(4), read(reopened, "cert_EVID_4"));
+        assertFalse(reopened.getCertificateMetadata("cert_EVID_3").isPresent());
+    }
+
+    @Test
+    void testStoreCertificate_ConcurrentStoresPerFsyncPolicy() throws Exception {
+        for (FsyncPolicy policy : FsyncPolicy.values()) {
+            Path dir = baseDir.resolve(policy.getCode());
+            FileSystemCertificateStorage storage = createStorage(dir, policy.getCode());
+            storage.initialize();
+
+            int total = THREADS * STORES_PER_THREAD;
+            ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+            try {
+                List<Future<?>> futures = new ArrayList<>();
+                for (int t = 0; t < THREADS; t++) {
+                    int thread = t;
+                    futures.add(executor.submit(() -> {
+                        for (int i = 0; i < STORES_PER_THREAD; i++) {
+                            int version = thread * STORES_PER_THREAD + i;
+                            storage.storeCertificate(createEvidence("EVID:" + version),
+                                    out -> out.write(bytes(version)));
+                        }
+                        return null;
+                    }));
+                }
+                for (Future<?> future : futures) {
+                    future.get();
+                }
+            } finally {
+                executor.shutdown();
+            }
+
+            // 吞吐对比见 benchmark.CertificateFsyncBenchmark，这里只校验并发写入的正确性
+            for (int version = 0; version < total; version++) {
+                assertArrayEquals(bytes(version), read(storage, "cert_EVID_" + version));
+            }
+            if (policy == FsyncPolicy.GROUPED) {
+                assertTrue(storage.getFsyncGroupCount() > 0);
+                assertTrue(storage.getFsyncGroupCount() <= total);
+            } else {
+                assertEquals(0, storage.getFsyncGroupCount());
+            }
+            storage.cleanup();
+        }
+    }
+
+    private FileSystemCertificateStorage createStorage(Path dir, String fsync) {
+        CertificateStorageConfig config = new CertificateStorageConfig();
+        config.getFilesystem().setBasePath(dir.toString());
+        config.getFilesystem().setMigrateOnStartup(false);
+        config.getFilesystem().setFsync(fsync);
+        return new FileSystemCertificateStorage(config);
+    }
+
+    private byte[] read(FileSystemCertificateStorage storage, String certificateId)
+            throws Exception {
+        try (InputStream inputStream = storage.getCertificate(certificateId).orElseThrow()) {
+            return inputStream.readAllBytes();
+        }
+    }
+
+    private long countTempFiles() throws IOException {
+        try (Stream<Path> files = Files.list(baseDir.resolve("tmp"))) {
+            return files.count();
+        }
+    }
+
+    private byte[] bytes(int version) {
+        return ("%PDF-1.7 certificate v" + version).getBytes(StandardCharsets.UTF_8);
+    }
+
+    private EvidenceEntity createEvidence(String evidenceId) {
+        EvidenceEntity evidence = new EvidenceEntity();
+        evidence.setEvidenceId(evidenceId);
+        return evidence;
+    }
+}
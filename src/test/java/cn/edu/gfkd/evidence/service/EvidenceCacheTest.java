@@ -0,0 +1,126 @@
+package cn.edu.gfkd.evidence.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import cn.edu.gfkd.evidence.entity.EvidenceEntity;
+import cn.edu.gfkd.evidence.service.storage.EvidenceCache;
+
+class EvidenceCacheTest {
+
+    private EvidenceCache evidenceCache;
+    private AtomicInteger loads;
+
+    @BeforeEach
+    void setUp() {
+        evidenceCache = new EvidenceCache();
+        ReflectionTestUtils.setField(evidenceCache, "maxEntries", 2);
+        loads = new AtomicInteger();
+    }
+
+    @Test
+    void testGet_ByAnyKey_SharesOneEntry() {
+        EvidenceEntity evidence = evidence(1L);
+
+        evidenceCache.getById(1L, loader(evidence));
+        EvidenceEntity byEvidenceId = evidenceCache
+                .getByEvidenceId("EVID:1", loader(evidence)).orElseThrow();
+        EvidenceEntity byTransactionHash = evidenceCache
+                .getByTransactionHash("0xtx1", loader(evidence)).orElseThrow();
+
+        assertSame(evidence, byEvidenceId);
+        assertSame(evidence, byTransactionHash);
+        assertEquals(1, loads.get());
+        assertEquals(2.0 / 3, evidenceCache.getHitRatio(), 0.0001);
+    }
+
+    @Test
+    void testGet_MissingEvidence_NotCached() {
+        evidenceCache.getByEvidenceId("EVID:404", loader(null));
+        Optional<EvidenceEntity> result = evidenceCache.getByEvidenceId("EVID:404", loader(null));
+
+        assertFalse(result.isPresent());
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void testInvalidateByEvidenceId_RemovesAllKeys() {
+        EvidenceEntity evidence = evidence(1L);
+        evidenceCache.getById(1L, loader(evidence));
+
+        evidenceCache.invalidateByEvidenceId("EVID:1");
+        evidenceCache.getByTransactionHash("0xtx1", loader(evidence));
+        evidenceCache.getById(1L, loader(evidence));
+
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void testGet_InvalidatedWhileLoading_DoesNotCacheStaleResult() {
+        EvidenceEntity stale = evidence(1L);
+
+        // 读库期间证据被修改：读到的旧记录不能回填缓存
+        evidenceCache.getById(1L, () -> {
+            loads.incrementAndGet();
+            evidenceCache.invalidate(1L);
+            return Optional.of(stale);
+        });
+        EvidenceEntity fresh = evidence(1L);
+        EvidenceEntity result = evidenceCache.getById(1L, loader(fresh)).orElseThrow();
+
+        assertSame(fresh, result);
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void testGet_ExpiredEntry_ReloadsFromDatabase() {
+        ReflectionTestUtils.setField(evidenceCache, "ttlSec", 0L);
+        EvidenceEntity evidence = evidence(1L);
+
+        evidenceCache.getById(1L, loader(evidence));
+        evidenceCache.getById(1L, loader(evidence));
+
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void testGet_OverCapacity_EvictsLeastRecentlyUsed() {
+        evidenceCache.getById(1L, loader(evidence(1L)));
+        evidenceCache.getById(2L, loader(evidence(2L)));
+        evidenceCache.getById(1L, loader(evidence(1L)));
+        evidenceCache.getById(3L, loader(evidence(3L)));
+        assertEquals(3, loads.get());
+
+        evidenceCache.getByEvidenceId("EVID:1", loader(evidence(1L)));
+        evidenceCache.getByEvidenceId("EVID:3", loader(evidence(3L)));
+        assertEquals(3, loads.get());
+
+        evidenceCache.getByEvidenceId("EVID:2", loader(evidence(2L)));
+        assertEquals(4, loads.get());
+    }
+
+    private Supplier<Optional<EvidenceEntity>> loader(EvidenceEntity evidence) {
+        return () -> {
+            loads.incrementAndGet();
+            return Optional.ofNullable(evidence);
+        };
+    }
+
+    private static EvidenceEntity evidence(long id) {
+        EvidenceEntity evidence = new EvidenceEntity();
+        evidence.setId(id);
+        evidence.setEvidenceId("EVID:" + id);
+        evidence.setTransactionHash("0xtx" + id);
+        evidence.setStatus("effective");
+        return evidence;
+    }
+}
@@ -0,0 +1,129 @@
+package cn.edu.gfkd.evidence.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+
+import cn.edu.gfkd.evidence.entity.EvidenceCounter;
+import cn.edu.gfkd.evidence.repository.EvidenceCounterRepository;
+import cn.edu.gfkd.evidence.repository.EvidenceRepository;
+import cn.edu.gfkd.evidence.service.retry.RetryHandler;
+import cn.edu.gfkd.evidence.service.storage.EvidenceCounterService;
+
+@ExtendWith(MockitoExtension.class) @MockitoSettings(strictness = Strictness.LENIENT)
+class EvidenceCounterServiceTest {
+
+    private static final String USER = "0x1234567890123456789012345678901234567890";
+
+    @Mock
+    private EvidenceCounterRepository evidenceCounterRepository;
+
+    @Mock
+    private EvidenceRepository evidenceRepository;
+
+    @Mock
+    private RetryHandler retryHandler;
+
+    private EvidenceCounterService evidenceCounterService;
+
+    @BeforeEach
+    void setUp() {
+        evidenceCounterService = new EvidenceCounterService(evidenceCounterRepository,
+                evidenceRepository, retryHandler);
+
+        when(retryHandler.executeWithRetryTransactional(any(), anyString()))
+                .thenAnswer(inv -> ((RetryHandler.RetryableOperation<?>) inv.getArgument(0))
+                        .execute());
+    }
+
+    @Test
+    void testRecordStatusChange_MovesUserAndGlobalCounts() {
+        when(evidenceCounterRepository.addToCount(anyString(), anyString(), anyLong()))
+                .thenReturn(1);
+
+        evidenceCounterService.recordStatusChange(USER, "effective", "revoked");
+
+        verify(evidenceCounterRepository).addToCount(USER, "effective", -1);
+        verify(evidenceCounterRepository).addToCount(USER, "revoked", 1);
+        verify(evidenceCounterRepository).addToCount(EvidenceCounter.ALL_USERS, "effective", -1);
+        verify(evidenceCounterRepository).addToCount(EvidenceCounter.ALL_USERS, "revoked", 1);
+        verify(evidenceCounterRepository, never()).saveAndFlush(any());
+    }
+
+    @Test
+    void testRecordStatusChange_SameStatus_DoesNothing() {
+        evidenceCounterService.recordStatusChange(USER, "revoked", "revoked");
+
+        verifyNoInteractions(evidenceCounterRepository);
+    }
+
+    @Test
+    void testRecordCreated_FirstEvidenceOfUser_InsertsCounter() {
+        when(evidenceCounterRepository.addToCount(USER, "effective", 1)).thenReturn(0);
+        when(evidenceCounterRepository.addToCount(EvidenceCounter.ALL_USERS, "effective", 1))
+                .thenReturn(1);
+
+        evidenceCounterService.recordCreated(USER, "effective");
+
+        ArgumentCaptor<EvidenceCounter> inserted = ArgumentCaptor.forClass(EvidenceCounter.class);
+        verify(evidenceCounterRepository).saveAndFlush(inserted.capture());
+        assertEquals(USER, inserted.getValue().getUserAddress());
+        assertEquals("effective", inserted.getValue().getStatus());
+        assertEquals(1, inserted.getValue().getEvidenceCount());
+    }
+
+    @Test
+    void testRebuild_CorrectsDriftedAndMissingCounters() {
+        List<EvidenceRepository.EvidenceCountRow> rows = List.of(row(USER, "effective", 3),
+                row(USER, "revoked", 1), row("0xother", "effective", 2));
+        when(evidenceRepository.countGroupByUserAddressAndStatus()).thenReturn(rows);
+        EvidenceCounter consistent = new EvidenceCounter(USER, "effective", 3);
+        EvidenceCounter drifted = new EvidenceCounter(EvidenceCounter.ALL_USERS, "effective", 4);
+        EvidenceCounter stale = new EvidenceCounter(USER, "expired", 1);
+        when(evidenceCounterRepository.findAll())
+                .thenReturn(new ArrayList<>(List.of(consistent, drifted, stale)));
+
+        int corrected = evidenceCounterService.rebuild();
+
+        // 全局 effective 计数错误、expired 计数已无证据、三个计数器缺失
+        assertEquals(5, corrected);
+        assertEquals(3, consistent.getEvidenceCount());
+        assertEquals(5, drifted.getEvidenceCount());
+        verify(evidenceCounterRepository).deleteAll(List.of(stale));
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<EvidenceCounter>> inserted = ArgumentCaptor.forClass(List.class);
+        verify(evidenceCounterRepository).saveAll(inserted.capture());
+        assertEquals(3, inserted.getValue().size());
+        assertEquals(1, inserted.getValue().stream()
+                .filter(counter -> EvidenceCounter.ALL_USERS.equals(counter.getUserAddress())
+                        && "revoked".equals(counter.getStatus()))
+                .mapToLong(EvidenceCounter::getEvidenceCount).sum());
+    }
+
+    private static EvidenceRepository.EvidenceCountRow row(String userAddress, String status,
+            long count) {
+        EvidenceRepository.EvidenceCountRow row = mock(EvidenceRepository.EvidenceCountRow.class);
+        when(row.getUserAddress()).thenReturn(userAddress);
+        when(row.getStatus()).thenReturn(status);
+        when(row.getEvidenceCount()).thenReturn(count);
+        return row;
+    }
+}
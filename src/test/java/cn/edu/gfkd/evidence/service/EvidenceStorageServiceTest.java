@@ -1,8 +1,12 @@
 package cn.edu.gfkd.evidence.service;
 
+import cn.edu.gfkd.evidence.dto.CursorSlice;
 import cn.edu.gfkd.evidence.entity.EvidenceEntity;
+import cn.edu.gfkd.evidence.enums.EvidenceSortKey;
 import cn.edu.gfkd.evidence.exception.EvidenceNotFoundException;
 import cn.edu.gfkd.evidence.repository.EvidenceRepository;
+import cn.edu.gfkd.evidence.service.storage.EvidenceCache;
+import cn.edu.gfkd.evidence.service.storage.EvidenceCounterService;
 import cn.edu.gfkd.evidence.service.storage.EvidenceStorageService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
@@ -10,6 +14,7 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
@@ -17,6 +22,7 @@ import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 
 import java.math.BigInteger;
+import java.time.LocalDateTime;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
@@ -33,6 +39,12 @@ class EvidenceStorageServiceTest {
     @Mock
     private EvidenceRepository evidenceRepository;
 
+    @Spy
+    private EvidenceCache evidenceCache = new EvidenceCache();
+
+    @Mock
+    private EvidenceCounterService evidenceCounterService;
+
     @InjectMocks
     private EvidenceStorageService evidenceStorageService;
 
@@ -90,6 +102,8 @@ class EvidenceStorageServiceTest {
 
         // Verify interactions
         verify(evidenceRepository).save(evidence1);
+        verify(evidenceCounterService).recordCreated(evidence1.getUserAddress(),
+                evidence1.getStatus());
     }
 
     @Test
@@ -226,6 +240,30 @@ class EvidenceStorageServiceTest {
         verify(evidenceRepository).findByTransactionHash(txHash);
     }
 
+    @Test
+    @DisplayName("Should serve repeated lookups by any key from cache until evidence is updated")
+    void getEvidence_RepeatedLookups_ShouldHitDatabaseOnceUntilUpdated() {
+        // Arrange
+        when(evidenceRepository.findById(1L)).thenReturn(Optional.of(evidence1));
+        when(evidenceRepository.save(any(EvidenceEntity.class))).thenReturn(evidence1);
+
+        // Act
+        evidenceStorageService.getEvidenceById(1L);
+        Optional<EvidenceEntity> byEvidenceId = evidenceStorageService
+                .getEvidenceByEvidenceId(evidence1.getEvidenceId());
+        Optional<EvidenceEntity> byTransactionHash = evidenceStorageService
+                .getEvidenceByTransactionHash(evidence1.getTransactionHash());
+        evidenceStorageService.updateEvidence(evidence1);
+        evidenceStorageService.getEvidenceById(1L);
+
+        // Assert
+        assertSame(evidence1, byEvidenceId.orElseThrow());
+        assertSame(evidence1, byTransactionHash.orElseThrow());
+        verify(evidenceRepository, times(2)).findById(1L);
+        verify(evidenceRepository, never()).findByEvidenceId(any());
+        verify(evidenceRepository, never()).findByTransactionHash(any());
+    }
+
     @Test
     @DisplayName("Should return evidence list when found by user address")
     void getEvidenceByUserAddress_WhenEvidenceExists_ShouldReturnEvidenceList() {
@@ -479,6 +517,7 @@ class EvidenceStorageServiceTest {
     void updateEvidence_WhenValidData_ShouldUpdateEvidence() {
         // Arrange
         evidence1.setStatus("verified");
+        when(evidenceRepository.findStatusById(1L)).thenReturn(Optional.of("effective"));
         when(evidenceRepository.save(any(EvidenceEntity.class))).thenReturn(evidence1);
 
         // Act
@@ -490,6 +529,8 @@ class EvidenceStorageServiceTest {
 
         // Verify interactions
         verify(evidenceRepository).save(evidence1);
+        verify(evidenceCounterService).recordStatusChange(evidence1.getUserAddress(),
+                "effective", "verified");
     }
 
     @Test
@@ -510,22 +551,24 @@ class EvidenceStorageServiceTest {
     @DisplayName("Should delete evidence successfully when evidence exists")
     void deleteEvidence_WhenEvidenceExists_ShouldDeleteEvidence() {
         // Arrange
-        when(evidenceRepository.existsById(1L)).thenReturn(true);
-        doNothing().when(evidenceRepository).deleteById(1L);
+        when(evidenceRepository.findById(1L)).thenReturn(Optional.of(evidence1));
+        doNothing().when(evidenceRepository).delete(any(EvidenceEntity.class));
 
         // Act
         evidenceStorageService.deleteEvidence(1L);
 
         // Assert
-        verify(evidenceRepository).existsById(1L);
-        verify(evidenceRepository).deleteById(1L);
+        verify(evidenceRepository).findById(1L);
+        verify(evidenceRepository).delete(evidence1);
+        verify(evidenceCounterService).recordDeleted(evidence1.getUserAddress(),
+                evidence1.getStatus());
     }
 
     @Test
     @DisplayName("Should throw exception when deleting evidence that does not exist")
     void deleteEvidence_WhenEvidenceDoesNotExist_ShouldThrowException() {
         // Arrange
-        when(evidenceRepository.existsById(999L)).thenReturn(false);
+        when(evidenceRepository.findById(999L)).thenReturn(Optional.empty());
 
         // Act & Assert
         EvidenceNotFoundException exception = assertThrows(
@@ -535,8 +578,9 @@ class EvidenceStorageServiceTest {
         assertEquals("Evidence not found with ID: 999", exception.getMessage());
 
         // Verify interactions
-        verify(evidenceRepository).existsById(999L);
-        verify(evidenceRepository, never()).deleteById(any());
+        verify(evidenceRepository).findById(999L);
+        verify(evidenceRepository, never()).delete(any());
+        verifyNoInteractions(evidenceCounterService);
     }
 
     @Test
@@ -623,4 +667,85 @@ class EvidenceStorageServiceTest {
         // Verify interactions
         verify(evidenceRepository).findById(1L);
     }
-}
\ No newline at end of file
+
+    @Test
+    @DisplayName("Should continue from the returned cursor without re-reading earlier rows")
+    void scrollEvidence_WhenMoreRowsThanSize_ShouldReturnNextCursor() {
+        // Arrange
+        String userAddress = evidence1.getUserAddress();
+        evidence1.setCreatedAt(LocalDateTime.of(2024, 1, 2, 10, 0));
+        evidence2.setCreatedAt(LocalDateTime.of(2024, 1, 1, 10, 0, 0, 123_000_000));
+        when(evidenceRepository.findEvidenceSlice(null, userAddress, null,
+                EvidenceSortKey.CREATED_AT, true, null, null, 2))
+                .thenReturn(Arrays.asList(evidence1, evidence2));
+        when(evidenceRepository.findEvidenceSlice(null, userAddress, null,
+                EvidenceSortKey.CREATED_AT, true, evidence1.getCreatedAt(), 1L, 2))
+                .thenReturn(List.of(evidence2));
+
+        // Act
+        CursorSlice<EvidenceEntity> first = evidenceStorageService.scrollEvidence(null,
+                userAddress, null, EvidenceSortKey.CREATED_AT, true, null, 1, false);
+        CursorSlice<EvidenceEntity> second = evidenceStorageService.scrollEvidence(null,
+                userAddress, null, EvidenceSortKey.CREATED_AT, true, first.getNextCursor(), 1,
+                false);
+
+        // Assert
+        assertEquals(List.of(evidence1), first.getContent());
+        assertTrue(first.isHasNext());
+        assertNotNull(first.getNextCursor());
+        assertNull(first.getTotalElements());
+        assertEquals(List.of(evidence2), second.getContent());
+        assertFalse(second.isHasNext());
+        assertNull(second.getNextCursor());
+
+        // Verify interactions
+        verify(evidenceRepository, never()).countEvidence(any(), any(), any());
+    }
+
+    @Test
+    @DisplayName("Should count matching evidence only when the total is requested")
+    void scrollEvidence_WithIncludeTotal_ShouldCountMatchingEvidence() {
+        // Arrange
+        when(evidenceRepository.findEvidenceSlice("EVID", null, "effective", EvidenceSortKey.ID,
+                false, null, null, 11)).thenReturn(Arrays.asList(evidence1, evidence2));
+        when(evidenceRepository.countEvidence("EVID", null, "effective")).thenReturn(2L);
+
+        // Act
+        CursorSlice<EvidenceEntity> slice = evidenceStorageService.scrollEvidence("EVID", null,
+                "effective", EvidenceSortKey.ID, false, null, 10, true);
+
+        // Assert
+        assertEquals(2, slice.getContent().size());
+        assertFalse(slice.isHasNext());
+        assertEquals(2L, slice.getTotalElements());
+    }
+
+    @Test
+    @DisplayName("Should reject a cursor issued for a different sort order or malformed")
+    void scrollEvidence_WithMismatchedOrInvalidCursor_ShouldThrowException() {
+        // Arrange
+        evidence1.setCreatedAt(LocalDateTime.of(2024, 1, 2, 10, 0));
+        when(evidenceRepository.findEvidenceSlice(null, null, null, EvidenceSortKey.CREATED_AT,
+                true, null, null, 2)).thenReturn(Arrays.asList(evidence1, evidence2));
+        String cursor = evidenceStorageService.scrollEvidence(null, null, null,
+                EvidenceSortKey.CREATED_AT, true, null, 1, false).getNextCursor();
+
+        // Act & Assert
+        assertThrows(IllegalArgumentException.class,
+                () -> evidenceStorageService.scrollEvidence(null, null, null,
+                        EvidenceSortKey.CREATED_AT, false, cursor, 1, false));
+        assertThrows(IllegalArgumentException.class,
+                () -> evidenceStorageService.scrollEvidence(null, null, null,
+                        EvidenceSortKey.ID, true, cursor, 1, false));
+        assertThrows(IllegalArgumentException.class,
+                () -> evidenceStorageService.scrollEvidence(null, null, null,
+                        EvidenceSortKey.CREATED_AT, true, "not-a-cursor", 1, false));
+        assertThrows(IllegalArgumentException.class,
+                () -> evidenceStorageService.scrollEvidence(null, null, null,
+                        EvidenceSortKey.CREATED_AT, true, null, 0, false));
+
+        // Verify interactions
+        verify(evidenceRepository, times(1)).findEvidenceSlice(any(), any(), any(), any(),
+                anyBoolean(), any(), any(), anyInt());
+    }
+}
@@ -0,0 +1,313 @@
+package cn.edu.gfkd.evidence.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+import org.apache.pdfbox.Loader;
+import org.apache.pdfbox.cos.COSName;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDResources;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
+import org.apache.pdfbox.pdmodel.font.PDType0Font;
+import org.apache.pdfbox.pdmodel.interactive.annotation.PDAnnotation;
+import org.apache.pdfbox.pdmodel.interactive.annotation.PDAnnotationWidget;
+import org.apache.pdfbox.pdmodel.interactive.form.PDAcroForm;
+import org.apache.pdfbox.pdmodel.interactive.form.PDField;
+import org.apache.pdfbox.pdmodel.interactive.form.PDTextField;
+import org.apache.pdfbox.text.PDFTextStripper;
+import org.apache.pdfbox.text.TextPosition;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import cn.edu.gfkd.evidence.entity.EvidenceEntity;
+import cn.edu.gfkd.evidence.service.signing.CertificateSigner;
+import cn.edu.gfkd.evidence.service.signing.LocalTimestampAuthority;
+
+/**
+ * 快速渲染引擎与表单填充引擎的输出对比测试
+ *
+ * 两种引擎渲染同一份内容，逐字段比较文本和每个字形的基线位置。
+ */
+class FastCertificateRendererTest {
+
+    private static final String TEST_FONT_PATH = "classpath:fonts/EvidenceTestBoxes-Regular.ttf";
+
+    // 基线位置允许的误差（点），只来自内容流中数值的格式化
+    private static final float TOLERANCE = 0.01f;
+
+    // 渲染时按当前时间生成内容的字段，两次渲染之间数字可能变化
+    private static final Set<String> TIME_DEPENDENT_FIELDS = Set.of("date", "content");
+
+    private static final String CJK_TEXT = "存证信息经本处系统验证，与区块上的一致，特此证明。"
+            .repeat(3);
+    private static final String LATIN_TEXT = "The quick brown fox jumps over the lazy dog. "
+            .repeat(4).trim();
+
+    private CertificateTemplateCache templateCache;
+    private FastCertificateRenderer fastCertificateRenderer;
+    private Map<String, PDRectangle> fieldRects;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        CertificateConfig config = new CertificateConfig();
+        config.setFontPath(TEST_FONT_PATH);
+
+        templateCache = new CertificateTemplateCache(config);
+        CertificateDocumentWriter documentWriter = new CertificateDocumentWriter(config,
+                new CertificateSigner(new LocalTimestampAuthority()));
+        fastCertificateRenderer = new FastCertificateRenderer(templateCache, documentWriter);
+        fieldRects = readFieldRects();
+    }
+
+    @Test
+    void testRender_SameEvidence_MatchesAcroFormTextAndBaselines() throws Exception {
+        EvidenceEntity evidence = createTestEvidence();
+
+        // 表单填充引擎需要扁平化后文本才进入页面内容流
+        byte[] acroForm = createCertificateService("acroform", "compact")
+                .renderCertificate(evidence);
+        byte[] fast = createCertificateService("fast", "standard").renderCertificate(evidence);
+
+        Map<String, List<Glyph>> expected = extractFieldGlyphs(acroForm);
+        Map<String, List<Glyph>> actual = extractFieldGlyphs(fast);
+        assertEquals(fieldRects.keySet(), actual.keySet());
+        for (String fieldName : fieldRects.keySet()) {
+            assertSameGlyphs(fieldName, expected.get(fieldName), actual.get(fieldName));
+        }
+
+        assertTrue(text(actual.get("id")).contains("test-evidence-123"));
+        assertTrue(text(actual.get("fileName")).contains("测试文件.pdf"));
+        assertTrue(text(actual.get("owner")).contains(evidence.getUserAddress()));
+    }
+
+    @Test
+    void testRender_RemovesFormAndWidgetAnnotations() throws Exception {
+        // standard 配置下文档写出时不会再清理表单，结构必须由快速渲染引擎删除
+        byte[] fast = createCertificateService("fast", "standard")
+                .renderCertificate(createTestEvidence());
+
+        try (PDDocument document = Loader.loadPDF(fast)) {
+            assertFalse(document.getDocumentCatalog().getCOSObject()
+                    .containsKey(COSName.ACRO_FORM));
+            for (PDPage page : document.getPages()) {
+                for (PDAnnotation annotation : page.getAnnotations()) {
+                    assertFalse(annotation instanceof PDAnnotationWidget);
+                }
+            }
+        }
+    }
+
+    @Test
+    void testRender_WrapsCjkTextLikeAcroForm() throws Exception {
+        List<Glyph> glyphs = assertMultilineMatchesAcroForm(CJK_TEXT);
+
+        // 中文在字间折行，每行都写满到可用宽度附近
+        List<List<Glyph>> lines = lines(glyphs);
+        assertTrue(lines.size() >= 3, "expected at least 3 lines, got " + lines.size());
+    }
+
+    @Test
+    void testRender_WrapsLatinTextAtSpaces() throws Exception {
+        List<Glyph> glyphs = assertMultilineMatchesAcroForm(LATIN_TEXT);
+
+        // 英文只在空格处折行，不会把单词拆到两行
+        List<List<Glyph>> lines = lines(glyphs);
+        assertTrue(lines.size() >= 2, "expected at least 2 lines, got " + lines.size());
+        for (int i = 1; i < lines.size(); i++) {
+            List<Glyph> previous = lines.get(i - 1);
+            assertEquals(" ", previous.get(previous.size() - 1).unicode());
+            assertFalse(lines.get(i).get(0).unicode().isBlank());
+        }
+    }
+
+    /**
+     * 两种引擎渲染同一段多行文本，比较字形并检查每行都在字段内容区域内
+     */
+    private List<Glyph> assertMultilineMatchesAcroForm(String content) throws Exception {
+        Map<String, String> fieldContentMap = Map.of("content", content);
+
+        List<Glyph> expected = extractFieldGlyphs(renderAcroForm(fieldContentMap))
+                .get("content");
+        List<Glyph> actual = extractFieldGlyphs(fastCertificateRenderer.render(fieldContentMap))
+                .get("content");
+        assertSameGlyphs("content", expected, actual);
+
+        // 所有文本都已输出，且按原顺序排列
+        assertEquals(content, text(actual));
+
+        // 左对齐：每行从内容区域左边开始，非空白字形不超出右边
+        PDRectangle rect = fieldRects.get("content");
+        float contentLeft = rect.getLowerLeftX() + 2;
+        float contentRight = rect.getUpperRightX() - 2;
+        for (List<Glyph> line : lines(actual)) {
+            assertEquals(contentLeft, line.get(0).x(), TOLERANCE);
+            for (Glyph glyph : line) {
+                if (!glyph.unicode().isBlank()) {
+                    assertTrue(glyph.x() + glyph.width() <= contentRight + TOLERANCE,
+                            "glyph '" + glyph.unicode() + "' ends at " + (glyph.x() + glyph.width())
+                                    + ", content area ends at " + contentRight);
+                }
+            }
+        }
+        return actual;
+    }
+
+    private void assertSameGlyphs(String fieldName, List<Glyph> expected, List<Glyph> actual) {
+        assertNotNull(expected, "no text in AcroForm output for field " + fieldName);
+        assertNotNull(actual, "no text in fast output for field " + fieldName);
+        assertEquals(expected.size(), actual.size(), "glyph count of field " + fieldName);
+
+        boolean timeDependent = TIME_DEPENDENT_FIELDS.contains(fieldName);
+        for (int i = 0; i < expected.size(); i++) {
+            Glyph e = expected.get(i);
+            Glyph a = actual.get(i);
+            String message = "field " + fieldName + ", glyph " + i;
+            if (timeDependent) {
+                assertEquals(maskDigits(e.unicode()), maskDigits(a.unicode()), message);
+            } else {
+                assertEquals(e.unicode(), a.unicode(), message);
+            }
+            assertEquals(e.x(), a.x(), TOLERANCE, message + " x");
+            assertEquals(e.y(), a.y(), TOLERANCE, message + " baseline");
+        }
+    }
+
+    /**
+     * 按基线位置把字形归入模板中的字段
+     */
+    private Map<String, List<Glyph>> extractFieldGlyphs(byte[] pdf) throws IOException {
+        List<Glyph> glyphs = new ArrayList<>();
+        PDFTextStripper stripper = new PDFTextStripper() {
+            @Override
+            protected void processTextPosition(TextPosition text) {
+                glyphs.add(new Glyph(text.getUnicode(), text.getTextMatrix().getTranslateX(),
+                        text.getTextMatrix().getTranslateY(), text.getWidth()));
+            }
+        };
+
+        try (PDDocument document = Loader.loadPDF(pdf)) {
+            stripper.getText(document);
+        }
+
+        Map<String, List<Glyph>> fields = new LinkedHashMap<>();
+        for (Glyph glyph : glyphs) {
+            for (Map.Entry<String, PDRectangle> entry : fieldRects.entrySet()) {
+                if (entry.getValue().contains(glyph.x(), glyph.y())) {
+                    fields.computeIfAbsent(entry.getKey(), key -> new ArrayList<>()).add(glyph);
+                    break;
+                }
+            }
+        }
+        return fields;
+    }
+
+    private Map<String, PDRectangle> readFieldRects() throws IOException {
+        Map<String, PDRectangle> rects = new LinkedHashMap<>();
+        try (PDDocument document = templateCache.loadTemplate()) {
+            for (PDField field : document.getDocumentCatalog().getAcroForm().getFieldTree()) {
+                if (field instanceof PDTextField textField) {
+                    rects.put(textField.getFullyQualifiedName(),
+                            textField.getWidgets().get(0).getRectangle());
+                }
+            }
+        }
+        return rects;
+    }
+
+    /**
+     * 与 CertificateService 相同的方式填充表单并扁平化，用于对比任意字段内容
+     */
+    private byte[] renderAcroForm(Map<String, String> fieldContentMap) throws IOException {
+        try (PDDocument document = templateCache.loadTemplate()) {
+            PDAcroForm acroForm = document.getDocumentCatalog().getAcroForm();
+            PDResources resources = new PDResources();
+            resources.put(COSName.getPDFName("F1"),
+                    PDType0Font.load(document, templateCache.getFont(), true));
+            acroForm.setDefaultResources(resources);
+
+            for (Map.Entry<String, String> entry : fieldContentMap.entrySet()) {
+                PDTextField field = (PDTextField) acroForm.getField(entry.getKey());
+                field.setDefaultAppearance("/F1 12 Tf 0 g");
+                field.setValue(entry.getValue());
+            }
+            acroForm.flatten();
+
+            ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+            document.save(outputStream);
+            return outputStream.toByteArray();
+        }
+    }
+
+    private CertificateService createCertificateService(String engine, String profile) {
+        CertificateConfig serviceConfig = new CertificateConfig();
+        serviceConfig.setFontPath(TEST_FONT_PATH);
+        serviceConfig.setRenderEngine(engine);
+        serviceConfig.setOutputProfile(profile);
+
+        CertificateTemplateCache serviceTemplateCache = new CertificateTemplateCache(serviceConfig);
+        CertificateDocumentWriter serviceDocumentWriter = new CertificateDocumentWriter(
+                serviceConfig, new CertificateSigner(new LocalTimestampAuthority()));
+        return new CertificateService(null, serviceTemplateCache, serviceConfig,
+                new FastCertificateRenderer(serviceTemplateCache, serviceDocumentWriter),
+                serviceDocumentWriter, new CertificateCache());
+    }
+
+    private List<List<Glyph>> lines(List<Glyph> glyphs) {
+        Set<Float> baselines = new TreeSet<>((a, b) -> Float.compare(b, a));
+        glyphs.forEach(glyph -> baselines.add(glyph.y()));
+
+        List<List<Glyph>> lines = new ArrayList<>();
+        for (float baseline : baselines) {
+            List<Glyph> line = new ArrayList<>();
+            for (Glyph glyph : glyphs) {
+                if (glyph.y() == baseline) {
+                    line.add(glyph);
+                }
+            }
+            lines.add(line);
+        }
+        return lines;
+    }
+
+    private String text(List<Glyph> glyphs) {
+        StringBuilder text = new StringBuilder();
+        glyphs.forEach(glyph -> text.append(glyph.unicode()));
+        return text.toString();
+    }
+
+    private String maskDigits(String text) {
+        return text.replaceAll("[0-9]", "0");
+    }
+
+    private EvidenceEntity createTestEvidence() {
+        EvidenceEntity evidence = new EvidenceEntity();
+        evidence.setEvidenceId("test-evidence-123");
+        evidence.setUserAddress("0x1234567890123456789012345678901234567890");
+        evidence.setFileName("测试文件.pdf");
+        evidence.setMimeType("application/pdf");
+        evidence.setFileSize(1024L);
+        evidence.setHashAlgorithm("SHA256");
+        evidence.setHashValue("0x1234567890abcdef1234567890abcdef1234567890abcdef1234567890abcdef");
+        evidence.setBlockNumber(BigInteger.valueOf(12345L));
+        evidence.setTransactionHash("0xabcdef1234567890abcdef1234567890abcdef1234567890abcdef1234567890");
+        evidence.setBlockTimestamp(BigInteger.valueOf(1640995200L));
+        evidence.setMemo("体积回归测试");
+        return evidence;
+    }
+
+    private record Glyph(String unicode, float x, float y, float width) {
+    }
+}
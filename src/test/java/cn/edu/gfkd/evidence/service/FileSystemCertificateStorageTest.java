@@ -0,0 +1,168 @@
+package cn.edu.gfkd.evidence.service;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import cn.edu.gfkd.evidence.config.CertificateStorageConfig;
+import cn.edu.gfkd.evidence.entity.EvidenceEntity;
+import cn.edu.gfkd.evidence.service.storage.CertificateMetadata;
+import cn.edu.gfkd.evidence.service.storage.FileSystemCertificateStorage;
+
+class FileSystemCertificateStorageTest {
+
+    private static final byte[] CONTENT = "%PDF-1.7 test certificate".getBytes(StandardCharsets.UTF_8);
+
+    @TempDir
+    Path baseDir;
+
+    @Test
+    void testStoreCertificate_RecordsMetadataInManifest() throws Exception {
+        FileSystemCertificateStorage storage = createStorage();
+        String certificateId = storage.storeCertificate(createEvidence("EVID:1"),
+                new ByteArrayInputStream(CONTENT));
+
+        CertificateMetadata metadata = storage.getCertificateMetadata(certificateId).orElseThrow();
+        assertEquals(CONTENT.length, metadata.getSize());
+        assertEquals(sha256(CONTENT), metadata.getSha256());
+        assertEquals(CONTENT.length, storage.getCertificateSize(certificateId));
+        assertTrue(storage.certificateExists(certificateId));
+    }
+
+    @Test
+    void testManifest_ReloadedOnRestart() throws Exception {
+        FileSystemCertificateStorage storage = createStorage();
+        String kept = storage.storeCertificate(createEvidence("EVID:1"),
+                new ByteArrayInputStream(CONTENT));
+        String deleted = storage.storeCertificate(createEvidence("EVID:2"),
+                new ByteArrayInputStream(CONTENT));
+        storage.deleteCertificate(deleted);
+        storage.cleanup();
+
+        FileSystemCertificateStorage restarted = createStorage();
+        restarted.initialize();
+
+        assertTrue(restarted.certificateExists(kept));
+        assertFalse(restarted.certificateExists(deleted));
+        assertEquals(sha256(CONTENT),
+                restarted.getCertificateMetadata(kept).orElseThrow().getSha256());
+    }
+
+    @Test
+    void testStoreCertificate_IdenticalContentStoredOnce() throws Exception {
+        FileSystemCertificateStorage storage = createStorage();
+        String first = storage.storeCertificate(createEvidence("EVID:1"),
+                new ByteArrayInputStream(CONTENT));
+        String second = storage.storeCertificate(createEvidence("EVID:2"),
+                new ByteArrayInputStream(CONTENT));
+        Path object = objectPath(sha256(CONTENT));
+
+        assertTrue(Files.exists(object));
+        assertEquals(1, countObjects());
+
+        storage.deleteCertificate(first);
+        assertTrue(Files.exists(object));
+        assertArrayEquals(CONTENT, read(storage, second));
+
+        storage.deleteCertificate(second);
+        assertFalse(Files.exists(object));
+    }
+
+    @Test
+    void testMigrateLegacyLayout_MovesFlatFilesIntoShards() throws Exception {
+        Files.write(baseDir.resolve("cert_EVID_3.pdf"), CONTENT);
+
+        FileSystemCertificateStorage storage = createStorage();
+        storage.initialize();
+
+        // 清单缺失时从平铺目录重建，迁移前即可读取
+        assertTrue(storage.certificateExists("cert_EVID_3"));
+        assertEquals(CONTENT.length, storage.getCertificateSize("cert_EVID_3"));
+        assertTrue(Files.exists(baseDir.resolve(".manifest")));
+        assertArrayEquals(CONTENT, read(storage, "cert_EVID_3"));
+
+        assertEquals(1, storage.migrateLegacyLayout());
+
+        assertFalse(Files.exists(baseDir.resolve("cert_EVID_3.pdf")));
+        assertTrue(Files.exists(objectPath(sha256(CONTENT))));
+        assertArrayEquals(CONTENT, read(storage, "cert_EVID_3"));
+    }
+
+    @Test
+    void testFindCertificatesCreatedBefore_ReturnsOldestFirstFromIndex() throws Exception {
+        String sha256 = sha256(CONTENT);
+        Files.writeString(baseDir.resolve(".manifest"), String.join("\n",
+                "+\tcert_C\t10\t" + sha256 + "\t3000",
+                "+\tcert_A\t10\t" + sha256 + "\t1000",
+                "+\tcert_D\t10\t" + sha256 + "\t5000",
+                "+\tcert_B\t10\t" + sha256 + "\t2000") + "\n");
+
+        FileSystemCertificateStorage storage = createStorage();
+        storage.initialize();
+
+        assertEquals(List.of("cert_A", "cert_B"), ids(storage.findCertificatesCreatedBefore(4000, 2)));
+        assertEquals(List.of("cert_A", "cert_B", "cert_C"),
+                ids(storage.findCertificatesCreatedBefore(4000, 10)));
+
+        storage.deleteCertificate("cert_A");
+        assertEquals(List.of("cert_B", "cert_C"),
+                ids(storage.findCertificatesCreatedBefore(4000, 10)));
+
+        // 重新写入的证书按新的创建时间排序
+        storage.storeCertificate(createEvidence("B"), new ByteArrayInputStream(CONTENT));
+        assertEquals(List.of("cert_C"), ids(storage.findCertificatesCreatedBefore(4000, 10)));
+    }
+
+    private List<String> ids(List<CertificateMetadata> metadata) {
+        return metadata.stream().map(CertificateMetadata::getCertificateId).toList();
+    }
+
+    private FileSystemCertificateStorage createStorage() {
+        CertificateStorageConfig config = new CertificateStorageConfig();
+        config.getFilesystem().setBasePath(baseDir.toString());
+        config.getFilesystem().setMigrateOnStartup(false);
+        return new FileSystemCertificateStorage(config);
+    }
+
+    private byte[] read(FileSystemCertificateStorage storage, String certificateId)
+            throws Exception {
+        try (InputStream inputStream = storage.getCertificate(certificateId).orElseThrow()) {
+            return inputStream.readAllBytes();
+        }
+    }
+
+    private Path objectPath(String sha256) {
+        return baseDir.resolve("objects").resolve(sha256.substring(0, 2))
+                .resolve(sha256.substring(2, 4)).resolve(sha256 + ".pdf");
+    }
+
+    private long countObjects() throws Exception {
+        try (Stream<Path> files = Files.walk(baseDir.resolve("objects"))) {
+            return files.filter(Files::isRegularFile).count();
+        }
+    }
+
+    private EvidenceEntity createEvidence(String evidenceId) {
+        EvidenceEntity evidence = new EvidenceEntity();
+        evidence.setEvidenceId(evidenceId);
+        return evidence;
+    }
+
+    private String sha256(byte[] data) throws Exception {
+        return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(data));
+    }
+}
@@ -0,0 +1,59 @@
+package cn.edu.gfkd.evidence.service;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import cn.edu.gfkd.evidence.enums.RpcPriority;
+import cn.edu.gfkd.evidence.exception.BlockchainException;
+import cn.edu.gfkd.evidence.service.web3.RpcBudgetScheduler;
+
+class RpcBudgetSchedulerTest {
+
+    private RpcBudgetScheduler createScheduler(double rate, int burst, int reserved,
+            long maxWaitMs) {
+        RpcBudgetScheduler scheduler = new RpcBudgetScheduler();
+        ReflectionTestUtils.setField(scheduler, "maxRequestsPerSecond", rate);
+        ReflectionTestUtils.setField(scheduler, "burst", burst);
+        ReflectionTestUtils.setField(scheduler, "reservedTokens", reserved);
+        ReflectionTestUtils.setField(scheduler, "maxWaitMs", maxWaitMs);
+        scheduler.init();
+        return scheduler;
+    }
+
+    @Test
+    void testUnlimited_AlwaysAcquires() {
+        RpcBudgetScheduler scheduler = createScheduler(0, 1, 0, 10);
+
+        for (int i = 0; i < 100; i++) {
+            assertTrue(scheduler.tryAcquire(RpcPriority.AUDIT));
+        }
+    }
+
+    @Test
+    void testReservedTokens_OnlyAvailableToRealTime() {
+        RpcBudgetScheduler scheduler = createScheduler(0.001, 5, 2, 10);
+
+        // 5 个令牌中 2 个预留，回填只能取走 3 个
+        assertTrue(scheduler.tryAcquire(RpcPriority.BACKFILL));
+        assertTrue(scheduler.tryAcquire(RpcPriority.BACKFILL));
+        assertTrue(scheduler.tryAcquire(RpcPriority.BACKFILL));
+        assertFalse(scheduler.tryAcquire(RpcPriority.BACKFILL));
+        assertFalse(scheduler.tryAcquire(RpcPriority.AUDIT));
+
+        assertTrue(scheduler.tryAcquire(RpcPriority.REAL_TIME));
+        assertTrue(scheduler.tryAcquire(RpcPriority.REAL_TIME));
+        assertFalse(scheduler.tryAcquire(RpcPriority.REAL_TIME));
+    }
+
+    @Test
+    void testAcquire_BudgetExhausted_TimesOut() {
+        RpcBudgetScheduler scheduler = createScheduler(0.001, 1, 0, 50);
+        scheduler.acquire(RpcPriority.REAL_TIME);
+
+        assertThrows(BlockchainException.class, () -> scheduler.acquire(RpcPriority.BACKFILL));
+    }
+}
@@ -0,0 +1,436 @@
+package cn.edu.gfkd.evidence.service;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.URLDecoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import cn.edu.gfkd.evidence.config.CertificateStorageConfig;
+import cn.edu.gfkd.evidence.entity.EvidenceEntity;
+import cn.edu.gfkd.evidence.service.storage.CertificateMetadata;
+import cn.edu.gfkd.evidence.service.storage.S3CertificateStorage;
+
+/**
+ * S3 证书存储测试，使用进程内的简易 S3 服务代替 MinIO
+ */
+class S3CertificateStorageTest {
+
+    private static final int PART_SIZE = 64 * 1024;
+    private static final int MAX_CONNECTIONS = 4;
+
+    private FakeS3Server server;
+    private S3CertificateStorage storage;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        server = new FakeS3Server();
+        storage = createStorage();
+        storage.initialize();
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        storage.cleanup();
+        server.stop();
+    }
+
+    @Test
+    void testInitialize_CreatesMissingBucket() {
+        assertTrue(server.bucketCreated);
+    }
+
+    @Test
+    void testStoreAndRead_SmallCertificateUploadedInOnePut() throws Exception {
+        byte[] content = bytes(1);
+        String certificateId = storage.storeCertificate(createEvidence("EVID:1"),
+                new ByteArrayInputStream(content));
+
+        assertEquals("cert_EVID_1", certificateId);
+        assertTrue(server.objects.containsKey("certificates/cert_EVID_1.pdf"));
+        assertArrayEquals(content, read(certificateId));
+        assertTrue(storage.certificateExists(certificateId));
+        assertEquals(content.length, storage.getCertificateSize(certificateId));
+        assertEquals(certificateId, storage.findExistingCertificate(createEvidence("EVID:1"))
+                .orElseThrow());
+        assertEquals(0, storage.getMultipartUploadCount());
+
+        CertificateMetadata metadata = storage.getCertificateMetadata(certificateId).orElseThrow();
+        assertEquals(sha256(content), metadata.getSha256());
+        assertEquals(content.length, metadata.getSize());
+        assertTrue(metadata.getCreatedAtMillis() > 0);
+    }
+
+    @Test
+    void testStoreCertificate_LargeCertificateUsesMultipartUpload() throws Exception {
+        byte[] content = largeContent(PART_SIZE * 3 + 123);
+        String certificateId = storage.storeCertificate(createEvidence("EVID:2"), out -> {
+            // 按小块写入，模拟渲染器的输出
+            for (int offset = 0; offset < content.length; offset += 1000) {
+                out.write(content, offset, Math.min(1000, content.length - offset));
+            }
+        });
+
+        assertEquals(1, storage.getMultipartUploadCount());
+        assertEquals(4, server.partsUploaded.get());
+        assertArrayEquals(content, read(certificateId));
+        assertEquals(content.length, storage.getCertificateSize(certificateId));
+        assertTrue(server.uploads.isEmpty());
+    }
+
+    @Test
+    void testStoreCertificate_FailedWriterAbortsUploadAndKeepsPreviousContent() throws Exception {
+        storage.storeCertificate(createEvidence("EVID:3"), new ByteArrayInputStream(bytes(3)));
+
+        assertThrows(IOException.class, () -> storage.storeCertificate(createEvidence("EVID:3"),
+                out -> {
+                    out.write(largeContent(PART_SIZE * 2));
+                    throw new IOException("renderer crashed");
+                }));
+
+        assertTrue(server.uploads.isEmpty());
+        assertEquals(1, server.abortedUploads.get());
+        assertArrayEquals(bytes(3), read("cert_EVID_3"));
+    }
+
+    @Test
+    void testDeleteCertificate() throws Exception {
+        String certificateId = storage.storeCertificate(createEvidence("EVID:4"),
+                new ByteArrayInputStream(bytes(4)));
+
+        assertTrue(storage.deleteCertificate(certificateId));
+        assertFalse(storage.certificateExists(certificateId));
+        assertTrue(storage.getCertificate(certificateId).isEmpty());
+        assertFalse(storage.deleteCertificate(certificateId));
+    }
+
+    @Test
+    void testGetPublicUrl_ReturnsPresignedUrl() throws Exception {
+        String certificateId = storage.storeCertificate(createEvidence("EVID:5"),
+                new ByteArrayInputStream(bytes(5)));
+
+        String url = storage.getPublicUrl(certificateId).orElseThrow();
+        assertTrue(url.contains("X-Amz-Expires=900"));
+        assertTrue(url.contains("X-Amz-Signature="));
+
+        // 预签名URL不需要任何凭证即可下载
+        HttpResponse<byte[]> response = HttpClient.newHttpClient().send(
+                HttpRequest.newBuilder(URI.create(url)).build(),
+                HttpResponse.BodyHandlers.ofByteArray());
+        assertEquals(200, response.statusCode());
+        assertArrayEquals(bytes(5), response.body());
+    }
+
+    @Test
+    void testPrefetch_ServesReadsFromPrefetchedContent() throws Exception {
+        List<String> certificateIds = new ArrayList<>();
+        for (int i = 10; i < 20; i++) {
+            certificateIds.add(storage.storeCertificate(createEvidence("EVID:" + i),
+                    new ByteArrayInputStream(bytes(i))));
+        }
+
+        storage.prefetch(certificateIds);
+        for (int i = 0; i < certificateIds.size(); i++) {
+            assertArrayEquals(bytes(10 + i), read(certificateIds.get(i)));
+        }
+
+        // 预取到的证书直接返回，每个证书只请求一次
+        assertTrue(storage.getPrefetchHits() > 0);
+        assertEquals(certificateIds.size(), server.getRequests.get());
+    }
+
+    @Test
+    void testConcurrentStores_ReuseBoundedConnections() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < 8; t++) {
+                int thread = t;
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < 20; i++) {
+                        int version = 100 + thread * 20 + i;
+                        storage.storeCertificate(createEvidence("EVID:" + version),
+                                new ByteArrayInputStream(bytes(version)));
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        assertEquals(160, server.objects.size());
+        assertTrue(server.maxConcurrentRequests.get() <= MAX_CONNECTIONS);
+        // 160 次上传复用少量 keep-alive 连接
+        assertTrue(server.clientPorts.size() < 40, "connections: " + server.clientPorts.size());
+    }
+
+    private S3CertificateStorage createStorage() {
+        CertificateStorageConfig config = new CertificateStorageConfig();
+        config.getS3().setEndpoint("http://127.0.0.1:" + server.port());
+        config.getS3().setBucket("evidence");
+        config.getS3().setAccessKey("test-key");
+        config.getS3().setSecretKey("test-secret");
+        config.getS3().setCreateBucket(true);
+        config.getS3().setPartSizeBytes(PART_SIZE);
+        config.getS3().setMaxConnections(MAX_CONNECTIONS);
+        return new S3CertificateStorage(config);
+    }
+
+    private byte[] read(String certificateId) throws Exception {
+        try (InputStream inputStream = storage.getCertificate(certificateId).orElseThrow()) {
+            return inputStream.readAllBytes();
+        }
+    }
+
+    private byte[] bytes(int version) {
+        return ("%PDF-1.7 certificate v" + version).getBytes(StandardCharsets.UTF_8);
+    }
+
+    private byte[] largeContent(int size) {
+        byte[] content = new byte[size];
+        for (int i = 0; i < size; i++) {
+            content[i] = (byte) (i * 31);
+        }
+        return content;
+    }
+
+    private EvidenceEntity createEvidence(String evidenceId) {
+        EvidenceEntity evidence = new EvidenceEntity();
+        evidence.setEvidenceId(evidenceId);
+        return evidence;
+    }
+
+    private static String sha256(byte[] data) throws Exception {
+        return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(data));
+    }
+
+    /**
+     * 进程内的简易 S3 服务：路径风格寻址，支持对象读写、元数据、删除和分片上传，校验请求签名头和负载摘要
+     */
+    private static final class FakeS3Server {
+
+        private static final Pattern PART = Pattern
+                .compile("<PartNumber>(\\d+)</PartNumber><ETag>([^<]+)</ETag>");
+
+        private final HttpServer httpServer;
+        private final ExecutorService executor = Executors.newCachedThreadPool();
+        private final Map<String, StoredObject> objects = new ConcurrentHashMap<>();
+        private final Map<String, Map<Integer, byte[]>> uploads = new ConcurrentHashMap<>();
+        private final Map<String, Map<String, String>> uploadMetadata = new ConcurrentHashMap<>();
+        private final Set<Integer> clientPorts = ConcurrentHashMap.newKeySet();
+        private final AtomicInteger uploadIds = new AtomicInteger();
+        private final AtomicInteger partsUploaded = new AtomicInteger();
+        private final AtomicInteger abortedUploads = new AtomicInteger();
+        private final AtomicInteger getRequests = new AtomicInteger();
+        private final AtomicInteger activeRequests = new AtomicInteger();
+        private final AtomicInteger maxConcurrentRequests = new AtomicInteger();
+        private volatile boolean bucketCreated;
+
+        private FakeS3Server() throws IOException {
+            httpServer = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+            httpServer.setExecutor(executor);
+            httpServer.createContext("/", exchange -> {
+                int active = activeRequests.incrementAndGet();
+                maxConcurrentRequests.accumulateAndGet(active, Math::max);
+                clientPorts.add(exchange.getRemoteAddress().getPort());
+                try {
+                    handle(exchange);
+                } catch (Exception e) {
+                    respond(exchange, 500, e.toString().getBytes(StandardCharsets.UTF_8));
+                } finally {
+                    activeRequests.decrementAndGet();
+                    exchange.close();
+                }
+            });
+            httpServer.start();
+        }
+
+        private int port() {
+            return httpServer.getAddress().getPort();
+        }
+
+        private void stop() {
+            httpServer.stop(0);
+            executor.shutdownNow();
+        }
+
+        private void handle(HttpExchange exchange) throws Exception {
+            String method = exchange.getRequestMethod();
+            Map<String, String> query = parseQuery(exchange.getRequestURI().getRawQuery());
+            byte[] body = exchange.getRequestBody().readAllBytes();
+
+            if (!authorized(exchange, query, body)) {
+                respond(exchange, 403, "<Error><Code>AccessDenied</Code></Error>".getBytes());
+                return;
+            }
+
+            String path = exchange.getRequestURI().getPath();
+            int slash = path.indexOf('/', 1);
+            if (slash < 0) {
+                // 存储桶操作
+                if ("PUT".equals(method)) {
+                    bucketCreated = true;
+                }
+                respond(exchange, bucketCreated ? 200 : 404, null);
+                return;
+            }
+            String key = path.substring(slash + 1);
+
+            switch (method) {
+            case "PUT" -> {
+                if (query.containsKey("uploadId")) {
+                    uploads.get(query.get("uploadId"))
+                            .put(Integer.parseInt(query.get("partNumber")), body);
+                    partsUploaded.incrementAndGet();
+                    exchange.getResponseHeaders().set("ETag", "\"" + sha256(body) + "\"");
+                } else {
+                    objects.put(key, new StoredObject(body, userMetadata(exchange)));
+                }
+                respond(exchange, 200, null);
+            }
+            case "POST" -> {
+                if (query.containsKey("uploads")) {
+                    String uploadId = "upload-" + uploadIds.incrementAndGet();
+                    uploads.put(uploadId, new TreeMap<>());
+                    uploadMetadata.put(uploadId, userMetadata(exchange));
+                    respond(exchange, 200, ("<InitiateMultipartUploadResult><UploadId>"
+                            + uploadId + "</UploadId></InitiateMultipartUploadResult>")
+                            .getBytes(StandardCharsets.UTF_8));
+                } else {
+                    String uploadId = query.get("uploadId");
+                    Map<Integer, byte[]> parts = uploads.remove(uploadId);
+                    ByteArrayOutputStream content = new ByteArrayOutputStream();
+                    Matcher matcher = PART.matcher(new String(body, StandardCharsets.UTF_8));
+                    while (matcher.find()) {
+                        byte[] part = parts.get(Integer.parseInt(matcher.group(1)));
+                        assertEquals("\"" + sha256(part) + "\"", matcher.group(2));
+                        content.write(part);
+                    }
+                    objects.put(key, new StoredObject(content.toByteArray(),
+                            uploadMetadata.remove(uploadId)));
+                    respond(exchange, 200, "<CompleteMultipartUploadResult/>".getBytes());
+                }
+            }
+            case "DELETE" -> {
+                if (query.containsKey("uploadId")) {
+                    uploads.remove(query.get("uploadId"));
+                    abortedUploads.incrementAndGet();
+                } else {
+                    objects.remove(key);
+                }
+                respond(exchange, 204, null);
+            }
+            case "GET", "HEAD" -> {
+                StoredObject object = objects.get(key);
+                if (object == null) {
+                    respond(exchange, 404, "HEAD".equals(method) ? null
+                            : "<Error><Code>NoSuchKey</Code></Error>".getBytes());
+                    return;
+                }
+                object.metadata.forEach((name, value) -> exchange.getResponseHeaders()
+                        .set("x-amz-meta-" + name, value));
+                if ("HEAD".equals(method)) {
+                    exchange.getResponseHeaders().set("Content-Length",
+                            String.valueOf(object.data.length));
+                    exchange.sendResponseHeaders(200, -1);
+                } else {
+                    getRequests.incrementAndGet();
+                    respond(exchange, 200, object.data);
+                }
+            }
+            default -> respond(exchange, 405, null);
+            }
+        }
+
+        private boolean authorized(HttpExchange exchange, Map<String, String> query, byte[] body)
+                throws Exception {
+            if (query.containsKey("X-Amz-Signature")) {
+                return query.get("X-Amz-Credential").startsWith("test-key/");
+            }
+
+            String authorization = exchange.getRequestHeaders().getFirst("Authorization");
+            String payloadHash = exchange.getRequestHeaders().getFirst("x-amz-content-sha256");
+            return authorization != null
+                    && authorization.startsWith("AWS4-HMAC-SHA256 Credential=test-key/")
+                    && authorization.contains("SignedHeaders=host;")
+                    && sha256(body).equals(payloadHash);
+        }
+
+        private Map<String, String> userMetadata(HttpExchange exchange) {
+            Map<String, String> metadata = new TreeMap<>();
+            exchange.getRequestHeaders().forEach((name, values) -> {
+                if (name.toLowerCase().startsWith("x-amz-meta-")) {
+                    metadata.put(name.toLowerCase().substring("x-amz-meta-".length()),
+                            values.get(0));
+                }
+            });
+            return metadata;
+        }
+
+        private Map<String, String> parseQuery(String rawQuery) {
+            Map<String, String> query = new TreeMap<>();
+            if (rawQuery == null || rawQuery.isEmpty()) {
+                return query;
+            }
+            for (String parameter : rawQuery.split("&")) {
+                int equals = parameter.indexOf('=');
+                String name = equals < 0 ? parameter : parameter.substring(0, equals);
+                String value = equals < 0 ? "" : parameter.substring(equals + 1);
+                query.put(name, URLDecoder.decode(value, StandardCharsets.UTF_8));
+            }
+            return query;
+        }
+
+        private void respond(HttpExchange exchange, int status, byte[] body) throws IOException {
+            if (body == null) {
+                exchange.sendResponseHeaders(status, -1);
+                return;
+            }
+            exchange.sendResponseHeaders(status, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        }
+
+        private record StoredObject(byte[] data, Map<String, String> metadata) {
+        }
+    }
+}
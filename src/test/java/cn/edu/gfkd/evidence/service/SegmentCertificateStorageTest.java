@@ -0,0 +1,184 @@
+package cn.edu.gfkd.evidence.service;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import cn.edu.gfkd.evidence.config.CertificateStorageConfig;
+import cn.edu.gfkd.evidence.entity.EvidenceEntity;
+import cn.edu.gfkd.evidence.service.storage.SegmentCertificateStorage;
+
+class SegmentCertificateStorageTest {
+
+    @TempDir
+    Path baseDir;
+
+    private SegmentCertificateStorage storage;
+
+    @AfterEach
+    void tearDown() throws Exception {
+        if (storage != null) {
+            storage.cleanup();
+        }
+    }
+
+    @Test
+    void testStoreAndRead_ServesFromSegment() throws Exception {
+        storage = createStorage(1024 * 1024);
+        String certificateId = storage.storeCertificate(createEvidence("EVID:1"), content(1));
+
+        assertTrue(storage.certificateExists(certificateId));
+        assertEquals(bytes(1).length, storage.getCertificateSize(certificateId));
+        assertArrayEquals(bytes(1), read(certificateId));
+        assertArrayEquals(bytes(1), storage.getCertificateResource(certificateId).orElseThrow()
+                .getContentAsByteArray());
+    }
+
+    @Test
+    void testRestart_RebuildsIndexFromSegments() throws Exception {
+        storage = createStorage(1024 * 1024);
+        storage.storeCertificate(createEvidence("EVID:1"), content(1));
+        storage.storeCertificate(createEvidence("EVID:2"), content(2));
+        storage.storeCertificate(createEvidence("EVID:1"), content(3));
+        storage.deleteCertificate("cert_EVID_2");
+        storage.cleanup();
+
+        storage = createStorage(1024 * 1024);
+        storage.initialize();
+
+        assertArrayEquals(bytes(3), read("cert_EVID_1"));
+        assertFalse(storage.certificateExists("cert_EVID_2"));
+    }
+
+    @Test
+    void testRestart_TruncatesIncompleteTailRecord() throws Exception {
+        storage = createStorage(1024 * 1024);
+        storage.storeCertificate(createEvidence("EVID:1"), content(1));
+        storage.cleanup();
+
+        Path segment = baseDir.resolve("segment-000001.dat");
+        long validSize = Files.size(segment);
+        Files.write(segment, new byte[] { 0x43, 0x45, 0x52 }, StandardOpenOption.APPEND);
+
+        storage = createStorage(1024 * 1024);
+        storage.initialize();
+        storage.storeCertificate(createEvidence("EVID:2"), content(2));
+
+        assertArrayEquals(bytes(1), read("cert_EVID_1"));
+        assertArrayEquals(bytes(2), read("cert_EVID_2"));
+        assertTrue(Files.size(segment) > validSize);
+    }
+
+    @Test
+    void testCompact_RemovesSegmentsWithDeletedCertificates() throws Exception {
+        // 每个段只能放下一条记录
+        storage = createStorage(64);
+        for (int i = 1; i <= 4; i++) {
+            storage.storeCertificate(createEvidence("EVID:" + i), content(i));
+        }
+        storage.deleteCertificate("cert_EVID_1");
+        storage.deleteCertificate("cert_EVID_2");
+        int segmentsBefore = storage.getSegmentCount();
+
+        assertTrue(storage.compact() >= 2);
+        assertTrue(storage.getSegmentCount() < segmentsBefore);
+        assertArrayEquals(bytes(3), read("cert_EVID_3"));
+        assertArrayEquals(bytes(4), read("cert_EVID_4"));
+
+        storage.cleanup();
+        storage = createStorage(64);
+        storage.initialize();
+        assertFalse(storage.certificateExists("cert_EVID_1"));
+        assertFalse(storage.certificateExists("cert_EVID_2"));
+        assertArrayEquals(bytes(4), read("cert_EVID_4"));
+    }
+
+    @Test
+    void testCompact_DropsTombstonesWithoutOlderPut() throws Exception {
+        // 每个段只能放下一条写入记录：段1 保留有效证书，段2 的写入记录随后被删除
+        storage = createStorage(64);
+        storage.storeCertificate(createEvidence("EVID:3"), content(3));
+        storage.storeCertificate(createEvidence("EVID:1"), content(1));
+        storage.deleteCertificate("cert_EVID_1");
+        storage.storeCertificate(createEvidence("EVID:4"), content(4));
+
+        assertEquals(2, storage.compact());
+
+        // 段1 没有 cert_EVID_1 的写入记录，删除记录不再搬移，否则会占用新的段
+        assertEquals(2, storage.getSegmentCount());
+        assertEquals(0, storage.compact());
+
+        storage.cleanup();
+        storage = createStorage(64);
+        storage.initialize();
+        assertFalse(storage.certificateExists("cert_EVID_1"));
+        assertArrayEquals(bytes(3), read("cert_EVID_3"));
+        assertArrayEquals(bytes(4), read("cert_EVID_4"));
+    }
+
+    @Test
+    void testRestart_TruncatesTailRecordWithDigestMismatch() throws Exception {
+        storage = createStorage(1024 * 1024);
+        storage.storeCertificate(createEvidence("EVID:1"), content(1));
+        storage.storeCertificate(createEvidence("EVID:2"), content(2));
+        storage.cleanup();
+
+        // 记录结构完整，但最后写入的内容没有完整落盘
+        Path segment = baseDir.resolve("segment-000001.dat");
+        byte[] contents = Files.readAllBytes(segment);
+        contents[contents.length - 1] ^= 0x01;
+        Files.write(segment, contents);
+
+        storage = createStorage(1024 * 1024);
+        storage.initialize();
+        assertArrayEquals(bytes(1), read("cert_EVID_1"));
+        assertFalse(storage.certificateExists("cert_EVID_2"));
+
+        storage.storeCertificate(createEvidence("EVID:3"), content(3));
+        storage.cleanup();
+        storage = createStorage(1024 * 1024);
+        storage.initialize();
+        assertArrayEquals(bytes(1), read("cert_EVID_1"));
+        assertArrayEquals(bytes(3), read("cert_EVID_3"));
+    }
+
+    private SegmentCertificateStorage createStorage(long maxSegmentBytes) {
+        CertificateStorageConfig config = new CertificateStorageConfig();
+        config.getSegment().setBasePath(baseDir.toString());
+        config.getSegment().setMaxSegmentBytes(maxSegmentBytes);
+        config.getSegment().setCompactionIntervalMs(0);
+        return new SegmentCertificateStorage(config);
+    }
+
+    private byte[] read(String certificateId) throws Exception {
+        try (InputStream inputStream = storage.getCertificate(certificateId).orElseThrow()) {
+            return inputStream.readAllBytes();
+        }
+    }
+
+    private InputStream content(int version) {
+        return new ByteArrayInputStream(bytes(version));
+    }
+
+    private byte[] bytes(int version) {
+        return ("%PDF-1.7 certificate v" + version).getBytes(StandardCharsets.UTF_8);
+    }
+
+    private EvidenceEntity createEvidence(String evidenceId) {
+        EvidenceEntity evidence = new EvidenceEntity();
+        evidence.setEvidenceId(evidenceId);
+        return evidence;
+    }
+}
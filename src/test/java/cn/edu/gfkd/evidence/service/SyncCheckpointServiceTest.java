@@ -0,0 +1,214 @@
+package cn.edu.gfkd.evidence.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.math.BigInteger;
+import java.util.List;
+import java.util.Optional;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import cn.edu.gfkd.evidence.entity.SyncStatus;
+import cn.edu.gfkd.evidence.repository.SyncStatusRepository;
+import cn.edu.gfkd.evidence.service.retry.RetryHandler;
+import cn.edu.gfkd.evidence.service.sync.BlockRange;
+import cn.edu.gfkd.evidence.service.sync.SyncCheckpointService;
+
+@ExtendWith(MockitoExtension.class) @MockitoSettings(strictness = Strictness.LENIENT)
+class SyncCheckpointServiceTest {
+
+    private static final String CONTRACT = "0x5FbDB2315678afecb367f032d93F642f64180aa3";
+
+    @Mock
+    private SyncStatusRepository syncStatusRepository;
+
+    @Mock
+    private RetryHandler retryHandler;
+
+    private SyncCheckpointService checkpointService;
+
+    @BeforeEach
+    void setUp() {
+        checkpointService = new SyncCheckpointService(syncStatusRepository, retryHandler);
+        ReflectionTestUtils.setField(checkpointService, "flushIntervalMs", 60_000L);
+        ReflectionTestUtils.setField(checkpointService, "flushEveryBlocks", 1_000L);
+
+        when(retryHandler.executeWithRetry(any(), anyString()))
+                .thenAnswer(inv -> ((RetryHandler.RetryableOperation<?>) inv.getArgument(0))
+                        .execute());
+        when(retryHandler.executeWithRetryTransactional(any(), anyString()))
+                .thenAnswer(inv -> ((RetryHandler.RetryableOperation<?>) inv.getArgument(0))
+                        .execute());
+        when(syncStatusRepository.findById(CONTRACT)).thenReturn(
+                Optional.of(new SyncStatus(CONTRACT, BigInteger.valueOf(100))));
+        when(syncStatusRepository.save(any(SyncStatus.class)))
+                .thenAnswer(inv -> inv.getArgument(0));
+
+        checkpointService.start(CONTRACT);
+    }
+
+    @AfterEach
+    void tearDown() {
+        checkpointService.stop();
+    }
+
+    @Test
+    void testMarkRangeCompleted_Contiguous_AdvancesWithoutWriting() {
+        checkpointService.markRangeCompleted(BigInteger.valueOf(101), BigInteger.valueOf(200));
+        checkpointService.markRangeCompleted(BigInteger.valueOf(201), BigInteger.valueOf(300));
+
+        assertEquals(BigInteger.valueOf(300), checkpointService.getCheckpoint());
+        assertEquals(BigInteger.valueOf(100), checkpointService.getFlushedCheckpoint());
+        verify(syncStatusRepository, never()).save(any(SyncStatus.class));
+    }
+
+    @Test
+    void testMarkRangeCompleted_WithGap_HoldsCheckpointUntilGapFilled() {
+        checkpointService.markRangeCompleted(BigInteger.valueOf(201), BigInteger.valueOf(300));
+        assertEquals(BigInteger.valueOf(100), checkpointService.getCheckpoint());
+
+        checkpointService.markRangeCompleted(BigInteger.valueOf(101), BigInteger.valueOf(200));
+        assertEquals(BigInteger.valueOf(300), checkpointService.getCheckpoint());
+    }
+
+    @Test
+    void testMarkRangeCompleted_ExceedsBlockThreshold_FlushesOnce() {
+        checkpointService.markRangeCompleted(BigInteger.valueOf(101), BigInteger.valueOf(1100));
+
+        ArgumentCaptor<SyncStatus> captor = ArgumentCaptor.forClass(SyncStatus.class);
+        verify(syncStatusRepository, times(1)).save(captor.capture());
+        assertEquals(BigInteger.valueOf(1100), captor.getValue().getLastBlockNumber());
+        assertEquals(BigInteger.valueOf(1100), checkpointService.getFlushedCheckpoint());
+    }
+
+    @Test
+    void testMarkRangeCompleted_IgnoresOlderBlocks() {
+        checkpointService.markRangeCompleted(BigInteger.valueOf(101), BigInteger.valueOf(150));
+        checkpointService.markRangeCompleted(BigInteger.valueOf(120), BigInteger.valueOf(120));
+
+        assertEquals(BigInteger.valueOf(150), checkpointService.getCheckpoint());
+    }
+
+    @Test
+    void testStop_FlushesPendingCheckpoint() {
+        checkpointService.markRangeCompleted(BigInteger.valueOf(101), BigInteger.valueOf(150));
+
+        checkpointService.stop();
+
+        ArgumentCaptor<SyncStatus> captor = ArgumentCaptor.forClass(SyncStatus.class);
+        verify(syncStatusRepository, times(1)).save(captor.capture());
+        assertEquals(BigInteger.valueOf(150), captor.getValue().getLastBlockNumber());
+    }
+
+    @Test
+    void testFindGaps_ReportsHolesBetweenCompletedRanges() {
+        checkpointService.markRangeCompleted(BigInteger.valueOf(201), BigInteger.valueOf(300));
+        checkpointService.markRangeCompleted(BigInteger.valueOf(401), BigInteger.valueOf(500));
+
+        List<BlockRange> gaps = checkpointService.findGaps();
+
+        assertEquals(2, gaps.size());
+        assertEquals(BigInteger.valueOf(101), gaps.get(0).getStartBlock());
+        assertEquals(BigInteger.valueOf(200), gaps.get(0).getEndBlock());
+        assertEquals(BigInteger.valueOf(301), gaps.get(1).getStartBlock());
+        assertEquals(BigInteger.valueOf(400), gaps.get(1).getEndBlock());
+        assertEquals(BigInteger.valueOf(500), checkpointService.getHighestCompletedBlock());
+    }
+
+    @Test
+    void testMarkSingleBlock_LeavesUnseenBlocksAsGaps() {
+        checkpointService.markRangeCompleted(BigInteger.valueOf(201), BigInteger.valueOf(300));
+
+        checkpointService.markRangeCompleted(BigInteger.valueOf(350), BigInteger.valueOf(350));
+
+        List<BlockRange> gaps = checkpointService.findGaps();
+        assertEquals(BigInteger.valueOf(100), checkpointService.getCheckpoint());
+        assertEquals(2, gaps.size());
+        assertEquals(BigInteger.valueOf(301), gaps.get(1).getStartBlock());
+        assertEquals(BigInteger.valueOf(349), gaps.get(1).getEndBlock());
+    }
+
+    @Test
+    void testMarkRangeCompleted_CoalescesAdjacentRanges() {
+        checkpointService.markRangeCompleted(BigInteger.valueOf(201), BigInteger.valueOf(300));
+        checkpointService.markRangeCompleted(BigInteger.valueOf(301), BigInteger.valueOf(310));
+        checkpointService.markRangeCompleted(BigInteger.valueOf(311), BigInteger.valueOf(320));
+        checkpointService.flush();
+
+        ArgumentCaptor<SyncStatus> captor = ArgumentCaptor.forClass(SyncStatus.class);
+        verify(syncStatusRepository).save(captor.capture());
+        assertEquals("201-320", captor.getValue().getCompletedRanges());
+    }
+
+    @Test
+    void testMarkRangeIncomplete_SplitsCompletedRangesAndPersistsGap() {
+        checkpointService.markRangeCompleted(BigInteger.valueOf(101), BigInteger.valueOf(200));
+        checkpointService.markRangeCompleted(BigInteger.valueOf(301), BigInteger.valueOf(400));
+
+        checkpointService.markRangeIncomplete(BigInteger.valueOf(151), BigInteger.valueOf(350));
+
+        assertEquals(BigInteger.valueOf(150), checkpointService.getCheckpoint());
+        assertEquals(BigInteger.valueOf(400), checkpointService.getHighestCompletedBlock());
+        List<BlockRange> gaps = checkpointService.findGaps();
+        assertEquals(1, gaps.size());
+        assertEquals(BigInteger.valueOf(151), gaps.get(0).getStartBlock());
+        assertEquals(BigInteger.valueOf(350), gaps.get(0).getEndBlock());
+
+        // 缺口立即持久化，回退后的检查点和剩余范围在重启后仍然有效
+        ArgumentCaptor<SyncStatus> captor = ArgumentCaptor.forClass(SyncStatus.class);
+        verify(syncStatusRepository).save(captor.capture());
+        assertEquals(BigInteger.valueOf(150), captor.getValue().getLastBlockNumber());
+        assertEquals("351-400", captor.getValue().getCompletedRanges());
+        assertEquals(BigInteger.valueOf(150), checkpointService.getFlushedCheckpoint());
+    }
+
+    @Test
+    void testMarkRangeIncomplete_AlreadyMissing_SkipsWrite() {
+        checkpointService.markRangeCompleted(BigInteger.valueOf(301), BigInteger.valueOf(400));
+
+        checkpointService.markRangeIncomplete(BigInteger.valueOf(201), BigInteger.valueOf(300));
+
+        assertEquals(BigInteger.valueOf(100), checkpointService.getCheckpoint());
+        verify(syncStatusRepository, never()).save(any(SyncStatus.class));
+    }
+
+    @Test
+    void testFlush_PersistsCompletedRangesAndRestoresOnStart() {
+        checkpointService.markRangeCompleted(BigInteger.valueOf(201), BigInteger.valueOf(300));
+        checkpointService.flush();
+
+        ArgumentCaptor<SyncStatus> captor = ArgumentCaptor.forClass(SyncStatus.class);
+        verify(syncStatusRepository).save(captor.capture());
+        assertEquals("201-300", captor.getValue().getCompletedRanges());
+
+        checkpointService.stop();
+        when(syncStatusRepository.findById(CONTRACT)).thenReturn(Optional.of(captor.getValue()));
+        checkpointService.start(CONTRACT);
+
+        assertEquals(BigInteger.valueOf(100), checkpointService.getCheckpoint());
+        assertEquals(BigInteger.valueOf(300), checkpointService.getHighestCompletedBlock());
+        assertEquals(1, checkpointService.findGaps().size());
+    }
+
+    @Test
+    void testFlush_NothingNew_SkipsWrite() {
+        checkpointService.flush();
+
+        verify(syncStatusRepository, never()).save(any(SyncStatus.class));
+    }
+}
@@ -0,0 +1,154 @@
+package cn.edu.gfkd.evidence.service.signing;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.security.Signature;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.pdfbox.Loader;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.interactive.digitalsignature.PDSignature;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+class CertificateSignerTest {
+
+    private CertificateSigner certificateSigner;
+
+    @BeforeEach
+    void setUp() {
+        certificateSigner = new CertificateSigner(new LocalTimestampAuthority());
+        ReflectionTestUtils.setField(certificateSigner, "enabled", true);
+        ReflectionTestUtils.setField(certificateSigner, "allowSelfSigned", true);
+    }
+
+    @Test
+    void testSign_EmbedsDetachedCadesSignatureOverByteRange() throws Exception {
+        byte[] pdf = createPdf("single");
+
+        byte[] signed = certificateSigner.sign(pdf);
+
+        assertSigned(signed, true);
+    }
+
+    @Test
+    void testSign_WithoutTimestamp_OmitsTimestampToken() throws Exception {
+        ReflectionTestUtils.setField(certificateSigner, "timestampEnabled", false);
+
+        byte[] signed = certificateSigner.sign(createPdf("no-timestamp"));
+
+        assertSigned(signed, false);
+    }
+
+    @Test
+    void testSignBatch_ReturnsSignedDocumentsInInputOrder() throws Exception {
+        List<byte[]> pdfs = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            pdfs.add(createPdf("batch-" + i));
+        }
+
+        List<byte[]> signed = certificateSigner.signBatch(pdfs);
+
+        assertEquals(pdfs.size(), signed.size());
+        for (int i = 0; i < signed.size(); i++) {
+            assertSigned(signed.get(i), true);
+            try (PDDocument document = Loader.loadPDF(signed.get(i))) {
+                assertEquals("batch-" + i, document.getDocumentInformation().getTitle());
+            }
+        }
+        certificateSigner.shutdown();
+    }
+
+    @Test
+    void testSignBatch_InvalidDocument_ThrowsIOException() throws Exception {
+        List<byte[]> pdfs = List.of(createPdf("valid"), "not a pdf".getBytes());
+
+        assertThrows(IOException.class, () -> certificateSigner.signBatch(pdfs));
+        certificateSigner.shutdown();
+    }
+
+    @Test
+    void testLoadSigningKey_WithoutKeystore_FailsUnlessSelfSignedAllowed() throws Exception {
+        CertificateSigner signer = new CertificateSigner(new LocalTimestampAuthority());
+        ReflectionTestUtils.setField(signer, "enabled", true);
+
+        assertThrows(IllegalStateException.class, signer::loadSigningKey);
+
+        ReflectionTestUtils.setField(signer, "allowSelfSigned", true);
+        signer.loadSigningKey();
+        assertNotNull(signer.getSigningCertificate());
+    }
+
+    @Test
+    void testSignatureValue_VerifiesWithSigningCertificate() throws Exception {
+        SelfSignedCertificates.Issued issued = SelfSignedCertificates.issue("Test Signer", false,
+                Duration.ofDays(1));
+        CmsSignatureBuilder builder = new CmsSignatureBuilder(issued.keyPair().getPrivate(),
+                List.of(issued.certificate()));
+        byte[] signedAttributes = builder.signedAttributes(CmsSignatureBuilder.OID_DATA,
+                CmsSignatureBuilder.sha256("content".getBytes()));
+
+        // 同一线程重复签名复用 Signature 实例，每次结果都应可验证
+        for (int i = 0; i < 3; i++) {
+            byte[] signatureValue = builder.sign(signedAttributes);
+            Signature verifier = Signature.getInstance("SHA256withRSA");
+            verifier.initVerify(issued.certificate());
+            verifier.update(signedAttributes);
+            assertTrue(verifier.verify(signatureValue));
+        }
+    }
+
+    private void assertSigned(byte[] signed, boolean withTimestamp) throws Exception {
+        try (PDDocument document = Loader.loadPDF(signed)) {
+            PDSignature signature = document.getLastSignatureDictionary();
+            assertNotNull(signature);
+            assertEquals(PDSignature.SUBFILTER_ETSI_CADES_DETACHED.getName(),
+                    signature.getSubFilter());
+
+            // ByteRange 覆盖除签名占位以外的整个文件
+            int[] byteRange = signature.getByteRange();
+            assertEquals(0, byteRange[0]);
+            assertEquals(signed.length, byteRange[2] + byteRange[3]);
+
+            byte[] cms = signature.getContents(signed);
+            assertTrue(contains(cms, Der.oid(CmsSignatureBuilder.OID_SIGNED_DATA)));
+            // messageDigest 属性必须是签名范围内容的摘要
+            byte[] contentDigest = CmsSignatureBuilder.sha256(signature.getSignedContent(signed));
+            assertTrue(contains(cms, Der.octetString(contentDigest)));
+            assertTrue(contains(cms, certificateSigner.getSigningCertificate().getEncoded()));
+            assertEquals(withTimestamp,
+                    contains(cms, Der.oid(CmsSignatureBuilder.OID_SIGNATURE_TIMESTAMP_TOKEN)));
+        }
+    }
+
+    private static byte[] createPdf(String title) throws IOException {
+        try (PDDocument document = new PDDocument()) {
+            document.addPage(new PDPage());
+            document.getDocumentInformation().setTitle(title);
+            ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+            document.save(outputStream);
+            return outputStream.toByteArray();
+        }
+    }
+
+    private static boolean contains(byte[] data, byte[] pattern) {
+        outer: for (int i = 0; i <= data.length - pattern.length; i++) {
+            for (int j = 0; j < pattern.length; j++) {
+                if (data[i + j] != pattern[j]) {
+                    continue outer;
+                }
+            }
+            return true;
+        }
+        return false;
+    }
+}